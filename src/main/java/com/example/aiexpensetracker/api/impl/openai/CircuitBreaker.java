@@ -0,0 +1,169 @@
+package com.example.aiexpensetracker.api.impl.openai;
+
+import java.time.Duration;
+
+/**
+ * A count-based circuit breaker. While closed, it remembers the outcome of the last {@code windowSize} calls
+ * and opens once at least {@code minimumCalls} of them were made and the share of failures reaches
+ * {@code failureRateThreshold}. While open, every call is refused. After {@code openDuration} it lets
+ * {@code halfOpenCalls} probe calls through: it closes once they all succeeded, and opens again on the first
+ * that failed. All methods are synchronized; they only do arithmetic.
+ * <p>
+ * Every change of state starts a new generation, and a permit belongs to the generation it was taken in.
+ * Outcomes of permits from an earlier generation are ignored, so that a slow call made while the breaker was
+ * still closed can neither close nor reopen it once it has moved on.
+ */
+public class CircuitBreaker {
+
+    /**
+     * Returned by {@link #tryAcquire()} when the call is refused.
+     */
+    public static final long REFUSED = -1;
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    /**
+     * The outcomes of the last calls while closed, as a ring; true for a failure.
+     */
+    private final boolean[] window;
+    private int recorded;
+    private int next;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    public CircuitBreaker(
+            double failureRateThreshold,
+            int windowSize,
+            int minimumCalls,
+            Duration openDuration,
+            int halfOpenCalls
+    ) {
+        if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+            throw new IllegalArgumentException("The failure rate threshold must be in (0, 1].");
+        }
+        if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize || halfOpenCalls < 1) {
+            throw new IllegalArgumentException(
+                    "The window size, minimum calls and half-open calls must be positive, with minimum calls at most the window size.");
+        }
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.window = new boolean[windowSize];
+    }
+
+    /**
+     * Asks to make a call; a caller that is let through must report its outcome with the returned permit.
+     *
+     * @return the permit of the call, or {@link #REFUSED} if the call may not be made.
+     */
+    public synchronized long tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return REFUSED;
+            }
+            transition(State.HALF_OPEN);
+            probesStarted = 0;
+            probesSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= halfOpenCalls) {
+                return REFUSED;
+            }
+            probesStarted++;
+        }
+        return generation;
+    }
+
+    /**
+     * Hands back a call that was let through but not made, without counting it either way.
+     *
+     * @param permit the permit of the call.
+     */
+    public synchronized void release(long permit) {
+        if (permit == generation && state == State.HALF_OPEN && probesStarted > probesSucceeded) {
+            probesStarted--;
+        }
+    }
+
+    public synchronized void onSuccess(long permit) {
+        if (permit != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            if (++probesSucceeded >= halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure(long permit) {
+        if (permit != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && failures >= failureRateThreshold * recorded) {
+                open();
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        transition(State.OPEN);
+        openedAt = System.nanoTime();
+    }
+
+    private void close() {
+        transition(State.CLOSED);
+        recorded = 0;
+        next = 0;
+        failures = 0;
+    }
+
+    private void transition(State next) {
+        state = next;
+        generation++;
+    }
+}
@@ -2,43 +2,113 @@ package com.example.aiexpensetracker.api.impl.openai;
 
 import com.example.aiexpensetracker.core.api.aiservice.AIService;
 import com.example.aiexpensetracker.rest.dto.category.CategorySuggestionResponseDTO;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.theokanning.openai.completion.CompletionRequest;
 import com.theokanning.openai.service.OpenAiService;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
-
+/**
+ * Asks OpenAI's completion API for category suggestions. The blocking HTTP calls run on the given executor,
+ * never on the caller's thread. A call that fails, e.g. on a connection error or an error status, completes
+ * the future exceptionally, so that {@link ResilientAIService} can tell an unavailable API from an answer;
+ * an answer that cannot be read is the default error response.
+ */
 public class OpenAIService implements AIService {
+    /**
+     * The most descriptions asked for in one prompt; longer batches are split, so that a prompt and its
+     * answer stay well within the model's context and one bad answer fails only part of a batch.
+     */
+    static final int MAX_BATCH_SIZE = 25;
+
     private final OpenAiService openAiService;
+    private final Executor executor;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public OpenAIService(OpenAiService openAiService) {
+    public OpenAIService(OpenAiService openAiService, Executor executor) {
         this.openAiService = openAiService;
+        this.executor = executor;
     }
 
     @Override
-    public CategorySuggestionResponseDTO suggestCategory(String description, List<String> existingCategories) {
+    public CompletableFuture<CategorySuggestionResponseDTO> suggestCategory(
+            String description,
+            List<String> existingCategories
+    ) {
         String prompt = generatePrompt(description, existingCategories);
         CompletionRequest completionRequest = buildCompletionRequest(prompt);
 
+        return CompletableFuture.supplyAsync(() -> fetchOpenAIResponse(completionRequest), executor)
+                .thenApply(response -> {
+                    try {
+                        return parseResponse(response);
+                    } catch (Exception e) {
+                        return new CategorySuggestionResponseDTO(null, null, 400); // Default error response
+                    }
+                });
+    }
+
+    @Override
+    public CompletableFuture<List<CategorySuggestionResponseDTO>> suggestCategories(
+            List<String> descriptions,
+            List<String> existingCategories
+    ) {
+        List<CompletableFuture<List<CategorySuggestionResponseDTO>>> chunks = new ArrayList<>();
         try {
-            String response = fetchOpenAIResponse(completionRequest);
-            return parseResponse(response);
-        } catch (Exception e) {
-            return new CategorySuggestionResponseDTO(null, null, 400); // Default error response
+            for (int from = 0; from < descriptions.size(); from += MAX_BATCH_SIZE) {
+                List<String> chunk = descriptions.subList(from, Math.min(from + MAX_BATCH_SIZE, descriptions.size()));
+                chunks.add(suggestChunk(chunk, existingCategories));
+            }
+        } catch (RejectedExecutionException ex) {
+            // The batch is refused whole; the prompts already queued are dropped rather than asked for nothing.
+            chunks.forEach(chunk -> chunk.cancel(false));
+            throw ex;
         }
+        return CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            List<CategorySuggestionResponseDTO> suggestions = new ArrayList<>(descriptions.size());
+            chunks.forEach(chunk -> suggestions.addAll(chunk.join()));
+            return suggestions;
+        });
+    }
+
+    private CompletableFuture<List<CategorySuggestionResponseDTO>> suggestChunk(
+            List<String> descriptions,
+            List<String> existingCategories
+    ) {
+        String prompt = generateBatchPrompt(descriptions, existingCategories);
+        // Each answer takes about as many tokens as the single answer's object.
+        CompletionRequest completionRequest = buildCompletionRequest(prompt, 50 + 40 * descriptions.size());
+
+        // The answer is read in the task itself, so that cancelling the returned future drops a queued prompt.
+        return CompletableFuture.supplyAsync(() -> {
+            String response = fetchOpenAIResponse(completionRequest);
+            try {
+                return parseBatchResponse(response, descriptions.size());
+            } catch (Exception e) {
+                return Collections.nCopies(descriptions.size(), new CategorySuggestionResponseDTO(null, null, 400));
+            }
+        }, executor);
     }
 
     private CompletionRequest buildCompletionRequest(String prompt) {
+        return buildCompletionRequest(prompt, 150);
+    }
+
+    private CompletionRequest buildCompletionRequest(String prompt, int maxTokens) {
         return CompletionRequest.builder()
                 .prompt(prompt)
                 .model("gpt-3.5-turbo-instruct")
-                .maxTokens(150)
+                .maxTokens(maxTokens)
                 .build();
     }
 
-    private String fetchOpenAIResponse(CompletionRequest completionRequest) throws Exception {
+    private String fetchOpenAIResponse(CompletionRequest completionRequest) {
         return openAiService.createCompletion(completionRequest)
                 .getChoices()
                 .get(0)
@@ -55,6 +125,53 @@ public class OpenAIService implements AIService {
         return new CategorySuggestionResponseDTO(categoryName, isNew, status);
     }
 
+    /**
+     * Fans the answers of a batch prompt back out by their index; a description the model skipped or answered
+     * with something other than an object of the expected fields gets the default error response.
+     */
+    private List<CategorySuggestionResponseDTO> parseBatchResponse(String response, int size) throws Exception {
+        List<CategorySuggestionResponseDTO> suggestions =
+                new ArrayList<>(Collections.nCopies(size, new CategorySuggestionResponseDTO(null, null, 400)));
+        List<?> parsed = objectMapper.readValue(response, List.class);
+        for (Object item : parsed) {
+            if (!(item instanceof Map<?, ?> answer) || !(answer.get("index") instanceof Integer index)
+                    || index < 0 || index >= size) {
+                continue;
+            }
+            if (answer.get("categoryName") instanceof String categoryName
+                    && answer.get("isNew") instanceof Boolean isNew
+                    && answer.get("status") instanceof Integer status) {
+                suggestions.set(index, new CategorySuggestionResponseDTO(categoryName, isNew, status));
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * Numbers the descriptions one per line, each as a JSON string, so that quotes or line breaks in a description
+     * cannot end it early or forge the line of another number.
+     */
+    private String generateBatchPrompt(List<String> descriptions, List<String> existingCategories) {
+        StringBuilder numbered = new StringBuilder();
+        for (int i = 0; i < descriptions.size(); i++) {
+            numbered.append(i).append(": \"")
+                    .append(JsonStringEncoder.getInstance().quoteAsString(descriptions.get(i)))
+                    .append("\"\n");
+        }
+        return """
+            The user has the following expense categories: %s.
+            Based on this list, suggest the most suitable category for each of the following numbered expense descriptions,
+            each given as a JSON string:
+            %s
+            Respond with a JSON array holding one object per description, with the fields:
+            - "index" (number): the number of the description.
+            - "categoryName" (string): the suggested category name (can be an existing or a new one).
+            - "isNew" (boolean): true if the category is new, false if it matches an existing one.
+            - "status" (number): 200 if the category suggestion is successful, or 400 if the description is invalid
+            (be a bit strict when trying to validate description).
+            """.formatted(String.join(", ", existingCategories), numbered);
+    }
+
     private String generatePrompt(String description, List<String> existingCategories) {
         return """
             The user has the following expense categories: %s.
@@ -0,0 +1,173 @@
+package com.example.aiexpensetracker.api.impl.openai;
+
+import com.example.aiexpensetracker.core.api.aiservice.AIService;
+import com.example.aiexpensetracker.rest.dto.category.CategorySuggestionResponseDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Guards an {@link AIService} whose calls run on a bounded executor of their own, the bulkhead, so that
+ * a slow or failing AI API cannot take up the threads of the rest of the application.
+ * <ul>
+ *     <li>A call that is not answered within the timeout fails.</li>
+ *     <li>Failed and timed out calls count towards the {@link CircuitBreaker}; while it is open, calls are not
+ *     made at all.</li>
+ *     <li>A call the bulkhead has no room for, a call refused by the circuit breaker and a call that failed are
+ *     answered at once with status 503, which is not cached, so the suggestion is asked for again next time.</li>
+ *     <li>A batch of suggestions is one call. {@link OpenAIService} splits it into prompts of at most
+ *     {@link OpenAIService#MAX_BATCH_SIZE} descriptions that run side by side, so the bulkhead's room for all of
+ *     them is reserved before the first one is made: a batch runs whole or falls back whole, and never leaves
+ *     some of its prompts running for an answer nobody gets.</li>
+ * </ul>
+ * Calls are counted as "ai.calls" by outcome ({@code success}, {@code failure}, {@code timeout},
+ * {@code rejected}, {@code short_circuited}); the circuit's state is published as "ai.circuit.state", 1 for the
+ * current state and 0 for the others, and the bulkhead's busy threads and waiting calls as
+ * "ai.bulkhead.active" and "ai.bulkhead.queued".
+ */
+public class ResilientAIService implements AIService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilientAIService.class);
+
+    private final AIService delegate;
+    private final CircuitBreaker circuitBreaker;
+    /** The bulkhead's threads and queue places not yet taken by a call, so that a batch can take all it needs. */
+    private final Semaphore slots;
+    private final Duration timeout;
+    private final Counter successes;
+    private final Counter failures;
+    private final Counter timeouts;
+    private final Counter rejected;
+    private final Counter shortCircuited;
+
+    public ResilientAIService(
+            AIService delegate,
+            ThreadPoolExecutor bulkhead,
+            CircuitBreaker circuitBreaker,
+            Duration timeout,
+            MeterRegistry meterRegistry
+    ) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.slots = new Semaphore(bulkhead.getMaximumPoolSize() + bulkhead.getQueue().remainingCapacity());
+        this.timeout = timeout;
+
+        this.successes = calls(meterRegistry, "success");
+        this.failures = calls(meterRegistry, "failure");
+        this.timeouts = calls(meterRegistry, "timeout");
+        this.rejected = calls(meterRegistry, "rejected");
+        this.shortCircuited = calls(meterRegistry, "short_circuited");
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder("ai.circuit.state", circuitBreaker, breaker -> breaker.getState() == state ? 1 : 0)
+                    .description("Whether the circuit breaker in front of the AI service is in the state")
+                    .tag("state", state.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+        Gauge.builder("ai.bulkhead.active", bulkhead, ThreadPoolExecutor::getActiveCount)
+                .description("AI calls in progress")
+                .register(meterRegistry);
+        Gauge.builder("ai.bulkhead.queued", bulkhead, executor -> executor.getQueue().size())
+                .description("AI calls waiting for a free thread of the bulkhead")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public CompletableFuture<CategorySuggestionResponseDTO> suggestCategory(
+            String description,
+            List<String> existingCategories
+    ) {
+        return call(1, () -> delegate.suggestCategory(description, existingCategories),
+                ResilientAIService::unavailable);
+    }
+
+    @Override
+    public CompletableFuture<List<CategorySuggestionResponseDTO>> suggestCategories(
+            List<String> descriptions,
+            List<String> existingCategories
+    ) {
+        int prompts = (descriptions.size() + OpenAIService.MAX_BATCH_SIZE - 1) / OpenAIService.MAX_BATCH_SIZE;
+        return call(Math.max(prompts, 1), () -> delegate.suggestCategories(descriptions, existingCategories),
+                () -> Collections.nCopies(descriptions.size(), unavailable()));
+    }
+
+    /**
+     * Makes a call that takes the given number of the bulkhead's slots, which are held until it is answered or
+     * times out; the HTTP client gives up at the same time, so by then the bulkhead's threads are free again.
+     */
+    private <T> CompletableFuture<T> call(int slotCount, Supplier<CompletableFuture<T>> call, Supplier<T> fallback) {
+        if (!slots.tryAcquire(slotCount)) {
+            // The bulkhead is full; that says nothing about the AI service, so the circuit breaker is not asked.
+            rejected.increment();
+            return CompletableFuture.completedFuture(fallback.get());
+        }
+        long permit = circuitBreaker.tryAcquire();
+        if (permit == CircuitBreaker.REFUSED) {
+            slots.release(slotCount);
+            shortCircuited.increment();
+            return CompletableFuture.completedFuture(fallback.get());
+        }
+
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RejectedExecutionException ex) {
+            // A thread that answered its call has not yet taken the next one from the queue; the call is handed back.
+            slots.release(slotCount);
+            circuitBreaker.release(permit);
+            rejected.increment();
+            return CompletableFuture.completedFuture(fallback.get());
+        }
+
+        // The caller's stages run on the common pool rather than on a bulkhead thread or the timeout's timer.
+        CompletableFuture<T> answer = future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((result, ex) -> slots.release(slotCount));
+        return answer.handleAsync((result, ex) -> {
+            if (ex == null) {
+                circuitBreaker.onSuccess(permit);
+                successes.increment();
+                return result;
+            }
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof RejectedExecutionException) {
+                circuitBreaker.release(permit);
+                rejected.increment();
+                return fallback.get();
+            }
+            circuitBreaker.onFailure(permit);
+            if (cause instanceof TimeoutException) {
+                timeouts.increment();
+                log.warn("The AI service did not answer within {} ms", timeout.toMillis());
+            } else {
+                failures.increment();
+                log.warn("The AI service call failed", cause);
+            }
+            return fallback.get();
+        });
+    }
+
+    private static CategorySuggestionResponseDTO unavailable() {
+        return new CategorySuggestionResponseDTO(null, null, 503);
+    }
+
+    private static Counter calls(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("ai.calls")
+                .description("Calls to the AI service by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
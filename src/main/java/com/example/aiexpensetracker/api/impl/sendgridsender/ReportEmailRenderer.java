@@ -0,0 +1,217 @@
+package com.example.aiexpensetracker.api.impl.sendgridsender;
+
+import com.example.aiexpensetracker.rest.dto.report.CategoryTotalDTO;
+import com.example.aiexpensetracker.rest.dto.report.UserReportResponseDTO;
+import com.example.aiexpensetracker.rest.dto.statistics.ExpenseDTO;
+import com.samskivert.mustache.Mustache;
+import com.samskivert.mustache.Template;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Renders report emails from the "templates/email/report.mustache" template, which is compiled once when the
+ * renderer is created; the template engine HTML-escapes every value. A report with more expenses than the cap
+ * lists only the largest ones and sums up the rest in one line, so that a busy month does not turn into a
+ * multi-megabyte email. The same view is the template data of a SendGrid dynamic template.
+ * Emails are rendered into a small pool of reused buffers, sized up front from the number of rows.
+ */
+@Component
+public class ReportEmailRenderer {
+
+    static final String SUBJECT = "Monthly Expense Report";
+
+    private static final String TEMPLATE = "templates/email/report.mustache";
+
+    /**
+     * Rough lengths of the template without rows and of one rendered row, for sizing the buffer.
+     */
+    private static final int BASE_LENGTH = 512;
+    private static final int ROW_LENGTH = 96;
+
+    /**
+     * Buffers kept for reuse; one that grew beyond the largest pooled capacity is left to the garbage collector.
+     */
+    private static final int POOLED_BUFFERS = 32;
+    private static final int MAX_POOLED_CAPACITY = 256 * 1024;
+
+    private static final Comparator<ExpenseDTO> BY_AMOUNT = Comparator.comparing(ExpenseDTO::getAmount);
+
+    private final Template template;
+    private final int maxExpenses;
+    private final BlockingQueue<StringBuilder> buffers = new ArrayBlockingQueue<>(POOLED_BUFFERS);
+
+    /**
+     * @param maxExpenses the number of expenses an email lists at most, the largest first.
+     */
+    public ReportEmailRenderer(@Value("${report.email.max-expenses:100}") int maxExpenses) {
+        this.maxExpenses = Math.max(1, maxExpenses);
+        try (Reader reader = new InputStreamReader(
+                new ClassPathResource(TEMPLATE).getInputStream(), StandardCharsets.UTF_8)) {
+            this.template = Mustache.compiler().nullValue("").compile(reader);
+        } catch (IOException ex) {
+            throw new IllegalStateException("The email template " + TEMPLATE + " could not be read.", ex);
+        }
+    }
+
+    /**
+     * @return the subject of report emails.
+     */
+    public String getSubject() {
+        return SUBJECT;
+    }
+
+    /**
+     * Renders a user's report as the HTML body of their email.
+     *
+     * @param report the report to render.
+     * @return the HTML of the email.
+     */
+    public String render(UserReportResponseDTO report) {
+        Map<String, Object> view = view(report);
+        int rows = report.getCategoryTotals().size() + ((List<?>) view.get("expenses")).size();
+
+        StringBuilder buffer = borrowBuffer(BASE_LENGTH + rows * ROW_LENGTH);
+        try {
+            template.execute(view, new BufferWriter(buffer));
+            return buffer.toString();
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    /**
+     * Builds the values the email shows, with amounts as plain strings and the expenses capped.
+     * Keys: subject, userEmail, totalAmount, categoryTotals (categoryName, totalAmount), expenses (date, amount,
+     * description), expenseCount, shownExpenses, truncated, and omittedExpenses and omittedAmount for the rest.
+     *
+     * @param report the report to show.
+     * @return the values by name, in a stable order.
+     */
+    public Map<String, Object> view(UserReportResponseDTO report) {
+        List<CategoryTotalDTO> categories = report.getCategoryTotals();
+        List<Map<String, Object>> categoryTotals = new ArrayList<>(categories.size());
+        for (CategoryTotalDTO category : categories) {
+            Map<String, Object> categoryTotal = new LinkedHashMap<>(4);
+            categoryTotal.put("categoryName", category.getCategoryName());
+            categoryTotal.put("totalAmount", category.getTotalAmount().toPlainString());
+            categoryTotals.add(categoryTotal);
+        }
+
+        List<ExpenseDTO> allExpenses = report.getExpenses();
+        boolean truncated = allExpenses.size() > maxExpenses;
+        List<ExpenseDTO> shown = truncated ? largest(allExpenses) : allExpenses;
+        List<Map<String, Object>> expenses = new ArrayList<>(shown.size());
+        BigDecimal shownAmount = BigDecimal.ZERO;
+        for (ExpenseDTO expense : shown) {
+            Map<String, Object> item = new LinkedHashMap<>(4);
+            item.put("date", String.valueOf(expense.getDate()));
+            item.put("amount", expense.getAmount().toPlainString());
+            item.put("description", expense.getDescription());
+            expenses.add(item);
+            shownAmount = shownAmount.add(expense.getAmount());
+        }
+
+        Map<String, Object> view = new LinkedHashMap<>(16);
+        view.put("subject", SUBJECT);
+        view.put("userEmail", report.getUserEmail());
+        view.put("totalAmount", report.getTotalAmount().toPlainString());
+        view.put("categoryTotals", categoryTotals);
+        view.put("expenses", expenses);
+        view.put("expenseCount", allExpenses.size());
+        view.put("shownExpenses", shown.size());
+        view.put("truncated", truncated);
+        if (truncated) {
+            BigDecimal totalAmount = BigDecimal.ZERO;
+            for (ExpenseDTO expense : allExpenses) {
+                totalAmount = totalAmount.add(expense.getAmount());
+            }
+            view.put("omittedExpenses", allExpenses.size() - shown.size());
+            view.put("omittedAmount", totalAmount.subtract(shownAmount).toPlainString());
+        }
+        return view;
+    }
+
+    /**
+     * @return the largest expenses up to the cap, largest first, picked with a heap of the cap's size.
+     */
+    private List<ExpenseDTO> largest(List<ExpenseDTO> expenses) {
+        PriorityQueue<ExpenseDTO> smallestOnTop = new PriorityQueue<>(maxExpenses + 1, BY_AMOUNT);
+        for (ExpenseDTO expense : expenses) {
+            smallestOnTop.add(expense);
+            if (smallestOnTop.size() > maxExpenses) {
+                smallestOnTop.poll();
+            }
+        }
+        List<ExpenseDTO> largest = new ArrayList<>(smallestOnTop);
+        largest.sort(BY_AMOUNT.reversed());
+        return largest;
+    }
+
+    private StringBuilder borrowBuffer(int capacity) {
+        StringBuilder buffer = buffers.poll();
+        if (buffer == null) {
+            return new StringBuilder(capacity);
+        }
+        buffer.setLength(0);
+        buffer.ensureCapacity(capacity);
+        return buffer;
+    }
+
+    private void releaseBuffer(StringBuilder buffer) {
+        if (buffer.capacity() <= MAX_POOLED_CAPACITY) {
+            buffers.offer(buffer);
+        }
+    }
+
+    /**
+     * Appends to a buffer; unlike StringWriter it neither synchronizes nor allocates a buffer of its own.
+     */
+    private static final class BufferWriter extends Writer {
+
+        private final StringBuilder buffer;
+
+        private BufferWriter(StringBuilder buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            buffer.append(chars, offset, length);
+        }
+
+        @Override
+        public void write(String text, int offset, int length) {
+            buffer.append(text, offset, offset + length);
+        }
+
+        @Override
+        public Writer append(CharSequence text) {
+            buffer.append(text);
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.aiexpensetracker.api.impl.sendgridsender;
+
+import com.example.aiexpensetracker.exception.mail.MailDeliveryException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects items submitted from many threads into batches, so that one request can carry several of them.
+ * A batch is sent by the thread that fills it, or after the linger time by a virtual thread if it is not
+ * filled by then. Every item's future completes with the outcome of its item in the batch.
+ * Closing sends the batch still open, and items submitted afterwards fail at once.
+ *
+ * @param <T> the type of the items.
+ */
+final class SendGridBatcher<T> implements AutoCloseable {
+
+    private final int maxSize;
+    private final Duration linger;
+    private final Function<List<T>, List<RuntimeException>> sender;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sendgrid-batch-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Batch<T> open;
+    private boolean closed;
+
+    /**
+     * @param maxSize the number of items at which a batch is sent right away.
+     * @param linger  how long a batch waits for more items before it is sent anyway.
+     * @param sender  sends one batch and returns the failure of each item, null for an item that was sent;
+     *                throwing fails every item of the batch.
+     */
+    SendGridBatcher(int maxSize, Duration linger, Function<List<T>, List<RuntimeException>> sender) {
+        this.maxSize = maxSize;
+        this.linger = linger;
+        this.sender = sender;
+    }
+
+    /**
+     * @param item the item to send.
+     * @return a future completed once the item's batch was sent, or failed with the batch's exception.
+     */
+    CompletableFuture<Void> submit(T item) {
+        CompletableFuture<Void> sent = new CompletableFuture<>();
+        Batch<T> full = null;
+        synchronized (this) {
+            if (closed) {
+                sent.completeExceptionally(new MailDeliveryException("The mail sender is shut down."));
+                return sent;
+            }
+            if (open == null) {
+                Batch<T> batch = new Batch<>();
+                open = batch;
+                timer.schedule(() -> flush(batch), linger.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            open.items.add(item);
+            open.futures.add(sent);
+            if (open.items.size() >= maxSize) {
+                full = open;
+                open = null;
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return sent;
+    }
+
+    @Override
+    public void close() {
+        Batch<T> last;
+        synchronized (this) {
+            closed = true;
+            last = open;
+            open = null;
+        }
+        timer.shutdownNow();
+        if (last != null) {
+            // Its linger flush will not run any more, and its senders are waiting for it.
+            send(last);
+        }
+    }
+
+    private void flush(Batch<T> batch) {
+        synchronized (this) {
+            if (open != batch) {
+                // Already sent by the thread that filled it.
+                return;
+            }
+            open = null;
+        }
+        Thread.startVirtualThread(() -> send(batch));
+    }
+
+    private void send(Batch<T> batch) {
+        List<RuntimeException> failures;
+        try {
+            failures = sender.apply(batch.items);
+        } catch (RuntimeException ex) {
+            batch.futures.forEach(future -> future.completeExceptionally(ex));
+            return;
+        }
+        for (int i = 0; i < batch.futures.size(); i++) {
+            RuntimeException failure = failures.get(i);
+            if (failure != null) {
+                batch.futures.get(i).completeExceptionally(failure);
+            } else {
+                batch.futures.get(i).complete(null);
+            }
+        }
+    }
+
+    private static final class Batch<T> {
+
+        private final List<T> items = new ArrayList<>();
+        private final List<CompletableFuture<Void>> futures = new ArrayList<>();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.aiexpensetracker.api.impl.sendgridsender;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces requests evenly so that no more than the configured number start per second, across all threads.
+ * Each caller reserves the next free slot and sleeps until it comes; a limiter that was idle lets the
+ * next request through at once, without saving up a burst.
+ */
+final class SendGridRateLimiter {
+
+    private final long intervalNanos;
+    private long nextSlot;
+
+    /**
+     * @param requestsPerSecond the highest rate; 0 or less disables the limit.
+     */
+    SendGridRateLimiter(double requestsPerSecond) {
+        this.intervalNanos = requestsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond) : 0;
+        this.nextSlot = System.nanoTime();
+    }
+
+    /**
+     * Blocks until the caller may send its request.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    void acquire() throws InterruptedException {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long slot;
+        synchronized (this) {
+            slot = Math.max(nextSlot, System.nanoTime());
+            nextSlot = slot + intervalNanos;
+        }
+        long wait = slot - System.nanoTime();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
@@ -1,77 +1,312 @@
 package com.example.aiexpensetracker.api.impl.sendgridsender;
 
 import com.example.aiexpensetracker.core.api.mailsender.MailSender;
+import com.example.aiexpensetracker.exception.mail.MailDeliveryException;
 import com.example.aiexpensetracker.rest.dto.report.UserReportResponseDTO;
+import com.sendgrid.Client;
 import com.sendgrid.Method;
 import com.sendgrid.Request;
 import com.sendgrid.Response;
 import com.sendgrid.SendGrid;
 import com.sendgrid.helpers.mail.Mail;
 import com.sendgrid.helpers.mail.objects.Content;
+import com.sendgrid.helpers.mail.objects.Email;
+import com.sendgrid.helpers.mail.objects.Personalization;
+import jakarta.annotation.PreDestroy;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Sends reports through the SendGrid v3 mail API.
+ * <ul>
+ *     <li>One SendGrid client and one pool of HTTP connections are shared by all sends.</li>
+ *     <li>With a dynamic template configured, reports sent at about the same time go out together, one
+ *     personalization per user carrying the report as template data, in one request per batch. Without a
+ *     template every report is its own HTML email, rendered by {@link ReportEmailRenderer}.</li>
+ *     <li>Requests start at no more than the configured rate, whatever the number of sending threads.</li>
+ *     <li>Responses 429 and 5xx, and I/O errors, are retried with jittered exponential backoff,
+ *     or after the delay SendGrid asks for.</li>
+ *     <li>A batch SendGrid rejects for good, e.g. for one invalid address, is split in halves until the
+ *     recipients it was rejected for fail on their own, so that the others are still sent.</li>
+ * </ul>
+ */
 @Service
 public class SendGridSender implements MailSender {
 
-    @Value("${sendgrid.api.key}")
-    private String sendGridApiKey;
+    private static final Logger log = LoggerFactory.getLogger(SendGridSender.class);
+
+    /**
+     * SendGrid's limit of personalizations per request.
+     */
+    private static final int MAX_PERSONALIZATIONS = 1000;
+
+    private final ReportEmailRenderer renderer;
+    private final CloseableHttpClient httpClient;
+    private final SendGrid sendGrid;
+    private final Semaphore connectionPermits;
+    private final String fromEmail;
+    private final String templateId;
+    private final SendGridRateLimiter rateLimiter;
+    private final SendGridBatcher<UserReportResponseDTO> batcher;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+
+    public SendGridSender(
+            ReportEmailRenderer renderer,
+            @Value("${sendgrid.api.key}") String sendGridApiKey,
+            @Value("${sendgrid.base-url:https://api.sendgrid.com}") String baseUrl,
+            @Value("${sendgrid.from-email:enis.abaza@stu.ibu.edu.ba}") String fromEmail,
+            @Value("${sendgrid.template-id:}") String templateId,
+            @Value("${sendgrid.batch-size:100}") int batchSize,
+            @Value("${sendgrid.batch-linger:PT0.05S}") Duration batchLinger,
+            @Value("${sendgrid.requests-per-second:10}") double requestsPerSecond,
+            @Value("${sendgrid.max-connections:16}") int maxConnections,
+            @Value("${sendgrid.max-attempts:4}") int maxAttempts,
+            @Value("${sendgrid.retry-backoff:PT0.5S}") Duration retryBackoff
+    ) {
+        this.renderer = renderer;
+        PoolingHttpClientConnectionManager connections = new PoolingHttpClientConnectionManager();
+        connections.setMaxTotal(maxConnections);
+        connections.setDefaultMaxPerRoute(maxConnections);
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connections)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(5_000)
+                        .setConnectionRequestTimeout(30_000)
+                        .setSocketTimeout(30_000)
+                        .build())
+                .build();
+        // The pool waits for a free connection while holding a monitor, which pins a virtual thread to its
+        // carrier; taking a permit first means no sender ever waits inside the pool.
+        this.connectionPermits = new Semaphore(maxConnections);
+
+        // A plain http base URL is only used against a local stand-in of the API.
+        URI uri = URI.create(baseUrl);
+        this.sendGrid = new SendGrid(sendGridApiKey, new Client(httpClient, "http".equals(uri.getScheme())));
+        this.sendGrid.setHost(uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort());
+
+        this.fromEmail = fromEmail;
+        this.templateId = templateId;
+        this.rateLimiter = new SendGridRateLimiter(requestsPerSecond);
+        this.batcher = templateId.isBlank()
+                ? null
+                : new SendGridBatcher<>(Math.min(Math.max(batchSize, 1), MAX_PERSONALIZATIONS), batchLinger,
+                        this::sendTemplateBatch);
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.retryBackoff = retryBackoff;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (batcher != null) {
+            batcher.close();
+        }
+        httpClient.close();
+    }
 
     @Override
     public void sendEmails(List<UserReportResponseDTO> reports) {
-        SendGrid sendGrid = new SendGrid(sendGridApiKey);
+        List<CompletableFuture<Void>> sends = new ArrayList<>(reports.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (UserReportResponseDTO report : reports) {
+                sends.add(CompletableFuture.runAsync(() -> sendEmail(report), executor));
+            }
+        }
 
-        for (UserReportResponseDTO report : reports) {
-            String emailContent = generateEmailContent(report);
+        long failures = sends.stream().filter(CompletableFuture::isCompletedExceptionally).count();
+        if (failures > 0) {
+            Throwable first = sends.stream()
+                    .filter(CompletableFuture::isCompletedExceptionally)
+                    .findFirst()
+                    .map(send -> send.handle((ignored, ex) -> ex.getCause() != null ? ex.getCause() : ex).join())
+                    .orElseThrow();
+            throw new MailDeliveryException(
+                    failures + " of " + reports.size() + " emails could not be sent: " + first.getMessage());
+        }
+    }
 
-            com.sendgrid.helpers.mail.objects.Email fromEmail = new com.sendgrid.helpers.mail.objects.Email("enis.abaza@stu.ibu.edu.ba");
-            com.sendgrid.helpers.mail.objects.Email toEmail = new com.sendgrid.helpers.mail.objects.Email(report.getUserEmail());
-            Content content = new Content("text/html", emailContent);
+    @Override
+    public void sendEmail(UserReportResponseDTO report) {
+        if (batcher == null) {
+            send(htmlMail(report), report.getUserEmail());
+            return;
+        }
+        try {
+            batcher.submit(report).join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+    }
 
-            Mail mail = new Mail(fromEmail, "Monthly Expense Report", toEmail, content);
+    private List<RuntimeException> sendTemplateBatch(List<UserReportResponseDTO> reports) {
+        RuntimeException[] failures = new RuntimeException[reports.size()];
+        sendTemplateBatch(reports, 0, failures);
+        return Arrays.asList(failures);
+    }
 
-            try {
-                Request request = new Request();
-                request.setMethod(Method.POST);
-                request.setEndpoint("mail/send");
-                request.setBody(mail.build());
-                Response response = sendGrid.api(request);
+    private void sendTemplateBatch(List<UserReportResponseDTO> reports, int offset, RuntimeException[] failures) {
+        try {
+            String recipients = reports.size() == 1 ? reports.get(0).getUserEmail() : reports.size() + " recipients";
+            send(templateMail(reports), recipients);
+        } catch (MailRejectedException ex) {
+            if (reports.size() == 1) {
+                failures[offset] = ex;
+                return;
+            }
+            log.warn("SendGrid rejected a batch of {} emails; sending it in halves", reports.size());
+            int half = reports.size() / 2;
+            sendTemplateBatchPart(reports.subList(0, half), offset, failures);
+            sendTemplateBatchPart(reports.subList(half, reports.size()), offset + half, failures);
+        }
+    }
 
-                System.out.println("Email sent to " + report.getUserEmail() + ": " + response.getStatusCode());
+    /**
+     * Sends part of a batch that was split, failing only that part if it cannot be sent, since the other part
+     * may have been sent already.
+     */
+    private void sendTemplateBatchPart(List<UserReportResponseDTO> reports, int offset, RuntimeException[] failures) {
+        try {
+            sendTemplateBatch(reports, offset, failures);
+        } catch (MailDeliveryException ex) {
+            Arrays.fill(failures, offset, offset + reports.size(), ex);
+        }
+    }
+
+    private Mail templateMail(List<UserReportResponseDTO> reports) {
+        Mail mail = new Mail();
+        mail.setFrom(new Email(fromEmail));
+        mail.setTemplateId(templateId);
+        for (UserReportResponseDTO report : reports) {
+            // One personalization per user, so every recipient gets their own email with their own data.
+            Personalization personalization = new Personalization();
+            personalization.addTo(new Email(report.getUserEmail()));
+            renderer.view(report).forEach(personalization::addDynamicTemplateData);
+            mail.addPersonalization(personalization);
+        }
+        return mail;
+    }
+
+    /**
+     * Sends one request to the mail API, waiting for the rate limiter before every attempt.
+     *
+     * @param mail       the mail to send.
+     * @param recipients the recipients, for messages.
+     * @throws MailRejectedException if SendGrid rejected the request with a status that is not retried.
+     * @throws MailDeliveryException if the request failed otherwise, or ran out of attempts.
+     */
+    private void send(Mail mail, String recipients) {
+        Request request = new Request();
+        request.setMethod(Method.POST);
+        request.setEndpoint("mail/send");
+        try {
+            request.setBody(mail.build());
+        } catch (IOException ex) {
+            throw new MailDeliveryException("Failed to build the email to " + recipients + ": " + ex.getMessage());
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            Response response = null;
+            String failure;
+            try {
+                rateLimiter.acquire();
+                connectionPermits.acquire();
+                try {
+                    response = sendGrid.api(request);
+                } finally {
+                    connectionPermits.release();
+                }
+                if (response.getStatusCode() >= 200 && response.getStatusCode() < 300) {
+                    log.debug("Email sent to {}: {}", recipients, response.getStatusCode());
+                    return;
+                }
+                failure = "status " + response.getStatusCode() + " " + response.getBody();
             } catch (IOException ex) {
-                System.err.println("Failed to send email to " + report.getUserEmail() + ": " + ex.getMessage());
+                failure = ex.getMessage();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new MailDeliveryException("Interrupted while sending the email to " + recipients + ".");
+            }
+
+            boolean retryable = response == null || response.getStatusCode() == 429 || response.getStatusCode() >= 500;
+            if (!retryable || attempt >= maxAttempts) {
+                String message = "Failed to send email to " + recipients + " after " + attempt
+                        + (attempt == 1 ? " attempt: " : " attempts: ") + failure;
+                throw retryable ? new MailDeliveryException(message) : new MailRejectedException(message);
+            }
+
+            Duration delay = retryDelay(attempt, response);
+            log.warn("Sending email to {} failed with {}; retrying in {} ms", recipients, failure, delay.toMillis());
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new MailDeliveryException("Interrupted while sending the email to " + recipients + ".");
             }
         }
     }
 
-    private String generateEmailContent(UserReportResponseDTO report) {
-        StringBuilder content = new StringBuilder();
-        content.append("<h1>Monthly Expense Report</h1>");
-        content.append("<p>Total Expenses: ").append(report.getTotalAmount()).append("</p>");
-        content.append("<h2>Expenses by Category</h2>");
-        content.append("<ul>");
-        for (var category : report.getCategoryTotals()) {
-            content.append("<li>")
-                    .append(category.getCategoryName())
-                    .append(": ")
-                    .append(category.getTotalAmount())
-                    .append("</li>");
+    /**
+     * The backoff doubles with every attempt, and a random half of it is dropped so that senders that failed
+     * together do not retry together. A delay asked for by SendGrid is waited at least.
+     */
+    private Duration retryDelay(int attempt, Response response) {
+        long backoffMillis = retryBackoff.toMillis() << Math.min(attempt - 1, 10);
+        long delayMillis = backoffMillis / 2 + ThreadLocalRandom.current().nextLong(backoffMillis / 2 + 1);
+        if (response != null) {
+            delayMillis = Math.max(delayMillis, requestedDelayMillis(response.getHeaders()));
         }
-        content.append("</ul>");
-        content.append("<h2>All Expenses</h2>");
-        content.append("<ul>");
-        for (var expense : report.getExpenses()) {
-            content.append("<li>")
-                    .append("Date: ").append(expense.getDate())
-                    .append(", Amount: ").append(expense.getAmount())
-                    .append(", Description: ").append(expense.getDescription())
-                    .append("</li>");
+        return Duration.ofMillis(delayMillis);
+    }
+
+    private static long requestedDelayMillis(Map<String, String> headers) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            try {
+                if (header.getKey().equalsIgnoreCase("Retry-After")) {
+                    return Math.min(Long.parseLong(header.getValue().trim()), 60) * 1000;
+                }
+                if (header.getKey().equalsIgnoreCase("X-RateLimit-Reset")) {
+                    long untilReset = Long.parseLong(header.getValue().trim()) * 1000 - System.currentTimeMillis();
+                    return Math.max(0, Math.min(untilReset, 60_000));
+                }
+            } catch (NumberFormatException ex) {
+                // Not a number of seconds; fall back to the backoff.
+            }
         }
-        content.append("</ul>");
-        return content.toString();
+        return 0;
     }
-}
 
+    private Mail htmlMail(UserReportResponseDTO report) {
+        Content content = new Content("text/html", renderer.render(report));
+        return new Mail(new Email(fromEmail), renderer.getSubject(), new Email(report.getUserEmail()), content);
+    }
+
+    /**
+     * SendGrid refused a request with a status that is not retried, e.g. 400 for an invalid address.
+     */
+    private static final class MailRejectedException extends MailDeliveryException {
+
+        MailRejectedException(String message) {
+            super(message);
+        }
+    }
+}
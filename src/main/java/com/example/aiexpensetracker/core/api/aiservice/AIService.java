@@ -2,8 +2,38 @@ package com.example.aiexpensetracker.core.api.aiservice;
 
 import com.example.aiexpensetracker.rest.dto.category.CategorySuggestionResponseDTO;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface AIService {
-    CategorySuggestionResponseDTO suggestCategory(String description, List<String> existingCategories);
-}
\ No newline at end of file
+
+    /**
+     * Suggests a category for an expense description, without blocking the caller on the AI call.
+     *
+     * @param description        the expense description.
+     * @param existingCategories the names of the user's categories.
+     * @return a CompletableFuture containing the suggestion.
+     */
+    CompletableFuture<CategorySuggestionResponseDTO> suggestCategory(String description, List<String> existingCategories);
+
+    /**
+     * Suggests a category for each of several descriptions of the same user.
+     * Implementations should ask for all of them at once; by default they are asked for one by one.
+     *
+     * @param descriptions       the expense descriptions.
+     * @param existingCategories the names of the user's categories.
+     * @return a CompletableFuture containing one suggestion per description, in the same order.
+     */
+    default CompletableFuture<List<CategorySuggestionResponseDTO>> suggestCategories(
+            List<String> descriptions,
+            List<String> existingCategories
+    ) {
+        List<CompletableFuture<CategorySuggestionResponseDTO>> suggestions = new ArrayList<>(descriptions.size());
+        for (String description : descriptions) {
+            suggestions.add(suggestCategory(description, existingCategories));
+        }
+        return CompletableFuture.allOf(suggestions.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> suggestions.stream().map(CompletableFuture::join).toList());
+    }
+}
@@ -4,6 +4,24 @@ import com.example.aiexpensetracker.rest.dto.report.UserReportResponseDTO;
 
 import java.util.List;
 
+/**
+ * Delivers users' reports by email. Both methods may be called from several threads at once.
+ */
 public interface MailSender {
+
+    /**
+     * Sends the reports, concurrently where the provider allows it, and returns once every one was handled.
+     *
+     * @param reports the reports to send.
+     * @throws com.example.aiexpensetracker.exception.mail.MailDeliveryException if any report could not be sent.
+     */
     void sendEmails(List<UserReportResponseDTO> reports);
+
+    /**
+     * Sends one report and returns once the provider accepted it.
+     *
+     * @param report the report to send.
+     * @throws com.example.aiexpensetracker.exception.mail.MailDeliveryException if the report could not be sent.
+     */
+    void sendEmail(UserReportResponseDTO report);
 }
@@ -1,6 +1,7 @@
 package com.example.aiexpensetracker.core.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -38,8 +39,9 @@ public class Category {
      * The user who owns this category.
      * This is a many-to-one relationship, as one user can have multiple categories.
      * The foreign key is stored in the 'user_email' column.
+     * Loaded lazily; getUser().getId() is available without loading the user.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_email", nullable = false)
     private User user;
 
@@ -47,8 +49,11 @@ public class Category {
      * List of expenses associated with this category.
      * This is a one-to-many relationship.
      * Expenses are automatically removed if the category is deleted (orphan removal).
+     * When several categories are removed together (e.g. with their user), their expenses are
+     * loaded in batches instead of with one query per category.
      */
     @OneToMany(mappedBy = "category", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 50)
     private List<Expense> expenses;
 
     /**
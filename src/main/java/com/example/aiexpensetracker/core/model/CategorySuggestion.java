@@ -0,0 +1,112 @@
+package com.example.aiexpensetracker.core.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing a stored category suggestion of the AI service.
+ * Maps to the 'category_suggestions' table in the database.
+ * The key is a hash of the normalized expense description and of the category names it was suggested for,
+ * so every user with the same categories shares the entry, and a change to a user's categories leads to
+ * another key. Entries older than the configured time to live are ignored and purged.
+ */
+@Entity(name = "category_suggestions")
+@Table(name = "category_suggestions", indexes = {
+        @Index(name = "idx_category_suggestions_created_at", columnList = "created_at")
+})
+public class CategorySuggestion {
+
+    /**
+     * SHA-256 of the normalized description and the category names, in hex.
+     */
+    @Id
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
+    /**
+     * The normalized description, for diagnostics.
+     */
+    @Column(name = "description", nullable = false, length = 1000)
+    private String description;
+
+    /**
+     * The suggested category name.
+     */
+    @Column(name = "category_name", nullable = false)
+    private String categoryName;
+
+    /**
+     * Whether the suggested category is not one of the categories it was suggested for.
+     */
+    @Column(name = "is_new", nullable = false)
+    private boolean isNew;
+
+    /**
+     * Timestamp indicating when the suggestion was made; the time to live counts from here.
+     */
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    /**
+     * Default constructor.
+     */
+    public CategorySuggestion() {}
+
+    /**
+     * Creates a suggestion made now.
+     *
+     * @param cacheKey     the key of the description and category names.
+     * @param description  the normalized description.
+     * @param categoryName the suggested category name.
+     * @param isNew        whether the category is new to the user.
+     */
+    public CategorySuggestion(String cacheKey, String description, String categoryName, boolean isNew) {
+        this.cacheKey = cacheKey;
+        this.description = description;
+        this.categoryName = categoryName;
+        this.isNew = isNew;
+    }
+
+    // Getters and Setters
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public void setCategoryName(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    public boolean isNew() {
+        return isNew;
+    }
+
+    public void setNew(boolean isNew) {
+        this.isNew = isNew;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -9,31 +9,42 @@ import java.time.LocalDateTime;
  * Entity representing an expense in the AI Expense Tracker application.
  * Maps to the 'expenses' table in the database.
  * Each expense is associated with a user and can optionally be categorized.
+ * The composite indexes back the per-user listing queries, which always filter on the owner
+ * and then range-scan or order by date, amount or category.
  */
 @Entity(name = "expenses")
+@Table(name = "expenses", indexes = {
+        @Index(name = "idx_expenses_user_date", columnList = "user_email, date, id"),
+        @Index(name = "idx_expenses_user_amount", columnList = "user_email, amount, id"),
+        @Index(name = "idx_expenses_user_category", columnList = "user_email, category_id")
+})
 public class Expense {
 
     /**
      * Unique identifier for the expense.
-     * Auto-generated using the IDENTITY strategy.
+     * Generated from the pooled 'expenses_seq' sequence, which hands out blocks of 50 IDs
+     * so that inserts can be batched by the JDBC driver.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expenses_seq")
+    @SequenceGenerator(name = "expenses_seq", sequenceName = "expenses_seq", allocationSize = 50)
     private Long id;
 
     /**
      * The user who owns this expense.
      * This is a mandatory many-to-one relationship, with the foreign key stored in the 'user_email' column.
+     * Loaded lazily; getUser().getId() is available without loading the user.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_email", nullable = false)
     private User user;
 
     /**
      * The category associated with this expense.
      * This is an optional many-to-one relationship, with the foreign key stored in the 'category_id' column.
+     * Loaded lazily; queries that need the category name fetch it explicitly.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
 
@@ -0,0 +1,65 @@
+package com.example.aiexpensetracker.core.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+
+/**
+ * Entity holding the number and total amount of a user's expenses per month and category.
+ * Maps to the 'expense_rollups' table in the database.
+ * Rows are maintained in the same transaction as every expense write, so statistics can be read
+ * from a few rows per month instead of from the full expense history. The table has no foreign keys;
+ * it can always be rebuilt from the expenses table.
+ */
+@Entity(name = "expense_rollups")
+@Table(name = "expense_rollups")
+public class ExpenseRollup {
+
+    /**
+     * The user, month and category this rollup covers.
+     */
+    @EmbeddedId
+    private ExpenseRollupId id;
+
+    /**
+     * The number of expenses in this user, month and category.
+     */
+    @Column(name = "expense_count", nullable = false)
+    private long expenseCount;
+
+    /**
+     * The sum of the amounts of these expenses.
+     */
+    @Column(name = "total_amount", nullable = false)
+    private BigDecimal totalAmount;
+
+    /**
+     * Default constructor.
+     */
+    public ExpenseRollup() {}
+
+    // Getters and Setters
+
+    public ExpenseRollupId getId() {
+        return id;
+    }
+
+    public void setId(ExpenseRollupId id) {
+        this.id = id;
+    }
+
+    public long getExpenseCount() {
+        return expenseCount;
+    }
+
+    public void setExpenseCount(long expenseCount) {
+        this.expenseCount = expenseCount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+}
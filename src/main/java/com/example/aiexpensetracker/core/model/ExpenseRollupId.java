@@ -0,0 +1,106 @@
+package com.example.aiexpensetracker.core.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Composite key of an expense rollup: the user, the month and the category.
+ * Uncategorized expenses are rolled up under category ID 0, because a nullable key column
+ * could not take part in the primary key.
+ */
+@Embeddable
+public class ExpenseRollupId implements Serializable {
+
+    /**
+     * Category ID used for expenses without a category.
+     */
+    public static final long UNCATEGORIZED = 0L;
+
+    /**
+     * The ID of the user who owns the expenses.
+     */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * The first day of the month the expenses fall in.
+     */
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    /**
+     * The ID of the expenses' category, or {@link #UNCATEGORIZED}.
+     */
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    /**
+     * Default constructor.
+     */
+    public ExpenseRollupId() {}
+
+    public ExpenseRollupId(Long userId, LocalDate monthStart, Long categoryId) {
+        this.userId = userId;
+        this.monthStart = monthStart;
+        this.categoryId = categoryId;
+    }
+
+    /**
+     * Builds the key of the rollup an expense belongs to.
+     *
+     * @param userId     the ID of the expense's owner.
+     * @param date       the date of the expense.
+     * @param categoryId the ID of the expense's category, or null if it is uncategorized.
+     * @return the rollup key.
+     */
+    public static ExpenseRollupId of(Long userId, LocalDate date, Long categoryId) {
+        return new ExpenseRollupId(userId, date.withDayOfMonth(1), categoryId != null ? categoryId : UNCATEGORIZED);
+    }
+
+    // Getters and Setters
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDate getMonthStart() {
+        return monthStart;
+    }
+
+    public void setMonthStart(LocalDate monthStart) {
+        this.monthStart = monthStart;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ExpenseRollupId other)) {
+            return false;
+        }
+        return Objects.equals(userId, other.userId)
+                && Objects.equals(monthStart, other.monthStart)
+                && Objects.equals(categoryId, other.categoryId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, monthStart, categoryId);
+    }
+}
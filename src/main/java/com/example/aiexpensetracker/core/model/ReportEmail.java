@@ -0,0 +1,192 @@
+package com.example.aiexpensetracker.core.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing one report email in the outbox.
+ * Maps to the 'report_emails' table in the database.
+ * Report jobs write their reports here instead of mailing them, and the outbox dispatcher sends them
+ * in the background, retrying failed sends with backoff until they succeed or run out of attempts.
+ * The rows double as the ledger of who got their report: a job holds at most one email per user,
+ * so a resumed or repeated run skips the users it already wrote.
+ */
+@Entity(name = "report_emails")
+@Table(name = "report_emails", indexes = {
+        @Index(name = "idx_report_emails_status_next_attempt", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_report_emails_job_status", columnList = "job_id, status")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_report_emails_job_recipient", columnNames = {"job_id", "recipient"})
+})
+public class ReportEmail {
+
+    /**
+     * Unique identifier for the email.
+     * Generated from the pooled 'report_emails_seq' sequence, which hands out blocks of 50 IDs
+     * so that inserts can be batched by the JDBC driver.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "report_emails_seq")
+    @SequenceGenerator(name = "report_emails_seq", sequenceName = "report_emails_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * The ID of the report job that wrote the email.
+     */
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    /**
+     * The email address of the user the report is for.
+     */
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    /**
+     * The report as JSON, so that it can be sent again without being regenerated.
+     */
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    /**
+     * The delivery state of the email.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private ReportEmailStatus status = ReportEmailStatus.PENDING;
+
+    /**
+     * The number of times a dispatcher has taken the email to send it.
+     */
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    /**
+     * When the email is due to be sent. Moved forward while a dispatcher is sending it,
+     * so that it is only picked up again if that dispatcher goes away.
+     */
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    /**
+     * The error of the last failed attempt.
+     */
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    /**
+     * Timestamp indicating when the email was written to the outbox.
+     */
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    /**
+     * Timestamp indicating when the email was sent.
+     */
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    /**
+     * Default constructor.
+     */
+    public ReportEmail() {}
+
+    /**
+     * Creates a pending email for a report.
+     *
+     * @param jobId     the ID of the report job.
+     * @param recipient the email address of the user.
+     * @param payload   the report as JSON.
+     */
+    public ReportEmail(Long jobId, String recipient, String payload) {
+        this.jobId = jobId;
+        this.recipient = recipient;
+        this.payload = payload;
+    }
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(Long jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public void setRecipient(String recipient) {
+        this.recipient = recipient;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public ReportEmailStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ReportEmailStatus status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(LocalDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+}
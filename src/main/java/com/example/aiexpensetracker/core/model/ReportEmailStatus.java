@@ -0,0 +1,21 @@
+package com.example.aiexpensetracker.core.model;
+
+/**
+ * Delivery state of a report email in the outbox.
+ */
+public enum ReportEmailStatus {
+    /**
+     * Waiting to be sent, or to be retried once its next attempt is due.
+     */
+    PENDING,
+
+    /**
+     * Accepted by the mail provider.
+     */
+    SENT,
+
+    /**
+     * Given up on after the last attempt failed; kept for inspection and manual replay.
+     */
+    DEAD
+}
@@ -0,0 +1,299 @@
+package com.example.aiexpensetracker.core.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Entity representing one run of report generation and delivery for all users.
+ * Maps to the 'report_jobs' table in the database.
+ * The users are read in partitions ordered by email, and each partition's checkpoint is the email of
+ * the last user whose report, and every report before it, was handled. A resumed job continues after
+ * the checkpoints, so reports that were already written to the outbox are not written again.
+ * When the users are sharded by email hash, a run is one job per shard, each covering only its shard's users.
+ * There is at most one job per period, dates and shard, so starting the same run twice returns the existing job.
+ */
+@Entity(name = "report_jobs")
+@Table(name = "report_jobs", indexes = {
+        @Index(name = "idx_report_jobs_status_heartbeat", columnList = "status, heartbeat_at")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_report_jobs_period_dates_shard",
+                columnNames = {"period", "start_date", "end_date", "shard_index"})
+})
+public class ReportJob {
+
+    /**
+     * Unique identifier for the job.
+     * Auto-generated using the IDENTITY strategy.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The kind of report.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "period", nullable = false, length = 16)
+    private ReportPeriod period;
+
+    /**
+     * The first day of the reporting period.
+     */
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    /**
+     * The last day of the reporting period.
+     */
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+
+    /**
+     * The shard of the users the job covers, from 0 to shardCount - 1.
+     */
+    @ColumnDefault("0")
+    @Column(name = "shard_index", nullable = false)
+    private int shardIndex;
+
+    /**
+     * The number of shards the users of the run are split into by email hash; 1 if the run is not sharded.
+     */
+    @ColumnDefault("1")
+    @Column(name = "shard_count", nullable = false)
+    private int shardCount = 1;
+
+    /**
+     * The state of the job.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private ReportJobStatus status = ReportJobStatus.PENDING;
+
+    /**
+     * The number of partitions the users are read in. Fixed when the job is created,
+     * since the checkpoints are only meaningful for the same partitioning.
+     */
+    @Column(name = "partitions", nullable = false)
+    private int partitions;
+
+    /**
+     * The email of the last handled user per partition; partitions without an entry start from the beginning.
+     */
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "report_job_checkpoints", joinColumns = @JoinColumn(name = "job_id"))
+    @MapKeyColumn(name = "partition_index")
+    @Column(name = "last_user_email", nullable = false)
+    private Map<Integer, String> checkpoints = new HashMap<>();
+
+    /**
+     * The number of users when the job started, for progress reporting.
+     */
+    @Column(name = "total_users", nullable = false)
+    private long totalUsers;
+
+    /**
+     * The number of users up to the checkpoints whose report was written to the outbox for sending.
+     */
+    @Column(name = "reports_sent", nullable = false)
+    private long reportsSent;
+
+    /**
+     * The number of users up to the checkpoints whose report could not be built or written to the outbox.
+     */
+    @Column(name = "failures", nullable = false)
+    private long failures;
+
+    /**
+     * The error that stopped the job, if it failed.
+     */
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    /**
+     * Timestamp indicating when the job was created.
+     */
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    /**
+     * Timestamp indicating when the job was last started or resumed.
+     */
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    /**
+     * Timestamp indicating when the job completed or failed.
+     */
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    /**
+     * Timestamp of the last sign of life of the node running the job.
+     * A pending or running job whose heartbeat is too old is picked up again by any node.
+     */
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt = LocalDateTime.now();
+
+    /**
+     * Optimistic lock, so that only one node can take over a stale job.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    /**
+     * Default constructor.
+     */
+    public ReportJob() {}
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public ReportPeriod getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(ReportPeriod period) {
+        this.period = period;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public void setShardIndex(int shardIndex) {
+        this.shardIndex = shardIndex;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public void setShardCount(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    public ReportJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ReportJobStatus status) {
+        this.status = status;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    public Map<Integer, String> getCheckpoints() {
+        return checkpoints;
+    }
+
+    public void setCheckpoints(Map<Integer, String> checkpoints) {
+        this.checkpoints = checkpoints;
+    }
+
+    public long getTotalUsers() {
+        return totalUsers;
+    }
+
+    public void setTotalUsers(long totalUsers) {
+        this.totalUsers = totalUsers;
+    }
+
+    public long getReportsSent() {
+        return reportsSent;
+    }
+
+    public void setReportsSent(long reportsSent) {
+        this.reportsSent = reportsSent;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public void setFailures(long failures) {
+        this.failures = failures;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public LocalDateTime getHeartbeatAt() {
+        return heartbeatAt;
+    }
+
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
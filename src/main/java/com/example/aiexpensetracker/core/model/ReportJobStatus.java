@@ -0,0 +1,26 @@
+package com.example.aiexpensetracker.core.model;
+
+/**
+ * Lifecycle of a report job.
+ */
+public enum ReportJobStatus {
+    /**
+     * Created, not picked up yet.
+     */
+    PENDING,
+
+    /**
+     * Being generated and sent; progress is checkpointed as it goes.
+     */
+    RUNNING,
+
+    /**
+     * Every user's report was handled (sent or counted as failed).
+     */
+    COMPLETED,
+
+    /**
+     * The run stopped on an error; it can be resumed from its checkpoints.
+     */
+    FAILED
+}
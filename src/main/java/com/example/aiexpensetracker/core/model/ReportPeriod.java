@@ -0,0 +1,53 @@
+package com.example.aiexpensetracker.core.model;
+
+import com.example.aiexpensetracker.exception.report.InvalidReportPeriodException;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * The kinds of report runs and the period each one covers.
+ */
+public enum ReportPeriod {
+    /**
+     * The previous calendar month.
+     */
+    MONTHLY,
+
+    /**
+     * The last seven days, including today.
+     */
+    WEEKLY;
+
+    /**
+     * @param today the current date.
+     * @return the first day of the period covered by a run started on that date.
+     */
+    public LocalDate startDate(LocalDate today) {
+        return this == MONTHLY ? YearMonth.from(today).minusMonths(1).atDay(1) : today.minusDays(6);
+    }
+
+    /**
+     * @param today the current date.
+     * @return the last day of the period covered by a run started on that date.
+     */
+    public LocalDate endDate(LocalDate today) {
+        return this == MONTHLY ? YearMonth.from(today).minusMonths(1).atEndOfMonth() : today;
+    }
+
+    /**
+     * Resolves a period from its request parameter value (case-insensitive).
+     *
+     * @param value the requested period.
+     * @return the matching ReportPeriod.
+     * @throws InvalidReportPeriodException if the period is not supported.
+     */
+    public static ReportPeriod fromString(String value) {
+        for (ReportPeriod period : values()) {
+            if (value != null && period.name().equalsIgnoreCase(value.trim())) {
+                return period;
+            }
+        }
+        throw new InvalidReportPeriodException("Unsupported report period '" + value + "'. Expected monthly or weekly.");
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.aiexpensetracker.core.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing a lease on a scheduled task, shared by all nodes.
+ * Maps to the 'scheduler_locks' table in the database.
+ * A node runs the task only if it holds the lease, which it takes by moving lockedUntil forward from a
+ * time in the past, so that each firing of the task runs on exactly one node.
+ */
+@Entity(name = "scheduler_locks")
+@Table(name = "scheduler_locks")
+public class SchedulerLock {
+
+    /**
+     * The name of the scheduled task.
+     */
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    /**
+     * Timestamp until which the lease is held; after it any node may take the lease.
+     */
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+
+    /**
+     * Timestamp indicating when the lease was last taken.
+     */
+    @Column(name = "locked_at", nullable = false)
+    private LocalDateTime lockedAt;
+
+    /**
+     * The node that last took the lease, for diagnostics.
+     */
+    @Column(name = "locked_by", nullable = false)
+    private String lockedBy;
+
+    /**
+     * Optimistic lock, which also tells a new lease apart from an existing one when it is saved.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    /**
+     * Default constructor.
+     */
+    public SchedulerLock() {}
+
+    // Constructor
+
+    public SchedulerLock(String name, LocalDateTime lockedUntil, LocalDateTime lockedAt, String lockedBy) {
+        this.name = name;
+        this.lockedUntil = lockedUntil;
+        this.lockedAt = lockedAt;
+        this.lockedBy = lockedBy;
+    }
+
+    // Getters and Setters
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(LocalDateTime lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    public LocalDateTime getLockedAt() {
+        return lockedAt;
+    }
+
+    public void setLockedAt(LocalDateTime lockedAt) {
+        this.lockedAt = lockedAt;
+    }
+
+    public String getLockedBy() {
+        return lockedBy;
+    }
+
+    public void setLockedBy(String lockedBy) {
+        this.lockedBy = lockedBy;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -30,6 +30,13 @@ public class User {
     @Column(nullable = false, unique = true)
     private String email;
 
+    /**
+     * A hash of the email, kept in step with it, by which report runs shard the users across nodes.
+     * Null only for users stored before the column existed, until they are backfilled.
+     */
+    @Column(name = "email_hash")
+    private Integer emailHash;
+
     /**
      * The user's first name.
      * Cannot be null.
@@ -74,6 +81,20 @@ public class User {
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Category> categories;
 
+    /**
+     * @param email an email address.
+     * @return the non-negative hash of the address stored as the user's email hash.
+     */
+    public static int emailHash(String email) {
+        return email.hashCode() & Integer.MAX_VALUE;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateEmailHash() {
+        this.emailHash = email != null ? emailHash(email) : null;
+    }
+
     // Getters and Setters
 
     public Long getId() {
@@ -92,6 +113,14 @@ public class User {
         this.email = email;
     }
 
+    public Integer getEmailHash() {
+        return emailHash;
+    }
+
+    public void setEmailHash(Integer emailHash) {
+        this.emailHash = emailHash;
+    }
+
     public String getFirstName() {
         return firstName;
     }
@@ -0,0 +1,26 @@
+package com.example.aiexpensetracker.core.repository.category;
+
+import com.example.aiexpensetracker.core.model.CategorySuggestion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository interface for the stored category suggestions of the AI service.
+ * Modifying methods must be called inside a transaction.
+ */
+public interface CategorySuggestionRepository extends JpaRepository<CategorySuggestion, String> {
+
+    /**
+     * Deletes the suggestions made before the cutoff in one statement.
+     *
+     * @param cutoff the time before which a suggestion has expired.
+     * @return the number of suggestions deleted.
+     */
+    @Modifying
+    @Query("delete from category_suggestions s where s.createdAt < :cutoff")
+    int deleteExpired(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,44 @@
+package com.example.aiexpensetracker.core.repository.expense;
+
+import com.example.aiexpensetracker.rest.dto.expense.ExpenseResponseDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of an expense together with the name of its category.
+ * Created by a JPQL constructor expression, so the category name comes from the same query
+ * instead of a separate category lookup.
+ */
+public class CategorizedExpense {
+
+    private final String categoryName;
+    private final ExpenseResponseDTO expense;
+
+    public CategorizedExpense(
+            String categoryName,
+            Long id,
+            BigDecimal amount,
+            LocalDate date,
+            String description,
+            Long categoryId,
+            Long userId,
+            LocalDateTime createdAt,
+            LocalDateTime updatedAt
+    ) {
+        this.categoryName = categoryName;
+        this.expense = new ExpenseResponseDTO(id, amount, date, description, categoryId, userId, createdAt, updatedAt);
+    }
+
+    /**
+     * @return the name of the expense's category, or null if the expense is uncategorized.
+     */
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public ExpenseResponseDTO getExpense() {
+        return expense;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.aiexpensetracker.core.repository.expense;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of the expenses of one time bucket, summed in the database.
+ */
+public class ExpensePeriodTotal {
+
+    private final LocalDate periodStart;
+    private final long expenseCount;
+    private final BigDecimal totalAmount;
+
+    public ExpensePeriodTotal(LocalDate periodStart, long expenseCount, BigDecimal totalAmount) {
+        this.periodStart = periodStart;
+        this.expenseCount = expenseCount;
+        this.totalAmount = totalAmount;
+    }
+
+    /**
+     * @return the first day of the bucket, as returned by date_trunc.
+     */
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public long getExpenseCount() {
+        return expenseCount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+}
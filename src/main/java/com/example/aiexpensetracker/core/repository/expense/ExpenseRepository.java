@@ -1,23 +1,35 @@
 package com.example.aiexpensetracker.core.repository.expense;
 
 import com.example.aiexpensetracker.core.model.Expense;
+import com.example.aiexpensetracker.rest.dto.expense.ExpensesByCategoryDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for performing CRUD operations on the Expense entity.
- * Extends JpaRepository to provide basic database interaction methods.
+ * Extends JpaRepository to provide basic database interaction methods, and JpaSpecificationExecutor
+ * so that filtered listings can be expressed with {@link ExpenseSpecifications}.
  */
-public interface ExpenseRepository extends JpaRepository<Expense, Long> {
+public interface ExpenseRepository extends JpaRepository<Expense, Long>, JpaSpecificationExecutor<Expense>, ExpenseRepositoryCustom {
 
     /**
      * Retrieves a list of expenses associated with a specific user's email.
      *
      * @param userEmail the email of the user whose expenses are to be retrieved.
-     * @return a list of Expense entities associated with the given user's email.
+     * @return a list of Expense entities associated with the given user's email, with their categories loaded.
      */
+    @EntityGraph(attributePaths = "category")
     List<Expense> findByUserEmail(String userEmail);
 
     /**
@@ -26,7 +38,110 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
      * @param userEmail the email of the user whose expenses are to be retrieved.
      * @param startDate the start date of the range.
      * @param endDate   the end date of the range.
-     * @return a list of Expense entities that match the given user's email and fall within the specified date range.
+     * @return a list of Expense entities that match the given user's email and fall within the specified date range,
+     *         with their categories loaded.
      */
+    @EntityGraph(attributePaths = "category")
     List<Expense> findByUserEmailAndDateBetween(String userEmail, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Retrieves a read-only summary of every expense of a user, including the category name.
+     *
+     * @param userEmail the email of the user whose expenses are to be retrieved.
+     * @return a list of ExpenseSummary projections; uncategorized expenses have a null category name.
+     */
+    @Query("select new com.example.aiexpensetracker.core.repository.expense.ExpenseSummary("
+            + "e.id, e.amount, e.date, e.description, c.name) "
+            + "from expenses e left join e.category c where e.user.email = :userEmail")
+    List<ExpenseSummary> findSummariesByUserEmail(@Param("userEmail") String userEmail);
+
+    /**
+     * Streams the expenses of one partition of the users within a date range in a single scan, ordered by
+     * user email, so that each user's rows are adjacent and reports can be built one user at a time.
+     * Users without expenses in the range get one row without an expense.
+     * Must be called inside a transaction, and the stream must be closed.
+     *
+     * @param startDate      the start date of the range (inclusive).
+     * @param endDate        the end date of the range (inclusive).
+     * @param shardCount     the number of shards the users are split into by email hash; 1 for all users.
+     * @param shard          the shard to read from, from 0 to shardCount - 1.
+     * @param partitionCount the number of partitions the shard's users are split into by ID; 1 for all of them.
+     * @param partition      the partition to read, from 0 to partitionCount - 1.
+     * @param afterEmail     only users whose email sorts after this one are read; an empty string for all.
+     * @return a Stream of ReportExpenseRow projections ordered by user email, date and expense ID.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.aiexpensetracker.core.repository.expense.ReportExpenseRow("
+            + "u.email, e.id, e.amount, e.date, e.description, c.name) "
+            + "from User u left join expenses e on e.user = u and e.date between :startDate and :endDate "
+            + "left join e.category c "
+            + "where mod(coalesce(u.emailHash, 0), :shardCount) = :shard "
+            + "and mod(u.id, :partitionCount) = :partition and u.email > :afterEmail "
+            + "order by u.email, e.date, e.id")
+    Stream<ReportExpenseRow> streamReportRows(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("shardCount") int shardCount,
+            @Param("shard") int shard,
+            @Param("partitionCount") int partitionCount,
+            @Param("partition") int partition,
+            @Param("afterEmail") String afterEmail
+    );
+
+    /**
+     * Retrieves the descriptions of a user's categorized expenses with their category names, newest first.
+     *
+     * @param userEmail the email of the user.
+     * @param pageable  the number of expenses to read, e.g. PageRequest.of(0, 5000).
+     * @return a list of LabeledDescription projections.
+     */
+    @Query("select new com.example.aiexpensetracker.core.repository.expense.LabeledDescription(e.description, c.name) "
+            + "from expenses e join e.category c where e.user.email = :userEmail and e.description is not null "
+            + "order by e.id desc")
+    List<LabeledDescription> findLabeledDescriptions(@Param("userEmail") String userEmail, Pageable pageable);
+
+    /**
+     * Retrieves every expense of a user with its category name, ordered by category name.
+     * Expenses of the same category are adjacent, with uncategorized expenses last,
+     * so callers can group them in a single pass.
+     *
+     * @param userEmail the email of the user whose expenses are to be retrieved.
+     * @return a list of CategorizedExpense projections ordered by category name, date and ID.
+     */
+    @Query("select new com.example.aiexpensetracker.core.repository.expense.CategorizedExpense("
+            + "c.name, e.id, e.amount, e.date, e.description, c.id, e.user.id, e.createdAt, e.updatedAt) "
+            + "from expenses e left join e.category c where e.user.email = :userEmail "
+            + "order by c.name nulls last, e.date, e.id")
+    List<CategorizedExpense> findCategorizedByUserEmail(@Param("userEmail") String userEmail);
+
+    /**
+     * Computes the number and total amount of a user's expenses per category name.
+     *
+     * @param userEmail the email of the user whose expenses are to be summarized.
+     * @return one ExpensesByCategoryDTO per category name without the expense list, ordered by name;
+     *         the row for uncategorized expenses has a null category and comes last.
+     */
+    @Query("select new com.example.aiexpensetracker.rest.dto.expense.ExpensesByCategoryDTO("
+            + "c.name, count(e.id), sum(e.amount)) "
+            + "from expenses e left join e.category c where e.user.email = :userEmail "
+            + "group by c.name order by c.name nulls last")
+    List<ExpensesByCategoryDTO> summarizeByCategory(@Param("userEmail") String userEmail);
+
+    /**
+     * Streams all expenses of a user ordered by date, with their categories fetched in the same query.
+     * Rows are read from the database in chunks of the configured JDBC fetch size instead of being
+     * materialized as a list. Must be called inside a transaction, and the stream must be closed.
+     *
+     * @param userEmail the email of the user whose expenses are to be streamed.
+     * @return a Stream of the user's Expense entities.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select e from expenses e left join fetch e.category where e.user.email = :userEmail order by e.date, e.id")
+    Stream<Expense> streamByUserEmail(@Param("userEmail") String userEmail);
 }
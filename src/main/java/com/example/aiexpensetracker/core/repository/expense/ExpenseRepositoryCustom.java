@@ -0,0 +1,74 @@
+package com.example.aiexpensetracker.core.repository.expense;
+
+import com.example.aiexpensetracker.core.model.Expense;
+import com.example.aiexpensetracker.rest.dto.expense.ExpenseResponseDTO;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Custom repository fragment for Expense operations that need direct access to the persistence context.
+ */
+public interface ExpenseRepositoryCustom {
+
+    /**
+     * Detaches an expense from the current persistence context.
+     * Used while streaming large result sets so that already processed rows can be garbage collected.
+     *
+     * @param expense the expense to detach.
+     */
+    void detach(Expense expense);
+
+    /**
+     * Runs a filtered, sorted expense query that selects only the columns of ExpenseResponseDTO.
+     * The DTOs are built by a constructor expression, so no Expense, User or Category entities are
+     * loaded or tracked by the persistence context.
+     *
+     * @param specification the filter to apply (see {@link ExpenseSpecifications}).
+     * @param sort          the order of the results.
+     * @return the matching expenses as ExpenseResponseDTO objects.
+     */
+    List<ExpenseResponseDTO> findResponses(Specification<Expense> specification, Sort sort);
+
+    /**
+     * Same as {@link #findResponses(Specification, Sort)}, returning at most maxResults rows.
+     *
+     * @param specification the filter to apply (see {@link ExpenseSpecifications}).
+     * @param sort          the order of the results.
+     * @param maxResults    the maximum number of rows to return.
+     * @return the first matching expenses as ExpenseResponseDTO objects.
+     */
+    List<ExpenseResponseDTO> findResponses(Specification<Expense> specification, Sort sort, int maxResults);
+
+    /**
+     * Persists new expenses in batches, flushing and clearing the persistence context after each batch.
+     * Together with the pooled ID sequence and hibernate.jdbc.batch_size this turns each batch into
+     * a single JDBC batch of INSERT statements. Must be called inside a transaction.
+     *
+     * @param expenses  the new expenses to persist.
+     * @param batchSize the number of expenses per flush.
+     */
+    void persistInBatches(List<Expense> expenses, int batchSize);
+
+    /**
+     * Sums a user's expenses per time bucket in the database with date_trunc.
+     * The query is restricted by user and date range, so it reads the (user, date) index range only.
+     * Buckets without expenses are not returned.
+     *
+     * @param userEmail   the email of the user.
+     * @param from        the first day of the range (inclusive).
+     * @param toExclusive the day after the range (exclusive).
+     * @param unit        the date_trunc unit: day, week, month, quarter or year.
+     * @param categoryId  the category to restrict the sums to, or null for all expenses.
+     * @return one total per non-empty bucket, ordered by bucket start.
+     */
+    List<ExpensePeriodTotal> sumByPeriod(
+            String userEmail,
+            LocalDate from,
+            LocalDate toExclusive,
+            String unit,
+            Long categoryId
+    );
+}
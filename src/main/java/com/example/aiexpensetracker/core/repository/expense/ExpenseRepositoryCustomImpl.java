@@ -0,0 +1,137 @@
+package com.example.aiexpensetracker.core.repository.expense;
+
+import com.example.aiexpensetracker.core.model.Expense;
+import com.example.aiexpensetracker.rest.dto.expense.ExpenseResponseDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class ExpenseRepositoryCustomImpl implements ExpenseRepositoryCustom {
+
+    private static final Set<String> DATE_TRUNC_UNITS = Set.of("day", "week", "month", "quarter", "year");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void detach(Expense expense) {
+        entityManager.detach(expense);
+    }
+
+    @Override
+    public List<ExpenseResponseDTO> findResponses(Specification<Expense> specification, Sort sort) {
+        return createResponseQuery(specification, sort).getResultList();
+    }
+
+    @Override
+    public List<ExpenseResponseDTO> findResponses(Specification<Expense> specification, Sort sort, int maxResults) {
+        return createResponseQuery(specification, sort).setMaxResults(maxResults).getResultList();
+    }
+
+    @Override
+    public void persistInBatches(List<Expense> expenses, int batchSize) {
+        for (int i = 0; i < expenses.size(); i++) {
+            entityManager.persist(expenses.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Override
+    public List<ExpensePeriodTotal> sumByPeriod(
+            String userEmail,
+            LocalDate from,
+            LocalDate toExclusive,
+            String unit,
+            Long categoryId
+    ) {
+        if (!DATE_TRUNC_UNITS.contains(unit)) {
+            throw new IllegalArgumentException("Unsupported date_trunc unit: " + unit);
+        }
+
+        // The unit is inlined (it comes from the fixed set above) so that the select and group by
+        // expressions are identical; a bind parameter in both would not be recognized as the same expression.
+        String bucket = "CAST(DATE_TRUNC('" + unit + "', CAST(e.date AS TIMESTAMP)) AS DATE)";
+        String sql = "SELECT " + bucket + ", COUNT(*), SUM(e.amount) "
+                + "FROM expenses e JOIN users u ON u.id = e.user_email "
+                + "WHERE u.email = :userEmail AND e.date >= :from AND e.date < :toExclusive "
+                + (categoryId != null ? "AND e.category_id = :categoryId " : "")
+                + "GROUP BY " + bucket + " "
+                + "ORDER BY " + bucket;
+
+        Query query = entityManager.createNativeQuery(sql)
+                .setParameter("userEmail", userEmail)
+                .setParameter("from", from)
+                .setParameter("toExclusive", toExclusive);
+        if (categoryId != null) {
+            query.setParameter("categoryId", categoryId);
+        }
+
+        List<?> rows = query.getResultList();
+        List<ExpensePeriodTotal> totals = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            totals.add(new ExpensePeriodTotal(
+                    toLocalDate(columns[0]),
+                    ((Number) columns[1]).longValue(),
+                    toBigDecimal(columns[2])));
+        }
+        return totals;
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+
+    private TypedQuery<ExpenseResponseDTO> createResponseQuery(Specification<Expense> specification, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ExpenseResponseDTO> query = cb.createQuery(ExpenseResponseDTO.class);
+        Root<Expense> root = query.from(Expense.class);
+
+        // Selecting the association IDs reads the foreign key columns without joining users or categories.
+        query.select(cb.construct(
+                ExpenseResponseDTO.class,
+                root.get("id"),
+                root.get("amount"),
+                root.get("date"),
+                root.get("description"),
+                root.get("category").get("id"),
+                root.get("user").get("id"),
+                root.get("createdAt"),
+                root.get("updatedAt")
+        ));
+
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        return entityManager.createQuery(query);
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.aiexpensetracker.core.repository.expense;
+
+import com.example.aiexpensetracker.core.model.Expense;
+import com.example.aiexpensetracker.exception.expense.InvalidExpenseFilterException;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Factory for the JPA Specifications used to query expenses.
+ * Translates the filter parameters accepted by the expense endpoints into typed SQL predicates,
+ * so that filtering happens in the database instead of on fully loaded entity lists.
+ *
+ * Supported filter values:
+ * - amount: an exact value ("12.50") or a range ("10..50", "10..", "..50").
+ * - date, createdAt, updatedAt: a day ("2025-01-15"), a month ("2025-01"), a year ("2025")
+ *   or a range of any of those ("2025-01..2025-03").
+ * - category: the exact category ID.
+ * - description: a case-insensitive substring.
+ */
+public final class ExpenseSpecifications {
+
+    private static final String RANGE_SEPARATOR = "..";
+
+    private ExpenseSpecifications() {}
+
+    /**
+     * Restricts the query to the expenses owned by the user with the given email.
+     *
+     * @param userEmail the email of the owner.
+     * @return a Specification matching the user's expenses.
+     */
+    public static Specification<Expense> belongsToUser(String userEmail) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("email"), userEmail);
+    }
+
+    /**
+     * Builds the predicate for a single filter column.
+     * Unknown columns or blank values yield no restriction, matching the previous lenient behavior.
+     *
+     * @param filterColumn the column to filter on (case-insensitive).
+     * @param filterValue  the raw filter value.
+     * @return a Specification for the filter, or null if no filter applies.
+     * @throws InvalidExpenseFilterException if the value cannot be parsed for the given column.
+     */
+    public static Specification<Expense> matchesFilter(String filterColumn, String filterValue) {
+        if (filterColumn == null || filterColumn.isBlank() || filterValue == null || filterValue.isBlank()) {
+            return null;
+        }
+
+        String value = filterValue.trim();
+        return switch (filterColumn.toLowerCase()) {
+            case "category" -> categoryEquals(parseLong(value, filterColumn));
+            case "amount" -> amountBetween(value);
+            case "date" -> dateBetween(value);
+            case "description" -> descriptionContains(value);
+            case "createdat" -> timestampBetween("createdAt", value);
+            case "updatedat" -> timestampBetween("updatedAt", value);
+            default -> null;
+        };
+    }
+
+    /**
+     * Seeks past the last row of a previous page for keyset pagination.
+     * Matches rows that come strictly after (value, id) in the (property, id) ordering,
+     * which lets the database continue from an index position instead of skipping rows with OFFSET.
+     *
+     * @param property   the sort property ("date" or "amount").
+     * @param value      the sort value of the last row already returned.
+     * @param id         the ID of the last row already returned.
+     * @param descending whether the listing is sorted in descending order.
+     * @return a Specification matching the rows after the given position.
+     */
+    public static <T extends Comparable<? super T>> Specification<Expense> seekAfter(
+            String property,
+            T value,
+            Long id,
+            boolean descending
+    ) {
+        return (root, query, cb) -> {
+            Path<T> path = root.get(property);
+            Path<Long> idPath = root.get("id");
+            Predicate beyond = descending ? cb.lessThan(path, value) : cb.greaterThan(path, value);
+            Predicate tieBreak = cb.and(
+                    cb.equal(path, value),
+                    descending ? cb.lessThan(idPath, id) : cb.greaterThan(idPath, id));
+            return cb.or(beyond, tieBreak);
+        };
+    }
+
+    private static Specification<Expense> categoryEquals(Long categoryId) {
+        return (root, query, cb) -> cb.equal(root.get("category").get("id"), categoryId);
+    }
+
+    private static Specification<Expense> descriptionContains(String value) {
+        String pattern = "%" + escapeLike(value.toLowerCase()) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("description")), pattern, '\\');
+    }
+
+    private static Specification<Expense> amountBetween(String value) {
+        if (!value.contains(RANGE_SEPARATOR)) {
+            BigDecimal amount = parseAmount(value);
+            return (root, query, cb) -> cb.equal(root.get("amount"), amount);
+        }
+
+        String[] bounds = splitRange(value);
+        BigDecimal from = bounds[0].isEmpty() ? null : parseAmount(bounds[0]);
+        BigDecimal to = bounds[1].isEmpty() ? null : parseAmount(bounds[1]);
+        return (root, query, cb) -> {
+            if (from != null && to != null) {
+                return cb.between(root.get("amount"), from, to);
+            }
+            return from != null
+                    ? cb.greaterThanOrEqualTo(root.get("amount"), from)
+                    : cb.lessThanOrEqualTo(root.get("amount"), to);
+        };
+    }
+
+    private static Specification<Expense> dateBetween(String value) {
+        LocalDate[] range = parseDateRange(value);
+        LocalDate from = range[0];
+        LocalDate toExclusive = range[1];
+        return (root, query, cb) -> {
+            if (from != null && toExclusive != null) {
+                return cb.and(
+                        cb.greaterThanOrEqualTo(root.get("date"), from),
+                        cb.lessThan(root.get("date"), toExclusive));
+            }
+            return from != null
+                    ? cb.greaterThanOrEqualTo(root.get("date"), from)
+                    : cb.lessThan(root.get("date"), toExclusive);
+        };
+    }
+
+    private static Specification<Expense> timestampBetween(String attribute, String value) {
+        LocalDate[] range = parseDateRange(value);
+        LocalDateTime from = range[0] == null ? null : range[0].atStartOfDay();
+        LocalDateTime toExclusive = range[1] == null ? null : range[1].atStartOfDay();
+        return (root, query, cb) -> {
+            if (from != null && toExclusive != null) {
+                return cb.and(
+                        cb.greaterThanOrEqualTo(root.get(attribute), from),
+                        cb.lessThan(root.get(attribute), toExclusive));
+            }
+            return from != null
+                    ? cb.greaterThanOrEqualTo(root.get(attribute), from)
+                    : cb.lessThan(root.get(attribute), toExclusive);
+        };
+    }
+
+    /**
+     * Parses a date filter into a half-open range [from, toExclusive).
+     * Either bound may be null for open-ended ranges, but not both.
+     */
+    private static LocalDate[] parseDateRange(String value) {
+        if (!value.contains(RANGE_SEPARATOR)) {
+            LocalDate[] period = parsePeriod(value);
+            return new LocalDate[]{period[0], period[1]};
+        }
+
+        String[] bounds = splitRange(value);
+        LocalDate from = bounds[0].isEmpty() ? null : parsePeriod(bounds[0])[0];
+        LocalDate toExclusive = bounds[1].isEmpty() ? null : parsePeriod(bounds[1])[1];
+        return new LocalDate[]{from, toExclusive};
+    }
+
+    /**
+     * Parses a day, month or year into the half-open range of days it covers.
+     */
+    private static LocalDate[] parsePeriod(String value) {
+        try {
+            switch (value.length()) {
+                case 4 -> {
+                    Year year = Year.parse(value);
+                    return new LocalDate[]{year.atDay(1), year.plusYears(1).atDay(1)};
+                }
+                case 7 -> {
+                    YearMonth month = YearMonth.parse(value);
+                    return new LocalDate[]{month.atDay(1), month.plusMonths(1).atDay(1)};
+                }
+                default -> {
+                    LocalDate day = LocalDate.parse(value);
+                    return new LocalDate[]{day, day.plusDays(1)};
+                }
+            }
+        } catch (DateTimeParseException ex) {
+            throw new InvalidExpenseFilterException(
+                    "Invalid date filter '" + value + "'. Expected yyyy, yyyy-MM or yyyy-MM-dd.");
+        }
+    }
+
+    private static String[] splitRange(String value) {
+        int separator = value.indexOf(RANGE_SEPARATOR);
+        String from = value.substring(0, separator).trim();
+        String to = value.substring(separator + RANGE_SEPARATOR.length()).trim();
+        if (from.isEmpty() && to.isEmpty()) {
+            throw new InvalidExpenseFilterException("Range filter '" + value + "' must have at least one bound.");
+        }
+        return new String[]{from, to};
+    }
+
+    private static BigDecimal parseAmount(String value) {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException ex) {
+            throw new InvalidExpenseFilterException("Invalid amount filter '" + value + "'.");
+        }
+    }
+
+    private static Long parseLong(String value, String column) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException ex) {
+            throw new InvalidExpenseFilterException("Invalid " + column + " filter '" + value + "'. Expected an ID.");
+        }
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.aiexpensetracker.core.repository.expense;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of an expense with its category name, used by the statistics and report queries.
+ * Instances are created directly by JPQL constructor expressions, so only these columns are selected
+ * and no entities are loaded into the persistence context.
+ */
+public class ExpenseSummary {
+
+    private final Long id;
+    private final BigDecimal amount;
+    private final LocalDate date;
+    private final String description;
+    private final String categoryName;
+
+    public ExpenseSummary(Long id, BigDecimal amount, LocalDate date, String description, String categoryName) {
+        this.id = id;
+        this.amount = amount;
+        this.date = date;
+        this.description = description;
+        this.categoryName = categoryName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return the name of the expense's category, or null if the expense is uncategorized.
+     */
+    public String getCategoryName() {
+        return categoryName;
+    }
+}
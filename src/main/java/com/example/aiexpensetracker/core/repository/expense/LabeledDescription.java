@@ -0,0 +1,24 @@
+package com.example.aiexpensetracker.core.repository.expense;
+
+/**
+ * Read-only pair of an expense description and the name of the category the user filed it under,
+ * the training data of the local category classifier.
+ */
+public class LabeledDescription {
+
+    private final String description;
+    private final String categoryName;
+
+    public LabeledDescription(String description, String categoryName) {
+        this.description = description;
+        this.categoryName = categoryName;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+}
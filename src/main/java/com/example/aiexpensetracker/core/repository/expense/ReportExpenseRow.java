@@ -0,0 +1,52 @@
+package com.example.aiexpensetracker.core.repository.expense;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only row of the report scan: a user's email with one of their expenses in the report period,
+ * or with no expense at all (null ID) for a user who has none in the period.
+ */
+public class ReportExpenseRow {
+
+    private final String userEmail;
+    private final Long expenseId;
+    private final BigDecimal amount;
+    private final LocalDate date;
+    private final String description;
+    private final String categoryName;
+
+    public ReportExpenseRow(
+            String userEmail,
+            Long expenseId,
+            BigDecimal amount,
+            LocalDate date,
+            String description,
+            String categoryName
+    ) {
+        this.userEmail = userEmail;
+        this.expenseId = expenseId;
+        this.amount = amount;
+        this.date = date;
+        this.description = description;
+        this.categoryName = categoryName;
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    /**
+     * @return whether the row carries an expense, i.e. is not the placeholder row of a user without expenses.
+     */
+    public boolean hasExpense() {
+        return expenseId != null;
+    }
+
+    /**
+     * @return the expense of the row as an ExpenseSummary; only valid if {@link #hasExpense()}.
+     */
+    public ExpenseSummary toSummary() {
+        return new ExpenseSummary(expenseId, amount, date, description, categoryName);
+    }
+}
@@ -2,11 +2,16 @@ package com.example.aiexpensetracker.core.repository.manager;
 
 import com.example.aiexpensetracker.core.repository.expense.ExpenseRepository;
 import com.example.aiexpensetracker.core.repository.category.CategoryRepository;
+import com.example.aiexpensetracker.core.repository.category.CategorySuggestionRepository;
+import com.example.aiexpensetracker.core.repository.report.ReportEmailRepository;
+import com.example.aiexpensetracker.core.repository.report.ReportJobRepository;
+import com.example.aiexpensetracker.core.repository.rollup.ExpenseRollupRepository;
+import com.example.aiexpensetracker.core.repository.scheduler.SchedulerLockRepository;
 import com.example.aiexpensetracker.core.repository.user.UserRepository;
 
 /**
  * Interface for managing access to different repository layers in the AI Expense Tracker application.
- * Provides methods to retrieve the UserRepository, ExpenseRepository, and CategoryRepository instances.
+ * Provides methods to retrieve the UserRepository, ExpenseRepository, CategoryRepository and ExpenseRollupRepository instances.
  */
 public interface RepositoryManager {
 
@@ -30,4 +35,39 @@ public interface RepositoryManager {
      * @return an instance of CategoryRepository.
      */
     CategoryRepository getCategoryRepository();
+
+    /**
+     * Retrieves the ExpenseRollupRepository instance for maintaining and reading expense rollups.
+     *
+     * @return an instance of ExpenseRollupRepository.
+     */
+    ExpenseRollupRepository getExpenseRollupRepository();
+
+    /**
+     * Retrieves the ReportJobRepository instance for persisting report jobs and their progress.
+     *
+     * @return an instance of ReportJobRepository.
+     */
+    ReportJobRepository getReportJobRepository();
+
+    /**
+     * Retrieves the ReportEmailRepository instance for the outbox of report emails waiting to be sent.
+     *
+     * @return an instance of ReportEmailRepository.
+     */
+    ReportEmailRepository getReportEmailRepository();
+
+    /**
+     * Retrieves the SchedulerLockRepository instance for the leases that keep scheduled tasks to one node.
+     *
+     * @return an instance of SchedulerLockRepository.
+     */
+    SchedulerLockRepository getSchedulerLockRepository();
+
+    /**
+     * Retrieves the CategorySuggestionRepository instance for the stored suggestions of the AI service.
+     *
+     * @return an instance of CategorySuggestionRepository.
+     */
+    CategorySuggestionRepository getCategorySuggestionRepository();
 }
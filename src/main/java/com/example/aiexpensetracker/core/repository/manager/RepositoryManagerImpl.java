@@ -3,6 +3,11 @@ package com.example.aiexpensetracker.core.repository.manager;
 import com.example.aiexpensetracker.core.repository.expense.ExpenseRepository;
 import com.example.aiexpensetracker.core.repository.user.UserRepository;
 import com.example.aiexpensetracker.core.repository.category.CategoryRepository;
+import com.example.aiexpensetracker.core.repository.category.CategorySuggestionRepository;
+import com.example.aiexpensetracker.core.repository.report.ReportEmailRepository;
+import com.example.aiexpensetracker.core.repository.report.ReportJobRepository;
+import com.example.aiexpensetracker.core.repository.rollup.ExpenseRollupRepository;
+import com.example.aiexpensetracker.core.repository.scheduler.SchedulerLockRepository;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -10,11 +15,21 @@ public class RepositoryManagerImpl implements RepositoryManager {
     private final UserRepository UserRepository;
     private final ExpenseRepository ExpenseRepository;
     private final CategoryRepository CategoryRepository;
+    private final ExpenseRollupRepository ExpenseRollupRepository;
+    private final ReportJobRepository ReportJobRepository;
+    private final ReportEmailRepository ReportEmailRepository;
+    private final SchedulerLockRepository SchedulerLockRepository;
+    private final CategorySuggestionRepository CategorySuggestionRepository;
 
-    public RepositoryManagerImpl(UserRepository UserRepository, ExpenseRepository ExpenseRepository, CategoryRepository CategoryRepository) {
+    public RepositoryManagerImpl(UserRepository UserRepository, ExpenseRepository ExpenseRepository, CategoryRepository CategoryRepository, ExpenseRollupRepository ExpenseRollupRepository, ReportJobRepository ReportJobRepository, ReportEmailRepository ReportEmailRepository, SchedulerLockRepository SchedulerLockRepository, CategorySuggestionRepository CategorySuggestionRepository) {
         this.UserRepository = UserRepository;
         this.ExpenseRepository = ExpenseRepository;
         this.CategoryRepository = CategoryRepository;
+        this.ExpenseRollupRepository = ExpenseRollupRepository;
+        this.ReportJobRepository = ReportJobRepository;
+        this.ReportEmailRepository = ReportEmailRepository;
+        this.SchedulerLockRepository = SchedulerLockRepository;
+        this.CategorySuggestionRepository = CategorySuggestionRepository;
     }
 
     public UserRepository getUserRepository() {
@@ -28,4 +43,24 @@ public class RepositoryManagerImpl implements RepositoryManager {
     public CategoryRepository getCategoryRepository() {
         return CategoryRepository;
     }
+
+    public ExpenseRollupRepository getExpenseRollupRepository() {
+        return ExpenseRollupRepository;
+    }
+
+    public ReportJobRepository getReportJobRepository() {
+        return ReportJobRepository;
+    }
+
+    public ReportEmailRepository getReportEmailRepository() {
+        return ReportEmailRepository;
+    }
+
+    public SchedulerLockRepository getSchedulerLockRepository() {
+        return SchedulerLockRepository;
+    }
+
+    public CategorySuggestionRepository getCategorySuggestionRepository() {
+        return CategorySuggestionRepository;
+    }
 }
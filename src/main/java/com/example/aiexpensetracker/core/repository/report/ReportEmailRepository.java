@@ -0,0 +1,88 @@
+package com.example.aiexpensetracker.core.repository.report;
+
+import com.example.aiexpensetracker.core.model.ReportEmail;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Repository interface for the report email outbox.
+ * Locking and modifying methods must be called inside a transaction.
+ */
+public interface ReportEmailRepository extends JpaRepository<ReportEmail, Long> {
+
+    /**
+     * Locks the oldest pending emails that are due, skipping rows another transaction has locked,
+     * so that several dispatchers can drain the outbox side by side without waiting on each other.
+     * Native, because the dialects do not all render SKIP LOCKED from a lock timeout hint.
+     *
+     * @param now   the time up to which emails are due.
+     * @param limit the maximum number of emails to lock.
+     * @return the locked emails, oldest first.
+     */
+    @Query(value = "select * from report_emails where status = 'PENDING' and next_attempt_at <= :now "
+            + "order by id limit :limit for update skip locked", nativeQuery = true)
+    List<ReportEmail> lockDueEmails(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Finds which of the given users already have an email of a job.
+     *
+     * @param jobId      the ID of the report job.
+     * @param recipients the email addresses of the users.
+     * @return the addresses among them that already have an email.
+     */
+    @Query("select e.recipient from report_emails e where e.jobId = :jobId and e.recipient in :recipients")
+    Set<String> findRecipients(@Param("jobId") Long jobId, @Param("recipients") Collection<String> recipients);
+
+    /**
+     * Marks emails as sent.
+     *
+     * @param ids the IDs of the emails.
+     * @param now the time they were sent.
+     * @return the number of emails updated.
+     */
+    @Modifying
+    @Query("update report_emails e set e.status = com.example.aiexpensetracker.core.model.ReportEmailStatus.SENT, "
+            + "e.sentAt = :now, e.lastError = null where e.id in :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Records a failed attempt and when to try again.
+     *
+     * @param id            the ID of the email.
+     * @param nextAttemptAt when the email is due again.
+     * @param error         the error of the attempt.
+     * @return the number of emails updated.
+     */
+    @Modifying
+    @Query("update report_emails e set e.nextAttemptAt = :nextAttemptAt, e.lastError = :error where e.id = :id")
+    int retryLater(@Param("id") Long id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+
+    /**
+     * Records a failed last attempt and gives up on the email.
+     *
+     * @param id    the ID of the email.
+     * @param error the error of the attempt.
+     * @return the number of emails updated.
+     */
+    @Modifying
+    @Query("update report_emails e set e.status = com.example.aiexpensetracker.core.model.ReportEmailStatus.DEAD, "
+            + "e.lastError = :error where e.id = :id")
+    int markDead(@Param("id") Long id, @Param("error") String error);
+
+    /**
+     * Counts a job's emails per delivery state; states without emails are left out.
+     *
+     * @param jobId the ID of the report job.
+     * @return the number of emails per state.
+     */
+    @Query("select new com.example.aiexpensetracker.core.repository.report.ReportEmailStatusCount(e.status, count(e)) "
+            + "from report_emails e where e.jobId = :jobId group by e.status")
+    List<ReportEmailStatusCount> countByStatus(@Param("jobId") Long jobId);
+}
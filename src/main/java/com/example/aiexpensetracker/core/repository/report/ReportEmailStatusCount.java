@@ -0,0 +1,25 @@
+package com.example.aiexpensetracker.core.repository.report;
+
+import com.example.aiexpensetracker.core.model.ReportEmailStatus;
+
+/**
+ * Read-only projection of the number of a job's outbox emails in one delivery state.
+ */
+public class ReportEmailStatusCount {
+
+    private final ReportEmailStatus status;
+    private final long count;
+
+    public ReportEmailStatusCount(ReportEmailStatus status, Long count) {
+        this.status = status;
+        this.count = count;
+    }
+
+    public ReportEmailStatus getStatus() {
+        return status;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
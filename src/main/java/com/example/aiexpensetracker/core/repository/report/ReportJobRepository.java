@@ -0,0 +1,67 @@
+package com.example.aiexpensetracker.core.repository.report;
+
+import com.example.aiexpensetracker.core.model.ReportJob;
+import com.example.aiexpensetracker.core.model.ReportJobStatus;
+import com.example.aiexpensetracker.core.model.ReportPeriod;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for report jobs.
+ * Modifying methods must be called inside a transaction.
+ */
+public interface ReportJobRepository extends JpaRepository<ReportJob, Long> {
+
+    /**
+     * Finds the job of a period, dates and shard, of which there is at most one.
+     *
+     * @param period     the kind of report.
+     * @param startDate  the first day of the reporting period.
+     * @param endDate    the last day of the reporting period.
+     * @param shardIndex the shard of the users; 0 if the run is not sharded.
+     * @return the job, if it was ever started.
+     */
+    Optional<ReportJob> findByPeriodAndStartDateAndEndDateAndShardIndex(
+            ReportPeriod period, LocalDate startDate, LocalDate endDate, int shardIndex);
+
+    /**
+     * Finds the jobs of one shard in the given state, e.g. the pending jobs a node should start for its shard.
+     *
+     * @param status     the state to look for.
+     * @param shardIndex the shard of the users.
+     * @param shardCount the number of shards the jobs were created for.
+     * @return the jobs, oldest first.
+     */
+    List<ReportJob> findByStatusAndShardIndexAndShardCountOrderByIdAsc(
+            ReportJobStatus status, int shardIndex, int shardCount);
+
+    /**
+     * Finds the jobs in one of the given states whose node has not shown a sign of life since the cutoff.
+     *
+     * @param statuses the states to look for, e.g. pending and running.
+     * @param cutoff   the heartbeat before which a job is considered abandoned.
+     * @return the abandoned jobs, oldest first.
+     */
+    List<ReportJob> findByStatusInAndHeartbeatAtBeforeOrderByIdAsc(Collection<ReportJobStatus> statuses, LocalDateTime cutoff);
+
+    /**
+     * Takes over a job by moving its heartbeat and version forward, if nobody else did in the meantime.
+     *
+     * @param id      the ID of the job.
+     * @param version the version the job was read with.
+     * @param now     the new heartbeat.
+     * @return 1 if this caller now owns the job, 0 if another node took it first.
+     */
+    @Modifying
+    @Query("update report_jobs j set j.heartbeatAt = :now, j.version = j.version + 1 "
+            + "where j.id = :id and j.version = :version")
+    int claim(@Param("id") Long id, @Param("version") long version, @Param("now") LocalDateTime now);
+}
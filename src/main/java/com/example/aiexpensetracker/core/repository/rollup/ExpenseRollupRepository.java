@@ -0,0 +1,117 @@
+package com.example.aiexpensetracker.core.repository.rollup;
+
+import com.example.aiexpensetracker.core.model.ExpenseRollup;
+import com.example.aiexpensetracker.core.model.ExpenseRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository interface for the per-user, per-month, per-category expense rollups.
+ * All modifying methods must be called inside a transaction.
+ */
+public interface ExpenseRollupRepository extends JpaRepository<ExpenseRollup, ExpenseRollupId> {
+
+    /**
+     * Adds a delta to a rollup, creating the rollup if it does not exist yet.
+     * Runs as a single PostgreSQL upsert, so concurrent writers to the same rollup cannot lose updates.
+     *
+     * @param userId     the ID of the user.
+     * @param monthStart the first day of the month.
+     * @param categoryId the ID of the category, or {@link ExpenseRollupId#UNCATEGORIZED}.
+     * @param count      the change in the number of expenses (negative for removals).
+     * @param amount     the change in the total amount (negative for removals).
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT INTO expense_rollups (user_id, month_start, category_id, expense_count, total_amount)
+            VALUES (:userId, :monthStart, :categoryId, :count, :amount)
+            ON CONFLICT (user_id, month_start, category_id) DO UPDATE
+            SET expense_count = expense_rollups.expense_count + EXCLUDED.expense_count,
+                total_amount = expense_rollups.total_amount + EXCLUDED.total_amount
+            """)
+    void addDelta(
+            @Param("userId") Long userId,
+            @Param("monthStart") LocalDate monthStart,
+            @Param("categoryId") Long categoryId,
+            @Param("count") long count,
+            @Param("amount") BigDecimal amount
+    );
+
+    /**
+     * Sums a user's rollups per category, so the totals and counts come straight from the database.
+     *
+     * @param userEmail the email of the user.
+     * @return one total per category name ordered by name, with uncategorized expenses last under a null name.
+     */
+    @Query("select new com.example.aiexpensetracker.core.repository.rollup.ExpenseRollupTotal("
+            + "c.name, sum(r.expenseCount), sum(r.totalAmount)) "
+            + "from expense_rollups r join User u on u.id = r.id.userId "
+            + "left join categories c on c.id = r.id.categoryId "
+            + "where u.email = :userEmail "
+            + "group by c.name "
+            + "having sum(r.expenseCount) > 0 "
+            + "order by c.name nulls last")
+    List<ExpenseRollupTotal> sumByCategory(@Param("userEmail") String userEmail);
+
+    /**
+     * Sums a user's rollups per month, so the totals and counts come straight from the database.
+     *
+     * @param userEmail the email of the user.
+     * @return one total per month ordered by month.
+     */
+    @Query("select new com.example.aiexpensetracker.core.repository.rollup.ExpenseRollupTotal("
+            + "r.id.monthStart, sum(r.expenseCount), sum(r.totalAmount)) "
+            + "from expense_rollups r join User u on u.id = r.id.userId "
+            + "where u.email = :userEmail "
+            + "group by r.id.monthStart "
+            + "having sum(r.expenseCount) > 0 "
+            + "order by r.id.monthStart")
+    List<ExpenseRollupTotal> sumByMonth(@Param("userEmail") String userEmail);
+
+    /**
+     * Deletes the rollups of a category, e.g. when the category and its expenses are deleted.
+     *
+     * @param categoryId the ID of the category.
+     */
+    @Modifying
+    @Query("delete from expense_rollups r where r.id.categoryId = :categoryId")
+    void deleteByCategoryId(@Param("categoryId") Long categoryId);
+
+    /**
+     * Deletes all rollups of a user, e.g. when the user is deleted.
+     *
+     * @param userId the ID of the user.
+     */
+    @Modifying
+    @Query("delete from expense_rollups r where r.id.userId = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
+
+    /**
+     * Locks the rollup table against concurrent upserts until the current transaction ends,
+     * so that a rebuild cannot interleave with expense writes.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "LOCK TABLE expense_rollups IN EXCLUSIVE MODE")
+    void lockForRebuild();
+
+    /**
+     * Recomputes every rollup from the expenses table. The table must be empty beforehand.
+     * The expenses' 'user_email' column holds the owner's user ID.
+     *
+     * @return the number of rollups created.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT INTO expense_rollups (user_id, month_start, category_id, expense_count, total_amount)
+            SELECT user_email, CAST(DATE_TRUNC('month', date) AS DATE), COALESCE(category_id, 0), COUNT(*), SUM(amount)
+            FROM expenses
+            GROUP BY user_email, CAST(DATE_TRUNC('month', date) AS DATE), COALESCE(category_id, 0)
+            """)
+    int insertFromExpenses();
+}
@@ -0,0 +1,53 @@
+package com.example.aiexpensetracker.core.repository.rollup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of expense rollups summed per category or per month.
+ * Only the grouping column of the query is set; the other one is null.
+ */
+public class ExpenseRollupTotal {
+
+    private final String categoryName;
+    private final LocalDate monthStart;
+    private final long expenseCount;
+    private final BigDecimal totalAmount;
+
+    public ExpenseRollupTotal(String categoryName, Long expenseCount, BigDecimal totalAmount) {
+        this(categoryName, null, expenseCount, totalAmount);
+    }
+
+    public ExpenseRollupTotal(LocalDate monthStart, Long expenseCount, BigDecimal totalAmount) {
+        this(null, monthStart, expenseCount, totalAmount);
+    }
+
+    private ExpenseRollupTotal(String categoryName, LocalDate monthStart, Long expenseCount, BigDecimal totalAmount) {
+        this.categoryName = categoryName;
+        this.monthStart = monthStart;
+        this.expenseCount = expenseCount;
+        this.totalAmount = totalAmount;
+    }
+
+    /**
+     * @return the name of the category, or null for uncategorized expenses and monthly totals.
+     */
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    /**
+     * @return the first day of the month, or null for category totals.
+     */
+    public LocalDate getMonthStart() {
+        return monthStart;
+    }
+
+    public long getExpenseCount() {
+        return expenseCount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.aiexpensetracker.core.repository.scheduler;
+
+import com.example.aiexpensetracker.core.model.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository interface for the leases on scheduled tasks.
+ * Modifying methods must be called inside a transaction.
+ */
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+    /**
+     * Takes an existing lease if it has expired. The update is atomic, so of several nodes trying at once,
+     * only one succeeds.
+     *
+     * @param name  the name of the scheduled task.
+     * @param node  the node taking the lease.
+     * @param now   the current time.
+     * @param until the time until which the lease is held.
+     * @return 1 if this node now holds the lease, 0 if another node holds it or it was never created.
+     */
+    @Modifying
+    @Query("update scheduler_locks l set l.lockedUntil = :until, l.lockedAt = :now, l.lockedBy = :node, "
+            + "l.version = l.version + 1 where l.name = :name and l.lockedUntil <= :now")
+    int acquire(@Param("name") String name, @Param("node") String node, @Param("now") LocalDateTime now,
+                @Param("until") LocalDateTime until);
+}
@@ -2,7 +2,10 @@ package com.example.aiexpensetracker.core.repository.user;
 
 import com.example.aiexpensetracker.core.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -26,4 +29,21 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return true if a user exists with the given email, false otherwise.
      */
     boolean existsByEmail(String email);
+
+    /**
+     * Counts the users of one shard, as split by email hash for report runs.
+     *
+     * @param shardCount the number of shards; 1 for all users.
+     * @param shard      the shard to count, from 0 to shardCount - 1.
+     * @return the number of users in the shard.
+     */
+    @Query("select count(u) from User u where mod(coalesce(u.emailHash, 0), :shardCount) = :shard")
+    long countByShard(@Param("shardCount") int shardCount, @Param("shard") int shard);
+
+    /**
+     * Finds a batch of users stored before their email hash was kept, for backfilling it.
+     *
+     * @return up to 500 users without an email hash.
+     */
+    List<User> findTop500ByEmailHashIsNull();
 }
@@ -0,0 +1,151 @@
+package com.example.aiexpensetracker.core.service.analytics;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Aggregations over {@link ExpenseColumns}. Every operation is a loop over the primitive columns;
+ * apart from the few arrays of its result (or, for percentiles, one copy of the amounts), none allocates.
+ * Amounts are returned in the minor units of the columns; use {@link ExpenseColumns#toAmount(long)}
+ * to convert them back.
+ */
+public final class ExpenseAggregates {
+
+    private ExpenseAggregates() {}
+
+    /**
+     * @throws ArithmeticException if the sum overflows a long.
+     */
+    public static long sum(ExpenseColumns columns) {
+        long[] amounts = columns.amounts();
+        long sum = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            sum = Math.addExact(sum, amounts[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * @throws NoSuchElementException if there are no expenses.
+     */
+    public static long min(ExpenseColumns columns) {
+        requireNonEmpty(columns);
+        long[] amounts = columns.amounts();
+        long min = amounts[0];
+        for (int i = 1; i < columns.size(); i++) {
+            min = Math.min(min, amounts[i]);
+        }
+        return min;
+    }
+
+    /**
+     * @throws NoSuchElementException if there are no expenses.
+     */
+    public static long max(ExpenseColumns columns) {
+        requireNonEmpty(columns);
+        long[] amounts = columns.amounts();
+        long max = amounts[0];
+        for (int i = 1; i < columns.size(); i++) {
+            max = Math.max(max, amounts[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Computes a percentile of the amounts with the nearest-rank method,
+     * so the result is always one of the amounts (the 50th percentile is the lower median).
+     *
+     * @param columns    the expenses.
+     * @param percentile the percentile, greater than 0 and at most 100.
+     * @return the smallest amount that at least that percentage of the amounts is less than or equal to.
+     * @throws NoSuchElementException if there are no expenses.
+     */
+    public static long percentile(ExpenseColumns columns, double percentile) {
+        if (!(percentile > 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("The percentile must be greater than 0 and at most 100.");
+        }
+        requireNonEmpty(columns);
+        long[] sorted = Arrays.copyOf(columns.amounts(), columns.size());
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    /**
+     * Groups the expenses by category. The group keys are the category ordinals of the columns.
+     */
+    public static ExpenseGroups groupByCategory(ExpenseColumns columns) {
+        return group(columns, columns.categories());
+    }
+
+    /**
+     * Groups the expenses by month. The group keys are epoch months, see {@link ExpenseColumns#epochMonth(int)}.
+     */
+    public static ExpenseGroups groupByMonth(ExpenseColumns columns) {
+        return group(columns, columns.epochMonths());
+    }
+
+    /**
+     * Counting sort of the rows over the dense key range: one pass counts and sums per key,
+     * one pass places the rows, and empty keys are dropped.
+     */
+    private static ExpenseGroups group(ExpenseColumns columns, int[] keyColumn) {
+        int size = columns.size();
+        if (size == 0) {
+            return new ExpenseGroups(new int[0], new int[1], new long[0], new int[0]);
+        }
+
+        int minKey = keyColumn[0];
+        int maxKey = keyColumn[0];
+        for (int i = 1; i < size; i++) {
+            minKey = Math.min(minKey, keyColumn[i]);
+            maxKey = Math.max(maxKey, keyColumn[i]);
+        }
+
+        long[] amounts = columns.amounts();
+        int span = maxKey - minKey + 1;
+        int[] countsByKey = new int[span];
+        long[] sumsByKey = new long[span];
+        for (int i = 0; i < size; i++) {
+            int slot = keyColumn[i] - minKey;
+            countsByKey[slot]++;
+            sumsByKey[slot] = Math.addExact(sumsByKey[slot], amounts[i]);
+        }
+
+        int groupCount = 0;
+        for (int count : countsByKey) {
+            if (count > 0) {
+                groupCount++;
+            }
+        }
+
+        int[] keys = new int[groupCount];
+        int[] offsets = new int[groupCount + 1];
+        long[] sums = new long[groupCount];
+        // Reuse countsByKey as the next free position of each non-empty key's rows.
+        int group = 0;
+        for (int slot = 0; slot < span; slot++) {
+            int count = countsByKey[slot];
+            if (count > 0) {
+                keys[group] = slot + minKey;
+                sums[group] = sumsByKey[slot];
+                offsets[group + 1] = offsets[group] + count;
+                countsByKey[slot] = offsets[group];
+                group++;
+            }
+        }
+
+        int[] rows = new int[size];
+        for (int i = 0; i < size; i++) {
+            rows[countsByKey[keyColumn[i] - minKey]++] = i;
+        }
+
+        return new ExpenseGroups(keys, offsets, sums, rows);
+    }
+
+    private static void requireNonEmpty(ExpenseColumns columns) {
+        if (columns.size() == 0) {
+            throw new NoSuchElementException("There are no expenses to aggregate.");
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.aiexpensetracker.core.service.analytics;
+
+import com.example.aiexpensetracker.core.repository.expense.ExpenseSummary;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar, primitive copy of a user's expenses for in-memory aggregation.
+ * Amounts are kept as longs in minor units of the widest scale among the loaded amounts
+ * (cents for the default numeric(38,2) column), dates as epoch days and months, and categories
+ * as ordinals into a small dictionary of category labels, so that {@link ExpenseAggregates}
+ * can sum, group and rank the expenses without creating an object per expense.
+ * Row i of every column describes the i-th expense of the list the columns were built from.
+ */
+public final class ExpenseColumns {
+
+    public static final String UNCATEGORIZED = "Uncategorized";
+
+    private final int size;
+    private final int scale;
+    private final long[] amounts;
+    private final int[] epochDays;
+    private final int[] epochMonths;
+    private final int[] categories;
+    private final String[] categoryLabels;
+    private final Map<String, Integer> categoryOrdinals;
+
+    private ExpenseColumns(
+            int size,
+            int scale,
+            long[] amounts,
+            int[] epochDays,
+            int[] epochMonths,
+            int[] categories,
+            String[] categoryLabels,
+            Map<String, Integer> categoryOrdinals
+    ) {
+        this.size = size;
+        this.scale = scale;
+        this.amounts = amounts;
+        this.epochDays = epochDays;
+        this.epochMonths = epochMonths;
+        this.categories = categories;
+        this.categoryLabels = categoryLabels;
+        this.categoryOrdinals = categoryOrdinals;
+    }
+
+    /**
+     * Loads expenses into columns. Uncategorized expenses share the {@link #UNCATEGORIZED} label,
+     * and category ordinals are assigned in order of first appearance.
+     *
+     * @param expenses the expenses to load.
+     * @return the columns of the expenses.
+     * @throws ArithmeticException if an amount does not fit into a long in minor units.
+     */
+    public static ExpenseColumns of(List<ExpenseSummary> expenses) {
+        int size = expenses.size();
+        int scale = 0;
+        for (ExpenseSummary expense : expenses) {
+            scale = Math.max(scale, expense.getAmount().scale());
+        }
+
+        long[] amounts = new long[size];
+        int[] epochDays = new int[size];
+        int[] epochMonths = new int[size];
+        int[] categories = new int[size];
+        Map<String, Integer> categoryOrdinals = new HashMap<>();
+
+        for (int i = 0; i < size; i++) {
+            ExpenseSummary expense = expenses.get(i);
+            LocalDate date = expense.getDate();
+            String label = expense.getCategoryName() != null ? expense.getCategoryName() : UNCATEGORIZED;
+
+            amounts[i] = expense.getAmount().setScale(scale).unscaledValue().longValueExact();
+            epochDays[i] = Math.toIntExact(date.toEpochDay());
+            epochMonths[i] = epochMonth(date);
+            categories[i] = categoryOrdinals.computeIfAbsent(label, key -> categoryOrdinals.size());
+        }
+
+        String[] categoryLabels = new String[categoryOrdinals.size()];
+        categoryOrdinals.forEach((label, ordinal) -> categoryLabels[ordinal] = label);
+
+        return new ExpenseColumns(
+                size, scale, amounts, epochDays, epochMonths, categories, categoryLabels, categoryOrdinals);
+    }
+
+    /**
+     * @param date a date.
+     * @return the number of months between January 0000 and the month of the date.
+     */
+    public static int epochMonth(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    /**
+     * @param epochMonth a month as returned by {@link #epochMonth(LocalDate)}.
+     * @return the first day of that month.
+     */
+    public static LocalDate monthStart(int epochMonth) {
+        return LocalDate.of(Math.floorDiv(epochMonth, 12), Math.floorMod(epochMonth, 12) + 1, 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of decimal places of the minor units the amounts are stored in.
+     */
+    public int scale() {
+        return scale;
+    }
+
+    public long amount(int row) {
+        return amounts[row];
+    }
+
+    public int epochDay(int row) {
+        return epochDays[row];
+    }
+
+    public int epochMonth(int row) {
+        return epochMonths[row];
+    }
+
+    public int category(int row) {
+        return categories[row];
+    }
+
+    /**
+     * @return the number of distinct category labels, i.e. the exclusive upper bound of the ordinals.
+     */
+    public int categoryCount() {
+        return categoryLabels.length;
+    }
+
+    public String categoryLabel(int ordinal) {
+        return categoryLabels[ordinal];
+    }
+
+    /**
+     * @param label a category label.
+     * @return the ordinal of the label, or -1 if no loaded expense has it.
+     */
+    public int categoryOrdinal(String label) {
+        return categoryOrdinals.getOrDefault(label, -1);
+    }
+
+    /**
+     * Converts an amount in minor units, e.g. a sum, back to a BigDecimal of the original scale.
+     */
+    public BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, scale);
+    }
+
+    long[] amounts() {
+        return amounts;
+    }
+
+    int[] epochMonths() {
+        return epochMonths;
+    }
+
+    int[] categories() {
+        return categories;
+    }
+}
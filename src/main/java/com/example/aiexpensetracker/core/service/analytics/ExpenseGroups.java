@@ -0,0 +1,69 @@
+package com.example.aiexpensetracker.core.service.analytics;
+
+/**
+ * Expenses grouped by an int key (a category ordinal or an epoch month), as built by
+ * {@link ExpenseAggregates}. Groups are ordered by ascending key and only non-empty groups exist.
+ * Each group has its count, its sum in minor units and the rows of its expenses in their original order.
+ */
+public final class ExpenseGroups {
+
+    private final int[] keys;
+    private final int[] offsets;
+    private final long[] sums;
+    private final int[] rows;
+
+    ExpenseGroups(int[] keys, int[] offsets, long[] sums, int[] rows) {
+        this.keys = keys;
+        this.offsets = offsets;
+        this.sums = sums;
+        this.rows = rows;
+    }
+
+    public int groupCount() {
+        return keys.length;
+    }
+
+    public int key(int group) {
+        return keys[group];
+    }
+
+    public int count(int group) {
+        return offsets[group + 1] - offsets[group];
+    }
+
+    /**
+     * @return the sum of the amounts of the group, in the minor units of the columns.
+     */
+    public long sum(int group) {
+        return sums[group];
+    }
+
+    /**
+     * @param group a group.
+     * @param index the position within the group, from 0 to count(group) - 1.
+     * @return the row of the expense at that position.
+     */
+    public int row(int group, int index) {
+        return rows[offsets[group] + index];
+    }
+
+    /**
+     * @param key a key.
+     * @return the group with that key, or -1 if no expense has it.
+     */
+    public int indexOf(int key) {
+        int low = 0;
+        int high = keys.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) {
+                low = middle + 1;
+            } else if (keys[middle] > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.aiexpensetracker.core.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Names, keys and write-driven invalidation of the per-user caches in front of the statistics
+ * and by-category views. Entries are bounded in size and age by the Caffeine spec in
+ * application.properties, and are evicted here whenever the user's expenses or categories change.
+ * Hits, misses and size/age evictions are published by Caffeine as the "cache.*" metrics;
+ * evictions caused by writes are counted as "cache.invalidations".
+ */
+@Component
+public class UserViewCache {
+
+    public static final String STATISTICS = "statistics";
+    public static final String EXPENSES_BY_CATEGORY = "expensesByCategory";
+    public static final String KEY_GENERATOR = "userViewKeyGenerator";
+
+    private static final List<String> CACHE_NAMES = List.of(STATISTICS, EXPENSES_BY_CATEGORY);
+
+    private final CacheManager cacheManager;
+    private final Counter invalidations;
+
+    public UserViewCache(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        this.invalidations = Counter.builder("cache.invalidations")
+                .description("Cached user views evicted because the user's data changed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds the cache key of one variant of a user's view.
+     *
+     * @param email           the email of the user.
+     * @param includeExpenses whether the view embeds the expenses.
+     * @return the cache key.
+     */
+    public static String key(String email, boolean includeExpenses) {
+        return email + ":" + includeExpenses;
+    }
+
+    /**
+     * Evicts every cached view of a user.
+     * Inside a transaction the eviction runs after commit, so that a read running concurrently with
+     * the write cannot put the state from before the write back into the cache.
+     *
+     * @param email the email of the user whose data changed.
+     */
+    public void evictUser(String email) {
+        afterCommit(() -> {
+            for (String cacheName : CACHE_NAMES) {
+                Cache cache = cacheManager.getCache(cacheName);
+                if (cache != null) {
+                    cache.evict(key(email, true));
+                    cache.evict(key(email, false));
+                }
+            }
+            invalidations.increment();
+        });
+    }
+
+    /**
+     * Evicts the cached views of all users, e.g. after the rollups were rebuilt.
+     */
+    public void evictAll() {
+        afterCommit(() -> {
+            for (String cacheName : CACHE_NAMES) {
+                Cache cache = cacheManager.getCache(cacheName);
+                if (cache != null) {
+                    cache.clear();
+                }
+            }
+            invalidations.increment();
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
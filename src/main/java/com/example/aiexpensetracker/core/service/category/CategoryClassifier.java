@@ -0,0 +1,322 @@
+package com.example.aiexpensetracker.core.service.category;
+
+import com.example.aiexpensetracker.core.repository.expense.LabeledDescription;
+import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.rest.dto.category.CategorySuggestionResponseDTO;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A per-user multinomial naive Bayes classifier of expense descriptions, trained on the categories the
+ * user already filed their expenses under. It answers category suggestions in-process when it is confident,
+ * so that only descriptions unlike anything the user filed before go to the AI service.
+ * <p>
+ * A user's model is trained from their most recent categorized expenses on their first suggestion, kept in
+ * memory for a bounded number of users, and updated as expenses are created, changed or deleted. An import or a
+ * change to the user's categories drops the model, and it is trained again on the next suggestion.
+ * Training runs on its own executor, and suggestions made while the user's model is training go to the AI service
+ * instead of waiting for it. An expense written during training may be missing from the rows the training read,
+ * so such a write drops the pending model as well.
+ * Predictions are counted as "category.classifier.predictions" by outcome ({@code confident}, {@code unsure},
+ * {@code training}), and training is timed as "category.classifier.training.duration".
+ */
+@Component
+public class CategoryClassifier {
+
+    private final RepositoryManager repositoryManager;
+    private final boolean enabled;
+    private final double minConfidence;
+    private final int minExamples;
+    private final int maxTrainingExpenses;
+    private final AsyncCache<String, Model> models;
+    private final Counter confident;
+    private final Counter unsure;
+    private final Counter training;
+    private final Timer trainingDuration;
+
+    public CategoryClassifier(
+            RepositoryManager repositoryManager,
+            MeterRegistry meterRegistry,
+            @Value("${category.classifier.enabled:true}") boolean enabled,
+            @Value("${category.classifier.min-confidence:0.9}") double minConfidence,
+            @Value("${category.classifier.min-examples:20}") int minExamples,
+            @Value("${category.classifier.max-training-expenses:5000}") int maxTrainingExpenses,
+            @Value("${category.classifier.max-users:1000}") long maxUsers,
+            @Value("${category.classifier.idle-expiry:PT1H}") Duration idleExpiry,
+            @Qualifier("classifierExecutor") Executor trainingExecutor
+    ) {
+        this.repositoryManager = repositoryManager;
+        this.enabled = enabled;
+        this.minConfidence = minConfidence;
+        this.minExamples = minExamples;
+        this.maxTrainingExpenses = maxTrainingExpenses;
+        this.models = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(idleExpiry)
+                .executor(trainingExecutor)
+                .buildAsync();
+        this.confident = predictions(meterRegistry, "confident");
+        this.unsure = predictions(meterRegistry, "unsure");
+        this.training = predictions(meterRegistry, "training");
+        this.trainingDuration = Timer.builder("category.classifier.training.duration")
+                .description("Duration of training a user's category classifier from their expenses")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Suggests one of the user's categories for a description, if the user's history points to it clearly enough.
+     *
+     * @param email       the email of the user.
+     * @param description the expense description.
+     * @param categories  the names of the user's current categories.
+     * @return the suggestion, or empty if the classifier is not confident, or the user's model is still training,
+     * and the AI service should be asked.
+     */
+    public Optional<CategorySuggestionResponseDTO> classify(String email, String description, List<String> categories) {
+        if (!enabled || description == null) {
+            return Optional.empty();
+        }
+        Model model = trained(email);
+        if (model == null) {
+            training.increment();
+            return Optional.empty();
+        }
+        String category = model.predict(tokens(description), minConfidence, minExamples);
+        if (category == null || !categories.contains(category)) {
+            unsure.increment();
+            return Optional.empty();
+        }
+        confident.increment();
+        return Optional.of(new CategorySuggestionResponseDTO(category, false, 200));
+    }
+
+    /**
+     * Adds a categorized expense to the user's model, once the surrounding transaction commits.
+     *
+     * @param email        the email of the user.
+     * @param description  the expense description.
+     * @param categoryName the name of the expense's category.
+     */
+    public void learn(String email, String description, String categoryName) {
+        update(email, description, categoryName, 1);
+    }
+
+    /**
+     * Takes a categorized expense out of the user's model, once the surrounding transaction commits,
+     * e.g. before it is changed or after it is deleted.
+     *
+     * @param email        the email of the user.
+     * @param description  the expense description as it was learned.
+     * @param categoryName the name of the category it was learned under.
+     */
+    public void unlearn(String email, String description, String categoryName) {
+        update(email, description, categoryName, -1);
+    }
+
+    /**
+     * Drops the user's model once the surrounding transaction commits, e.g. after a category was renamed
+     * or deleted; it is trained again on the next suggestion.
+     *
+     * @param email the email of the user.
+     */
+    public void forget(String email) {
+        afterCommit(() -> models.synchronous().invalidate(email));
+    }
+
+    private void update(String email, String description, String categoryName, int sign) {
+        if (description == null || categoryName == null) {
+            return;
+        }
+        List<String> tokens = tokens(description);
+        afterCommit(() -> {
+            // A model that is not loaded is trained from the database, which then holds the change.
+            CompletableFuture<Model> model = models.getIfPresent(email);
+            if (model == null) {
+                return;
+            }
+            if (model.isDone() && !model.isCompletedExceptionally()) {
+                model.join().add(categoryName, tokens, sign);
+                return;
+            }
+            // The training may have read the expenses before this change; train again on the next suggestion.
+            models.asMap().remove(email, model);
+        });
+    }
+
+    /**
+     * @return the user's model, or null while it is training; the first call starts the training.
+     */
+    private Model trained(String email) {
+        CompletableFuture<Model> model;
+        try {
+            model = models.get(email, this::train);
+        } catch (RejectedExecutionException ex) {
+            // The training executor is saturated; a later suggestion starts the training.
+            return null;
+        }
+        return model.isDone() && !model.isCompletedExceptionally() ? model.join() : null;
+    }
+
+    private Model train(String email) {
+        return trainingDuration.record(() -> {
+            Model model = new Model();
+            for (LabeledDescription labeled : repositoryManager.getExpenseRepository()
+                    .findLabeledDescriptions(email, PageRequest.of(0, maxTrainingExpenses))) {
+                model.add(labeled.getCategoryName(), tokens(labeled.getDescription()), 1);
+            }
+            return model;
+        });
+    }
+
+    /**
+     * Splits a description into the words it is classified by: the normalized description's words of two or more
+     * characters, without numbers, which rarely say anything about the category (amounts, dates, order numbers).
+     */
+    static List<String> tokens(String description) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : CategorySuggestionCache.normalize(description).split(" ")) {
+            if (token.length() >= 2 && !token.chars().allMatch(Character::isDigit)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static Counter predictions(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("category.classifier.predictions")
+                .description("Category suggestions by whether the local classifier was confident enough to answer")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Token counts per category of one user. Guarded by its own monitor, since suggestions and expense
+     * writes of the same user can run at once.
+     */
+    private static final class Model {
+
+        private final Map<String, CategoryCounts> categories = new HashMap<>();
+        private final Map<String, Integer> vocabulary = new HashMap<>();
+        private int documents;
+
+        synchronized void add(String category, List<String> tokens, int sign) {
+            if (tokens.isEmpty() || (sign < 0 && !categories.containsKey(category))) {
+                return;
+            }
+            CategoryCounts counts = categories.computeIfAbsent(category, name -> new CategoryCounts());
+            counts.documents += sign;
+            documents += sign;
+            for (String token : tokens) {
+                if (sign > 0) {
+                    if (counts.tokens.merge(token, 1, Integer::sum) == 1) {
+                        vocabulary.merge(token, 1, Integer::sum);
+                    }
+                    counts.totalTokens++;
+                    continue;
+                }
+                Integer count = counts.tokens.get(token);
+                if (count == null) {
+                    continue;
+                }
+                counts.totalTokens--;
+                if (count > 1) {
+                    counts.tokens.put(token, count - 1);
+                } else {
+                    counts.tokens.remove(token);
+                    vocabulary.computeIfPresent(token, (word, categoriesWithWord) ->
+                            categoriesWithWord > 1 ? categoriesWithWord - 1 : null);
+                }
+            }
+            if (counts.documents <= 0) {
+                categories.remove(category);
+            }
+        }
+
+        /**
+         * @return the most likely category if its posterior probability reaches minConfidence, otherwise null.
+         */
+        synchronized String predict(List<String> tokens, double minConfidence, int minExamples) {
+            if (documents < minExamples || categories.size() < 2) {
+                // Too little history, or nothing to weigh the category against.
+                return null;
+            }
+            Set<String> known = new HashSet<>();
+            for (String token : tokens) {
+                if (vocabulary.containsKey(token)) {
+                    known.add(token);
+                }
+            }
+            if (known.isEmpty()) {
+                return null;
+            }
+
+            // Log-space scores with add-one smoothing; words never seen in the user's history are left out.
+            int vocabularySize = vocabulary.size();
+            String best = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            Map<String, Double> scores = new HashMap<>();
+            for (Map.Entry<String, CategoryCounts> entry : categories.entrySet()) {
+                CategoryCounts counts = entry.getValue();
+                double score = Math.log((double) counts.documents / documents);
+                double denominator = counts.totalTokens + vocabularySize;
+                for (String token : tokens) {
+                    if (known.contains(token)) {
+                        score += Math.log((counts.tokens.getOrDefault(token, 0) + 1) / denominator);
+                    }
+                }
+                scores.put(entry.getKey(), score);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = entry.getKey();
+                }
+            }
+
+            double sum = 0;
+            for (double score : scores.values()) {
+                sum += Math.exp(score - bestScore);
+            }
+            return 1 / sum >= minConfidence ? best : null;
+        }
+    }
+
+    private static final class CategoryCounts {
+
+        private final Map<String, Integer> tokens = new HashMap<>();
+        private int documents;
+        private int totalTokens;
+    }
+}
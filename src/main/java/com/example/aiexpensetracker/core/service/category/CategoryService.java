@@ -61,11 +61,37 @@ public interface CategoryService {
 
     /**
      * Suggests a category based on a description provided by the user.
-     * Uses AI to match the description to existing categories or suggest a new one.
+     * Uses AI to match the description to existing categories or suggest a new one. Suggestions are cached
+     * per normalized description and set of category names, so a repeated description is answered without AI.
+     * While the AI is unavailable or overloaded, the suggestion is answered at once with status 503.
      *
      * @param description the description of the expense or item to categorize.
      * @param email       the email of the user requesting the category suggestion.
      * @return a CompletableFuture containing a CategorySuggestionResponseDTO with the suggested category information.
      */
     CompletableFuture<CategorySuggestionResponseDTO> suggestCategory(String description, String email);
+
+    /**
+     * Suggests a category based on a description provided by the user, as {@link #suggestCategory(String, String)}.
+     * Identical suggestions of the same user in progress at the same time are made once and share the answer.
+     * A debounced suggestion starts only after a short quiet period, and a newer debounced suggestion of the same
+     * user supersedes it: it is then answered with status 409.
+     *
+     * @param description the description of the expense or item to categorize.
+     * @param email       the email of the user requesting the category suggestion.
+     * @param debounce    whether a newer suggestion of the user may supersede this one, e.g. while the user types.
+     * @return a CompletableFuture containing a CategorySuggestionResponseDTO with the suggested category information.
+     */
+    CompletableFuture<CategorySuggestionResponseDTO> suggestCategory(String description, String email, boolean debounce);
+
+    /**
+     * Suggests a category for each of several descriptions of the same user, asking the AI once for all the
+     * descriptions the local classifier and the suggestion cache could not answer. Descriptions already being
+     * suggested for the user, alone or in another batch, share that answer.
+     *
+     * @param descriptions the descriptions of the expenses or items to categorize.
+     * @param email        the email of the user requesting the category suggestions.
+     * @return a CompletableFuture containing one CategorySuggestionResponseDTO per description, in the same order.
+     */
+    CompletableFuture<List<CategorySuggestionResponseDTO>> suggestCategories(List<String> descriptions, String email);
 }
@@ -4,6 +4,7 @@ import com.example.aiexpensetracker.core.api.aiservice.AIService;
 import com.example.aiexpensetracker.core.model.Category;
 import com.example.aiexpensetracker.core.model.User;
 import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.core.service.cache.UserViewCache;
 import com.example.aiexpensetracker.exception.category.CategoryNotFoundException;
 import com.example.aiexpensetracker.exception.user.UserNotFoundException;
 import com.example.aiexpensetracker.rest.dto.category.CategoryResponseDTO;
@@ -12,9 +13,12 @@ import com.example.aiexpensetracker.rest.dto.category.CreateCategoryDTO;
 import com.example.aiexpensetracker.rest.dto.category.UpdateCategoryDTO;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
@@ -23,10 +27,25 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final RepositoryManager repositoryManager;
     private final AIService aiService;
-
-    public CategoryServiceImpl(RepositoryManager repositoryManager, AIService aiService) {
+    private final UserViewCache userViewCache;
+    private final CategorySuggestionCache suggestionCache;
+    private final CategoryClassifier classifier;
+    private final CategorySuggestionCoalescer suggestionCoalescer;
+
+    public CategoryServiceImpl(
+            RepositoryManager repositoryManager,
+            AIService aiService,
+            UserViewCache userViewCache,
+            CategorySuggestionCache suggestionCache,
+            CategoryClassifier classifier,
+            CategorySuggestionCoalescer suggestionCoalescer
+    ) {
         this.repositoryManager = repositoryManager;
         this.aiService = aiService;
+        this.userViewCache = userViewCache;
+        this.suggestionCache = suggestionCache;
+        this.classifier = classifier;
+        this.suggestionCoalescer = suggestionCoalescer;
     }
 
     @Async
@@ -59,10 +78,55 @@ public class CategoryServiceImpl implements CategoryService {
 
     @Async
     public CompletableFuture<CategorySuggestionResponseDTO> suggestCategory(String description, String email) {
-        return getAllCategoryNamesByUser(email)
-                .thenApply(existingNames -> {
-                    return aiService.suggestCategory(description, existingNames);
-                });
+        return suggestCategory(description, email, false);
+    }
+
+    @Async
+    @Override
+    public CompletableFuture<CategorySuggestionResponseDTO> suggestCategory(
+            String description,
+            String email,
+            boolean debounce
+    ) {
+        return suggestionCoalescer.suggest(email, description, debounce, () -> getAllCategoryNamesByUser(email)
+                .thenCompose(existingNames -> classifier.classify(email, description, existingNames)
+                        .map(CompletableFuture::completedFuture)
+                        .orElseGet(() -> suggestionCache.get(description, existingNames,
+                                () -> aiService.suggestCategory(description, existingNames)))));
+    }
+
+    @Async
+    @Override
+    public CompletableFuture<List<CategorySuggestionResponseDTO>> suggestCategories(
+            List<String> descriptions,
+            String email
+    ) {
+        return getAllCategoryNamesByUser(email).thenCompose(existingNames -> {
+            List<CategorySuggestionResponseDTO> suggestions = new ArrayList<>(descriptions.size());
+            List<Integer> unanswered = new ArrayList<>();
+            for (String description : descriptions) {
+                Optional<CategorySuggestionResponseDTO> local = classifier.classify(email, description, existingNames);
+                if (local.isEmpty()) {
+                    unanswered.add(suggestions.size());
+                }
+                suggestions.add(local.orElse(null));
+            }
+            if (unanswered.isEmpty()) {
+                return CompletableFuture.completedFuture(suggestions);
+            }
+
+            return suggestionCoalescer.suggestAll(
+                    email,
+                    unanswered.stream().map(descriptions::get).toList(),
+                    asked -> suggestionCache.getAll(asked, existingNames,
+                            misses -> aiService.suggestCategories(misses, existingNames))
+            ).thenApply(answers -> {
+                for (int i = 0; i < unanswered.size(); i++) {
+                    suggestions.set(unanswered.get(i), answers.get(i));
+                }
+                return suggestions;
+            });
+        });
     }
 
     @Async
@@ -79,6 +143,7 @@ public class CategoryServiceImpl implements CategoryService {
             category.setUser(user);
 
             Category saved = repositoryManager.getCategoryRepository().save(category);
+            userViewCache.evictUser(userEmail);
             return mapToResponseDTO(saved);
         });
     }
@@ -110,30 +175,36 @@ public class CategoryServiceImpl implements CategoryService {
             category.setUpdatedAt(LocalDateTime.now());
 
             Category updated = repositoryManager.getCategoryRepository().save(category);
+            userViewCache.evictUser(email);
+            classifier.forget(email);
             return mapToResponseDTO(updated);
         });
     }
 
     @Async
     @Override
+    @Transactional
     public CompletableFuture<Void> deleteCategory(String email, Long categoryId) {
-        return CompletableFuture.runAsync(() -> {
-            User user = repositoryManager.getUserRepository()
-                    .findByEmail(email)
-                    .orElseThrow(() -> new UserNotFoundException("User with email " + email + " not found."));
-
-            Category category = repositoryManager.getCategoryRepository()
-                    .findById(categoryId)
-                    .orElseThrow(() -> new CategoryNotFoundException("Category with ID " + categoryId + " not found."));
-
-            if (!category.getUser().getId().equals(user.getId())) {
-                throw new CategoryNotFoundException(
-                        "Category does not belong to user with email " + email + "."
-                );
-            }
-
-            repositoryManager.getCategoryRepository().delete(category);
-        });
+        User user = repositoryManager.getUserRepository()
+                .findByEmail(email)
+                .orElseThrow(() -> new UserNotFoundException("User with email " + email + " not found."));
+
+        Category category = repositoryManager.getCategoryRepository()
+                .findById(categoryId)
+                .orElseThrow(() -> new CategoryNotFoundException("Category with ID " + categoryId + " not found."));
+
+        if (!category.getUser().getId().equals(user.getId())) {
+            throw new CategoryNotFoundException(
+                    "Category does not belong to user with email " + email + "."
+            );
+        }
+
+        // The category's expenses are removed with it, so its rollups go in the same transaction.
+        repositoryManager.getCategoryRepository().delete(category);
+        repositoryManager.getExpenseRollupRepository().deleteByCategoryId(categoryId);
+        userViewCache.evictUser(email);
+        classifier.forget(email);
+        return CompletableFuture.completedFuture(null);
     }
 
     private CategoryResponseDTO mapToResponseDTO(Category category) {
@@ -0,0 +1,416 @@
+package com.example.aiexpensetracker.core.service.category;
+
+import com.example.aiexpensetracker.core.model.CategorySuggestion;
+import com.example.aiexpensetracker.core.repository.category.CategorySuggestionRepository;
+import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.rest.dto.category.CategorySuggestionResponseDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Two-level cache of the AI service's category suggestions: a bounded in-memory cache in front of the
+ * 'category_suggestions' table, which is shared by all nodes and survives restarts.
+ * The key is the normalized description together with a hash of the user's category names, so users with
+ * the same categories share suggestions, and a change to a user's categories changes the key: the user is
+ * never served a suggestion made for their old categories, which expire with the time to live.
+ * Only successful suggestions are stored, so a failed or rejected call is made again next time.
+ * Lookups are counted as "category.suggestion.cache.requests" by level ({@code memory}, {@code database},
+ * {@code miss}), with the ratio of hits as "category.suggestion.cache.hit.ratio"; the AI calls are timed as
+ * "category.suggestion.ai.duration", and the time hits saved against the average call is summed up as
+ * "category.suggestion.cache.latency.saved".
+ */
+@Component
+public class CategorySuggestionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CategorySuggestionCache.class);
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MAX_DESCRIPTION_LENGTH = 1000;
+
+    private final RepositoryManager repositoryManager;
+    private final TransactionTemplate transaction;
+    private final Duration ttl;
+    private final Cache<String, Entry> memory;
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter misses;
+    private final Timer aiDuration;
+    private final Counter latencySaved;
+
+    /**
+     * The average duration of an AI call, as an exponentially weighted moving average in nanoseconds.
+     */
+    private final AtomicLong averageCallNanos = new AtomicLong();
+
+    public CategorySuggestionCache(
+            RepositoryManager repositoryManager,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${category.suggestion-cache.max-size:10000}") long maxSize,
+            @Value("${category.suggestion-cache.ttl:P30D}") Duration ttl
+    ) {
+        this.repositoryManager = repositoryManager;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+
+        this.memoryHits = requests(meterRegistry, "memory");
+        this.databaseHits = requests(meterRegistry, "database");
+        this.misses = requests(meterRegistry, "miss");
+        Gauge.builder("category.suggestion.cache.hit.ratio", this, CategorySuggestionCache::hitRatio)
+                .description("Share of category suggestions served from the cache")
+                .register(meterRegistry);
+        this.aiDuration = Timer.builder("category.suggestion.ai.duration")
+                .description("Duration of the AI calls behind category suggestion cache misses")
+                .register(meterRegistry);
+        this.latencySaved = Counter.builder("category.suggestion.cache.latency.saved")
+                .description("Time cache hits saved against the average AI call")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached suggestion for a description and set of categories, or asks the AI service
+     * and stores its answer if it was successful.
+     *
+     * @param description the expense description.
+     * @param categories  the names of the user's categories.
+     * @param suggester   calls the AI service on a miss.
+     * @return a CompletableFuture containing the suggestion, already completed on a hit.
+     */
+    public CompletableFuture<CategorySuggestionResponseDTO> get(
+            String description,
+            List<String> categories,
+            Supplier<CompletableFuture<CategorySuggestionResponseDTO>> suggester
+    ) {
+        long started = System.nanoTime();
+        String normalized = normalize(description);
+        String key = key(normalized, categories);
+        LocalDateTime notBefore = LocalDateTime.now().minus(ttl);
+
+        Entry cached = memory.getIfPresent(key);
+        if (cached != null && cached.createdAt().isAfter(notBefore)) {
+            memoryHits.increment();
+            recordSaved(started);
+            return CompletableFuture.completedFuture(cached.toResponse());
+        }
+
+        Entry stored = findStored(key, notBefore);
+        if (stored != null) {
+            memory.put(key, stored);
+            databaseHits.increment();
+            recordSaved(started);
+            return CompletableFuture.completedFuture(stored.toResponse());
+        }
+
+        misses.increment();
+        long callStarted = System.nanoTime();
+        return suggester.get().thenApply(suggestion -> {
+            recordCall(System.nanoTime() - callStarted, 1);
+            if (isCacheable(suggestion)) {
+                Entry entry = new Entry(suggestion.getCategoryName(), Boolean.TRUE.equals(suggestion.getIsNew()),
+                        LocalDateTime.now());
+                memory.put(key, entry);
+                store(toStored(key, normalized, entry));
+            }
+            return suggestion;
+        });
+    }
+
+    /**
+     * Returns the cached suggestions for several descriptions with the same set of categories. The descriptions
+     * missing from memory are looked up in the table at once, and those missing from both are passed to the AI
+     * service in one call, each distinct description once; its successful answers are stored in one transaction.
+     *
+     * @param descriptions the expense descriptions.
+     * @param categories   the names of the user's categories.
+     * @param suggester    calls the AI service with the descriptions that missed, and answers one suggestion per
+     *                     description in the same order.
+     * @return a CompletableFuture containing one suggestion per description, in the same order.
+     */
+    public CompletableFuture<List<CategorySuggestionResponseDTO>> getAll(
+            List<String> descriptions,
+            List<String> categories,
+            Function<List<String>, CompletableFuture<List<CategorySuggestionResponseDTO>>> suggester
+    ) {
+        long started = System.nanoTime();
+        LocalDateTime notBefore = LocalDateTime.now().minus(ttl);
+        CategorySuggestionResponseDTO[] suggestions = new CategorySuggestionResponseDTO[descriptions.size()];
+        List<String> keys = new ArrayList<>(descriptions.size());
+        // The normalized description of every key that missed memory, in the order first seen.
+        Map<String, String> missed = new LinkedHashMap<>();
+        Map<String, String> missedDescriptions = new HashMap<>();
+
+        for (int i = 0; i < descriptions.size(); i++) {
+            String normalized = normalize(descriptions.get(i));
+            String key = key(normalized, categories);
+            keys.add(key);
+            Entry cached = memory.getIfPresent(key);
+            if (cached != null && cached.createdAt().isAfter(notBefore)) {
+                memoryHits.increment();
+                suggestions[i] = cached.toResponse();
+            } else if (missed.putIfAbsent(key, normalized) == null) {
+                missedDescriptions.put(key, descriptions.get(i));
+            }
+        }
+
+        Map<String, Entry> stored = findAllStored(missed.keySet(), notBefore);
+        memory.putAll(stored);
+        List<String> asked = new ArrayList<>();
+        for (String key : missed.keySet()) {
+            if (!stored.containsKey(key)) {
+                asked.add(key);
+            }
+        }
+
+        int hits = 0;
+        for (int i = 0; i < suggestions.length; i++) {
+            if (suggestions[i] != null || stored.containsKey(keys.get(i))) {
+                hits++;
+            }
+        }
+        if (hits > 0) {
+            recordSaved(started, hits);
+        }
+
+        if (asked.isEmpty()) {
+            return CompletableFuture.completedFuture(collect(suggestions, keys, stored, Map.of()));
+        }
+        long callStarted = System.nanoTime();
+        return suggester.apply(asked.stream().map(missedDescriptions::get).toList()).thenApply(answered -> {
+            recordCall(System.nanoTime() - callStarted, asked.size());
+
+            Map<String, CategorySuggestionResponseDTO> answers = new HashMap<>();
+            List<CategorySuggestion> toStore = new ArrayList<>();
+            for (int i = 0; i < asked.size(); i++) {
+                String key = asked.get(i);
+                CategorySuggestionResponseDTO answer = i < answered.size() ? answered.get(i) : null;
+                answers.put(key, answer != null ? answer : new CategorySuggestionResponseDTO(null, null, 400));
+                if (isCacheable(answer)) {
+                    Entry entry = new Entry(answer.getCategoryName(), Boolean.TRUE.equals(answer.getIsNew()),
+                            LocalDateTime.now());
+                    memory.put(key, entry);
+                    toStore.add(toStored(key, missed.get(key), entry));
+                }
+            }
+            storeAll(toStore);
+            return collect(suggestions, keys, stored, answers);
+        });
+    }
+
+    /**
+     * Fills in the suggestions that missed memory from the table's rows or the AI service's answers.
+     */
+    private List<CategorySuggestionResponseDTO> collect(
+            CategorySuggestionResponseDTO[] suggestions,
+            List<String> keys,
+            Map<String, Entry> stored,
+            Map<String, CategorySuggestionResponseDTO> answers
+    ) {
+        for (int i = 0; i < suggestions.length; i++) {
+            if (suggestions[i] != null) {
+                continue;
+            }
+            String key = keys.get(i);
+            Entry entry = stored.get(key);
+            if (entry != null) {
+                databaseHits.increment();
+                suggestions[i] = entry.toResponse();
+            } else {
+                misses.increment();
+                suggestions[i] = answers.get(key);
+            }
+        }
+        return List.of(suggestions);
+    }
+
+    /**
+     * Deletes the expired suggestions from the table.
+     */
+    @Scheduled(
+            initialDelayString = "${category.suggestion-cache.purge-interval:PT1H}",
+            fixedDelayString = "${category.suggestion-cache.purge-interval:PT1H}"
+    )
+    public void purgeExpired() {
+        CategorySuggestionRepository repository = repositoryManager.getCategorySuggestionRepository();
+        Integer purged = transaction.execute(status -> repository.deleteExpired(LocalDateTime.now().minus(ttl)));
+        if (purged != null && purged > 0) {
+            log.info("Purged {} expired category suggestions", purged);
+        }
+    }
+
+    /**
+     * Lower-cases the description and reduces every run of characters other than letters and digits to one
+     * space, so that "Uber ride", " UBER  Ride!" and "uber-ride" share a key.
+     *
+     * @param description the expense description.
+     * @return the normalized description.
+     */
+    static String normalize(String description) {
+        String folded = Normalizer.normalize(description, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        String normalized = SEPARATORS.matcher(folded).replaceAll(" ").trim();
+        return normalized.length() > MAX_DESCRIPTION_LENGTH ? normalized.substring(0, MAX_DESCRIPTION_LENGTH) : normalized;
+    }
+
+    /**
+     * @param normalizedDescription the normalized description.
+     * @param categories            the names of the user's categories, in any order.
+     * @return the key of the description and the set of category names.
+     */
+    static String key(String normalizedDescription, List<String> categories) {
+        // The names are kept as they are, since the suggestion repeats the matching name verbatim.
+        StringBuilder input = new StringBuilder(normalizedDescription);
+        for (String category : new TreeSet<>(categories)) {
+            input.append('\u0000').append(category);
+        }
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(input.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available.", ex);
+        }
+    }
+
+    private Entry findStored(String key, LocalDateTime notBefore) {
+        try {
+            return repositoryManager.getCategorySuggestionRepository()
+                    .findById(key)
+                    .filter(suggestion -> suggestion.getCreatedAt().isAfter(notBefore))
+                    .map(suggestion -> new Entry(
+                            suggestion.getCategoryName(), suggestion.isNew(), suggestion.getCreatedAt()))
+                    .orElse(null);
+        } catch (DataAccessException ex) {
+            log.warn("Could not read the stored category suggestion, asking the AI service", ex);
+            return null;
+        }
+    }
+
+    private Map<String, Entry> findAllStored(Iterable<String> keys, LocalDateTime notBefore) {
+        Map<String, Entry> stored = new HashMap<>();
+        if (!keys.iterator().hasNext()) {
+            return stored;
+        }
+        try {
+            for (CategorySuggestion suggestion : repositoryManager.getCategorySuggestionRepository().findAllById(keys)) {
+                if (suggestion.getCreatedAt().isAfter(notBefore)) {
+                    stored.put(suggestion.getCacheKey(), new Entry(
+                            suggestion.getCategoryName(), suggestion.isNew(), suggestion.getCreatedAt()));
+                }
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Could not read the stored category suggestions, asking the AI service", ex);
+        }
+        return stored;
+    }
+
+    private void store(CategorySuggestion suggestion) {
+        try {
+            // Replaces an expired row of the same key; of two nodes storing the same key at once, the last one wins.
+            transaction.executeWithoutResult(status ->
+                    repositoryManager.getCategorySuggestionRepository().save(suggestion));
+        } catch (DataAccessException ex) {
+            log.warn("Could not store the category suggestion", ex);
+        }
+    }
+
+    private void storeAll(List<CategorySuggestion> suggestions) {
+        if (suggestions.isEmpty()) {
+            return;
+        }
+        try {
+            transaction.executeWithoutResult(status ->
+                    repositoryManager.getCategorySuggestionRepository().saveAll(suggestions));
+        } catch (DataAccessException ex) {
+            log.warn("Could not store the category suggestions", ex);
+        }
+    }
+
+    private static CategorySuggestion toStored(String key, String normalizedDescription, Entry entry) {
+        CategorySuggestion suggestion =
+                new CategorySuggestion(key, normalizedDescription, entry.categoryName(), entry.isNew());
+        suggestion.setCreatedAt(entry.createdAt());
+        return suggestion;
+    }
+
+    private static boolean isCacheable(CategorySuggestionResponseDTO suggestion) {
+        return suggestion != null && Integer.valueOf(200).equals(suggestion.getStatus())
+                && suggestion.getCategoryName() != null;
+    }
+
+    /**
+     * Times an AI call, and folds its duration per description into the average a hit is measured against.
+     */
+    private void recordCall(long callNanos, int descriptions) {
+        aiDuration.record(callNanos, TimeUnit.NANOSECONDS);
+        long perDescription = callNanos / descriptions;
+        averageCallNanos.updateAndGet(average ->
+                average == 0 ? perDescription : average + (perDescription - average) / 8);
+    }
+
+    private void recordSaved(long started) {
+        recordSaved(started, 1);
+    }
+
+    private void recordSaved(long started, int hits) {
+        long savedNanos = hits * averageCallNanos.get() - (System.nanoTime() - started);
+        if (savedNanos > 0) {
+            latencySaved.increment(savedNanos / 1e9);
+        }
+    }
+
+    private double hitRatio() {
+        double hits = memoryHits.count() + databaseHits.count();
+        double total = hits + misses.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("category.suggestion.cache.requests")
+                .description("Category suggestions by the cache level that served them")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Entry(String categoryName, boolean isNew, LocalDateTime createdAt) {
+
+        CategorySuggestionResponseDTO toResponse() {
+            return new CategorySuggestionResponseDTO(categoryName, isNew, 200);
+        }
+    }
+}
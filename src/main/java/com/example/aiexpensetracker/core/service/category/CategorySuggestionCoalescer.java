@@ -0,0 +1,209 @@
+package com.example.aiexpensetracker.core.service.category;
+
+import com.example.aiexpensetracker.rest.dto.category.CategorySuggestionResponseDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent category suggestions of the same user for the same normalized description into one:
+ * the first request loads the user's categories and asks the classifier, the cache or the AI service, and the
+ * requests that arrive while it runs share its answer. Every caller gets its own copy of the shared future,
+ * so that a caller cancelling its copy does not cancel the others. Batch suggestions take part as well: each of
+ * their descriptions shares the answer of an identical suggestion in progress, and the others are shared with
+ * the suggestions that arrive while the batch runs.
+ * <p>
+ * A client that sends a suggestion as the user types can ask for it to be debounced: it is started only after
+ * the debounce window passed without a newer debounced suggestion of the same user. A suggestion that is
+ * superseded that way is answered at once with status 409 and never asks anything, unless the newer one is for
+ * the same description, in which case both get the newer one's answer.
+ * Coalesced and superseded suggestions are counted as "category.suggestion.coalesced" and
+ * "category.suggestion.superseded".
+ */
+@Component
+public class CategorySuggestionCoalescer {
+
+    private final Map<String, CompletableFuture<CategorySuggestionResponseDTO>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * The latest debounced suggestion of each user that has not started yet, by the user's email.
+     */
+    private final Map<String, Pending> debounced = new ConcurrentHashMap<>();
+
+    private final Executor afterDebounceWindow;
+    private final Counter coalesced;
+    private final Counter superseded;
+
+    public CategorySuggestionCoalescer(
+            MeterRegistry meterRegistry,
+            @Value("${category.suggestion.debounce-window:PT0.3S}") Duration debounceWindow
+    ) {
+        if (debounceWindow.isNegative()) {
+            throw new IllegalArgumentException("The debounce window must not be negative.");
+        }
+        this.afterDebounceWindow = CompletableFuture.delayedExecutor(debounceWindow.toMillis(), TimeUnit.MILLISECONDS);
+        this.coalesced = Counter.builder("category.suggestion.coalesced")
+                .description("Category suggestions that shared the answer of an identical one in progress")
+                .register(meterRegistry);
+        this.superseded = Counter.builder("category.suggestion.superseded")
+                .description("Debounced category suggestions dropped for a newer one of the same user")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Answers a suggestion, sharing the answer of an identical one in progress.
+     *
+     * @param email       the email of the user.
+     * @param description the expense description.
+     * @param debounce    whether to wait for the debounce window, and give way to a newer suggestion of the user.
+     * @param suggester   makes the suggestion.
+     * @return a CompletableFuture containing the suggestion, or status 409 if a newer one superseded it.
+     */
+    public CompletableFuture<CategorySuggestionResponseDTO> suggest(
+            String email,
+            String description,
+            boolean debounce,
+            Supplier<CompletableFuture<CategorySuggestionResponseDTO>> suggester
+    ) {
+        String key = key(email, description);
+        if (!debounce) {
+            return shared(key, suggester);
+        }
+
+        Pending pending = new Pending(key, new CompletableFuture<>());
+        Pending previous = debounced.put(email, pending);
+        if (previous != null) {
+            if (previous.key().equals(key)) {
+                // The same description again, e.g. a retried request: it waits for this one's answer.
+                pending.result().whenComplete((suggestion, ex) -> complete(previous.result(), suggestion, ex));
+            } else if (previous.result().complete(new CategorySuggestionResponseDTO(null, null, 409))) {
+                superseded.increment();
+            }
+        }
+
+        afterDebounceWindow.execute(() -> {
+            if (debounced.remove(email, pending)) {
+                shared(key, suggester).whenComplete((suggestion, ex) -> complete(pending.result(), suggestion, ex));
+            }
+        });
+        return pending.result().copy();
+    }
+
+    /**
+     * Answers a batch of suggestions, sharing the answer of every identical suggestion in progress, single or in
+     * another batch. The remaining descriptions are suggested in one call. Batches are never debounced.
+     *
+     * @param email        the email of the user.
+     * @param descriptions the expense descriptions.
+     * @param suggester    makes the suggestions for the descriptions it is given, in their order.
+     * @return a CompletableFuture containing one suggestion per description, in the order of the descriptions.
+     */
+    public CompletableFuture<List<CategorySuggestionResponseDTO>> suggestAll(
+            String email,
+            List<String> descriptions,
+            Function<List<String>, CompletableFuture<List<CategorySuggestionResponseDTO>>> suggester
+    ) {
+        // The flights of this batch by key, and among them the ones this batch makes, by key.
+        Map<String, CompletableFuture<CategorySuggestionResponseDTO>> flights = new HashMap<>();
+        Map<String, CompletableFuture<CategorySuggestionResponseDTO>> owned = new LinkedHashMap<>();
+        List<String> ownedDescriptions = new ArrayList<>();
+        List<CompletableFuture<CategorySuggestionResponseDTO>> results = new ArrayList<>(descriptions.size());
+        for (String description : descriptions) {
+            String key = key(email, description);
+            CompletableFuture<CategorySuggestionResponseDTO> flight = flights.get(key);
+            if (flight == null) {
+                flight = new CompletableFuture<>();
+                CompletableFuture<CategorySuggestionResponseDTO> existing = inFlight.putIfAbsent(key, flight);
+                if (existing != null) {
+                    coalesced.increment();
+                    flight = existing;
+                } else {
+                    owned.put(key, flight);
+                    ownedDescriptions.add(description);
+                }
+                flights.put(key, flight);
+            }
+            results.add(flight);
+        }
+
+        if (!owned.isEmpty()) {
+            CompletableFuture<List<CategorySuggestionResponseDTO>> suggestions;
+            try {
+                suggestions = suggester.apply(ownedDescriptions);
+            } catch (RuntimeException ex) {
+                suggestions = CompletableFuture.failedFuture(ex);
+            }
+            suggestions.whenComplete((answers, ex) -> {
+                owned.forEach(inFlight::remove);
+                Throwable failure = ex == null && answers.size() != owned.size()
+                        ? new IllegalStateException("Expected " + owned.size() + " suggestions, got " + answers.size())
+                        : ex;
+                int i = 0;
+                for (CompletableFuture<CategorySuggestionResponseDTO> flight : owned.values()) {
+                    complete(flight, failure == null ? answers.get(i++) : null, failure);
+                }
+            });
+        }
+
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> results.stream().map(CompletableFuture::join).toList());
+    }
+
+    private CompletableFuture<CategorySuggestionResponseDTO> shared(
+            String key,
+            Supplier<CompletableFuture<CategorySuggestionResponseDTO>> suggester
+    ) {
+        CompletableFuture<CategorySuggestionResponseDTO> flight = new CompletableFuture<>();
+        CompletableFuture<CategorySuggestionResponseDTO> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.copy();
+        }
+
+        CompletableFuture<CategorySuggestionResponseDTO> suggestion;
+        try {
+            suggestion = suggester.get();
+        } catch (RuntimeException ex) {
+            suggestion = CompletableFuture.failedFuture(ex);
+        }
+        suggestion.whenComplete((result, ex) -> {
+            // Removed before it completes, so that no later request joins a suggestion that was already answered.
+            inFlight.remove(key, flight);
+            complete(flight, result, ex);
+        });
+        return flight.copy();
+    }
+
+    private static String key(String email, String description) {
+        return email + '\u0000' + CategorySuggestionCache.normalize(description);
+    }
+
+    private static void complete(
+            CompletableFuture<CategorySuggestionResponseDTO> future,
+            CategorySuggestionResponseDTO suggestion,
+            Throwable ex
+    ) {
+        if (ex != null) {
+            future.completeExceptionally(ex);
+        } else {
+            future.complete(suggestion);
+        }
+    }
+
+    private record Pending(String key, CompletableFuture<CategorySuggestionResponseDTO> result) {
+    }
+}
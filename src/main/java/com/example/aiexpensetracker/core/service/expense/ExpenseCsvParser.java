@@ -0,0 +1,178 @@
+package com.example.aiexpensetracker.core.service.expense;
+
+import com.example.aiexpensetracker.exception.ErrorResponse;
+import com.example.aiexpensetracker.exception.expense.ExpenseImportException;
+import com.example.aiexpensetracker.rest.dto.expense.CreateExpenseDTO;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parses CSV expense imports (RFC 4180, with a header line) into CreateExpenseDTO rows.
+ * The "date" and "amount" columns are required, "description" and "categoryId" are optional,
+ * and other columns are ignored, so files produced by the CSV export can be imported as they are.
+ */
+final class ExpenseCsvParser {
+
+    private final List<CreateExpenseDTO> rows = new ArrayList<>();
+    private final List<ErrorResponse.ErrorDetail> errors = new ArrayList<>();
+
+    private ExpenseCsvParser() {}
+
+    /**
+     * Parses a CSV document.
+     * Rows that cannot be parsed are reported in {@link #getErrors()} and appear as null entries in
+     * {@link #getRows()}, so that row numbers stay aligned with the file.
+     *
+     * @param inputStream the UTF-8 encoded CSV content.
+     * @return the parser holding the parsed rows and the parse errors.
+     * @throws IOException             if reading the stream fails.
+     * @throws ExpenseImportException if the header is missing a required column.
+     */
+    static ExpenseCsvParser parse(InputStream inputStream) throws IOException {
+        ExpenseCsvParser parser = new ExpenseCsvParser();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+
+        List<String> header = readRecord(reader);
+        if (header == null) {
+            return parser;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("date") || !columns.containsKey("amount")) {
+            throw new ExpenseImportException("CSV header is invalid.", List.of(new ErrorResponse.ErrorDetail(
+                    "header", "CSV header must contain the columns 'date' and 'amount'.")));
+        }
+
+        int rowNumber = 0;
+        List<String> record;
+        while ((record = readRecord(reader)) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            rowNumber++;
+            parser.rows.add(parser.toDTO(record, columns, rowNumber));
+        }
+        return parser;
+    }
+
+    List<CreateExpenseDTO> getRows() {
+        return rows;
+    }
+
+    List<ErrorResponse.ErrorDetail> getErrors() {
+        return errors;
+    }
+
+    private CreateExpenseDTO toDTO(List<String> record, Map<String, Integer> columns, int rowNumber) {
+        CreateExpenseDTO dto = new CreateExpenseDTO();
+        boolean valid = true;
+
+        String date = value(record, columns, "date");
+        if (date != null) {
+            try {
+                dto.setDate(LocalDate.parse(date));
+            } catch (DateTimeParseException ex) {
+                errors.add(error(rowNumber, "date", "Invalid date '" + date + "'. Expected yyyy-MM-dd."));
+                valid = false;
+            }
+        }
+
+        String amount = value(record, columns, "amount");
+        if (amount != null) {
+            try {
+                dto.setAmount(new BigDecimal(amount));
+            } catch (NumberFormatException ex) {
+                errors.add(error(rowNumber, "amount", "Invalid amount '" + amount + "'."));
+                valid = false;
+            }
+        }
+
+        String categoryId = value(record, columns, "categoryid");
+        if (categoryId != null) {
+            try {
+                dto.setCategoryId(Long.valueOf(categoryId));
+            } catch (NumberFormatException ex) {
+                errors.add(error(rowNumber, "categoryId", "Invalid category ID '" + categoryId + "'."));
+                valid = false;
+            }
+        }
+
+        Integer descriptionIndex = columns.get("description");
+        if (descriptionIndex != null && descriptionIndex < record.size() && !record.get(descriptionIndex).isEmpty()) {
+            dto.setDescription(record.get(descriptionIndex));
+        }
+
+        return valid ? dto : null;
+    }
+
+    static ErrorResponse.ErrorDetail error(int rowNumber, String field, String message) {
+        return new ErrorResponse.ErrorDetail("rows[" + rowNumber + "]." + field, message);
+    }
+
+    private static String value(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Reads one CSV record, honoring quoted fields that contain separators, escaped quotes or line breaks.
+     *
+     * @return the fields of the record, or null at the end of the input.
+     */
+    private static List<String> readRecord(BufferedReader reader) throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
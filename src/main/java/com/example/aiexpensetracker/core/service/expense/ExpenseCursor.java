@@ -0,0 +1,105 @@
+package com.example.aiexpensetracker.core.service.expense;
+
+import com.example.aiexpensetracker.core.model.Expense;
+import com.example.aiexpensetracker.core.repository.expense.ExpenseSpecifications;
+import com.example.aiexpensetracker.exception.expense.InvalidExpenseCursorException;
+import com.example.aiexpensetracker.rest.dto.expense.ExpenseResponseDTO;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Opaque keyset pagination cursor for expense listings.
+ * Captures the sort key and ID of the last expense on a page, so that the next page can seek
+ * directly to the following row. Clients must treat the encoded form as an opaque token.
+ */
+public final class ExpenseCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String sortProperty;
+    private final boolean descending;
+    private final String sortValue;
+    private final Long id;
+
+    private ExpenseCursor(String sortProperty, boolean descending, String sortValue, Long id) {
+        this.sortProperty = sortProperty;
+        this.descending = descending;
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    /**
+     * Creates the cursor pointing after the given expense.
+     *
+     * @param expense      the last expense of the current page.
+     * @param sortProperty the sort property of the listing ("date" or "amount").
+     * @param descending   whether the listing is sorted in descending order.
+     * @return a cursor positioned after the expense.
+     */
+    public static ExpenseCursor after(ExpenseResponseDTO expense, String sortProperty, boolean descending) {
+        String value = "amount".equals(sortProperty)
+                ? expense.getAmount().toPlainString()
+                : expense.getDate().toString();
+        return new ExpenseCursor(sortProperty, descending, value, expense.getId());
+    }
+
+    /**
+     * Decodes a cursor and checks that it was issued for the same sort order as the current request.
+     *
+     * @param token        the encoded cursor.
+     * @param sortProperty the sort property of the current request.
+     * @param descending   the sort direction of the current request.
+     * @return the decoded cursor.
+     * @throws InvalidExpenseCursorException if the token is malformed or was issued for a different sort order.
+     */
+    public static ExpenseCursor decode(String token, String sortProperty, boolean descending) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                    .split("\\" + SEPARATOR, -1);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidExpenseCursorException("Cursor is malformed.");
+        }
+        if (parts.length != 4) {
+            throw new InvalidExpenseCursorException("Cursor is malformed.");
+        }
+        if (!parts[0].equals(sortProperty) || descending != "desc".equals(parts[1])) {
+            throw new InvalidExpenseCursorException("Cursor does not match the requested sort order.");
+        }
+
+        ExpenseCursor cursor;
+        try {
+            cursor = new ExpenseCursor(parts[0], descending, parts[2], Long.valueOf(parts[3]));
+            cursor.toSpecification();
+        } catch (RuntimeException ex) {
+            throw new InvalidExpenseCursorException("Cursor is malformed.");
+        }
+        return cursor;
+    }
+
+    /**
+     * Encodes the cursor into its opaque, URL-safe representation.
+     *
+     * @return the encoded cursor.
+     */
+    public String encode() {
+        String raw = String.join(SEPARATOR, sortProperty, descending ? "desc" : "asc", sortValue, id.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Builds the seek predicate that selects the rows after this cursor.
+     *
+     * @return a Specification matching the rows of the next page.
+     */
+    public Specification<Expense> toSpecification() {
+        if ("amount".equals(sortProperty)) {
+            return ExpenseSpecifications.seekAfter(sortProperty, new BigDecimal(sortValue), id, descending);
+        }
+        return ExpenseSpecifications.seekAfter(sortProperty, LocalDate.parse(sortValue), id, descending);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.aiexpensetracker.core.service.expense;
+
+import com.example.aiexpensetracker.exception.expense.InvalidExportFormatException;
+
+/**
+ * Output formats supported by the expense export.
+ */
+public enum ExpenseExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ExpenseExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Resolves a format from its request parameter value (case-insensitive).
+     *
+     * @param value the requested format, or null for the default (NDJSON).
+     * @return the matching ExpenseExportFormat.
+     * @throws InvalidExportFormatException if the format is not supported.
+     */
+    public static ExpenseExportFormat fromString(String value) {
+        if (value == null || value.isBlank()) {
+            return NDJSON;
+        }
+        for (ExpenseExportFormat format : values()) {
+            if (format.fileExtension.equalsIgnoreCase(value.trim())) {
+                return format;
+            }
+        }
+        throw new InvalidExportFormatException("Unsupported export format '" + value + "'. Expected ndjson or csv.");
+    }
+}
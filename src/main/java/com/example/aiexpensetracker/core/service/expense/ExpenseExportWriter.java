@@ -0,0 +1,134 @@
+package com.example.aiexpensetracker.core.service.expense;
+
+import com.example.aiexpensetracker.core.model.Expense;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes expenses one row at a time to an output stream in one of the supported export formats.
+ * Rows are encoded directly from the entity without intermediate DTOs, and nothing is retained after a row is written.
+ * The underlying stream is flushed but never closed, as it belongs to the caller.
+ */
+abstract class ExpenseExportWriter {
+
+    static final String[] COLUMNS = {
+            "id", "date", "amount", "categoryId", "categoryName", "description", "createdAt", "updatedAt"
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    static ExpenseExportWriter create(ExpenseExportFormat format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        return format == ExpenseExportFormat.CSV ? new CsvWriter(writer) : new NdjsonWriter(writer);
+    }
+
+    abstract void writeHeader() throws IOException;
+
+    abstract void write(Expense expense) throws IOException;
+
+    abstract void flush() throws IOException;
+
+    private static final class NdjsonWriter extends ExpenseExportWriter {
+        private final JsonGenerator generator;
+
+        private NdjsonWriter(Writer writer) throws IOException {
+            this.generator = JSON_FACTORY.createGenerator(writer);
+        }
+
+        @Override
+        void writeHeader() {
+            // NDJSON is self-describing, so there is no header line.
+        }
+
+        @Override
+        void write(Expense expense) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", expense.getId());
+            generator.writeStringField("date", String.valueOf(expense.getDate()));
+            generator.writeNumberField("amount", expense.getAmount());
+            if (expense.getCategory() != null) {
+                generator.writeNumberField("categoryId", expense.getCategory().getId());
+                generator.writeStringField("categoryName", expense.getCategory().getName());
+            } else {
+                generator.writeNullField("categoryId");
+                generator.writeNullField("categoryName");
+            }
+            generator.writeStringField("description", expense.getDescription());
+            generator.writeStringField("createdAt", String.valueOf(expense.getCreatedAt()));
+            generator.writeStringField("updatedAt", String.valueOf(expense.getUpdatedAt()));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        void flush() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class CsvWriter extends ExpenseExportWriter {
+        private final Writer writer;
+
+        private CsvWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        void writeHeader() throws IOException {
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        void write(Expense expense) throws IOException {
+            writer.write(String.valueOf(expense.getId()));
+            writer.write(',');
+            writer.write(String.valueOf(expense.getDate()));
+            writer.write(',');
+            writer.write(expense.getAmount().toPlainString());
+            writer.write(',');
+            if (expense.getCategory() != null) {
+                writer.write(String.valueOf(expense.getCategory().getId()));
+                writer.write(',');
+                writeEscaped(expense.getCategory().getName());
+            } else {
+                writer.write(',');
+            }
+            writer.write(',');
+            writeEscaped(expense.getDescription());
+            writer.write(',');
+            writer.write(String.valueOf(expense.getCreatedAt()));
+            writer.write(',');
+            writer.write(String.valueOf(expense.getUpdatedAt()));
+            writer.write("\r\n");
+        }
+
+        private void writeEscaped(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean needsQuotes = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!needsQuotes) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        void flush() throws IOException {
+            writer.flush();
+        }
+    }
+}
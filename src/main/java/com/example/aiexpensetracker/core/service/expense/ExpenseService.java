@@ -2,6 +2,9 @@ package com.example.aiexpensetracker.core.service.expense;
 
 import com.example.aiexpensetracker.rest.dto.expense.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -12,15 +15,79 @@ import java.util.concurrent.CompletableFuture;
 public interface ExpenseService {
 
     /**
-     * Retrieves a list of all expenses associated with a specific user, with optional sorting.
+     * Retrieves a list of all expenses associated with a specific user, with optional filtering and sorting.
+     * Filtering and sorting are performed by the database query.
      *
-     * @param userEmail the email of the user whose expenses are to be retrieved.
-     * @param sortBy    the field to sort the results by (e.g., "amount" or "date"). Defaults to "date" if null or empty.
-     * @param direction the sorting direction, either "asc" for ascending or "desc" for descending. Defaults to "asc".
+     * @param userEmail    the email of the user whose expenses are to be retrieved.
+     * @param sortBy       the field to sort the results by (e.g., "amount" or "date"). Defaults to "date" if null or empty.
+     * @param direction    the sorting direction, either "asc" for ascending or "desc" for descending. Defaults to "asc".
+     * @param filterColumn optional column to filter on ("category", "amount", "date", "description", "createdAt" or "updatedAt").
+     * @param filterValue  optional filter value; amounts and dates also accept ranges such as "10..50" or "2025-01..2025-03".
      * @return a CompletableFuture containing a list of ExpenseResponseDTO objects representing the user's expenses.
      */
     CompletableFuture<List<ExpenseResponseDTO>> getAllExpensesByUser(String userEmail, String sortBy, String direction, String filterColumn, String filterValue);
 
+    /**
+     * Retrieves one page of a user's expenses using keyset (cursor) pagination.
+     * Each page seeks past the (sort value, ID) of the previous page's last row, so the cost of a page
+     * does not grow with how deep the client has paged.
+     *
+     * @param userEmail    the email of the user whose expenses are to be retrieved.
+     * @param sortBy       the field to sort the results by ("amount" or "date"). Defaults to "date" if null or empty.
+     * @param direction    the sorting direction, either "asc" or "desc". Defaults to "asc".
+     * @param filterColumn optional column to filter on, as for {@link #getAllExpensesByUser}.
+     * @param filterValue  optional filter value, as for {@link #getAllExpensesByUser}.
+     * @param cursor       the opaque cursor returned with the previous page, or null for the first page.
+     * @param limit        the maximum number of expenses to return; defaults to 50 and is capped at 500.
+     * @return a CompletableFuture containing an ExpensePageDTO with the page and the cursor for the next one.
+     */
+    CompletableFuture<ExpensePageDTO> getExpensesPageByUser(
+            String userEmail,
+            String sortBy,
+            String direction,
+            String filterColumn,
+            String filterValue,
+            String cursor,
+            Integer limit
+    );
+
+    /**
+     * Streams every expense of a user to an output stream in the requested format.
+     * Expenses are read from a database cursor and written one row at a time, so memory use does not
+     * depend on the number of expenses and the first rows are sent before the query has finished.
+     *
+     * @param userEmail    the email of the user whose expenses are to be exported.
+     * @param format       the export format (NDJSON or CSV).
+     * @param outputStream the stream to write to; it is flushed but not closed.
+     * @throws IOException if writing to the output stream fails.
+     */
+    void exportExpenses(String userEmail, ExpenseExportFormat format, OutputStream outputStream) throws IOException;
+
+    /**
+     * Imports many expenses for a user in one transaction.
+     * The user and the user's categories are resolved once for the whole import, every row is validated
+     * before anything is written, and the expenses are inserted in JDBC batches. The import is all-or-nothing:
+     * if any row is invalid, nothing is imported and all row errors are reported together.
+     *
+     * @param userEmail the email of the user for whom the expenses are imported.
+     * @param expenses  the expenses to import.
+     * @return a CompletableFuture containing an ExpenseImportResultDTO with the number of imported expenses.
+     * @throws com.example.aiexpensetracker.exception.expense.ExpenseImportException if any row is invalid,
+     *         with one error detail per invalid field (e.g. "rows[3].amount", numbered from 1).
+     */
+    CompletableFuture<ExpenseImportResultDTO> importExpenses(String userEmail, List<CreateExpenseDTO> expenses);
+
+    /**
+     * Imports expenses from a CSV document, as for {@link #importExpenses}.
+     * The header line must contain the columns "date" (yyyy-MM-dd) and "amount"; "description" and
+     * "categoryId" are optional and any other columns are ignored, so a CSV export can be imported again.
+     *
+     * @param userEmail   the email of the user for whom the expenses are imported.
+     * @param inputStream the UTF-8 encoded CSV content; it is not closed.
+     * @return a CompletableFuture containing an ExpenseImportResultDTO with the number of imported expenses.
+     */
+    CompletableFuture<ExpenseImportResultDTO> importExpensesFromCsv(String userEmail, InputStream inputStream);
+
     /**
      * Creates a new expense entry for a user.
      *
@@ -50,10 +117,13 @@ public interface ExpenseService {
     CompletableFuture<Void> deleteExpense(String userEmail, Long expenseId);
 
     /**
-     * Retrieves all expenses for a given user grouped by category.
+     * Retrieves all expenses for a given user grouped by category name, with the count and total per group.
+     * Groups are ordered by category name, with uncategorized expenses last under "Uncategorized".
      *
-     * @param userEmail the email of the user
+     * @param userEmail       the email of the user
+     * @param includeExpenses whether to include the expenses of each group; if false, only the counts and
+     *                        totals are returned, computed by the database.
      * @return a CompletableFuture containing a list of ExpensesByCategoryDTO objects.
      */
-    CompletableFuture<List<ExpensesByCategoryDTO>> getExpensesGroupedByCategory(String userEmail);
+    CompletableFuture<List<ExpensesByCategoryDTO>> getExpensesGroupedByCategory(String userEmail, boolean includeExpenses);
 }
@@ -2,80 +2,115 @@ package com.example.aiexpensetracker.core.service.expense;
 
 import com.example.aiexpensetracker.core.model.Category;
 import com.example.aiexpensetracker.core.model.Expense;
+import com.example.aiexpensetracker.core.model.ExpenseRollupId;
 import com.example.aiexpensetracker.core.model.User;
+import com.example.aiexpensetracker.core.repository.expense.CategorizedExpense;
+import com.example.aiexpensetracker.core.repository.expense.ExpenseRepository;
+import com.example.aiexpensetracker.core.repository.expense.ExpenseSpecifications;
 import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.core.service.cache.UserViewCache;
+import com.example.aiexpensetracker.core.service.category.CategoryClassifier;
+import com.example.aiexpensetracker.exception.ErrorResponse;
 import com.example.aiexpensetracker.exception.category.CategoryNotFoundException;
+import com.example.aiexpensetracker.exception.expense.ExpenseImportException;
 import com.example.aiexpensetracker.exception.expense.ExpenseNotFoundException;
 import com.example.aiexpensetracker.exception.expense.ExpenseOwnershipException;
 import com.example.aiexpensetracker.exception.user.UserNotFoundException;
 import com.example.aiexpensetracker.rest.dto.expense.CreateExpenseDTO;
+import com.example.aiexpensetracker.rest.dto.expense.ExpenseImportResultDTO;
+import com.example.aiexpensetracker.rest.dto.expense.ExpensePageDTO;
 import com.example.aiexpensetracker.rest.dto.expense.ExpenseResponseDTO;
 import com.example.aiexpensetracker.rest.dto.expense.ExpensesByCategoryDTO;
 import com.example.aiexpensetracker.rest.dto.expense.UpdateExpenseDTO;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ExpenseServiceImpl implements ExpenseService {
 
-    private final RepositoryManager repositoryManager;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
 
-    public ExpenseServiceImpl(RepositoryManager repositoryManager) {
+    private final RepositoryManager repositoryManager;
+    private final Validator validator;
+    private final UserViewCache userViewCache;
+    private final CategoryClassifier classifier;
+
+    @Value("${expense.import.batch-size:500}")
+    private int importBatchSize = 500;
+
+    public ExpenseServiceImpl(
+            RepositoryManager repositoryManager,
+            Validator validator,
+            UserViewCache userViewCache,
+            CategoryClassifier classifier
+    ) {
         this.repositoryManager = repositoryManager;
+        this.validator = validator;
+        this.userViewCache = userViewCache;
+        this.classifier = classifier;
     }
 
     @Async
     @Override
-    public CompletableFuture<List<ExpensesByCategoryDTO>> getExpensesGroupedByCategory(String userEmail) {
+    @Cacheable(cacheNames = UserViewCache.EXPENSES_BY_CATEGORY, keyGenerator = UserViewCache.KEY_GENERATOR)
+    public CompletableFuture<List<ExpensesByCategoryDTO>> getExpensesGroupedByCategory(
+            String userEmail,
+            boolean includeExpenses
+    ) {
         return CompletableFuture.supplyAsync(() -> {
             // Verify that the user exists (or throw an exception)
-            User user = repositoryManager.getUserRepository()
-                    .findByEmail(userEmail)
-                    .orElseThrow(() -> new UserNotFoundException("User not found: " + userEmail));
-
-            // Retrieve all expenses for the user
-            List<Expense> expenses = repositoryManager.getExpenseRepository().findByUserEmail(userEmail);
-
-            // Retrieve all categories from the database and build a lookup map (id -> name)
-            List<Category> allCategories = repositoryManager.getCategoryRepository().findAll();
-            // Create a lookup map for categoryId to category name
-            Map<Long, String> categoryLookup = allCategories.stream()
-                    .collect(Collectors.toMap(Category::getId, Category::getName));
-
-            // Map expenses to ExpenseResponseDTO using your existing mapping method.
-            // Note: In this case, the DTO does NOT have a categoryName field.
-            List<ExpenseResponseDTO> expenseDTOs = expenses.stream()
-                    .map(this::mapToResponseDTO)
-                    .collect(Collectors.toList());
-
-            // Group expense DTOs by category name by looking up the category name from the categoryLookup map.
-            // If an expense has a categoryId, use the name from the map, otherwise fallback to "Uncategorized".
-            Map<String, List<ExpenseResponseDTO>> grouped = expenseDTOs.stream()
-                    .collect(Collectors.groupingBy(expense -> {
-                        if (expense.getCategoryId() != null) {
-                            return categoryLookup.getOrDefault(expense.getCategoryId(), "Uncategorized");
-                        } else {
-                            return "Uncategorized";
-                        }
-                    }));
-
-            // Convert the grouped map into a list of ExpensesByCategoryDTO objects.
-            return grouped.entrySet().stream()
-                    .map(entry -> new ExpensesByCategoryDTO(entry.getKey(), entry.getValue()))
-                    .collect(Collectors.toList());
+            if (!repositoryManager.getUserRepository().existsByEmail(userEmail)) {
+                throw new UserNotFoundException("User not found: " + userEmail);
+            }
+
+            if (!includeExpenses) {
+                List<ExpensesByCategoryDTO> summaries = repositoryManager.getExpenseRepository()
+                        .summarizeByCategory(userEmail);
+                summaries.forEach(summary -> summary.setCategory(categoryLabel(summary.getCategory())));
+                return summaries;
+            }
+
+            // Rows arrive ordered by category name, so each group ends where the name changes.
+            List<ExpensesByCategoryDTO> groups = new ArrayList<>();
+            ExpensesByCategoryDTO group = null;
+            for (CategorizedExpense row : repositoryManager.getExpenseRepository().findCategorizedByUserEmail(userEmail)) {
+                String category = categoryLabel(row.getCategoryName());
+                if (group == null || !group.getCategory().equals(category)) {
+                    group = new ExpensesByCategoryDTO(category, new ArrayList<>());
+                    group.setTotalAmount(BigDecimal.ZERO);
+                    groups.add(group);
+                }
+                ExpenseResponseDTO expense = row.getExpense();
+                group.getExpenses().add(expense);
+                group.setCount(group.getCount() + 1);
+                group.setTotalAmount(group.getTotalAmount().add(expense.getAmount()));
+            }
+            return groups;
         });
     }
 
-
     @Async
     @Override
     public CompletableFuture<List<ExpenseResponseDTO>> getAllExpensesByUser(
@@ -86,166 +121,322 @@ public class ExpenseServiceImpl implements ExpenseService {
             String filterValue
     ) {
         return CompletableFuture.supplyAsync(() -> {
-            List<Expense> expenses = repositoryManager.getExpenseRepository()
-                    .findByUserEmail(userEmail);
-
-            if (filterColumn != null && !filterColumn.isBlank()
-                    && filterValue != null && !filterValue.isBlank()) {
-                switch (filterColumn.toLowerCase()) {
-                    case "category":
-                        expenses = expenses.stream()
-                                .filter(e -> e.getCategory() != null
-                                        && e.getCategory().getId() != null
-                                        && e.getCategory().getId().toString().contains(filterValue))
-                                .collect(Collectors.toList());
-                        break;
-
-                    case "amount":
-                        expenses = expenses.stream()
-                                .filter(e -> e.getAmount() != null
-                                        && e.getAmount().toString().contains(filterValue))
-                                .collect(Collectors.toList());
-                        break;
-
-                    case "date":
-                        expenses = expenses.stream()
-                                .filter(e -> e.getDate() != null
-                                        && e.getDate().toString().contains(filterValue))
-                                .collect(Collectors.toList());
-                        break;
-
-                    case "description":
-                        String filterValueLower = filterValue.toLowerCase();
-                        expenses = expenses.stream()
-                                .filter(e -> e.getDescription() != null
-                                        && e.getDescription().toLowerCase().contains(filterValueLower))
-                                .collect(Collectors.toList());
-                        break;
-
-                    case "createdat":
-                        expenses = expenses.stream()
-                                .filter(e -> e.getCreatedAt() != null
-                                        && e.getCreatedAt().toString().contains(filterValue))
-                                .collect(Collectors.toList());
-                        break;
-
-                    case "updatedat":
-                        expenses = expenses.stream()
-                                .filter(e -> e.getUpdatedAt() != null
-                                        && e.getUpdatedAt().toString().contains(filterValue))
-                                .collect(Collectors.toList());
-                        break;
-
-                    default:
-                        break;
-                }
-            }
+            Specification<Expense> specification = Specification
+                    .where(ExpenseSpecifications.belongsToUser(userEmail))
+                    .and(ExpenseSpecifications.matchesFilter(filterColumn, filterValue));
+
+            return repositoryManager.getExpenseRepository()
+                    .findResponses(specification, buildSort(sortField, direction));
+        });
+    }
 
-            final String finalSortField = (sortField == null || sortField.isEmpty())
-                    ? "date"
-                    : sortField;
-            final String finalDirection = (direction == null || direction.isEmpty())
-                    ? "asc"
-                    : direction;
-
-            if (finalSortField.equalsIgnoreCase("amount")) {
-                expenses.sort(finalDirection.equalsIgnoreCase("desc")
-                        ? Comparator.comparing(Expense::getAmount).reversed()
-                        : Comparator.comparing(Expense::getAmount));
-            } else {
-                expenses.sort(finalDirection.equalsIgnoreCase("desc")
-                        ? Comparator.comparing(Expense::getDate).reversed()
-                        : Comparator.comparing(Expense::getDate));
+    @Async
+    @Override
+    public CompletableFuture<ExpensePageDTO> getExpensesPageByUser(
+            String userEmail,
+            String sortField,
+            String direction,
+            String filterColumn,
+            String filterValue,
+            String cursor,
+            Integer limit
+    ) {
+        return CompletableFuture.supplyAsync(() -> {
+            String sortProperty = resolveSortProperty(sortField);
+            boolean descending = "desc".equalsIgnoreCase(direction);
+            int pageSize = (limit == null || limit < 1) ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+
+            Specification<Expense> specification = Specification
+                    .where(ExpenseSpecifications.belongsToUser(userEmail))
+                    .and(ExpenseSpecifications.matchesFilter(filterColumn, filterValue));
+            if (cursor != null && !cursor.isBlank()) {
+                specification = specification.and(
+                        ExpenseCursor.decode(cursor, sortProperty, descending).toSpecification());
             }
 
-            return expenses.stream()
-                    .map(this::mapToResponseDTO)
-                    .collect(Collectors.toList());
+            // Fetch one extra row to find out whether another page follows.
+            List<ExpenseResponseDTO> page = repositoryManager.getExpenseRepository()
+                    .findResponses(specification, buildSort(sortField, direction), pageSize + 1);
+
+            String next = null;
+            if (page.size() > pageSize) {
+                page = page.subList(0, pageSize);
+                next = ExpenseCursor.after(page.get(pageSize - 1), sortProperty, descending).encode();
+            }
+            return new ExpensePageDTO(page, next);
         });
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void exportExpenses(String userEmail, ExpenseExportFormat format, OutputStream outputStream) throws IOException {
+        ExpenseRepository expenseRepository = repositoryManager.getExpenseRepository();
+        ExpenseExportWriter writer = ExpenseExportWriter.create(format, outputStream);
+        writer.writeHeader();
+
+        try (Stream<Expense> expenses = expenseRepository.streamByUserEmail(userEmail)) {
+            Iterator<Expense> iterator = expenses.iterator();
+            long rows = 0;
+            while (iterator.hasNext()) {
+                Expense expense = iterator.next();
+                writer.write(expense);
+                // Written rows are no longer needed; detaching keeps the persistence context from growing.
+                expenseRepository.detach(expense);
+
+                rows++;
+                if (rows == 1 || rows % EXPORT_FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+    }
 
     @Async
     @Override
-    public CompletableFuture<ExpenseResponseDTO> createExpense(CreateExpenseDTO dto, String userEmail) {
-        return CompletableFuture.supplyAsync(() -> {
-            User user = repositoryManager.getUserRepository()
-                    .findByEmail(userEmail)
-                    .orElseThrow(() -> new UserNotFoundException("User not found: " + userEmail));
-
-            Category category = null;
-            if (dto.getCategoryId() != null) {
-                category = repositoryManager.getCategoryRepository()
-                        .findById(dto.getCategoryId())
-                        .orElseThrow(() -> new CategoryNotFoundException("Category not found: " + dto.getCategoryId()));
+    @Transactional
+    public CompletableFuture<ExpenseImportResultDTO> importExpenses(String userEmail, List<CreateExpenseDTO> expenses) {
+        List<ErrorResponse.ErrorDetail> errors = new ArrayList<>();
+        for (int i = 0; i < expenses.size(); i++) {
+            if (expenses.get(i) == null) {
+                errors.add(ExpenseCsvParser.error(i + 1, "row", "must not be null"));
             }
+        }
+        return CompletableFuture.completedFuture(importRows(userEmail, expenses, errors));
+    }
 
-            Expense expense = new Expense();
-            expense.setUser(user);
-            expense.setCategory(category);
-            expense.setAmount(dto.getAmount());
-            expense.setDate(dto.getDate());
-            expense.setDescription(dto.getDescription());
+    @Async
+    @Override
+    @Transactional
+    public CompletableFuture<ExpenseImportResultDTO> importExpensesFromCsv(String userEmail, InputStream inputStream) {
+        ExpenseCsvParser parser;
+        try {
+            parser = ExpenseCsvParser.parse(inputStream);
+        } catch (IOException ex) {
+            throw new ExpenseImportException("CSV file could not be read.", List.of(
+                    new ErrorResponse.ErrorDetail("file", "CSV file could not be read: " + ex.getMessage())));
+        }
+        return CompletableFuture.completedFuture(importRows(userEmail, parser.getRows(), parser.getErrors()));
+    }
 
-            Expense saved = repositoryManager.getExpenseRepository().save(expense);
-            return mapToResponseDTO(saved);
-        });
+    @Async
+    @Override
+    @Transactional
+    public CompletableFuture<ExpenseResponseDTO> createExpense(CreateExpenseDTO dto, String userEmail) {
+        User user = repositoryManager.getUserRepository()
+                .findByEmail(userEmail)
+                .orElseThrow(() -> new UserNotFoundException("User not found: " + userEmail));
+
+        Category category = null;
+        if (dto.getCategoryId() != null) {
+            category = repositoryManager.getCategoryRepository()
+                    .findById(dto.getCategoryId())
+                    .orElseThrow(() -> new CategoryNotFoundException("Category not found: " + dto.getCategoryId()));
+        }
+
+        Expense expense = new Expense();
+        expense.setUser(user);
+        expense.setCategory(category);
+        expense.setAmount(dto.getAmount());
+        expense.setDate(dto.getDate());
+        expense.setDescription(dto.getDescription());
+
+        Expense saved = repositoryManager.getExpenseRepository().save(expense);
+        addToRollup(saved, 1);
+        userViewCache.evictUser(userEmail);
+        learn(userEmail, saved);
+        return CompletableFuture.completedFuture(mapToResponseDTO(saved));
     }
 
     @Async
     @Override
+    @Transactional
     public CompletableFuture<ExpenseResponseDTO> updateExpense(
             String userEmail,
             Long expenseId,
             UpdateExpenseDTO dto
     ) {
-        return CompletableFuture.supplyAsync(() -> {
-            User user = repositoryManager.getUserRepository()
-                    .findByEmail(userEmail)
-                    .orElseThrow(() -> new UserNotFoundException("User not found: " + userEmail));
+        User user = repositoryManager.getUserRepository()
+                .findByEmail(userEmail)
+                .orElseThrow(() -> new UserNotFoundException("User not found: " + userEmail));
 
-            Expense expense = repositoryManager.getExpenseRepository()
-                    .findById(expenseId)
-                    .orElseThrow(() -> new ExpenseNotFoundException("Expense not found: " + expenseId));
+        Expense expense = repositoryManager.getExpenseRepository()
+                .findById(expenseId)
+                .orElseThrow(() -> new ExpenseNotFoundException("Expense not found: " + expenseId));
 
-            if (!expense.getUser().getId().equals(user.getId())) {
-                throw new ExpenseOwnershipException("User does not own this expense.");
-            }
+        if (!expense.getUser().getId().equals(user.getId())) {
+            throw new ExpenseOwnershipException("User does not own this expense.");
+        }
 
-            if (dto.getCategoryId() != null) {
-                Category category = repositoryManager.getCategoryRepository()
-                        .findById(dto.getCategoryId())
-                        .orElseThrow(() -> new CategoryNotFoundException("Category not found: " + dto.getCategoryId()));
-                expense.setCategory(category);
-            }
+        // Take the expense out of its current rollup and classifier before its date, amount or category change.
+        addToRollup(expense, -1);
+        unlearn(userEmail, expense);
 
-            expense.setAmount(dto.getAmount());
-            expense.setDate(dto.getDate());
-            expense.setDescription(dto.getDescription());
+        if (dto.getCategoryId() != null) {
+            Category category = repositoryManager.getCategoryRepository()
+                    .findById(dto.getCategoryId())
+                    .orElseThrow(() -> new CategoryNotFoundException("Category not found: " + dto.getCategoryId()));
+            expense.setCategory(category);
+        }
 
-            Expense updated = repositoryManager.getExpenseRepository().save(expense);
-            return mapToResponseDTO(updated);
-        });
+        expense.setAmount(dto.getAmount());
+        expense.setDate(dto.getDate());
+        expense.setDescription(dto.getDescription());
+
+        Expense updated = repositoryManager.getExpenseRepository().save(expense);
+        addToRollup(updated, 1);
+        userViewCache.evictUser(userEmail);
+        learn(userEmail, updated);
+        return CompletableFuture.completedFuture(mapToResponseDTO(updated));
     }
 
     @Async
     @Override
+    @Transactional
     public CompletableFuture<Void> deleteExpense(String userEmail, Long expenseId) {
-        return CompletableFuture.runAsync(() -> {
-            User user = repositoryManager.getUserRepository()
-                    .findByEmail(userEmail)
-                    .orElseThrow(() -> new UserNotFoundException("User not found: " + userEmail));
+        User user = repositoryManager.getUserRepository()
+                .findByEmail(userEmail)
+                .orElseThrow(() -> new UserNotFoundException("User not found: " + userEmail));
+
+        Expense expense = repositoryManager.getExpenseRepository()
+                .findById(expenseId)
+                .orElseThrow(() -> new ExpenseNotFoundException("Expense not found: " + expenseId));
+
+        if (!expense.getUser().getId().equals(user.getId())) {
+            throw new ExpenseOwnershipException("User does not own this expense.");
+        }
+
+        repositoryManager.getExpenseRepository().delete(expense);
+        addToRollup(expense, -1);
+        userViewCache.evictUser(userEmail);
+        unlearn(userEmail, expense);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private void learn(String userEmail, Expense expense) {
+        if (expense.getCategory() != null) {
+            classifier.learn(userEmail, expense.getDescription(), expense.getCategory().getName());
+        }
+    }
+
+    private void unlearn(String userEmail, Expense expense) {
+        if (expense.getCategory() != null) {
+            classifier.unlearn(userEmail, expense.getDescription(), expense.getCategory().getName());
+        }
+    }
 
-            Expense expense = repositoryManager.getExpenseRepository()
-                    .findById(expenseId)
-                    .orElseThrow(() -> new ExpenseNotFoundException("Expense not found: " + expenseId));
+    /**
+     * Adds (sign 1) or removes (sign -1) an expense to or from its monthly category rollup.
+     * Runs in the caller's transaction, so the rollup changes commit or roll back with the expense.
+     */
+    private void addToRollup(Expense expense, int sign) {
+        ExpenseRollupId key = ExpenseRollupId.of(
+                expense.getUser().getId(),
+                expense.getDate(),
+                expense.getCategory() != null ? expense.getCategory().getId() : null);
+        BigDecimal amount = sign < 0 ? expense.getAmount().negate() : expense.getAmount();
+        repositoryManager.getExpenseRollupRepository()
+                .addDelta(key.getUserId(), key.getMonthStart(), key.getCategoryId(), sign, amount);
+    }
 
-            if (!expense.getUser().getId().equals(user.getId())) {
-                throw new ExpenseOwnershipException("User does not own this expense.");
+    /**
+     * Validates and inserts imported rows. Null rows are skipped here: the caller has already reported each of
+     * them in errors, a JSON null element as "rows[n].row" and an unparseable CSV record by its fields.
+     * Runs inside the caller's transaction, so nothing is written unless every row is valid.
+     */
+    private ExpenseImportResultDTO importRows(
+            String userEmail,
+            List<CreateExpenseDTO> rows,
+            List<ErrorResponse.ErrorDetail> errors
+    ) {
+        User user = repositoryManager.getUserRepository()
+                .findByEmail(userEmail)
+                .orElseThrow(() -> new UserNotFoundException("User not found: " + userEmail));
+
+        Map<Long, Category> categories = repositoryManager.getCategoryRepository()
+                .findByUser(user)
+                .stream()
+                .collect(Collectors.toMap(Category::getId, category -> category));
+
+        List<Expense> expenses = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            CreateExpenseDTO row = rows.get(i);
+            if (row == null) {
+                continue;
             }
+            int rowNumber = i + 1;
 
-            repositoryManager.getExpenseRepository().delete(expense);
-        });
+            boolean valid = true;
+            for (ConstraintViolation<CreateExpenseDTO> violation : validator.validate(row)) {
+                errors.add(ExpenseCsvParser.error(
+                        rowNumber, violation.getPropertyPath().toString(), violation.getMessage()));
+                valid = false;
+            }
+
+            Category category = null;
+            if (row.getCategoryId() != null) {
+                category = categories.get(row.getCategoryId());
+                if (category == null) {
+                    errors.add(ExpenseCsvParser.error(
+                            rowNumber, "categoryId", "Category not found: " + row.getCategoryId()));
+                    valid = false;
+                }
+            }
+
+            if (valid) {
+                Expense expense = new Expense();
+                expense.setUser(user);
+                expense.setCategory(category);
+                expense.setAmount(row.getAmount());
+                expense.setDate(row.getDate());
+                expense.setDescription(row.getDescription());
+                expenses.add(expense);
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            throw new ExpenseImportException("Import contains invalid rows.", errors);
+        }
+
+        repositoryManager.getExpenseRepository().persistInBatches(expenses, importBatchSize);
+
+        // One rollup update per month and category instead of one per imported row.
+        Map<ExpenseRollupId, BigDecimal> rollupTotals = new HashMap<>();
+        Map<ExpenseRollupId, Long> rollupCounts = new HashMap<>();
+        for (Expense expense : expenses) {
+            ExpenseRollupId key = ExpenseRollupId.of(
+                    user.getId(),
+                    expense.getDate(),
+                    expense.getCategory() != null ? expense.getCategory().getId() : null);
+            rollupTotals.merge(key, expense.getAmount(), BigDecimal::add);
+            rollupCounts.merge(key, 1L, Long::sum);
+        }
+        rollupTotals.forEach((key, total) -> repositoryManager.getExpenseRollupRepository()
+                .addDelta(key.getUserId(), key.getMonthStart(), key.getCategoryId(), rollupCounts.get(key), total));
+        userViewCache.evictUser(userEmail);
+        // Retrained from the database on the next suggestion rather than learned row by row.
+        classifier.forget(userEmail);
+
+        return new ExpenseImportResultDTO(expenses.size());
+    }
+
+    /**
+     * Builds the ORDER BY clause for expense listings.
+     * Sorts by amount or date (the default) and breaks ties by ID so that the order is stable.
+     */
+    private Sort buildSort(String sortField, String direction) {
+        Sort.Direction sortDirection = "desc".equalsIgnoreCase(direction)
+                ? Sort.Direction.DESC
+                : Sort.Direction.ASC;
+        return Sort.by(sortDirection, resolveSortProperty(sortField), "id");
+    }
+
+    private String categoryLabel(String categoryName) {
+        return categoryName != null ? categoryName : "Uncategorized";
+    }
+
+    private String resolveSortProperty(String sortField) {
+        return "amount".equalsIgnoreCase(sortField) ? "amount" : "date";
     }
 
     private ExpenseResponseDTO mapToResponseDTO(Expense expense) {
@@ -2,6 +2,7 @@ package com.example.aiexpensetracker.core.service.manager;
 
 import com.example.aiexpensetracker.core.service.category.CategoryService;
 import com.example.aiexpensetracker.core.service.expense.ExpenseService;
+import com.example.aiexpensetracker.core.service.report.ReportJobService;
 import com.example.aiexpensetracker.core.service.report.ReportService;
 import com.example.aiexpensetracker.core.service.statistics.StatisticsService;
 import com.example.aiexpensetracker.core.service.user.UserService;
@@ -46,4 +47,11 @@ public interface ServiceManager {
      * @return an instance of ReportService.
      */
     ReportService getReportService();
+
+    /**
+     * Provides access to the ReportJobService for running report generation as background jobs.
+     *
+     * @return an instance of ReportJobService.
+     */
+    ReportJobService getReportJobService();
 }
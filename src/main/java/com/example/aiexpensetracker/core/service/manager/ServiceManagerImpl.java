@@ -2,6 +2,7 @@ package com.example.aiexpensetracker.core.service.manager;
 
 import com.example.aiexpensetracker.core.service.category.CategoryService;
 import com.example.aiexpensetracker.core.service.expense.ExpenseService;
+import com.example.aiexpensetracker.core.service.report.ReportJobService;
 import com.example.aiexpensetracker.core.service.report.ReportService;
 import com.example.aiexpensetracker.core.service.statistics.StatisticsService;
 import com.example.aiexpensetracker.core.service.user.UserService;
@@ -14,14 +15,17 @@ public class ServiceManagerImpl implements ServiceManager {
     private final CategoryService categoryService;
     private final StatisticsService statisticsService;
     private final ReportService reportService;
+    private final ReportJobService reportJobService;
 
     public ServiceManagerImpl(
-            UserService userService, ExpenseService expenseService, CategoryService categoryService, StatisticsService statisticsService, ReportService reportService){
+            UserService userService, ExpenseService expenseService, CategoryService categoryService, StatisticsService statisticsService, ReportService reportService,
+            ReportJobService reportJobService){
         this.userService = userService;
         this.expenseService = expenseService;
         this.categoryService = categoryService;
         this.statisticsService = statisticsService;
         this.reportService = reportService;
+        this.reportJobService = reportJobService;
     }
 
     @Override
@@ -48,4 +52,9 @@ public class ServiceManagerImpl implements ServiceManager {
     public ReportService getReportService() {
         return reportService;
     }
+
+    @Override
+    public ReportJobService getReportJobService() {
+        return reportJobService;
+    }
 }
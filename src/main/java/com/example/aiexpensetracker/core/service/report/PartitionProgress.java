@@ -0,0 +1,80 @@
+package com.example.aiexpensetracker.core.service.report;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks the users of one partition in scan order and moves the partition's checkpoint forward
+ * over the longest prefix of users whose reports were dispatched. The checkpoint stops before the first user
+ * whose report failed, so that a resumed or retried run starts with that user again; the failure is counted
+ * once it reaches the front, and the users after it are no longer tracked.
+ */
+final class PartitionProgress {
+
+    private final int partition;
+    private final ReportCheckpoints checkpoints;
+    private final Map<Long, Entry> pending = new HashMap<>();
+    private long nextSequence;
+    private long checkpointSequence;
+    private String checkpointEmail;
+    private boolean blocked;
+
+    PartitionProgress(int partition, ReportCheckpoints checkpoints) {
+        this.partition = partition;
+        this.checkpoints = checkpoints;
+        this.checkpointEmail = checkpoints.resumeAfter(partition);
+    }
+
+    /**
+     * @param userEmail the email of the next user of the partition, in scan order.
+     * @return the sequence number of the user, to pass to {@link #done(long, boolean)}.
+     */
+    synchronized long register(String userEmail) {
+        pending.put(nextSequence, new Entry(userEmail));
+        return nextSequence++;
+    }
+
+    /**
+     * Marks a user's report as done and advances the checkpoint if this closes the gap at its front.
+     *
+     * @param sequence the sequence number of the user.
+     * @param sent     whether the report was dispatched, rather than failed.
+     */
+    synchronized void done(long sequence, boolean sent) {
+        if (blocked) {
+            pending.remove(sequence);
+            return;
+        }
+        pending.get(sequence).outcome = sent ? Outcome.SENT : Outcome.FAILED;
+
+        long sentCount = 0;
+        long failedCount = 0;
+        Entry entry;
+        while ((entry = pending.get(checkpointSequence)) != null && entry.outcome != null) {
+            if (entry.outcome == Outcome.FAILED) {
+                failedCount++;
+                blocked = true;
+                pending.clear();
+                break;
+            }
+            pending.remove(checkpointSequence++);
+            checkpointEmail = entry.userEmail;
+            sentCount++;
+        }
+        if (sentCount > 0 || failedCount > 0) {
+            checkpoints.advance(partition, checkpointEmail, sentCount, failedCount);
+        }
+    }
+
+    private enum Outcome { SENT, FAILED }
+
+    private static final class Entry {
+
+        private final String userEmail;
+        private Outcome outcome;
+
+        private Entry(String userEmail) {
+            this.userEmail = userEmail;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.aiexpensetracker.core.service.report;
+
+/**
+ * Which users a report run covers, where it starts and how its progress is recorded, per partition of the users.
+ * Within a partition users are handled in email order, but reports finish out of order; a partition
+ * only advances to a user once the reports of that user and every user before it were dispatched, so the
+ * checkpoint never skips a report that is still being built or sent, or one that failed.
+ */
+public interface ReportCheckpoints {
+
+    /**
+     * @return the number of shards the users are split into by email hash, each run by its own job; 1 for all users.
+     */
+    default int getShardCount() {
+        return 1;
+    }
+
+    /**
+     * @return the shard whose users the run covers, from 0 to getShardCount() - 1.
+     */
+    default int getShard() {
+        return 0;
+    }
+
+    /**
+     * @return the number of partitions the users are read in.
+     */
+    int getPartitions();
+
+    /**
+     * @param partition a partition, from 0 to getPartitions() - 1.
+     * @return the email of the last user already handled in the partition, or an empty string to start from the first.
+     */
+    String resumeAfter(int partition);
+
+    /**
+     * Called, possibly from several threads, whenever a partition's checkpoint moves forward, or stops for good
+     * before a user whose report failed.
+     *
+     * @param partition     the partition.
+     * @param lastUserEmail the email of the last user now handled, together with every user before it.
+     * @param sent          the number of users newly handled whose report was dispatched.
+     * @param failed        1 if the checkpoint stopped before a user whose report failed to build or dispatch,
+     *                      otherwise 0.
+     */
+    void advance(int partition, String lastUserEmail, long sent, long failed);
+
+    /**
+     * @param partitions the number of partitions.
+     * @return checkpoints for a run that starts from the beginning and does not record its progress.
+     */
+    static ReportCheckpoints none(int partitions) {
+        return new ReportCheckpoints() {
+            @Override
+            public int getPartitions() {
+                return partitions;
+            }
+
+            @Override
+            public String resumeAfter(int partition) {
+                return "";
+            }
+
+            @Override
+            public void advance(int partition, String lastUserEmail, long sent, long failed) {
+            }
+        };
+    }
+}
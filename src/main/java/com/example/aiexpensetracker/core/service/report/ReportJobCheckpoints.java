@@ -0,0 +1,164 @@
+package com.example.aiexpensetracker.core.service.report;
+
+import com.example.aiexpensetracker.core.model.ReportJob;
+import com.example.aiexpensetracker.core.model.ReportJobStatus;
+import com.example.aiexpensetracker.core.repository.report.ReportJobRepository;
+import com.example.aiexpensetracker.exception.report.ReportJobNotFoundException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The checkpoints of a persisted report job. Progress is kept in memory and written to the job row every
+ * few advances and on every heartbeat, so a resumed job re-sends at most the reports handled since the
+ * last write. Every write also checks the job's version: if another node took the job over in the
+ * meantime, nothing more is written and {@link #isLost()} tells the run to stop.
+ */
+final class ReportJobCheckpoints implements ReportCheckpoints {
+
+    private final Long jobId;
+    private final int shardCount;
+    private final int shard;
+    private final int partitions;
+    private final ReportJobRepository reportJobRepository;
+    private final TransactionTemplate transaction;
+    private final int writeInterval;
+    private final Map<Integer, String> positions;
+    private long reportsSent;
+    private long failures;
+    private int unwrittenAdvances;
+    private long version;
+    private volatile boolean lost;
+
+    /**
+     * @param job                 the job as last read or written by this node, with its checkpoints and counts.
+     * @param reportJobRepository the repository the progress is written to.
+     * @param transaction         the transaction each write runs in.
+     * @param writeInterval       the number of advances after which the progress is written.
+     */
+    ReportJobCheckpoints(
+            ReportJob job,
+            ReportJobRepository reportJobRepository,
+            TransactionTemplate transaction,
+            int writeInterval
+    ) {
+        this.jobId = job.getId();
+        this.shardCount = job.getShardCount();
+        this.shard = job.getShardIndex();
+        this.partitions = job.getPartitions();
+        this.reportJobRepository = reportJobRepository;
+        this.transaction = transaction;
+        this.writeInterval = Math.max(1, writeInterval);
+        this.positions = new HashMap<>(job.getCheckpoints());
+        this.reportsSent = job.getReportsSent();
+        this.failures = job.getFailures();
+        this.version = job.getVersion();
+    }
+
+    Long getJobId() {
+        return jobId;
+    }
+
+    @Override
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    @Override
+    public int getShard() {
+        return shard;
+    }
+
+    @Override
+    public int getPartitions() {
+        return partitions;
+    }
+
+    @Override
+    public synchronized String resumeAfter(int partition) {
+        return positions.getOrDefault(partition, "");
+    }
+
+    @Override
+    public synchronized void advance(int partition, String lastUserEmail, long sent, long failed) {
+        positions.put(partition, lastUserEmail);
+        reportsSent += sent;
+        failures += failed;
+        if (++unwrittenAdvances >= writeInterval) {
+            write(job -> {});
+        }
+    }
+
+    /**
+     * @return whether another node took the job over, in which case this node must stop sending its reports.
+     */
+    boolean isLost() {
+        return lost;
+    }
+
+    /**
+     * Writes the progress so far and moves the heartbeat forward.
+     */
+    synchronized void heartbeat() {
+        write(job -> {});
+    }
+
+    /**
+     * Marks the job as running on this node.
+     *
+     * @return the job as written, or null if another node took it over.
+     */
+    synchronized ReportJob start() {
+        return write(job -> {
+            job.setStatus(ReportJobStatus.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+            job.setFinishedAt(null);
+            job.setErrorMessage(null);
+        });
+    }
+
+    /**
+     * Writes the final progress and the outcome of the job.
+     *
+     * @param error the exception that stopped the run, or null if every partition was read to the end.
+     */
+    synchronized void finish(Throwable error) {
+        write(job -> {
+            job.setStatus(error == null ? ReportJobStatus.COMPLETED : ReportJobStatus.FAILED);
+            job.setFinishedAt(LocalDateTime.now());
+            if (error != null) {
+                String message = String.valueOf(error.getMessage());
+                job.setErrorMessage(message.length() > 1000 ? message.substring(0, 1000) : message);
+            }
+        });
+    }
+
+    private ReportJob write(Consumer<ReportJob> change) {
+        if (lost) {
+            return null;
+        }
+        ReportJob written = transaction.execute(status -> {
+            ReportJob job = reportJobRepository.findById(jobId)
+                    .orElseThrow(() -> new ReportJobNotFoundException("Report job with ID " + jobId + " not found."));
+            if (job.getVersion() != version) {
+                return null;
+            }
+            job.getCheckpoints().putAll(positions);
+            job.setReportsSent(reportsSent);
+            job.setFailures(failures);
+            job.setHeartbeatAt(LocalDateTime.now());
+            change.accept(job);
+            return reportJobRepository.saveAndFlush(job);
+        });
+        if (written == null) {
+            lost = true;
+            return null;
+        }
+        version = written.getVersion();
+        unwrittenAdvances = 0;
+        return written;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.aiexpensetracker.core.service.report;
+
+import com.example.aiexpensetracker.core.model.ReportPeriod;
+import com.example.aiexpensetracker.rest.dto.report.ReportJobDTO;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service interface for report jobs in the AI Expense Tracker application.
+ * A job generates the reports of all users for one period in the background and writes them to the email
+ * outbox, records its progress as it goes, and is resumed from its last checkpoint if the node running it
+ * goes away. The outbox dispatcher sends the emails separately.
+ */
+public interface ReportJobService {
+
+    /**
+     * Starts the job for a period in the background, or returns the one already started for the same period and
+     * dates, so that a repeated call does not report to anyone twice. A failed job is resumed from its
+     * checkpoints, skipping the users whose report it already wrote. When the users are sharded, the jobs of
+     * every shard are created and this node's shard's job is started; the other nodes start theirs.
+     *
+     * @param period the period to report on, counted back from today.
+     * @return a CompletableFuture containing the new or existing job of this node's shard, completed as soon as
+     * the job is started.
+     */
+    CompletableFuture<ReportJobDTO> startJob(ReportPeriod period);
+
+    /**
+     * Retrieves a job and its progress.
+     *
+     * @param jobId the ID of the job.
+     * @return a CompletableFuture containing the job.
+     * @throws com.example.aiexpensetracker.exception.report.ReportJobNotFoundException if no job has the ID.
+     */
+    CompletableFuture<ReportJobDTO> getJob(Long jobId);
+
+    /**
+     * Writes the progress of the jobs running on this node, which doubles as their heartbeat, starts the
+     * pending jobs of this node's shard, and resumes the pending or running jobs whose heartbeat is too old, e.g. after their node crashed.
+     * Runs on a schedule; several nodes can run it at once, since each stale job is claimed by one of them.
+     */
+    void maintainJobs();
+}
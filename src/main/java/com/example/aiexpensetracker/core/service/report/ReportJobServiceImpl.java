@@ -0,0 +1,309 @@
+package com.example.aiexpensetracker.core.service.report;
+
+import com.example.aiexpensetracker.core.model.ReportJob;
+import com.example.aiexpensetracker.core.model.ReportJobStatus;
+import com.example.aiexpensetracker.core.model.ReportPeriod;
+import com.example.aiexpensetracker.core.model.ReportEmailStatus;
+import com.example.aiexpensetracker.core.model.User;
+import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.core.repository.report.ReportEmailStatusCount;
+import com.example.aiexpensetracker.core.repository.report.ReportJobRepository;
+import com.example.aiexpensetracker.core.repository.user.UserRepository;
+import com.example.aiexpensetracker.exception.report.ReportJobNotFoundException;
+import com.example.aiexpensetracker.rest.dto.report.ReportJobDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class ReportJobServiceImpl implements ReportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobServiceImpl.class);
+
+    private static final Set<ReportJobStatus> RESUMABLE = EnumSet.of(ReportJobStatus.PENDING, ReportJobStatus.RUNNING);
+
+    private final RepositoryManager repositoryManager;
+    private final ReportService reportService;
+    private final ReportPipeline reportPipeline;
+    private final ReportOutbox reportOutbox;
+    private final TransactionTemplate transaction;
+    private final int checkpointInterval;
+    private final Duration staleAfter;
+    private final int shardCount;
+    private final int shardIndex;
+    private final Map<Long, ReportJobCheckpoints> runningJobs = new ConcurrentHashMap<>();
+
+    public ReportJobServiceImpl(
+            RepositoryManager repositoryManager,
+            ReportService reportService,
+            ReportPipeline reportPipeline,
+            ReportOutbox reportOutbox,
+            PlatformTransactionManager transactionManager,
+            @Value("${report.jobs.checkpoint-interval:50}") int checkpointInterval,
+            @Value("${report.jobs.stale-after:PT2M}") Duration staleAfter,
+            @Value("${report.sharding.count:1}") int shardCount,
+            @Value("${report.sharding.index:0}") int shardIndex
+    ) {
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("The report shard index must be from 0 to the shard count - 1, but was "
+                    + shardIndex + " of " + shardCount + ".");
+        }
+        this.repositoryManager = repositoryManager;
+        this.reportService = reportService;
+        this.reportPipeline = reportPipeline;
+        this.reportOutbox = reportOutbox;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.checkpointInterval = checkpointInterval;
+        this.staleAfter = staleAfter;
+        this.shardCount = shardCount;
+        this.shardIndex = shardIndex;
+    }
+
+    @Async
+    @Override
+    public CompletableFuture<ReportJobDTO> startJob(ReportPeriod period) {
+        return CompletableFuture.supplyAsync(() -> {
+            LocalDate today = LocalDate.now();
+            LocalDate startDate = period.startDate(today);
+            LocalDate endDate = period.endDate(today);
+
+            // Every shard's job is created here, so a shard whose node is down is still run once it is stale;
+            // the other nodes start their own shard's job on their next maintenance.
+            ShardJob localJob = null;
+            for (int shard = 0; shard < shardCount; shard++) {
+                ShardJob shardJob = findOrCreateJob(period, startDate, endDate, shard);
+                if (shard == shardIndex) {
+                    localJob = shardJob;
+                }
+            }
+
+            ReportJob job = localJob.job();
+            if (localJob.created()) {
+                ReportJob startedJob = run(job);
+                return mapToReportJobDTO(startedJob != null ? startedJob : job, List.of());
+            }
+            if (job.getStatus() == ReportJobStatus.FAILED) {
+                log.info("Retrying failed report job {} for {} to {}", job.getId(), startDate, endDate);
+                ReportJob resumedJob = claimAndRun(job);
+                if (resumedJob != null) {
+                    job = resumedJob;
+                }
+            }
+            return mapToReportJobDTO(job, repositoryManager.getReportEmailRepository().countByStatus(job.getId()));
+        });
+    }
+
+    @Async
+    @Override
+    public CompletableFuture<ReportJobDTO> getJob(Long jobId) {
+        return CompletableFuture.supplyAsync(() -> {
+            ReportJob job = repositoryManager.getReportJobRepository()
+                    .findById(jobId)
+                    .orElseThrow(() -> new ReportJobNotFoundException("Report job with ID " + jobId + " not found."));
+            return mapToReportJobDTO(job, repositoryManager.getReportEmailRepository().countByStatus(jobId));
+        });
+    }
+
+    @Scheduled(
+            initialDelayString = "${report.jobs.heartbeat-interval:PT30S}",
+            fixedDelayString = "${report.jobs.heartbeat-interval:PT30S}"
+    )
+    @Override
+    public void maintainJobs() {
+        for (ReportJobCheckpoints checkpoints : runningJobs.values()) {
+            try {
+                checkpoints.heartbeat();
+            } catch (RuntimeException ex) {
+                log.warn("Could not write the progress of report job {}", checkpoints.getJobId(), ex);
+            }
+        }
+
+        ReportJobRepository reportJobRepository = repositoryManager.getReportJobRepository();
+        if (shardCount > 1) {
+            for (ReportJob pendingJob : reportJobRepository.findByStatusAndShardIndexAndShardCountOrderByIdAsc(
+                    ReportJobStatus.PENDING, shardIndex, shardCount)) {
+                if (!runningJobs.containsKey(pendingJob.getId())) {
+                    log.info("Starting report job {} of shard {}", pendingJob.getId(), shardIndex);
+                    claimAndRun(pendingJob);
+                }
+            }
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minus(staleAfter);
+        for (ReportJob staleJob : reportJobRepository.findByStatusInAndHeartbeatAtBeforeOrderByIdAsc(RESUMABLE, cutoff)) {
+            if (runningJobs.containsKey(staleJob.getId())) {
+                continue;
+            }
+            claimAndRun(staleJob);
+        }
+    }
+
+    /**
+     * Stores the hash of the users stored before it was kept, in batches, so that they are spread over the shards
+     * rather than all counted in shard 0. Runs once at startup, and only when the users are sharded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillEmailHashes() {
+        if (shardCount == 1) {
+            return;
+        }
+        UserRepository userRepository = repositoryManager.getUserRepository();
+        int backfilled = 0;
+        int batch;
+        do {
+            batch = transaction.execute(status -> {
+                List<User> users = userRepository.findTop500ByEmailHashIsNull();
+                users.forEach(user -> user.setEmailHash(User.emailHash(user.getEmail())));
+                userRepository.saveAll(users);
+                return users.size();
+            });
+            backfilled += batch;
+        } while (batch > 0);
+        if (backfilled > 0) {
+            log.info("Backfilled the email hash of {} users", backfilled);
+        }
+    }
+
+    /**
+     * Finds the job of a period's shard, or creates it as pending if it was never started.
+     *
+     * @return the job, and whether this call created it.
+     */
+    private ShardJob findOrCreateJob(ReportPeriod period, LocalDate startDate, LocalDate endDate, int shard) {
+        ReportJobRepository reportJobRepository = repositoryManager.getReportJobRepository();
+        ReportJob existingJob = reportJobRepository
+                .findByPeriodAndStartDateAndEndDateAndShardIndex(period, startDate, endDate, shard)
+                .orElse(null);
+        if (existingJob != null) {
+            return new ShardJob(existingJob, false);
+        }
+
+        ReportJob job = new ReportJob();
+        job.setPeriod(period);
+        job.setStartDate(startDate);
+        job.setEndDate(endDate);
+        job.setShardIndex(shard);
+        job.setShardCount(shardCount);
+        job.setPartitions(reportPipeline.getPartitions());
+        job.setTotalUsers(shardCount == 1
+                ? repositoryManager.getUserRepository().count()
+                : repositoryManager.getUserRepository().countByShard(shardCount, shard));
+        try {
+            return new ShardJob(reportJobRepository.saveAndFlush(job), true);
+        } catch (DataIntegrityViolationException ex) {
+            // Another call or node created the job for the same period first.
+            return new ShardJob(reportJobRepository
+                    .findByPeriodAndStartDateAndEndDateAndShardIndex(period, startDate, endDate, shard)
+                    .orElseThrow(() -> ex), false);
+        }
+    }
+
+    /**
+     * Takes over a job from whoever ran it last, if nobody else did since it was read, and resumes it.
+     *
+     * @return the job as marked running, or null if another node took it first.
+     */
+    private ReportJob claimAndRun(ReportJob job) {
+        ReportJobRepository reportJobRepository = repositoryManager.getReportJobRepository();
+        ReportJob claimedJob = transaction.execute(status ->
+                reportJobRepository.claim(job.getId(), job.getVersion(), LocalDateTime.now()) == 1
+                        ? reportJobRepository.findById(job.getId()).orElse(null)
+                        : null);
+        if (claimedJob == null) {
+            return null;
+        }
+        log.info("Resuming report job {} after {} reports sent and {} failed",
+                claimedJob.getId(), claimedJob.getReportsSent(), claimedJob.getFailures());
+        return run(claimedJob);
+    }
+
+    /**
+     * Runs a job owned by this node from its checkpoints, writing each report to the outbox as it is built,
+     * and records the outcome once the run is over. The emails are sent by the outbox dispatcher.
+     *
+     * @return the job as marked running, or null if another node took it over first.
+     */
+    private ReportJob run(ReportJob job) {
+        Long jobId = job.getId();
+        ReportJobCheckpoints checkpoints = new ReportJobCheckpoints(
+                job, repositoryManager.getReportJobRepository(), transaction, checkpointInterval);
+        ReportJob startedJob = checkpoints.start();
+        if (startedJob == null) {
+            return null;
+        }
+        runningJobs.put(jobId, checkpoints);
+
+        reportService.generateReportsForAllUsers(job.getStartDate(), job.getEndDate(), checkpoints, report -> {
+            if (checkpoints.isLost()) {
+                throw new CancellationException("Report job " + jobId + " was taken over by another node.");
+            }
+            if (!reportOutbox.add(jobId, report)) {
+                log.debug("Report job {} already wrote the report for {}", jobId, report.getUserEmail());
+            }
+        }).whenComplete((summary, ex) -> {
+            runningJobs.remove(jobId, checkpoints);
+            Throwable error = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (error == null && !summary.isComplete()) {
+                // The checkpoints stopped before the failed reports; retrying the job sends them from there.
+                error = new IllegalStateException((summary.getBuildFailures() + summary.getDispatchFailures())
+                        + " reports failed to build or dispatch.");
+            }
+            try {
+                checkpoints.finish(error);
+            } catch (RuntimeException finishEx) {
+                log.warn("Could not record the outcome of report job {}", jobId, finishEx);
+            }
+            if (error != null) {
+                log.warn("Report job {} failed", jobId, error);
+            }
+        });
+        return startedJob;
+    }
+
+    private record ShardJob(ReportJob job, boolean created) {}
+
+    public ReportJobDTO mapToReportJobDTO(ReportJob job, List<ReportEmailStatusCount> emailCounts) {
+        Map<ReportEmailStatus, Long> emails = new EnumMap<>(ReportEmailStatus.class);
+        for (ReportEmailStatusCount count : emailCounts) {
+            emails.put(count.getStatus(), count.getCount());
+        }
+        return new ReportJobDTO(
+                job.getId(),
+                job.getPeriod().name(),
+                job.getStartDate(),
+                job.getEndDate(),
+                job.getStatus().name(),
+                job.getTotalUsers(),
+                job.getReportsSent(),
+                job.getFailures(),
+                emails.getOrDefault(ReportEmailStatus.PENDING, 0L),
+                emails.getOrDefault(ReportEmailStatus.SENT, 0L),
+                emails.getOrDefault(ReportEmailStatus.DEAD, 0L),
+                job.getCreatedAt(),
+                job.getStartedAt(),
+                job.getFinishedAt(),
+                job.getErrorMessage()
+        );
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.aiexpensetracker.core.service.report;
+
+import com.example.aiexpensetracker.core.model.ReportEmail;
+import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.core.repository.report.ReportEmailRepository;
+import com.example.aiexpensetracker.rest.dto.report.UserReportResponseDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Writes report emails to the outbox, from where {@link ReportOutboxDispatcher} sends them.
+ * Reports are added one at a time by the concurrent dispatch threads of a report run and written by group
+ * commit: whichever caller gets the write lock inserts everything that queued up while the batch before was
+ * being written, up to {@code batchSize} rows in one transaction, and the callers behind it find their email
+ * already written. {@link #add(Long, UserReportResponseDTO)} only returns once the email is committed,
+ * so a job checkpoint never covers an email that could still be lost. Users that already have an email of
+ * the job, e.g. when a job resumes behind its last checkpoint write, are skipped.
+ */
+@Component
+public class ReportOutbox {
+
+    private final RepositoryManager repositoryManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+    private final Queue<PendingEmail> queue = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public ReportOutbox(
+            RepositoryManager repositoryManager,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${report.outbox.batch-size:100}") int batchSize
+    ) {
+        this.repositoryManager = repositoryManager;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Adds a user's report to the outbox, waiting until it is committed.
+     *
+     * @param jobId  the ID of the report job the report belongs to.
+     * @param report the report to send.
+     * @return true if the email was written, false if the job already had an email for the user.
+     * @throws RuntimeException if the batch holding the email could not be written.
+     */
+    public boolean add(Long jobId, UserReportResponseDTO report) {
+        PendingEmail pending = new PendingEmail(new ReportEmail(jobId, report.getUserEmail(), toJson(report)));
+        queue.add(pending);
+
+        // A ReentrantLock rather than a monitor, so that virtual threads waiting for it are not pinned.
+        RuntimeException failure;
+        writeLock.lock();
+        try {
+            while (!pending.written) {
+                writeBatch();
+            }
+            failure = pending.failure;
+        } finally {
+            writeLock.unlock();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return !pending.duplicate;
+    }
+
+    /**
+     * Inserts up to one batch of the queued emails in one transaction, leaving out the users that already have
+     * an email of their job. Must hold the write lock.
+     */
+    private void writeBatch() {
+        List<PendingEmail> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+        PendingEmail next;
+        while (batch.size() < batchSize && (next = queue.poll()) != null) {
+            batch.add(next);
+        }
+
+        RuntimeException failure = null;
+        try {
+            transaction.executeWithoutResult(status -> insertNew(batch));
+        } catch (RuntimeException ex) {
+            failure = ex;
+        }
+        for (PendingEmail pending : batch) {
+            pending.failure = failure;
+            pending.written = true;
+        }
+    }
+
+    private void insertNew(List<PendingEmail> batch) {
+        ReportEmailRepository reportEmailRepository = repositoryManager.getReportEmailRepository();
+        Map<Long, List<PendingEmail>> byJob = batch.stream()
+                .collect(Collectors.groupingBy(pending -> pending.email.getJobId()));
+
+        List<ReportEmail> emails = new ArrayList<>(batch.size());
+        byJob.forEach((jobId, pendings) -> {
+            Set<String> ledger = reportEmailRepository.findRecipients(
+                    jobId, pendings.stream().map(pending -> pending.email.getRecipient()).toList());
+            for (PendingEmail pending : pendings) {
+                pending.duplicate = ledger.contains(pending.email.getRecipient());
+                if (!pending.duplicate) {
+                    emails.add(pending.email);
+                }
+            }
+        });
+        reportEmailRepository.saveAll(emails);
+    }
+
+    private String toJson(UserReportResponseDTO report) {
+        try {
+            return objectMapper.writeValueAsString(report);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("The report for " + report.getUserEmail() + " could not be serialized.", ex);
+        }
+    }
+
+    /**
+     * An email waiting to be written; its fields are only touched while holding the write lock.
+     */
+    private static final class PendingEmail {
+
+        private final ReportEmail email;
+        private boolean written;
+        private boolean duplicate;
+        private RuntimeException failure;
+
+        private PendingEmail(ReportEmail email) {
+            this.email = email;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.aiexpensetracker.core.service.report;
+
+import com.example.aiexpensetracker.core.api.mailsender.MailSender;
+import com.example.aiexpensetracker.core.model.ReportEmail;
+import com.example.aiexpensetracker.core.model.ReportEmailStatus;
+import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.core.repository.report.ReportEmailRepository;
+import com.example.aiexpensetracker.rest.dto.report.UserReportResponseDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Sends the report emails in the outbox in the background, so that slow mail provider calls stay off the
+ * report runs. Each round locks a batch of due emails with SKIP LOCKED and moves them a lease into the
+ * future, which lets every node drain the outbox at the same time without sending an email twice; an email
+ * whose dispatcher goes away is picked up again once its lease runs out. The batch is then sent on virtual
+ * threads, at most {@code concurrency} at a time, outside of any transaction. A failed send is retried with
+ * exponential backoff, and after {@code maxAttempts} attempts the email is dead-lettered.
+ * Progress is published as the "report.outbox.emails" (by outcome) and "report.outbox.send.duration" metrics.
+ */
+@Component
+public class ReportOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportOutboxDispatcher.class);
+
+    private final RepositoryManager repositoryManager;
+    private final MailSender mailSender;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+    private final int concurrency;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration retryBackoff;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter deadLettered;
+    private final Timer sendDuration;
+
+    public ReportOutboxDispatcher(
+            RepositoryManager repositoryManager,
+            MailSender mailSender,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${report.outbox.batch-size:100}") int batchSize,
+            @Value("${report.outbox.concurrency:16}") int concurrency,
+            @Value("${report.outbox.max-attempts:5}") int maxAttempts,
+            @Value("${report.outbox.lease:PT5M}") Duration lease,
+            @Value("${report.outbox.retry-backoff:PT1M}") Duration retryBackoff
+    ) {
+        if (concurrency < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("report.outbox.concurrency and report.outbox.max-attempts must be at least 1.");
+        }
+        this.repositoryManager = repositoryManager;
+        this.mailSender = mailSender;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.concurrency = concurrency;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+        this.retryBackoff = retryBackoff;
+        this.sent = emailCounter("sent", meterRegistry);
+        this.retried = emailCounter("retried", meterRegistry);
+        this.deadLettered = emailCounter("dead", meterRegistry);
+        this.sendDuration = Timer.builder("report.outbox.send.duration")
+                .description("Time to send one report email from the outbox")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sends due emails batch by batch until no more are due.
+     */
+    @Scheduled(
+            initialDelayString = "${report.outbox.poll-interval:PT5S}",
+            fixedDelayString = "${report.outbox.poll-interval:PT5S}"
+    )
+    public void dispatchDueEmails() {
+        try {
+            while (dispatchBatch() == batchSize) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Could not dispatch the report email outbox", ex);
+        }
+    }
+
+    /**
+     * Claims one batch of due emails, sends them and records the outcome of every send.
+     *
+     * @return the number of emails claimed, which is below the batch size once the outbox is drained.
+     */
+    public int dispatchBatch() {
+        List<ReportEmail> claimed = transaction.execute(status -> claim(LocalDateTime.now()));
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> sentIds = Collections.synchronizedList(new ArrayList<>());
+        Map<ReportEmail, SendFailure> failures = new ConcurrentHashMap<>();
+        Semaphore permits = new Semaphore(concurrency);
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("report-outbox-", 0).factory())) {
+            for (ReportEmail email : claimed) {
+                if (email.getStatus() != ReportEmailStatus.PENDING) {
+                    continue;
+                }
+                try {
+                    permits.acquire();
+                } catch (InterruptedException ex) {
+                    // The rest stay claimed and are picked up again once their lease runs out.
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                executor.execute(() -> {
+                    try {
+                        sendDuration.record(() -> mailSender.sendEmail(toReport(email)));
+                        sentIds.add(email.getId());
+                    } catch (RuntimeException ex) {
+                        failures.put(email, new SendFailure(ex, ex instanceof MalformedPayloadException));
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+
+        transaction.executeWithoutResult(status -> record(sentIds, failures, LocalDateTime.now()));
+        return claimed.size();
+    }
+
+    /**
+     * Locks the due emails and leases them to this dispatcher by counting the attempt and moving the
+     * next attempt past the lease. An email that is still due after its last attempt lost its dispatcher
+     * before the outcome was recorded, and is dead-lettered rather than sent once more.
+     */
+    private List<ReportEmail> claim(LocalDateTime now) {
+        List<ReportEmail> due = repositoryManager.getReportEmailRepository().lockDueEmails(now, batchSize);
+        for (ReportEmail email : due) {
+            if (email.getAttempts() >= maxAttempts) {
+                email.setStatus(ReportEmailStatus.DEAD);
+                email.setLastError("No outcome was recorded for the last of " + maxAttempts + " attempts.");
+                deadLettered.increment();
+            } else {
+                email.setAttempts(email.getAttempts() + 1);
+                email.setNextAttemptAt(now.plus(lease));
+            }
+        }
+        return due;
+    }
+
+    private void record(List<Long> sentIds, Map<ReportEmail, SendFailure> failures, LocalDateTime now) {
+        ReportEmailRepository reportEmailRepository = repositoryManager.getReportEmailRepository();
+        if (!sentIds.isEmpty()) {
+            reportEmailRepository.markSent(sentIds, now);
+            sent.increment(sentIds.size());
+        }
+        failures.forEach((email, failure) -> {
+            String error = truncate(failure.error.getMessage());
+            if (failure.permanent || email.getAttempts() >= maxAttempts) {
+                reportEmailRepository.markDead(email.getId(), error);
+                deadLettered.increment();
+                log.warn("Gave up on the report email {} to {} after {} attempt(s)",
+                        email.getId(), email.getRecipient(), email.getAttempts(), failure.error);
+            } else {
+                reportEmailRepository.retryLater(email.getId(), now.plus(backoff(email.getAttempts())), error);
+                retried.increment();
+            }
+        });
+    }
+
+    /**
+     * @return the wait before the attempt after the given one: the retry backoff, doubled after every attempt.
+     */
+    private Duration backoff(int attempts) {
+        return retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 16));
+    }
+
+    private UserReportResponseDTO toReport(ReportEmail email) {
+        try {
+            return objectMapper.readValue(email.getPayload(), UserReportResponseDTO.class);
+        } catch (JsonProcessingException ex) {
+            throw new MalformedPayloadException("The report of email " + email.getId() + " could not be read: "
+                    + ex.getOriginalMessage());
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    private static Counter emailCounter(String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder("report.outbox.emails")
+                .description("Report emails handled by the outbox dispatcher")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static final class SendFailure {
+
+        private final RuntimeException error;
+        private final boolean permanent;
+
+        private SendFailure(RuntimeException error, boolean permanent) {
+            this.error = error;
+            this.permanent = permanent;
+        }
+    }
+
+    /**
+     * A payload that cannot be turned back into a report; sending it again would fail the same way.
+     */
+    private static final class MalformedPayloadException extends RuntimeException {
+
+        private MalformedPayloadException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.aiexpensetracker.core.service.report;
+
+import com.example.aiexpensetracker.core.repository.expense.ExpenseSummary;
+import com.example.aiexpensetracker.core.repository.expense.ReportExpenseRow;
+import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.rest.dto.report.UserReportResponseDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Runs report generation as three stages on virtual threads:
+ * <ol>
+ *     <li>partition: the users are split into partitions by ID, and each partition is read with one streamed
+ *     scan in its own read-only transaction, emitting one user's expenses at a time;</li>
+ *     <li>build: turns a user's expenses into their report;</li>
+ *     <li>dispatch: hands the report on, e.g. to the mail sender.</li>
+ * </ol>
+ * Every stage has its own concurrency limit and a bounded queue in front of it, so a slow stage holds back
+ * the ones before it instead of letting reports pile up in memory. Each partition holds a database
+ * connection for the length of its scan, so the number of partitions must stay below the pool size.
+ * Progress is published per stage as the "report.pipeline.*" metrics, and recorded per partition through
+ * {@link ReportCheckpoints}, from which a later run can resume.
+ */
+@Component
+public class ReportPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportPipeline.class);
+
+    private final RepositoryManager repositoryManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int partitions;
+    private final int buildConcurrency;
+    private final int dispatchConcurrency;
+    private final int queueCapacity;
+    private final ReportPipelineStage.Metrics partitionMetrics;
+    private final ReportPipelineStage.Metrics buildMetrics;
+    private final ReportPipelineStage.Metrics dispatchMetrics;
+
+    public ReportPipeline(
+            RepositoryManager repositoryManager,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${report.pipeline.partitions:2}") int partitions,
+            @Value("${report.pipeline.build-concurrency:4}") int buildConcurrency,
+            @Value("${report.pipeline.dispatch-concurrency:16}") int dispatchConcurrency,
+            @Value("${report.pipeline.queue-capacity:64}") int queueCapacity
+    ) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("report.pipeline.partitions must be at least 1.");
+        }
+        this.repositoryManager = repositoryManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.partitions = partitions;
+        this.buildConcurrency = buildConcurrency;
+        this.dispatchConcurrency = dispatchConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.partitionMetrics = new ReportPipelineStage.Metrics("partition", meterRegistry);
+        this.buildMetrics = new ReportPipelineStage.Metrics("build", meterRegistry);
+        this.dispatchMetrics = new ReportPipelineStage.Metrics("dispatch", meterRegistry);
+    }
+
+    /**
+     * @return the configured number of partitions, for runs that start from the beginning.
+     */
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Builds and dispatches the reports of all users for a period, returning once every report is dispatched.
+     * A report that fails to build or dispatch is counted and the run carries on with the other users, but the
+     * checkpoint of its partition stops before it, so that a resumed run starts with that user again.
+     *
+     * @param startDate     the start date of the reporting period.
+     * @param endDate       the end date of the reporting period.
+     * @param checkpoints   the number of partitions, where each one starts, and where its progress goes.
+     * @param reportBuilder builds a user's report from their email and expenses in the period.
+     * @param dispatcher    the last stage, called concurrently from several threads.
+     * @return the counts of the run.
+     * @throws RuntimeException the exception of a partition whose scan failed, after the rest of the run finished.
+     */
+    public ReportRunSummary run(
+            LocalDate startDate,
+            LocalDate endDate,
+            ReportCheckpoints checkpoints,
+            BiFunction<String, List<ExpenseSummary>, UserReportResponseDTO> reportBuilder,
+            Consumer<UserReportResponseDTO> dispatcher
+    ) {
+        long started = System.nanoTime();
+
+        ReportPipelineStage<BuiltReport> dispatch = new ReportPipelineStage<>(dispatchMetrics, dispatchConcurrency,
+                queueCapacity, built -> {
+                    try {
+                        dispatcher.accept(built.report);
+                    } catch (RuntimeException ex) {
+                        built.user.done(false);
+                        throw ex;
+                    }
+                    built.user.done(true);
+                });
+        ReportPipelineStage<UserExpenses> build = new ReportPipelineStage<>(buildMetrics, buildConcurrency,
+                queueCapacity, user -> {
+                    UserReportResponseDTO report;
+                    try {
+                        report = reportBuilder.apply(user.email, user.expenses);
+                    } catch (RuntimeException ex) {
+                        user.done(false);
+                        throw ex;
+                    }
+                    submit(dispatch, new BuiltReport(user, report));
+                });
+        ReportPipelineStage<Integer> partition = new ReportPipelineStage<>(partitionMetrics,
+                checkpoints.getPartitions(), 0, index -> scanPartition(
+                        startDate, endDate, checkpoints, new PartitionProgress(index, checkpoints), index, build));
+
+        try {
+            for (int index = 0; index < checkpoints.getPartitions(); index++) {
+                submit(partition, index);
+            }
+        } finally {
+            // Each stage only receives items from the one before it, so closing them in order drains the pipeline.
+            partition.close();
+            build.close();
+            dispatch.close();
+        }
+
+        if (build.failed() > 0 || dispatch.failed() > 0) {
+            log.warn("Report run {} to {}: {} reports failed to build and {} failed to dispatch",
+                    startDate, endDate, build.failed(), dispatch.failed(),
+                    build.firstFailure() != null ? build.firstFailure() : dispatch.firstFailure());
+        }
+        if (partition.firstFailure() != null) {
+            throw partition.firstFailure();
+        }
+
+        return new ReportRunSummary(
+                build.succeeded(),
+                build.failed(),
+                dispatch.succeeded(),
+                dispatch.failed(),
+                Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    /**
+     * Reads one partition's rows after its checkpoint, which are ordered by user email, and hands each user's
+     * expenses to the build stage as soon as the next user's first row arrives.
+     */
+    private void scanPartition(
+            LocalDate startDate,
+            LocalDate endDate,
+            ReportCheckpoints checkpoints,
+            PartitionProgress progress,
+            int index,
+            ReportPipelineStage<UserExpenses> build
+    ) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<ReportExpenseRow> rows = repositoryManager.getExpenseRepository().streamReportRows(
+                    startDate, endDate, checkpoints.getShardCount(), checkpoints.getShard(),
+                    checkpoints.getPartitions(), index, checkpoints.resumeAfter(index))) {
+                Iterator<ReportExpenseRow> iterator = rows.iterator();
+                UserExpenses user = null;
+                while (iterator.hasNext()) {
+                    ReportExpenseRow row = iterator.next();
+                    if (user == null || !user.email.equals(row.getUserEmail())) {
+                        if (user != null) {
+                            submit(build, user);
+                        }
+                        user = new UserExpenses(row.getUserEmail(), progress);
+                    }
+                    if (row.hasExpense()) {
+                        user.expenses.add(row.toSummary());
+                    }
+                }
+                if (user != null) {
+                    submit(build, user);
+                }
+            }
+        });
+    }
+
+    private static <T> void submit(ReportPipelineStage<T> stage, T item) {
+        try {
+            stage.submit(item);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            CancellationException cancellation = new CancellationException("The report run was interrupted.");
+            cancellation.initCause(ex);
+            throw cancellation;
+        }
+    }
+
+    private static final class UserExpenses {
+
+        private final String email;
+        private final List<ExpenseSummary> expenses = new ArrayList<>();
+        private final PartitionProgress progress;
+        private final long sequence;
+
+        private UserExpenses(String email, PartitionProgress progress) {
+            this.email = email;
+            this.progress = progress;
+            this.sequence = progress.register(email);
+        }
+
+        private void done(boolean sent) {
+            progress.done(sequence, sent);
+        }
+    }
+
+    private static final class BuiltReport {
+
+        private final UserExpenses user;
+        private final UserReportResponseDTO report;
+
+        private BuiltReport(UserExpenses user, UserReportResponseDTO report) {
+            this.user = user;
+            this.report = report;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.aiexpensetracker.core.service.report;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * One stage of a report pipeline run: runs its handler on virtual threads, at most {@code concurrency}
+ * items at a time, with room for {@code queueCapacity} more items waiting. Once the stage is full,
+ * {@link #submit(Object)} blocks, which slows the upstream stage down to the pace of this one.
+ * A failing item is counted and does not stop the stage; the first failure is kept for the caller.
+ */
+final class ReportPipelineStage<T> implements AutoCloseable {
+
+    private final Consumer<T> handler;
+    private final Metrics metrics;
+    private final ExecutorService executor;
+    private final Semaphore admitted;
+    private final Semaphore running;
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicReference<RuntimeException> firstFailure = new AtomicReference<>();
+
+    ReportPipelineStage(Metrics metrics, int concurrency, int queueCapacity, Consumer<T> handler) {
+        if (concurrency < 1 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Stage '" + metrics.name + "' needs a concurrency of at least 1 "
+                    + "and a non-negative queue capacity.");
+        }
+        this.handler = handler;
+        this.metrics = metrics;
+        this.executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("report-" + metrics.name + "-", 0).factory());
+        this.admitted = new Semaphore(concurrency + queueCapacity);
+        this.running = new Semaphore(concurrency);
+    }
+
+    /**
+     * Hands an item to the stage, waiting while the stage is full.
+     *
+     * @throws InterruptedException if the caller is interrupted while waiting.
+     */
+    void submit(T item) throws InterruptedException {
+        admitted.acquire();
+        metrics.inFlight.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                running.acquire();
+                try {
+                    metrics.duration.record(() -> handler.accept(item));
+                    succeeded.incrementAndGet();
+                    metrics.succeeded.increment();
+                } catch (RuntimeException ex) {
+                    failed.incrementAndGet();
+                    metrics.failed.increment();
+                    firstFailure.compareAndSet(null, ex);
+                } finally {
+                    running.release();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                metrics.inFlight.decrementAndGet();
+                admitted.release();
+            }
+        });
+    }
+
+    long succeeded() {
+        return succeeded.get();
+    }
+
+    long failed() {
+        return failed.get();
+    }
+
+    /**
+     * @return the first exception thrown by the handler, or null if every item succeeded so far.
+     */
+    RuntimeException firstFailure() {
+        return firstFailure.get();
+    }
+
+    /**
+     * Waits until every submitted item has been handled.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    /**
+     * Meters of a stage, shared by all runs: "report.pipeline.items" (by outcome),
+     * "report.pipeline.item.duration" and "report.pipeline.in.flight", tagged with the stage name.
+     */
+    static final class Metrics {
+
+        private final String name;
+        private final Counter succeeded;
+        private final Counter failed;
+        private final Timer duration;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        Metrics(String name, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.succeeded = Counter.builder("report.pipeline.items")
+                    .description("Items handled by a report pipeline stage")
+                    .tag("stage", name).tag("outcome", "success")
+                    .register(meterRegistry);
+            this.failed = Counter.builder("report.pipeline.items")
+                    .description("Items handled by a report pipeline stage")
+                    .tag("stage", name).tag("outcome", "failure")
+                    .register(meterRegistry);
+            this.duration = Timer.builder("report.pipeline.item.duration")
+                    .tag("stage", name)
+                    .register(meterRegistry);
+            Gauge.builder("report.pipeline.in.flight", inFlight, AtomicInteger::get)
+                    .description("Items running or waiting in a report pipeline stage")
+                    .tag("stage", name)
+                    .register(meterRegistry);
+        }
+    }
+}
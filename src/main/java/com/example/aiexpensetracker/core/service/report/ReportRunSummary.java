@@ -0,0 +1,56 @@
+package com.example.aiexpensetracker.core.service.report;
+
+import java.time.Duration;
+
+/**
+ * Outcome of one report run: how many users' reports were built and dispatched, and how many failed.
+ */
+public class ReportRunSummary {
+
+    private final long reportsBuilt;
+    private final long buildFailures;
+    private final long reportsDispatched;
+    private final long dispatchFailures;
+    private final Duration elapsed;
+
+    public ReportRunSummary(
+            long reportsBuilt,
+            long buildFailures,
+            long reportsDispatched,
+            long dispatchFailures,
+            Duration elapsed
+    ) {
+        this.reportsBuilt = reportsBuilt;
+        this.buildFailures = buildFailures;
+        this.reportsDispatched = reportsDispatched;
+        this.dispatchFailures = dispatchFailures;
+        this.elapsed = elapsed;
+    }
+
+    public long getReportsBuilt() {
+        return reportsBuilt;
+    }
+
+    public long getBuildFailures() {
+        return buildFailures;
+    }
+
+    public long getReportsDispatched() {
+        return reportsDispatched;
+    }
+
+    public long getDispatchFailures() {
+        return dispatchFailures;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @return whether every user's report was built and dispatched.
+     */
+    public boolean isComplete() {
+        return buildFailures == 0 && dispatchFailures == 0;
+    }
+}
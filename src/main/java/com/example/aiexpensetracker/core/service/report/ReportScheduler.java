@@ -0,0 +1,103 @@
+package com.example.aiexpensetracker.core.service.report;
+
+import com.example.aiexpensetracker.core.model.ReportPeriod;
+import com.example.aiexpensetracker.core.model.SchedulerLock;
+import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.core.repository.scheduler.SchedulerLockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Starts the weekly and monthly report jobs on cron expressions, in place of an external caller of the
+ * report endpoints. Every node fires the crons, but only the node that takes the task's lease in the
+ * 'scheduler_locks' table starts the job; the lease is held for {@code lease} and not released early,
+ * so a node whose clock is a little behind cannot start the same firing again. Both crons are disabled
+ * unless configured, so that an existing external trigger does not run alongside them.
+ */
+@Component
+public class ReportScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportScheduler.class);
+
+    private final RepositoryManager repositoryManager;
+    private final ReportJobService reportJobService;
+    private final TransactionTemplate transaction;
+    private final Duration lease;
+    private final String nodeId;
+
+    public ReportScheduler(
+            RepositoryManager repositoryManager,
+            ReportJobService reportJobService,
+            PlatformTransactionManager transactionManager,
+            @Value("${report.scheduler.lease:PT5M}") Duration lease,
+            @Value("${report.scheduler.node-id:}") String nodeId
+    ) {
+        this.repositoryManager = repositoryManager;
+        this.reportJobService = reportJobService;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.lease = lease;
+        this.nodeId = nodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : nodeId;
+    }
+
+    @Scheduled(cron = "${report.scheduler.weekly-cron:-}")
+    public void startWeeklyReports() {
+        startIfLeader("report-weekly", ReportPeriod.WEEKLY);
+    }
+
+    @Scheduled(cron = "${report.scheduler.monthly-cron:-}")
+    public void startMonthlyReports() {
+        startIfLeader("report-monthly", ReportPeriod.MONTHLY);
+    }
+
+    private void startIfLeader(String task, ReportPeriod period) {
+        if (!tryAcquire(task)) {
+            log.debug("Skipping {}, another node holds its lease", task);
+            return;
+        }
+        log.info("Starting the {} report job on node {}", period, nodeId);
+        reportJobService.startJob(period).whenComplete((job, ex) -> {
+            if (ex != null) {
+                log.warn("Could not start the {} report job", period, ex);
+            } else {
+                log.info("Started {} report job {}", period, job.getId());
+            }
+        });
+    }
+
+    /**
+     * Takes the lease of a task if it is free, creating it on the task's first run.
+     *
+     * @param task the name of the scheduled task.
+     * @return whether this node now holds the lease.
+     */
+    boolean tryAcquire(String task) {
+        SchedulerLockRepository schedulerLockRepository = repositoryManager.getSchedulerLockRepository();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(lease);
+        Integer acquired = transaction.execute(status -> schedulerLockRepository.acquire(task, nodeId, now, until));
+        if (acquired != null && acquired == 1) {
+            return true;
+        }
+        if (schedulerLockRepository.existsById(task)) {
+            return false;
+        }
+        try {
+            transaction.executeWithoutResult(status ->
+                    schedulerLockRepository.saveAndFlush(new SchedulerLock(task, until, now, nodeId)));
+            return true;
+        } catch (DataIntegrityViolationException ex) {
+            // Another node created the lease first.
+            return false;
+        }
+    }
+}
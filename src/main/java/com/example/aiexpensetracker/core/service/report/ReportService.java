@@ -5,6 +5,7 @@ import com.example.aiexpensetracker.rest.dto.report.UserReportResponseDTO;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Service interface for generating reports for users in the AI Expense Tracker application.
@@ -15,10 +16,31 @@ public interface ReportService {
     /**
      * Generates expense reports for all users within a specified date range.
      * The report includes total expenses, categorized amounts, and a detailed breakdown of expenses for each user.
+     * All reports are held in memory, ordered by user email; prefer the consumer variant for large runs.
      *
      * @param startDate the start date of the reporting period.
      * @param endDate   the end date of the reporting period.
      * @return a CompletableFuture containing a list of UserReportResponseDTO objects, each representing a user's report.
      */
     CompletableFuture<List<UserReportResponseDTO>> generateReportsForAllUsers(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Generates expense reports for all users within a specified date range through the report pipeline,
+     * handing each user's report to the consumer as soon as it is built. Memory stays bounded by the
+     * pipeline's queues, whatever the number of users.
+     *
+     * @param startDate      the start date of the reporting period.
+     * @param endDate        the end date of the reporting period.
+     * @param checkpoints    the partitions of the run, where each one resumes and where its progress is recorded;
+     *                       {@link ReportCheckpoints#none(int)} for a run from the beginning.
+     * @param reportConsumer the dispatch stage, e.g. the mail sender, called once per user and concurrently
+     *                       from several threads; a report whose consumer throws is counted as failed.
+     * @return a CompletableFuture containing the counts of the run.
+     */
+    CompletableFuture<ReportRunSummary> generateReportsForAllUsers(
+            LocalDate startDate,
+            LocalDate endDate,
+            ReportCheckpoints checkpoints,
+            Consumer<UserReportResponseDTO> reportConsumer
+    );
 }
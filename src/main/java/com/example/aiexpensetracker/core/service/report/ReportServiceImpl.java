@@ -1,8 +1,9 @@
 package com.example.aiexpensetracker.core.service.report;
 
-import com.example.aiexpensetracker.core.model.Expense;
-import com.example.aiexpensetracker.core.model.User;
-import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.core.repository.expense.ExpenseSummary;
+import com.example.aiexpensetracker.core.service.analytics.ExpenseAggregates;
+import com.example.aiexpensetracker.core.service.analytics.ExpenseColumns;
+import com.example.aiexpensetracker.core.service.analytics.ExpenseGroups;
 import com.example.aiexpensetracker.rest.dto.report.CategoryTotalDTO;
 import com.example.aiexpensetracker.rest.dto.report.UserReportResponseDTO;
 import com.example.aiexpensetracker.rest.dto.statistics.ExpenseDTO;
@@ -11,18 +12,21 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class ReportServiceImpl implements ReportService {
 
-    private final RepositoryManager repositoryManager;
+    private final ReportPipeline reportPipeline;
 
-    public ReportServiceImpl(RepositoryManager repositoryManager) {
-        this.repositoryManager = repositoryManager;
+    public ReportServiceImpl(ReportPipeline reportPipeline) {
+        this.reportPipeline = reportPipeline;
     }
 
     @Async
@@ -31,51 +35,56 @@ public class ReportServiceImpl implements ReportService {
             LocalDate startDate,
             LocalDate endDate
     ) {
-        return CompletableFuture.supplyAsync(() -> repositoryManager.getUserRepository()
-                .findAll()
-                .stream()
-                .map(user -> generateReportForUser(user, startDate, endDate))
-                .collect(Collectors.toList()));
+        List<UserReportResponseDTO> reports = Collections.synchronizedList(new ArrayList<>());
+        reportPipeline.run(startDate, endDate, ReportCheckpoints.none(reportPipeline.getPartitions()),
+                this::generateReportForUser, reports::add);
+        reports.sort(Comparator.comparing(UserReportResponseDTO::getUserEmail));
+        return CompletableFuture.completedFuture(reports);
     }
 
-    private UserReportResponseDTO generateReportForUser(User user, LocalDate startDate, LocalDate endDate) {
-        List<Expense> expenses = repositoryManager.getExpenseRepository()
-                .findByUserEmailAndDateBetween(user.getEmail(), startDate, endDate);
+    @Async
+    @Override
+    public CompletableFuture<ReportRunSummary> generateReportsForAllUsers(
+            LocalDate startDate,
+            LocalDate endDate,
+            ReportCheckpoints checkpoints,
+            Consumer<UserReportResponseDTO> reportConsumer
+    ) {
+        return CompletableFuture.completedFuture(
+                reportPipeline.run(startDate, endDate, checkpoints, this::generateReportForUser, reportConsumer));
+    }
 
-        BigDecimal totalAmount = calculateTotalAmount(expenses);
-        List<CategoryTotalDTO> categoryTotals = calculateCategoryTotals(expenses);
+    private UserReportResponseDTO generateReportForUser(String userEmail, List<ExpenseSummary> expenses) {
+        ExpenseColumns columns = ExpenseColumns.of(expenses);
+
+        BigDecimal totalAmount = calculateTotalAmount(columns);
+        List<CategoryTotalDTO> categoryTotals = calculateCategoryTotals(columns);
         List<ExpenseDTO> expenseDTOs = mapToExpenseDTOs(expenses);
 
         return new UserReportResponseDTO(
-                user.getEmail(),
+                userEmail,
                 expenseDTOs,
                 totalAmount,
                 categoryTotals
         );
     }
 
-    public BigDecimal calculateTotalAmount(List<Expense> expenses) {
-        return expenses.stream()
-                .map(Expense::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    public BigDecimal calculateTotalAmount(ExpenseColumns columns) {
+        return columns.toAmount(ExpenseAggregates.sum(columns));
     }
 
-    public List<CategoryTotalDTO> calculateCategoryTotals(List<Expense> expenses) {
-        Map<String, BigDecimal> amountByCategory = expenses.stream()
-                .collect(Collectors.groupingBy(
-                        expense -> expense.getCategory().getName(),
-                        Collectors.mapping(
-                                Expense::getAmount,
-                                Collectors.reducing(BigDecimal.ZERO, BigDecimal::add)
-                        )));
-
-        return amountByCategory.entrySet()
-                .stream()
-                .map(entry -> new CategoryTotalDTO(entry.getKey(), entry.getValue()))
-                .collect(Collectors.toList());
+    public List<CategoryTotalDTO> calculateCategoryTotals(ExpenseColumns columns) {
+        ExpenseGroups groups = ExpenseAggregates.groupByCategory(columns);
+        List<CategoryTotalDTO> categoryTotals = new ArrayList<>(groups.groupCount());
+        for (int group = 0; group < groups.groupCount(); group++) {
+            categoryTotals.add(new CategoryTotalDTO(
+                    columns.categoryLabel(groups.key(group)),
+                    columns.toAmount(groups.sum(group))));
+        }
+        return categoryTotals;
     }
 
-    public List<ExpenseDTO> mapToExpenseDTOs(List<Expense> expenses) {
+    public List<ExpenseDTO> mapToExpenseDTOs(List<ExpenseSummary> expenses) {
         return expenses.stream()
                 .map(expense -> new ExpenseDTO(
                         expense.getId(),
@@ -0,0 +1,83 @@
+package com.example.aiexpensetracker.core.service.statistics;
+
+import com.example.aiexpensetracker.exception.statistics.InvalidStatisticsQueryException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Bucket sizes supported by the statistics series.
+ * Each granularity maps to a PostgreSQL date_trunc unit and truncates dates the same way in Java,
+ * so that empty buckets can be filled in between the ones returned by the database.
+ * Weeks start on Monday (ISO 8601), as they do for date_trunc.
+ */
+public enum StatisticsGranularity {
+    DAY("day"),
+    WEEK("week"),
+    MONTH("month"),
+    QUARTER("quarter"),
+    YEAR("year");
+
+    private final String unit;
+
+    StatisticsGranularity(String unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * @return the date_trunc unit of this granularity.
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * @param date a date.
+     * @return the first day of the bucket containing the date.
+     */
+    public LocalDate truncate(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+            case QUARTER -> date.with(IsoFields.DAY_OF_QUARTER, 1);
+            case YEAR -> date.withDayOfYear(1);
+        };
+    }
+
+    /**
+     * @param bucketStart the first day of a bucket.
+     * @return the first day of the following bucket.
+     */
+    public LocalDate next(LocalDate bucketStart) {
+        return switch (this) {
+            case DAY -> bucketStart.plusDays(1);
+            case WEEK -> bucketStart.plusWeeks(1);
+            case MONTH -> bucketStart.plusMonths(1);
+            case QUARTER -> bucketStart.plusMonths(3);
+            case YEAR -> bucketStart.plusYears(1);
+        };
+    }
+
+    /**
+     * Resolves a granularity from its request parameter value (case-insensitive).
+     *
+     * @param value the requested granularity, or null for the default (MONTH).
+     * @return the matching StatisticsGranularity.
+     * @throws InvalidStatisticsQueryException if the granularity is not supported.
+     */
+    public static StatisticsGranularity fromString(String value) {
+        if (value == null || value.isBlank()) {
+            return MONTH;
+        }
+        for (StatisticsGranularity granularity : values()) {
+            if (granularity.unit.equalsIgnoreCase(value.trim())) {
+                return granularity;
+            }
+        }
+        throw new InvalidStatisticsQueryException("granularity",
+                "Unsupported granularity '" + value + "'. Expected day, week, month, quarter or year.");
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.aiexpensetracker.core.service.statistics;
 
+import com.example.aiexpensetracker.exception.statistics.InvalidStatisticsQueryException;
 import com.example.aiexpensetracker.rest.dto.statistics.StatisticsResponseDTO;
+import com.example.aiexpensetracker.rest.dto.statistics.StatisticsSeriesDTO;
 
+import java.time.LocalDate;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -12,9 +15,42 @@ public interface StatisticsService {
 
     /**
      * Retrieves statistics for a user's expenses, including categorized and monthly breakdowns.
+     * The totals and counts are aggregated in the database from the user's monthly category rollups.
+     * The expenses of each group are only loaded when requested, since most callers only need the totals.
      *
-     * @param email the email of the user whose expense statistics are to be calculated.
+     * @param email           the email of the user whose expense statistics are to be calculated.
+     * @param includeExpenses whether each category and month should list its expenses; when false, the lists are null.
      * @return a CompletableFuture containing a StatisticsResponseDTO object with the user's categorized and monthly expense statistics.
      */
-    CompletableFuture<StatisticsResponseDTO> getStatisticsForUser(String email);
+    CompletableFuture<StatisticsResponseDTO> getStatisticsForUser(String email, boolean includeExpenses);
+
+    /**
+     * Retrieves a user's expense totals over a date range, bucketed by day, week, month, quarter or year.
+     * The buckets are computed in the database; buckets without expenses are included with zero totals,
+     * so that the series can be charted as it is.
+     *
+     * @param email       the email of the user.
+     * @param from        the first day of the range (inclusive).
+     * @param to          the last day of the range (inclusive).
+     * @param granularity the bucket size.
+     * @param categoryId  optional category to restrict the series to, or null for all expenses.
+     * @return a CompletableFuture containing the series with one bucket per period overlapping the range.
+     * @throws InvalidStatisticsQueryException if the range is missing, reversed or spans too many buckets.
+     */
+    CompletableFuture<StatisticsSeriesDTO> getStatisticsSeries(
+            String email,
+            LocalDate from,
+            LocalDate to,
+            StatisticsGranularity granularity,
+            Long categoryId
+    );
+
+    /**
+     * Rebuilds all expense rollups from the expenses table.
+     * Used to backfill the rollups after they were introduced and to repair them after manual data changes.
+     * Runs automatically on startup when the rollup table is empty but expenses exist.
+     *
+     * @return a CompletableFuture containing the number of rollups created.
+     */
+    CompletableFuture<Integer> rebuildRollups();
 }
@@ -1,16 +1,37 @@
 package com.example.aiexpensetracker.core.service.statistics;
 
-import com.example.aiexpensetracker.core.model.Expense;
+import com.example.aiexpensetracker.core.repository.expense.ExpensePeriodTotal;
+import com.example.aiexpensetracker.core.repository.expense.ExpenseSummary;
 import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.core.repository.rollup.ExpenseRollupRepository;
+import com.example.aiexpensetracker.core.repository.rollup.ExpenseRollupTotal;
+import com.example.aiexpensetracker.core.service.analytics.ExpenseAggregates;
+import com.example.aiexpensetracker.core.service.analytics.ExpenseColumns;
+import com.example.aiexpensetracker.core.service.analytics.ExpenseGroups;
+import com.example.aiexpensetracker.core.service.cache.UserViewCache;
+import com.example.aiexpensetracker.exception.statistics.InvalidStatisticsQueryException;
 import com.example.aiexpensetracker.rest.dto.statistics.CategoryStatisticsDTO;
 import com.example.aiexpensetracker.rest.dto.statistics.ExpenseDTO;
 import com.example.aiexpensetracker.rest.dto.statistics.MonthlyStatisticsDTO;
+import com.example.aiexpensetracker.rest.dto.statistics.StatisticsBucketDTO;
 import com.example.aiexpensetracker.rest.dto.statistics.StatisticsResponseDTO;
+import com.example.aiexpensetracker.rest.dto.statistics.StatisticsSeriesDTO;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -18,71 +39,208 @@ import java.util.stream.Collectors;
 @Service
 public class StatisticsServiceImpl implements StatisticsService {
 
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final int MAX_SERIES_BUCKETS = 1000;
+
     private final RepositoryManager repositoryManager;
+    private final UserViewCache userViewCache;
+
+    /**
+     * Reads the totals and the expense lists of one response from the same snapshot, so that a concurrent write
+     * cannot make them disagree, least of all in a response that is then cached.
+     */
+    private final TransactionTemplate snapshot;
 
-    public StatisticsServiceImpl(RepositoryManager repositoryManager) {
+    public StatisticsServiceImpl(
+            RepositoryManager repositoryManager,
+            UserViewCache userViewCache,
+            PlatformTransactionManager transactionManager
+    ) {
         this.repositoryManager = repositoryManager;
+        this.userViewCache = userViewCache;
+        this.snapshot = new TransactionTemplate(transactionManager);
+        this.snapshot.setReadOnly(true);
+        this.snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
     }
 
     @Async
     @Override
-    public CompletableFuture<StatisticsResponseDTO> getStatisticsForUser(String email) {
-        return CompletableFuture.supplyAsync(() -> {
-            List<Expense> expenses = repositoryManager.getExpenseRepository().findByUserEmail(email);
+    @Cacheable(cacheNames = UserViewCache.STATISTICS, keyGenerator = UserViewCache.KEY_GENERATOR)
+    public CompletableFuture<StatisticsResponseDTO> getStatisticsForUser(String email, boolean includeExpenses) {
+        return CompletableFuture.supplyAsync(() -> snapshot.execute(status -> {
+            ExpenseRollupRepository rollupRepository = repositoryManager.getExpenseRollupRepository();
+            List<ExpenseRollupTotal> categoryTotals = rollupRepository.sumByCategory(email);
+            List<ExpenseRollupTotal> monthlyTotals = rollupRepository.sumByMonth(email);
+
+            ExpenseColumns columns = null;
+            List<ExpenseDTO> expenses = null;
+            if (includeExpenses) {
+                List<ExpenseSummary> summaries = repositoryManager.getExpenseRepository().findSummariesByUserEmail(email);
+                columns = ExpenseColumns.of(summaries);
+                expenses = summaries.stream().map(this::mapToExpenseDTO).toList();
+            }
 
-            List<CategoryStatisticsDTO> categoryStatistics = calculateStatisticsByCategory(expenses);
-            List<MonthlyStatisticsDTO> monthlyStatistics = calculateStatisticsByMonth(expenses);
+            List<CategoryStatisticsDTO> categoryStatistics =
+                    calculateStatisticsByCategory(categoryTotals, columns, expenses);
+            List<MonthlyStatisticsDTO> monthlyStatistics =
+                    calculateStatisticsByMonth(monthlyTotals, columns, expenses);
 
             return new StatisticsResponseDTO(categoryStatistics, monthlyStatistics);
+        }));
+    }
+
+    @Async
+    @Override
+    public CompletableFuture<StatisticsSeriesDTO> getStatisticsSeries(
+            String email,
+            LocalDate from,
+            LocalDate to,
+            StatisticsGranularity granularity,
+            Long categoryId
+    ) {
+        return CompletableFuture.supplyAsync(() -> {
+            validateRange(from, to, granularity);
+
+            List<ExpensePeriodTotal> totals = repositoryManager.getExpenseRepository()
+                    .sumByPeriod(email, from, to.plusDays(1), granularity.getUnit(), categoryId);
+
+            // Both the totals and the buckets are ordered by start, so one pass fills the gaps.
+            List<StatisticsBucketDTO> buckets = new ArrayList<>();
+            Iterator<ExpensePeriodTotal> iterator = totals.iterator();
+            ExpensePeriodTotal total = iterator.hasNext() ? iterator.next() : null;
+            long count = 0;
+            BigDecimal totalAmount = BigDecimal.ZERO;
+            for (LocalDate start = granularity.truncate(from); !start.isAfter(to); start = granularity.next(start)) {
+                if (total != null && total.getPeriodStart().equals(start)) {
+                    buckets.add(new StatisticsBucketDTO(start, total.getExpenseCount(), total.getTotalAmount()));
+                    count += total.getExpenseCount();
+                    totalAmount = totalAmount.add(total.getTotalAmount());
+                    total = iterator.hasNext() ? iterator.next() : null;
+                } else {
+                    buckets.add(new StatisticsBucketDTO(start, 0, BigDecimal.ZERO));
+                }
+            }
+
+            return new StatisticsSeriesDTO(
+                    from, to, granularity.getUnit(), categoryId, count, totalAmount, buckets);
         });
     }
 
-    private List<CategoryStatisticsDTO> calculateStatisticsByCategory(List<Expense> expenses) {
-        return expenses.stream()
-                .collect(Collectors.groupingBy(expense -> expense.getCategory().getName()))
-                .entrySet()
-                .stream()
-                .map(entry -> {
-                    String categoryName = entry.getKey();
-                    List<Expense> categoryExpenses = entry.getValue();
-                    BigDecimal totalAmount = calculateTotalAmount(categoryExpenses);
-                    List<ExpenseDTO> expenseDTOs = mapToExpenseDTOs(categoryExpenses);
-                    return new CategoryStatisticsDTO(categoryName, totalAmount, expenseDTOs);
+    @Async
+    @Override
+    @Transactional
+    public CompletableFuture<Integer> rebuildRollups() {
+        return CompletableFuture.completedFuture(rebuild());
+    }
+
+    /**
+     * Backfills the rollups on startup when the table is empty but expenses exist,
+     * e.g. on the first start after the rollups were introduced.
+     */
+    @Async
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillRollups() {
+        if (repositoryManager.getExpenseRollupRepository().count() == 0
+                && repositoryManager.getExpenseRepository().count() > 0) {
+            rebuild();
+        }
+    }
+
+    private void validateRange(LocalDate from, LocalDate to, StatisticsGranularity granularity) {
+        if (from == null) {
+            throw new InvalidStatisticsQueryException("from", "The start date 'from' is required (yyyy-MM-dd).");
+        }
+        if (to == null) {
+            throw new InvalidStatisticsQueryException("to", "The end date 'to' is required (yyyy-MM-dd).");
+        }
+        if (to.isBefore(from)) {
+            throw new InvalidStatisticsQueryException("to", "The end date 'to' must not be before 'from'.");
+        }
+
+        LocalDate start = granularity.truncate(from);
+        for (int i = 0; i < MAX_SERIES_BUCKETS; i++) {
+            start = granularity.next(start);
+            if (start.isAfter(to)) {
+                return;
+            }
+        }
+        throw new InvalidStatisticsQueryException("granularity", "The range spans more than " + MAX_SERIES_BUCKETS
+                + " " + granularity.getUnit() + " buckets. Use a shorter range or a coarser granularity.");
+    }
+
+    private int rebuild() {
+        ExpenseRollupRepository rollupRepository = repositoryManager.getExpenseRollupRepository();
+        rollupRepository.lockForRebuild();
+        rollupRepository.deleteAllInBatch();
+        int count = rollupRepository.insertFromExpenses();
+        userViewCache.evictAll();
+        return count;
+    }
+
+    private List<CategoryStatisticsDTO> calculateStatisticsByCategory(
+            List<ExpenseRollupTotal> totals,
+            ExpenseColumns columns,
+            List<ExpenseDTO> expenses
+    ) {
+        ExpenseGroups groups = columns != null ? ExpenseAggregates.groupByCategory(columns) : null;
+
+        return totals.stream()
+                .map(total -> {
+                    String categoryName = categoryLabel(total.getCategoryName());
+                    return new CategoryStatisticsDTO(
+                            categoryName,
+                            total.getExpenseCount(),
+                            total.getTotalAmount(),
+                            groups != null
+                                    ? expensesOf(groups, groups.indexOf(columns.categoryOrdinal(categoryName)), expenses)
+                                    : null);
                 })
                 .collect(Collectors.toList());
     }
 
-    private List<MonthlyStatisticsDTO> calculateStatisticsByMonth(List<Expense> expenses) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM");
-
-        return expenses.stream()
-                .collect(Collectors.groupingBy(expense -> expense.getDate().format(formatter)))
-                .entrySet()
-                .stream()
-                .map(entry -> {
-                    String monthYear = entry.getKey();
-                    List<Expense> monthlyExpenses = entry.getValue();
-                    BigDecimal totalAmount = calculateTotalAmount(monthlyExpenses);
-                    List<ExpenseDTO> expenseDTOs = mapToExpenseDTOs(monthlyExpenses);
-                    return new MonthlyStatisticsDTO(monthYear, totalAmount, expenseDTOs);
-                })
+    private List<MonthlyStatisticsDTO> calculateStatisticsByMonth(
+            List<ExpenseRollupTotal> totals,
+            ExpenseColumns columns,
+            List<ExpenseDTO> expenses
+    ) {
+        ExpenseGroups groups = columns != null ? ExpenseAggregates.groupByMonth(columns) : null;
+
+        return totals.stream()
+                .map(total -> new MonthlyStatisticsDTO(
+                        YearMonth.from(total.getMonthStart()).format(MONTH_FORMATTER),
+                        total.getExpenseCount(),
+                        total.getTotalAmount(),
+                        groups != null
+                                ? expensesOf(groups, groups.indexOf(ExpenseColumns.epochMonth(total.getMonthStart())), expenses)
+                                : null))
                 .collect(Collectors.toList());
     }
 
-    private BigDecimal calculateTotalAmount(List<Expense> expenses) {
-        return expenses.stream()
-                .map(Expense::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * @return the expenses of a group in their original order, or an empty list if the group is -1.
+     */
+    private List<ExpenseDTO> expensesOf(ExpenseGroups groups, int group, List<ExpenseDTO> expenses) {
+        if (group < 0) {
+            return List.of();
+        }
+        List<ExpenseDTO> groupExpenses = new ArrayList<>(groups.count(group));
+        for (int i = 0; i < groups.count(group); i++) {
+            groupExpenses.add(expenses.get(groups.row(group, i)));
+        }
+        return groupExpenses;
     }
 
-    private List<ExpenseDTO> mapToExpenseDTOs(List<Expense> expenses) {
-        return expenses.stream()
-                .map(expense -> new ExpenseDTO(
-                        expense.getId(),
-                        expense.getAmount(),
-                        expense.getDate(),
-                        expense.getDescription()
-                ))
-                .collect(Collectors.toList());
+    private String categoryLabel(String categoryName) {
+        return categoryName != null ? categoryName : ExpenseColumns.UNCATEGORIZED;
+    }
+
+    private ExpenseDTO mapToExpenseDTO(ExpenseSummary expense) {
+        return new ExpenseDTO(
+                expense.getId(),
+                expense.getAmount(),
+                expense.getDate(),
+                expense.getDescription()
+        );
     }
 }
@@ -2,6 +2,7 @@ package com.example.aiexpensetracker.core.service.user;
 
 import com.example.aiexpensetracker.core.model.User;
 import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.core.service.cache.UserViewCache;
 import com.example.aiexpensetracker.exception.user.EmailAlreadyInUseException;
 import com.example.aiexpensetracker.exception.user.UserNotFoundException;
 import com.example.aiexpensetracker.rest.dto.user.CreateUserDTO;
@@ -10,6 +11,7 @@ import com.example.aiexpensetracker.rest.dto.user.UpdateUserDTO;
 import com.example.aiexpensetracker.rest.dto.user.UserResponseDTO;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -18,9 +20,11 @@ import java.util.concurrent.CompletableFuture;
 public class UserServiceImpl implements UserService {
 
     private final RepositoryManager repositoryManager;
+    private final UserViewCache userViewCache;
 
-    public UserServiceImpl(RepositoryManager repositoryManager) {
+    public UserServiceImpl(RepositoryManager repositoryManager, UserViewCache userViewCache) {
         this.repositoryManager = repositoryManager;
+        this.userViewCache = userViewCache;
     }
 
     @Async
@@ -60,6 +64,7 @@ public class UserServiceImpl implements UserService {
                     .getUserRepository()
                     .findById(id)
                     .orElseThrow(() -> new UserNotFoundException("User with ID " + id + " not found."));
+            String previousEmail = user.getEmail();
 
             user.setFirstName(updateUserDTO.getFirstName());
             user.setLastName(updateUserDTO.getLastName());
@@ -74,21 +79,29 @@ public class UserServiceImpl implements UserService {
             }
 
             User updatedUser = repositoryManager.getUserRepository().save(user);
+            if (!previousEmail.equals(updatedUser.getEmail())) {
+                // Views are cached by email: drop the old email's views and any empty ones cached for the new email.
+                userViewCache.evictUser(previousEmail);
+                userViewCache.evictUser(updatedUser.getEmail());
+            }
             return mapToResponseDTO(updatedUser);
         });
     }
 
     @Async
     @Override
+    @Transactional
     public CompletableFuture<Void> deleteUser(Long id) {
-        return CompletableFuture.runAsync(() -> {
-            User user = repositoryManager
-                    .getUserRepository()
-                    .findById(id)
-                    .orElseThrow(() -> new UserNotFoundException("User with ID " + id + " not found."));
-
-            repositoryManager.getUserRepository().delete(user);
-        });
+        User user = repositoryManager
+                .getUserRepository()
+                .findById(id)
+                .orElseThrow(() -> new UserNotFoundException("User with ID " + id + " not found."));
+
+        // The user's categories and their expenses are removed with the user, so are the rollups.
+        repositoryManager.getUserRepository().delete(user);
+        repositoryManager.getExpenseRollupRepository().deleteByUserId(id);
+        userViewCache.evictUser(user.getEmail());
+        return CompletableFuture.completedFuture(null);
     }
 
     @Async
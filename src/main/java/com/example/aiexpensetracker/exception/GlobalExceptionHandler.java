@@ -1,8 +1,15 @@
 package com.example.aiexpensetracker.exception;
 
 import com.example.aiexpensetracker.exception.category.CategoryNotFoundException;
+import com.example.aiexpensetracker.exception.expense.ExpenseImportException;
 import com.example.aiexpensetracker.exception.expense.ExpenseNotFoundException;
 import com.example.aiexpensetracker.exception.expense.ExpenseOwnershipException;
+import com.example.aiexpensetracker.exception.expense.InvalidExpenseCursorException;
+import com.example.aiexpensetracker.exception.expense.InvalidExpenseFilterException;
+import com.example.aiexpensetracker.exception.expense.InvalidExportFormatException;
+import com.example.aiexpensetracker.exception.report.InvalidReportPeriodException;
+import com.example.aiexpensetracker.exception.report.ReportJobNotFoundException;
+import com.example.aiexpensetracker.exception.statistics.InvalidStatisticsQueryException;
 import com.example.aiexpensetracker.exception.user.EmailAlreadyInUseException;
 import com.example.aiexpensetracker.exception.user.UserNotFoundException;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -27,6 +34,16 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
 
+    @ExceptionHandler(ReportJobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleReportJobNotFound(ReportJobNotFoundException ex) {
+        ErrorResponse response = new ErrorResponse(
+                HttpStatus.NOT_FOUND.value(),
+                "Report Job Not Found",
+                List.of(new ErrorResponse.ErrorDetail(null, ex.getMessage()))
+        );
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+
     @ExceptionHandler(CategoryNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleCategoryNotFound(CategoryNotFoundException ex) {
         ErrorResponse response = new ErrorResponse(
@@ -57,6 +74,66 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
     }
 
+    @ExceptionHandler(InvalidExpenseFilterException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidExpenseFilter(InvalidExpenseFilterException ex) {
+        ErrorResponse response = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                "Invalid Filter",
+                List.of(new ErrorResponse.ErrorDetail("filterValue", ex.getMessage()))
+        );
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    @ExceptionHandler(InvalidExpenseCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidExpenseCursor(InvalidExpenseCursorException ex) {
+        ErrorResponse response = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                "Invalid Cursor",
+                List.of(new ErrorResponse.ErrorDetail("cursor", ex.getMessage()))
+        );
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    @ExceptionHandler(InvalidExportFormatException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidExportFormat(InvalidExportFormatException ex) {
+        ErrorResponse response = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                "Invalid Format",
+                List.of(new ErrorResponse.ErrorDetail("format", ex.getMessage()))
+        );
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    @ExceptionHandler(InvalidReportPeriodException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidReportPeriod(InvalidReportPeriodException ex) {
+        ErrorResponse response = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                "Invalid Period",
+                List.of(new ErrorResponse.ErrorDetail("period", ex.getMessage()))
+        );
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    @ExceptionHandler(InvalidStatisticsQueryException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidStatisticsQuery(InvalidStatisticsQueryException ex) {
+        ErrorResponse response = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                "Invalid Query",
+                List.of(new ErrorResponse.ErrorDetail(ex.getField(), ex.getMessage()))
+        );
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    @ExceptionHandler(ExpenseImportException.class)
+    public ResponseEntity<ErrorResponse> handleExpenseImport(ExpenseImportException ex) {
+        ErrorResponse response = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                "Import Error",
+                ex.getDetails()
+        );
+        return ResponseEntity.badRequest().body(response);
+    }
+
     @ExceptionHandler(EmailAlreadyInUseException.class)
     public ResponseEntity<ErrorResponse> handleEmailAlreadyInUse(EmailAlreadyInUseException ex) {
         ErrorResponse response = new ErrorResponse(
@@ -0,0 +1,18 @@
+package com.example.aiexpensetracker.exception.expense;
+
+import com.example.aiexpensetracker.exception.ErrorResponse;
+
+import java.util.List;
+
+public class ExpenseImportException extends RuntimeException {
+    private final List<ErrorResponse.ErrorDetail> details;
+
+    public ExpenseImportException(String message, List<ErrorResponse.ErrorDetail> details) {
+        super(message);
+        this.details = details;
+    }
+
+    public List<ErrorResponse.ErrorDetail> getDetails() {
+        return details;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.aiexpensetracker.exception.expense;
+
+public class InvalidExpenseCursorException extends RuntimeException {
+    public InvalidExpenseCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.aiexpensetracker.exception.expense;
+
+public class InvalidExpenseFilterException extends RuntimeException {
+    public InvalidExpenseFilterException(String message) {
+        super(message);
+    }
+}
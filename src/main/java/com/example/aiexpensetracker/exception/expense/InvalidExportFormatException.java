@@ -0,0 +1,7 @@
+package com.example.aiexpensetracker.exception.expense;
+
+public class InvalidExportFormatException extends RuntimeException {
+    public InvalidExportFormatException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.aiexpensetracker.exception.mail;
+
+public class MailDeliveryException extends RuntimeException {
+    public MailDeliveryException(String message) {
+        super(message);
+    }
+}
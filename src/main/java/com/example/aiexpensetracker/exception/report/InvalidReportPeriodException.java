@@ -0,0 +1,7 @@
+package com.example.aiexpensetracker.exception.report;
+
+public class InvalidReportPeriodException extends RuntimeException {
+    public InvalidReportPeriodException(String message) {
+        super(message);
+    }
+}
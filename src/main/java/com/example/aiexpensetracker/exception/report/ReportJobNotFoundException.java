@@ -0,0 +1,7 @@
+package com.example.aiexpensetracker.exception.report;
+
+public class ReportJobNotFoundException extends RuntimeException {
+    public ReportJobNotFoundException(String message) {
+        super(message);
+    }
+}
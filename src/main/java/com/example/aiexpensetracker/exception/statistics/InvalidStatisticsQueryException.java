@@ -0,0 +1,14 @@
+package com.example.aiexpensetracker.exception.statistics;
+
+public class InvalidStatisticsQueryException extends RuntimeException {
+    private final String field;
+
+    public InvalidStatisticsQueryException(String field, String message) {
+        super(message);
+        this.field = field;
+    }
+
+    public String getField() {
+        return field;
+    }
+}
@@ -1,15 +1,22 @@
 package com.example.aiexpensetracker.rest.configuration.AsyncConfiguration;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.time.Duration;
 import java.util.concurrent.Executor;
 
 @Configuration
 @EnableAsync
-public class AsyncConfiguration {
+public class AsyncConfiguration implements WebMvcConfigurer {
+
+    @Value("${expense.export.timeout:PT10M}")
+    private Duration exportTimeout;
 
     @Bean(name = "taskExecutor")
     public Executor taskExecutor() {
@@ -21,4 +28,23 @@ public class AsyncConfiguration {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Trains the per-user category classifiers, away from the threads that serve suggestions.
+     */
+    @Bean(name = "classifierExecutor")
+    public Executor classifierExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("Classifier-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new StreamingTimeoutInterceptor(exportTimeout));
+    }
 }
@@ -0,0 +1,37 @@
+package com.example.aiexpensetracker.rest.configuration.AsyncConfiguration;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Gives the streamed body of a request marked with {@link #LONG_RUNNING_STREAM} a timeout of its own, so that
+ * long downloads can run for longer than the default async request timeout, which still applies to every
+ * other async endpoint. A StreamingResponseBody is written as a Callable, after the handler returned,
+ * so its timeout can only be set here, right before the Callable is started.
+ */
+public class StreamingTimeoutInterceptor implements CallableProcessingInterceptor {
+
+    /**
+     * Request attribute a handler sets to mark its streamed response as long-running.
+     */
+    public static final String LONG_RUNNING_STREAM = StreamingTimeoutInterceptor.class.getName() + ".LONG_RUNNING_STREAM";
+
+    private final Duration timeout;
+
+    public StreamingTimeoutInterceptor(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        if (request instanceof AsyncWebRequest asyncWebRequest
+                && Boolean.TRUE.equals(request.getAttribute(LONG_RUNNING_STREAM, RequestAttributes.SCOPE_REQUEST))) {
+            asyncWebRequest.setTimeout(timeout.toMillis());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.aiexpensetracker.rest.configuration.CacheConfiguration;
+
+import com.example.aiexpensetracker.core.service.cache.UserViewCache;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    /**
+     * Lets @Cacheable store the CompletableFuture results of the async services as they are.
+     * Concurrent misses for the same key share one computation, and failed futures are not cached.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> asyncCacheModeCustomizer() {
+        return cacheManager -> cacheManager.setAsyncCacheMode(true);
+    }
+
+    /**
+     * Keys the cached user views by the email and the 'includeExpenses' flag, which are the first two
+     * parameters of every view method, in the format that UserViewCache evicts.
+     */
+    @Bean(UserViewCache.KEY_GENERATOR)
+    public KeyGenerator userViewKeyGenerator() {
+        return (target, method, params) -> UserViewCache.key((String) params[0], (Boolean) params[1]);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.aiexpensetracker.rest.configuration.DatabaseConfiguration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+
+/**
+ * Moves 'expenses_seq' past the highest existing expense ID.
+ * Expense IDs used to come from an identity column, so on an existing database the sequence
+ * created by Hibernate would start below IDs that are already taken.
+ * <p>
+ * This is a one-off migration of PostgreSQL databases, and the project has no migration tool, so it runs once
+ * all beans are created, after Hibernate updated the schema and before the web server accepts requests; until it
+ * ran, new expenses could be given IDs that are already taken. It does nothing on other databases or while the
+ * sequence does not exist, and nothing once the sequence is ahead, so it is safe to run on every start and on
+ * several nodes at once. A failure stops the startup.
+ */
+@Component
+public class ExpenseSequenceAligner implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpenseSequenceAligner.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExpenseSequenceAligner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        String database;
+        try {
+            database = JdbcUtils.extractDatabaseMetaData(
+                    jdbcTemplate.getDataSource(), DatabaseMetaData::getDatabaseProductName);
+        } catch (MetaDataAccessException ex) {
+            throw new IllegalStateException("Could not tell the database to align 'expenses_seq' on", ex);
+        }
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT to_regclass('expenses_seq') IS NOT NULL", Boolean.class);
+        if (!Boolean.TRUE.equals(exists)) {
+            log.debug("Not aligning 'expenses_seq', it does not exist yet");
+            return;
+        }
+        boolean aligned = !jdbcTemplate.queryForList("""
+                SELECT setval('expenses_seq', (SELECT MAX(id) FROM expenses) + 50)
+                WHERE (SELECT MAX(id) FROM expenses) > (SELECT last_value FROM expenses_seq)
+                """).isEmpty();
+        if (aligned) {
+            log.info("Moved 'expenses_seq' past the highest expense ID");
+        }
+    }
+}
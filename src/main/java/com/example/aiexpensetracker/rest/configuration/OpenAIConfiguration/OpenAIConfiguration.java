@@ -1,25 +1,83 @@
 package com.example.aiexpensetracker.rest.configuration.OpenAIConfiguration;
 
+import com.example.aiexpensetracker.api.impl.openai.CircuitBreaker;
 import com.example.aiexpensetracker.api.impl.openai.OpenAIService;
+import com.example.aiexpensetracker.api.impl.openai.ResilientAIService;
 import com.example.aiexpensetracker.core.api.aiservice.AIService;
 import com.theokanning.openai.service.OpenAiService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class OpenAIConfiguration {
     @Value("${openai.secret}")
     private String apiSecret;
 
+    @Value("${openai.timeout:PT10S}")
+    private Duration timeout;
+
+    @Value("${openai.bulkhead.max-concurrent-calls:4}")
+    private int maxConcurrentCalls;
+
+    @Value("${openai.bulkhead.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${openai.circuit-breaker.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${openai.circuit-breaker.window-size:20}")
+    private int windowSize;
+
+    @Value("${openai.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${openai.circuit-breaker.open-duration:PT30S}")
+    private Duration openDuration;
+
+    @Value("${openai.circuit-breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
     @Bean
-    public AIService aiService() {
-        return new OpenAIService(this.openAiService());
+    public AIService aiService(MeterRegistry meterRegistry) {
+        ThreadPoolExecutor bulkhead = openAiExecutor();
+        return new ResilientAIService(
+                new OpenAIService(this.openAiService(), bulkhead),
+                bulkhead,
+                new CircuitBreaker(failureRateThreshold, windowSize, minimumCalls, openDuration, halfOpenCalls),
+                timeout,
+                meterRegistry
+        );
     }
 
     @Bean
     public OpenAiService openAiService() {
-        return new OpenAiService(this.apiSecret);
+        // The HTTP client gives up when the caller does, so a timed out call does not keep holding a bulkhead thread.
+        return new OpenAiService(this.apiSecret, timeout);
     }
-}
 
+    /**
+     * The bulkhead: the only threads that wait on OpenAI, with a bounded queue in front of them.
+     * A call that finds the queue full is refused rather than queued.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor openAiExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                maxConcurrentCalls,
+                maxConcurrentCalls,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("OpenAI-"),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
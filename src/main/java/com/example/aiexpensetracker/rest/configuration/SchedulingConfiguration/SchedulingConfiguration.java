@@ -0,0 +1,9 @@
+package com.example.aiexpensetracker.rest.configuration.SchedulingConfiguration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
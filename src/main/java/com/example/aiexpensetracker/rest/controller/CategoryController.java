@@ -48,15 +48,34 @@ public class CategoryController {
      *
      * @param description the description of the expense or item to categorize.
      * @param email       the email of the user requesting the category suggestion.
+     * @param debounce    whether a newer debounced suggestion of the user may supersede this one, e.g. while the user types.
      * @return a CompletableFuture containing a ResponseEntity with a CategorySuggestionResponseDTO.
      */
     @PostMapping("/user/suggest/{email}")
     public CompletableFuture<ResponseEntity<CategorySuggestionResponseDTO>> suggestCategory(
             @RequestParam String description,
+            @PathVariable String email,
+            @RequestParam(defaultValue = "false") boolean debounce
+    ) {
+        return serviceManager.getCategoryService()
+                .suggestCategory(description, email, debounce)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Suggests a category for each of several descriptions at once.
+     *
+     * @param batchCategorySuggestionDTO the BatchCategorySuggestionDTO containing the descriptions.
+     * @param email                      the email of the user requesting the category suggestions.
+     * @return a CompletableFuture containing a ResponseEntity with one CategorySuggestionResponseDTO per description, in the same order.
+     */
+    @PostMapping("/user/suggest/{email}/batch")
+    public CompletableFuture<ResponseEntity<List<CategorySuggestionResponseDTO>>> suggestCategories(
+            @Valid @RequestBody BatchCategorySuggestionDTO batchCategorySuggestionDTO,
             @PathVariable String email
     ) {
         return serviceManager.getCategoryService()
-                .suggestCategory(description, email)
+                .suggestCategories(batchCategorySuggestionDTO.getDescriptions(), email)
                 .thenApply(ResponseEntity::ok);
     }
 
@@ -1,14 +1,26 @@
 package com.example.aiexpensetracker.rest.controller;
 
+import com.example.aiexpensetracker.core.service.expense.ExpenseExportFormat;
 import com.example.aiexpensetracker.core.service.manager.ServiceManager;
+import com.example.aiexpensetracker.exception.user.UserNotFoundException;
 import com.example.aiexpensetracker.rest.dto.expense.CreateExpenseDTO;
+import com.example.aiexpensetracker.rest.dto.expense.ExpenseImportResultDTO;
+import com.example.aiexpensetracker.rest.dto.expense.ExpensePageDTO;
 import com.example.aiexpensetracker.rest.dto.expense.ExpenseResponseDTO;
 import com.example.aiexpensetracker.rest.dto.expense.ExpensesByCategoryDTO;
 import com.example.aiexpensetracker.rest.dto.expense.UpdateExpenseDTO;
+import com.example.aiexpensetracker.rest.configuration.AsyncConfiguration.StreamingTimeoutInterceptor;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -34,9 +46,11 @@ public class ExpenseController {
     /**
      * Retrieves all expenses associated with a specific user.
      *
-     * @param email     the email of the user whose expenses are to be retrieved.
-     * @param sortBy    optional parameter to specify the field to sort by (e.g., "amount" or "date").
-     * @param direction optional parameter to specify the sorting direction ("asc" or "desc").
+     * @param email        the email of the user whose expenses are to be retrieved.
+     * @param sortBy       optional parameter to specify the field to sort by (e.g., "amount" or "date").
+     * @param direction    optional parameter to specify the sorting direction ("asc" or "desc").
+     * @param filterColumn optional parameter to specify the column to filter on.
+     * @param filterValue  optional filter value; amounts and dates accept ranges such as "10..50" or "2025-01..2025-03".
      * @return a CompletableFuture containing a ResponseEntity with a list of ExpenseResponseDTO objects.
      */
     @GetMapping("/user/{email}")
@@ -53,18 +67,89 @@ public class ExpenseController {
     }
 
     /**
-     * Retrieves all expenses for a given user grouped by category.
+     * Retrieves one page of a user's expenses using cursor-based pagination.
+     * Pass the "next" cursor of a response to fetch the following page; it is null on the last page.
      *
-     * @param email the user's email
+     * @param email        the email of the user whose expenses are to be retrieved.
+     * @param sortBy       optional parameter to specify the field to sort by ("amount" or "date").
+     * @param direction    optional parameter to specify the sorting direction ("asc" or "desc").
+     * @param filterColumn optional parameter to specify the column to filter on.
+     * @param filterValue  optional filter value, with the same syntax as the unpaged listing.
+     * @param cursor       optional cursor returned with the previous page.
+     * @param limit        optional maximum number of expenses per page (default 50, maximum 500).
+     * @return a CompletableFuture containing a ResponseEntity with an ExpensePageDTO.
+     */
+    @GetMapping("/user/{email}/page")
+    public CompletableFuture<ResponseEntity<ExpensePageDTO>> getExpensesPageByUser(
+            @PathVariable String email,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) String filterColumn,
+            @RequestParam(required = false) String filterValue,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return serviceManager.getExpenseService()
+                .getExpensesPageByUser(email, sortBy, direction, filterColumn, filterValue, cursor, limit)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Exports the full expense history of a user as NDJSON or CSV.
+     * The response is streamed while expenses are read from the database, so large histories
+     * are sent in constant memory and the first rows arrive immediately. The stream may run for up to the
+     * export timeout rather than the default async request timeout.
+     *
+     * @param email   the email of the user whose expenses are to be exported.
+     * @param format  optional export format, "ndjson" (default) or "csv".
+     * @param request the current request, marked as a long-running stream.
+     * @return a CompletableFuture containing a ResponseEntity with the streamed export as an attachment.
+     */
+    @GetMapping("/user/{email}/export")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> exportExpenses(
+            @PathVariable String email,
+            @RequestParam(required = false) String format,
+            HttpServletRequest request
+    ) {
+        ExpenseExportFormat exportFormat = ExpenseExportFormat.fromString(format);
+        request.setAttribute(StreamingTimeoutInterceptor.LONG_RUNNING_STREAM, true);
+
+        return serviceManager.getUserService()
+                .getUserByEmail(email)
+                .thenApply(user -> {
+                    user.orElseThrow(() -> new UserNotFoundException("User with email " + email + " not found."));
+
+                    StreamingResponseBody body = outputStream -> serviceManager.getExpenseService()
+                            .exportExpenses(email, exportFormat, outputStream);
+                    ContentDisposition disposition = ContentDisposition.attachment()
+                            .filename("expenses." + exportFormat.getFileExtension())
+                            .build();
+
+                    return ResponseEntity.ok()
+                            .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                            .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                            .body(body);
+                });
+    }
+
+    /**
+     * Retrieves all expenses for a given user grouped by category, with the count and total of each category.
+     * The response carries an ETag; a request with a matching If-None-Match header gets 304 Not Modified.
+     *
+     * @param email           the user's email
+     * @param includeExpenses optional flag; set to false to return only the counts and totals per category.
+     * @param ifNoneMatch     optional ETag of a response the client already has.
      * @return a CompletableFuture containing a ResponseEntity with a list of ExpensesByCategoryDTO objects.
      */
     @GetMapping("/user/{email}/by-category")
     public CompletableFuture<ResponseEntity<List<ExpensesByCategoryDTO>>> getExpensesByCategory(
-            @PathVariable String email
+            @PathVariable String email,
+            @RequestParam(defaultValue = "true") boolean includeExpenses,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
         return serviceManager.getExpenseService()
-                .getExpensesGroupedByCategory(email)
-                .thenApply(ResponseEntity::ok);
+                .getExpensesGroupedByCategory(email, includeExpenses)
+                .thenApply(groups -> ResponseETags.okOrNotModified(groups, ifNoneMatch));
     }
 
     /**
@@ -84,6 +169,43 @@ public class ExpenseController {
                 .thenApply(created -> ResponseEntity.status(201).body(created));
     }
 
+    /**
+     * Imports a JSON array of expenses for a specific user in a single batched transaction.
+     * Nothing is imported if any row is invalid; the response then lists the errors of every invalid row.
+     *
+     * @param email    the email of the user for whom the expenses are imported.
+     * @param expenses the expenses to import.
+     * @return a CompletableFuture containing a ResponseEntity with the ExpenseImportResultDTO and HTTP status 201 (Created).
+     */
+    @PostMapping(value = "/user/{email}/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<ExpenseImportResultDTO>> importExpenses(
+            @PathVariable String email,
+            @RequestBody List<CreateExpenseDTO> expenses
+    ) {
+        return serviceManager.getExpenseService()
+                .importExpenses(email, expenses)
+                .thenApply(result -> ResponseEntity.status(201).body(result));
+    }
+
+    /**
+     * Imports expenses from an uploaded CSV file for a specific user in a single batched transaction.
+     * The file needs a header line with the columns "date" and "amount"; "description" and "categoryId" are optional.
+     *
+     * @param email the email of the user for whom the expenses are imported.
+     * @param file  the uploaded CSV file.
+     * @return a CompletableFuture containing a ResponseEntity with the ExpenseImportResultDTO and HTTP status 201 (Created).
+     * @throws IOException if the uploaded file cannot be read.
+     */
+    @PostMapping(value = "/user/{email}/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CompletableFuture<ResponseEntity<ExpenseImportResultDTO>> importExpensesFromCsv(
+            @PathVariable String email,
+            @RequestParam("file") MultipartFile file
+    ) throws IOException {
+        return serviceManager.getExpenseService()
+                .importExpensesFromCsv(email, file.getInputStream())
+                .thenApply(result -> ResponseEntity.status(201).body(result));
+    }
+
     /**
      * Updates an existing expense for a specific user.
      *
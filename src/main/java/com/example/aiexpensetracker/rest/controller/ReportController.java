@@ -1,50 +1,93 @@
 package com.example.aiexpensetracker.rest.controller;
 
-import com.example.aiexpensetracker.core.api.mailsender.MailSender;
+import com.example.aiexpensetracker.core.model.ReportPeriod;
 import com.example.aiexpensetracker.core.service.manager.ServiceManager;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDate;
-import java.time.YearMonth;
+import java.net.URI;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * REST controller for generating and sending reports in the AI Expense Tracker application.
- * Provides endpoints to generate and send both monthly and weekly reports via email.
+ * Report runs are background jobs: starting one returns 202 (Accepted) with the job right away,
+ * and its progress can be followed until every report is generated and its email sent.
  */
 @RestController
 @RequestMapping("/api/reports")
 public class ReportController {
 
     private final ServiceManager serviceManager;
-    private final MailSender mailSender;
 
     @Value("${api.key}")
     private String apiKey;
 
     /**
-     * Constructs a new ReportController with the provided ServiceManager and MailSender.
+     * Constructs a new ReportController with the provided ServiceManager.
      *
      * @param serviceManager the ServiceManager instance that provides access to various services.
-     * @param mailSender     the MailSender instance responsible for sending emails.
      */
-    public ReportController(ServiceManager serviceManager, MailSender mailSender) {
+    public ReportController(ServiceManager serviceManager) {
         this.serviceManager = serviceManager;
-        this.mailSender = mailSender;
     }
 
     /**
-     * Generates and sends monthly reports for all users.
+     * Starts a job that generates and sends the reports of all users for a period.
      * Requires a valid API key provided in the request header.
      *
      * @param providedApiKey the API key provided in the "X-API-KEY" header.
-     * @return a CompletableFuture containing a ResponseEntity with a success message or an error message.
+     * @param period         the period to report on: monthly (the previous month) or weekly (the last seven days).
+     * @return a CompletableFuture containing a ResponseEntity with the started ReportJobDTO, its location,
+     * and HTTP status 202 (Accepted), or an error message.
+     */
+    @PostMapping("/jobs")
+    public CompletableFuture<ResponseEntity<?>> startReportJob(
+            @RequestHeader("X-API-KEY") String providedApiKey,
+            @RequestParam String period
+    ) {
+        if (!isValidApiKey(providedApiKey)) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.FORBIDDEN).body("Invalid API Key"));
+        }
+
+        return startJob(ReportPeriod.fromString(period));
+    }
+
+    /**
+     * Retrieves a report job and its progress.
+     * Requires a valid API key provided in the request header.
+     *
+     * @param providedApiKey the API key provided in the "X-API-KEY" header.
+     * @param jobId          the ID of the job.
+     * @return a CompletableFuture containing a ResponseEntity with the ReportJobDTO, or an error message.
+     */
+    @GetMapping("/jobs/{jobId}")
+    public CompletableFuture<ResponseEntity<?>> getReportJob(
+            @RequestHeader("X-API-KEY") String providedApiKey,
+            @PathVariable Long jobId
+    ) {
+        if (!isValidApiKey(providedApiKey)) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.FORBIDDEN).body("Invalid API Key"));
+        }
+
+        return serviceManager.getReportJobService()
+                .getJob(jobId)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Starts a job that generates and sends monthly reports for all users.
+     * Requires a valid API key provided in the request header.
+     *
+     * @param providedApiKey the API key provided in the "X-API-KEY" header.
+     * @return a CompletableFuture containing a ResponseEntity with the started ReportJobDTO and HTTP status
+     * 202 (Accepted), or an error message.
      */
     @GetMapping("/monthly")
-    public CompletableFuture<ResponseEntity<String>> generateAndSendMonthlyReports(
+    public CompletableFuture<ResponseEntity<?>> generateAndSendMonthlyReports(
             @RequestHeader("X-API-KEY") String providedApiKey
     ) {
         if (!isValidApiKey(providedApiKey)) {
@@ -52,22 +95,19 @@ public class ReportController {
                     ResponseEntity.status(HttpStatus.FORBIDDEN).body("Invalid API Key"));
         }
 
-        YearMonth lastMonth = YearMonth.now().minusMonths(1);
-        LocalDate startDate = lastMonth.atDay(1);
-        LocalDate endDate = lastMonth.atEndOfMonth();
-
-        return generateAndSendReports(startDate, endDate, "Monthly reports generated and emails sent successfully.");
+        return startJob(ReportPeriod.MONTHLY);
     }
 
     /**
-     * Generates and sends weekly reports for all users.
+     * Starts a job that generates and sends weekly reports for all users.
      * Requires a valid API key provided in the request header.
      *
      * @param providedApiKey the API key provided in the "X-API-KEY" header.
-     * @return a CompletableFuture containing a ResponseEntity with a success message or an error message.
+     * @return a CompletableFuture containing a ResponseEntity with the started ReportJobDTO and HTTP status
+     * 202 (Accepted), or an error message.
      */
     @GetMapping("/weekly")
-    public CompletableFuture<ResponseEntity<String>> generateAndSendWeeklyReports(
+    public CompletableFuture<ResponseEntity<?>> generateAndSendWeeklyReports(
             @RequestHeader("X-API-KEY") String providedApiKey
     ) {
         if (!isValidApiKey(providedApiKey)) {
@@ -75,10 +115,7 @@ public class ReportController {
                     ResponseEntity.status(HttpStatus.FORBIDDEN).body("Invalid API Key"));
         }
 
-        LocalDate endDate = LocalDate.now();
-        LocalDate startDate = endDate.minusDays(6);
-
-        return generateAndSendReports(startDate, endDate, "Weekly reports generated and emails sent successfully.");
+        return startJob(ReportPeriod.WEEKLY);
     }
 
     /**
@@ -92,28 +129,16 @@ public class ReportController {
     }
 
     /**
-     * Generates reports for all users within the specified date range and sends them via email.
+     * Starts a report job for the period and answers with the job as soon as it is running.
      *
-     * @param startDate     the start date of the report period.
-     * @param endDate       the end date of the report period.
-     * @param successMessage the success message to return if the emails are sent successfully.
-     * @return a CompletableFuture containing a ResponseEntity with a success message or an error message.
+     * @param period the period to report on.
+     * @return a CompletableFuture containing a ResponseEntity with the started job and its location.
      */
-    private CompletableFuture<ResponseEntity<String>> generateAndSendReports(
-            LocalDate startDate,
-            LocalDate endDate,
-            String successMessage
-    ) {
-        return serviceManager.getReportService()
-                .generateReportsForAllUsers(startDate, endDate)
-                .thenApply(reports -> {
-                    try {
-                        mailSender.sendEmails(reports);
-                        return ResponseEntity.ok(successMessage);
-                    } catch (Exception e) {
-                        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                                .body("Failed to send emails: " + e.getMessage());
-                    }
-                });
+    private CompletableFuture<ResponseEntity<?>> startJob(ReportPeriod period) {
+        return serviceManager.getReportJobService()
+                .startJob(period)
+                .thenApply(job -> ResponseEntity.accepted()
+                        .location(URI.create("/api/reports/jobs/" + job.getId()))
+                        .body(job));
     }
 }
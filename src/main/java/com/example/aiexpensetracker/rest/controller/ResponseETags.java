@@ -0,0 +1,64 @@
+package com.example.aiexpensetracker.rest.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Builds conditional responses with strong ETags for the read endpoints that clients poll.
+ * The ETag is a hash of the JSON form of the body, so it changes exactly when the content changes,
+ * and a request whose If-None-Match header matches it gets an empty 304 response instead of the body.
+ */
+final class ResponseETags {
+
+    private static final ObjectMapper OBJECT_MAPPER = JsonMapper.builder().findAndAddModules().build();
+
+    private ResponseETags() {}
+
+    /**
+     * @param body        the response body.
+     * @param ifNoneMatch the value of the request's If-None-Match header, or null if absent.
+     * @return a 200 response with the body and its ETag, or a 304 response if the client already has it.
+     */
+    static <T> ResponseEntity<T> okOrNotModified(T body, String ifNoneMatch) {
+        String eTag = eTagOf(body);
+        if (matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(body);
+    }
+
+    static String eTagOf(Object body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(OBJECT_MAPPER.writeValueAsBytes(body));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Could not compute the ETag of the response.", ex);
+        }
+    }
+
+    /**
+     * If-None-Match uses the weak comparison, so a weak validator (W/"...") matches too.
+     */
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
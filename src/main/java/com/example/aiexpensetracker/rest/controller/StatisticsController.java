@@ -1,15 +1,23 @@
 package com.example.aiexpensetracker.rest.controller;
 
 import com.example.aiexpensetracker.core.service.manager.ServiceManager;
+import com.example.aiexpensetracker.core.service.statistics.StatisticsGranularity;
 import com.example.aiexpensetracker.rest.dto.statistics.StatisticsResponseDTO;
+import com.example.aiexpensetracker.rest.dto.statistics.StatisticsSeriesDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * REST controller for handling user statistics in the AI Expense Tracker application.
- * Provides an endpoint to retrieve detailed statistics for a specific user.
+ * Provides endpoints to retrieve detailed statistics and time-bucketed series for a specific user, with ETag support
+ * for polling clients, and an API-key protected endpoint to rebuild the expense rollups the statistics are computed from.
  */
 @RestController
 @RequestMapping("/api/statistics")
@@ -17,6 +25,9 @@ public class StatisticsController {
 
     private final ServiceManager serviceManager;
 
+    @Value("${api.key}")
+    private String apiKey;
+
     /**
      * Constructs a new StatisticsController with the provided ServiceManager.
      *
@@ -29,15 +40,71 @@ public class StatisticsController {
     /**
      * Retrieves statistical data for a specific user.
      *
-     * @param email the email address of the user whose statistics are to be retrieved.
-     * @return a CompletableFuture containing a ResponseEntity with the user's statistics in a StatisticsResponseDTO.
+     * @param email           the email address of the user whose statistics are to be retrieved.
+     * @param includeExpenses whether each category and month should embed its expenses (default true);
+     *                        pass false for the totals and counts only.
+     * @param ifNoneMatch     optional ETag of a response the client already has.
+     * @return a CompletableFuture containing a ResponseEntity with the user's statistics in a StatisticsResponseDTO,
+     *         or 304 Not Modified if the statistics still match the ETag in the If-None-Match header.
      */
     @GetMapping("/user/{email}")
     public CompletableFuture<ResponseEntity<StatisticsResponseDTO>> getStatistics(
-            @PathVariable("email") String email
+            @PathVariable("email") String email,
+            @RequestParam(defaultValue = "true") boolean includeExpenses,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
         return serviceManager.getStatisticsService()
-                .getStatisticsForUser(email)
-                .thenApply(ResponseEntity::ok);
+                .getStatisticsForUser(email, includeExpenses)
+                .thenApply(statistics -> ResponseETags.okOrNotModified(statistics, ifNoneMatch));
+    }
+
+    /**
+     * Retrieves a user's expense totals over a date range, bucketed by the requested granularity.
+     * Buckets are computed in the database and include empty periods, e.g. "last 30 days" by day
+     * or "this year" by week. The response carries an ETag like the statistics endpoint.
+     *
+     * @param email       the email address of the user.
+     * @param from        the first day of the range (yyyy-MM-dd, inclusive).
+     * @param to          the last day of the range (yyyy-MM-dd, inclusive).
+     * @param granularity optional bucket size: day, week, month (default), quarter or year.
+     * @param category    optional category ID to restrict the series to.
+     * @param ifNoneMatch optional ETag of a response the client already has.
+     * @return a CompletableFuture containing a ResponseEntity with the series in a StatisticsSeriesDTO.
+     */
+    @GetMapping("/user/{email}/series")
+    public CompletableFuture<ResponseEntity<StatisticsSeriesDTO>> getStatisticsSeries(
+            @PathVariable("email") String email,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String granularity,
+            @RequestParam(required = false) Long category,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        StatisticsGranularity bucketSize = StatisticsGranularity.fromString(granularity);
+
+        return serviceManager.getStatisticsService()
+                .getStatisticsSeries(email, from, to, bucketSize, category)
+                .thenApply(series -> ResponseETags.okOrNotModified(series, ifNoneMatch));
+    }
+
+    /**
+     * Rebuilds the monthly category rollups behind the statistics totals from the expenses table.
+     * Requires a valid API key provided in the request header.
+     *
+     * @param providedApiKey the API key provided in the "X-API-KEY" header.
+     * @return a CompletableFuture containing a ResponseEntity with the number of rebuilt rollups or an error message.
+     */
+    @PostMapping("/rollups/rebuild")
+    public CompletableFuture<ResponseEntity<String>> rebuildRollups(
+            @RequestHeader("X-API-KEY") String providedApiKey
+    ) {
+        if (!apiKey.equals(providedApiKey)) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.FORBIDDEN).body("Invalid API Key"));
+        }
+
+        return serviceManager.getStatisticsService()
+                .rebuildRollups()
+                .thenApply(count -> ResponseEntity.ok("Rebuilt " + count + " expense rollups."));
     }
 }
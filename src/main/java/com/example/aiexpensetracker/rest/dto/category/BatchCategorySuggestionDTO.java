@@ -0,0 +1,23 @@
+package com.example.aiexpensetracker.rest.dto.category;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BatchCategorySuggestionDTO {
+    public static final int MAX_DESCRIPTIONS = 100;
+
+    @NotEmpty(message = "Descriptions cannot be empty")
+    @Size(max = MAX_DESCRIPTIONS, message = "At most " + MAX_DESCRIPTIONS + " descriptions can be suggested at once")
+    private List<@NotBlank(message = "Description cannot be empty") String> descriptions;
+
+    // getters & setters
+    public List<String> getDescriptions() {
+        return descriptions;
+    }
+    public void setDescriptions(List<String> descriptions) {
+        this.descriptions = descriptions;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.aiexpensetracker.rest.dto.expense;
+
+public class ExpenseImportResultDTO {
+    private int importedCount;
+
+    public ExpenseImportResultDTO() {}
+
+    public ExpenseImportResultDTO(int importedCount) {
+        this.importedCount = importedCount;
+    }
+
+    public int getImportedCount() {
+        return importedCount;
+    }
+
+    public void setImportedCount(int importedCount) {
+        this.importedCount = importedCount;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.aiexpensetracker.rest.dto.expense;
+
+import java.util.List;
+
+public class ExpensePageDTO {
+    private List<ExpenseResponseDTO> expenses;
+    private String next;
+
+    public ExpensePageDTO() {}
+
+    public ExpensePageDTO(List<ExpenseResponseDTO> expenses, String next) {
+        this.expenses = expenses;
+        this.next = next;
+    }
+
+    public List<ExpenseResponseDTO> getExpenses() {
+        return expenses;
+    }
+
+    public void setExpenses(List<ExpenseResponseDTO> expenses) {
+        this.expenses = expenses;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+}
@@ -15,6 +15,28 @@ public class ExpenseResponseDTO {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    public ExpenseResponseDTO() {}
+
+    public ExpenseResponseDTO(
+            Long id,
+            BigDecimal amount,
+            LocalDate date,
+            String description,
+            Long categoryId,
+            Long userId,
+            LocalDateTime createdAt,
+            LocalDateTime updatedAt
+    ) {
+        this.id = id;
+        this.amount = amount;
+        this.date = date;
+        this.description = description;
+        this.categoryId = categoryId;
+        this.userId = userId;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
     public Long getId() {
         return id;
     }
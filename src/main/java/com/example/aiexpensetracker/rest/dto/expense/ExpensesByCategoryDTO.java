@@ -1,9 +1,12 @@
 package com.example.aiexpensetracker.rest.dto.expense;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 public class ExpensesByCategoryDTO {
     private String category;
+    private long count;
+    private BigDecimal totalAmount;
     private List<ExpenseResponseDTO> expenses;
 
     public ExpensesByCategoryDTO() {}
@@ -13,6 +16,12 @@ public class ExpensesByCategoryDTO {
         this.expenses = expenses;
     }
 
+    public ExpensesByCategoryDTO(String category, Long count, BigDecimal totalAmount) {
+        this.category = category;
+        this.count = count;
+        this.totalAmount = totalAmount;
+    }
+
     public String getCategory() {
         return category;
     }
@@ -21,6 +30,22 @@ public class ExpensesByCategoryDTO {
         this.category = category;
     }
 
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
     public List<ExpenseResponseDTO> getExpenses() {
         return expenses;
     }
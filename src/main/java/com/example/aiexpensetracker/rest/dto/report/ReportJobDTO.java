@@ -0,0 +1,181 @@
+package com.example.aiexpensetracker.rest.dto.report;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class ReportJobDTO {
+    private Long id;
+    private String period;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String status;
+    private long totalUsers;
+    private long reportsSent;
+    private long failures;
+    private long emailsPending;
+    private long emailsSent;
+    private long emailsDead;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String errorMessage;
+
+    // Constructor
+    public ReportJobDTO(
+            Long id,
+            String period,
+            LocalDate startDate,
+            LocalDate endDate,
+            String status,
+            long totalUsers,
+            long reportsSent,
+            long failures,
+            long emailsPending,
+            long emailsSent,
+            long emailsDead,
+            LocalDateTime createdAt,
+            LocalDateTime startedAt,
+            LocalDateTime finishedAt,
+            String errorMessage
+    ) {
+        this.id = id;
+        this.period = period;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.status = status;
+        this.totalUsers = totalUsers;
+        this.reportsSent = reportsSent;
+        this.failures = failures;
+        this.emailsPending = emailsPending;
+        this.emailsSent = emailsSent;
+        this.emailsDead = emailsDead;
+        this.createdAt = createdAt;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.errorMessage = errorMessage;
+    }
+
+    // Default Constructor
+    public ReportJobDTO() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getTotalUsers() {
+        return totalUsers;
+    }
+
+    public void setTotalUsers(long totalUsers) {
+        this.totalUsers = totalUsers;
+    }
+
+    public long getReportsSent() {
+        return reportsSent;
+    }
+
+    public void setReportsSent(long reportsSent) {
+        this.reportsSent = reportsSent;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public void setFailures(long failures) {
+        this.failures = failures;
+    }
+
+    public long getEmailsPending() {
+        return emailsPending;
+    }
+
+    public void setEmailsPending(long emailsPending) {
+        this.emailsPending = emailsPending;
+    }
+
+    public long getEmailsSent() {
+        return emailsSent;
+    }
+
+    public void setEmailsSent(long emailsSent) {
+        this.emailsSent = emailsSent;
+    }
+
+    public long getEmailsDead() {
+        return emailsDead;
+    }
+
+    public void setEmailsDead(long emailsDead) {
+        this.emailsDead = emailsDead;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+}
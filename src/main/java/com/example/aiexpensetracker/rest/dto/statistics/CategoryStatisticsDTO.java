@@ -7,6 +7,7 @@ import java.util.List;
 
 public class CategoryStatisticsDTO {
     private String categoryName;
+    private long count;
     private BigDecimal totalAmount;
     private List<ExpenseDTO> expenses;
 
@@ -17,6 +18,13 @@ public class CategoryStatisticsDTO {
         this.expenses = expenses;
     }
 
+    public CategoryStatisticsDTO(String categoryName, long count, BigDecimal totalAmount, List<ExpenseDTO> expenses) {
+        this.categoryName = categoryName;
+        this.count = count;
+        this.totalAmount = totalAmount;
+        this.expenses = expenses;
+    }
+
     // Default Constructor
     public CategoryStatisticsDTO() {}
 
@@ -29,6 +37,14 @@ public class CategoryStatisticsDTO {
         this.categoryName = categoryName;
     }
 
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
     public BigDecimal getTotalAmount() {
         return totalAmount;
     }
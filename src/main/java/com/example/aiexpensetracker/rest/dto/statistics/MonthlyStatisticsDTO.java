@@ -7,6 +7,7 @@ import java.util.List;
 
 public class MonthlyStatisticsDTO {
     private String monthYear;
+    private long count;
     private BigDecimal totalAmount;
     private List<ExpenseDTO> expenses;
 
@@ -17,6 +18,13 @@ public class MonthlyStatisticsDTO {
         this.expenses = expenses;
     }
 
+    public MonthlyStatisticsDTO(String monthYear, long count, BigDecimal totalAmount, List<ExpenseDTO> expenses) {
+        this.monthYear = monthYear;
+        this.count = count;
+        this.totalAmount = totalAmount;
+        this.expenses = expenses;
+    }
+
     // Default Constructor
     public MonthlyStatisticsDTO() {}
 
@@ -29,6 +37,14 @@ public class MonthlyStatisticsDTO {
         this.monthYear = monthYear;
     }
 
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
     public BigDecimal getTotalAmount() {
         return totalAmount;
     }
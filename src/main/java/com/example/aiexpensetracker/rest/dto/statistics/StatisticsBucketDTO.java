@@ -0,0 +1,45 @@
+package com.example.aiexpensetracker.rest.dto.statistics;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class StatisticsBucketDTO {
+    private LocalDate start;
+    private long count;
+    private BigDecimal totalAmount;
+
+    // Constructor
+    public StatisticsBucketDTO(LocalDate start, long count, BigDecimal totalAmount) {
+        this.start = start;
+        this.count = count;
+        this.totalAmount = totalAmount;
+    }
+
+    // Default Constructor
+    public StatisticsBucketDTO() {}
+
+    // Getters and Setters
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public void setStart(LocalDate start) {
+        this.start = start;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+}
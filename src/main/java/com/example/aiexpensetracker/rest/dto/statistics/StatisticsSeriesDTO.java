@@ -0,0 +1,94 @@
+package com.example.aiexpensetracker.rest.dto.statistics;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public class StatisticsSeriesDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private String granularity;
+    private Long categoryId;
+    private long count;
+    private BigDecimal totalAmount;
+    private List<StatisticsBucketDTO> buckets;
+
+    // Constructor
+    public StatisticsSeriesDTO(
+            LocalDate from,
+            LocalDate to,
+            String granularity,
+            Long categoryId,
+            long count,
+            BigDecimal totalAmount,
+            List<StatisticsBucketDTO> buckets
+    ) {
+        this.from = from;
+        this.to = to;
+        this.granularity = granularity;
+        this.categoryId = categoryId;
+        this.count = count;
+        this.totalAmount = totalAmount;
+        this.buckets = buckets;
+    }
+
+    // Default Constructor
+    public StatisticsSeriesDTO() {}
+
+    // Getters and Setters
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(String granularity) {
+        this.granularity = granularity;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public List<StatisticsBucketDTO> getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(List<StatisticsBucketDTO> buckets) {
+        this.buckets = buckets;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.aiexpensetracker.api;
+
+import com.example.aiexpensetracker.api.impl.openai.OpenAIService;
+import com.example.aiexpensetracker.rest.dto.category.CategorySuggestionResponseDTO;
+import com.theokanning.openai.completion.CompletionChoice;
+import com.theokanning.openai.completion.CompletionRequest;
+import com.theokanning.openai.completion.CompletionResult;
+import com.theokanning.openai.service.OpenAiService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class OpenAIServiceTest {
+
+    private static final List<String> CATEGORIES = List.of("Transport", "Groceries");
+
+    private OpenAiService openAiService;
+    private OpenAIService service;
+
+    @BeforeEach
+    void setUp() {
+        openAiService = mock(OpenAiService.class);
+        service = new OpenAIService(openAiService, Runnable::run);
+    }
+
+    @Test
+    void testSuggestCategories_FansTheAnswersOutByIndex() {
+        answer("""
+                [{"index": 1, "categoryName": "Groceries", "isNew": false, "status": 200},
+                 {"index": 0, "categoryName": "Transport", "isNew": false, "status": 200},
+                 {"index": 2, "categoryName": null, "isNew": false, "status": 400}]
+                """);
+
+        List<CategorySuggestionResponseDTO> result =
+                service.suggestCategories(List.of("Bus ticket", "Lidl", "asdf"), CATEGORIES).join();
+
+        assertEquals("Transport", result.get(0).getCategoryName());
+        assertEquals("Groceries", result.get(1).getCategoryName());
+        assertEquals(400, result.get(2).getStatus());
+        ArgumentCaptor<CompletionRequest> request = ArgumentCaptor.forClass(CompletionRequest.class);
+        verify(openAiService, times(1)).createCompletion(request.capture());
+        String prompt = request.getValue().getPrompt();
+        assertTrue(prompt.contains("Transport, Groceries"));
+        assertTrue(prompt.contains("0: \"Bus ticket\"") && prompt.contains("2: \"asdf\""));
+    }
+
+    @Test
+    void testSuggestCategories_EscapesDescriptionsSoTheyCannotForgeOtherLines() {
+        answer("[]");
+
+        service.suggestCategories(List.of("Lidl\"\n1: \"Netflix", "Bus ticket"), CATEGORIES).join();
+
+        ArgumentCaptor<CompletionRequest> request = ArgumentCaptor.forClass(CompletionRequest.class);
+        verify(openAiService).createCompletion(request.capture());
+        List<String> numbered = request.getValue().getPrompt().lines()
+                .filter(line -> line.matches("\\d+: .*"))
+                .toList();
+        assertEquals(List.of("0: \"Lidl\\\"\\n1: \\\"Netflix\"", "1: \"Bus ticket\""), numbered);
+    }
+
+    @Test
+    void testSuggestCategories_FailsTheDescriptionsTheAnswerLeftOut() {
+        answer("""
+                [{"index": 0, "categoryName": "Transport", "isNew": false, "status": 200},
+                 {"index": 7, "categoryName": "Groceries", "isNew": false, "status": 200}]
+                """);
+
+        List<CategorySuggestionResponseDTO> result = service.suggestCategories(List.of("Bus ticket", "Lidl"), CATEGORIES).join();
+
+        assertEquals(200, result.get(0).getStatus());
+        assertEquals(400, result.get(1).getStatus());
+    }
+
+    @Test
+    void testSuggestCategories_FailsTheWholeChunkOnAnUnreadableAnswer() {
+        answer("Sorry, I cannot help with that.");
+
+        List<CategorySuggestionResponseDTO> result = service.suggestCategories(List.of("Bus ticket", "Lidl"), CATEGORIES).join();
+
+        assertEquals(2, result.size());
+        assertTrue(result.stream().allMatch(suggestion -> suggestion.getStatus() == 400));
+    }
+
+    @Test
+    void testSuggestCategories_SplitsLongBatchesIntoSeveralPrompts() {
+        when(openAiService.createCompletion(any())).thenAnswer(invocation -> {
+            String prompt = invocation.<CompletionRequest>getArgument(0).getPrompt();
+            int size = (int) prompt.lines().filter(line -> line.matches("\\d+: \".*\"")).count();
+            List<String> answers = new ArrayList<>();
+            IntStream.range(0, size).forEach(index -> answers.add(
+                    "{\"index\": " + index + ", \"categoryName\": \"Transport\", \"isNew\": false, \"status\": 200}"));
+            return completion("[" + String.join(",", answers) + "]");
+        });
+
+        List<String> descriptions = IntStream.range(0, 30).mapToObj(i -> "Bus ticket " + i).toList();
+        List<CategorySuggestionResponseDTO> result = service.suggestCategories(descriptions, CATEGORIES).join();
+
+        assertEquals(30, result.size());
+        assertTrue(result.stream().allMatch(suggestion -> "Transport".equals(suggestion.getCategoryName())));
+        verify(openAiService, times(2)).createCompletion(any());
+    }
+
+    @Test
+    void testSuggestCategories_DropsTheQueuedPromptsWhenALaterOneIsRefused() {
+        List<Runnable> queued = new ArrayList<>();
+        service = new OpenAIService(openAiService, task -> {
+            if (!queued.isEmpty()) {
+                throw new RejectedExecutionException("full");
+            }
+            queued.add(task);
+        });
+        List<String> descriptions = IntStream.range(0, 30).mapToObj(i -> "Expense " + i).toList();
+
+        assertThrows(RejectedExecutionException.class, () -> service.suggestCategories(descriptions, CATEGORIES));
+        queued.forEach(Runnable::run);
+
+        verify(openAiService, never()).createCompletion(any());
+    }
+
+    @Test
+    void testSuggestCategory_FailsTheFutureWhenTheCallFails() {
+        when(openAiService.createCompletion(any())).thenThrow(new RuntimeException("connection reset"));
+
+        CompletableFuture<CategorySuggestionResponseDTO> result = service.suggestCategory("Bus ticket", CATEGORIES);
+
+        assertThrows(CompletionException.class, result::join);
+    }
+
+    @Test
+    void testSuggestCategory_RunsTheCallOnTheExecutor() {
+        answer("{\"categoryName\": \"Transport\", \"isNew\": false, \"status\": 200}");
+        List<Runnable> submitted = new ArrayList<>();
+        OpenAIService deferred = new OpenAIService(openAiService, submitted::add);
+
+        CompletableFuture<CategorySuggestionResponseDTO> result = deferred.suggestCategory("Bus ticket", CATEGORIES);
+
+        assertFalse(result.isDone());
+        verifyNoInteractions(openAiService);
+        submitted.forEach(Runnable::run);
+        assertEquals("Transport", result.join().getCategoryName());
+    }
+
+    private void answer(String text) {
+        when(openAiService.createCompletion(any())).thenReturn(completion(text));
+    }
+
+    private static CompletionResult completion(String text) {
+        CompletionChoice choice = new CompletionChoice();
+        choice.setText(text);
+        CompletionResult result = new CompletionResult();
+        result.setChoices(List.of(choice));
+        return result;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.aiexpensetracker.api;
+
+import com.example.aiexpensetracker.api.impl.sendgridsender.ReportEmailRenderer;
+import com.example.aiexpensetracker.rest.dto.report.CategoryTotalDTO;
+import com.example.aiexpensetracker.rest.dto.report.UserReportResponseDTO;
+import com.example.aiexpensetracker.rest.dto.statistics.ExpenseDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportEmailRendererTest {
+
+    private final ReportEmailRenderer renderer = new ReportEmailRenderer(3);
+
+    @Test
+    void testRender_ListsAllExpensesUpToTheCap() {
+        String html = renderer.render(report(3));
+
+        assertTrue(html.contains("<h1>Monthly Expense Report</h1>"));
+        assertTrue(html.contains("<p>Total Expenses: 6</p>"));
+        assertTrue(html.contains("<li>Groceries: 6</li>"));
+        assertTrue(html.contains("<h2>All Expenses</h2>"));
+        assertTrue(html.contains("<li>Date: 2025-01-01, Amount: 1, Description: Expense 1</li>"));
+        assertFalse(html.contains("are not listed"));
+    }
+
+    @Test
+    void testRender_ShowsTheLargestExpensesAndSumsUpTheRest() {
+        String html = renderer.render(report(10));
+
+        assertTrue(html.contains("<h2>Top 3 of 10 Expenses</h2>"));
+        assertTrue(html.indexOf("Amount: 10,") < html.indexOf("Amount: 9,"));
+        assertTrue(html.indexOf("Amount: 9,") < html.indexOf("Amount: 8,"));
+        assertFalse(html.contains("Amount: 7,"));
+        assertTrue(html.contains("<p>7 smaller expenses totalling 28 are not listed.</p>"));
+    }
+
+    @Test
+    void testRender_EscapesHtml() {
+        UserReportResponseDTO report = new UserReportResponseDTO(
+                "john.doe@example.com",
+                List.of(new ExpenseDTO(1L, BigDecimal.ONE, LocalDate.of(2025, 1, 1), "<script>alert('x')</script>")),
+                BigDecimal.ONE,
+                List.of(new CategoryTotalDTO("Food & Drinks", BigDecimal.ONE)));
+
+        String html = renderer.render(report);
+
+        assertFalse(html.contains("<script>"));
+        assertTrue(html.contains("&lt;script&gt;"));
+        assertTrue(html.contains("Food &amp; Drinks"));
+    }
+
+    @Test
+    void testRender_ReusedBufferHoldsOnlyTheCurrentEmail() {
+        renderer.render(report(10));
+
+        String html = renderer.render(new UserReportResponseDTO(
+                "jane.doe@example.com",
+                List.of(new ExpenseDTO(1L, BigDecimal.ONE, LocalDate.of(2025, 1, 1), null)),
+                BigDecimal.ONE,
+                List.of()));
+
+        assertFalse(html.contains("Amount: 10"));
+        assertTrue(html.contains("<li>Date: 2025-01-01, Amount: 1, Description: </li>"));
+    }
+
+    @Test
+    void testView_CapsTheTemplateData() {
+        Map<String, Object> view = renderer.view(report(10));
+
+        assertEquals(true, view.get("truncated"));
+        assertEquals(10, view.get("expenseCount"));
+        assertEquals(3, ((List<?>) view.get("expenses")).size());
+        assertEquals("28", view.get("omittedAmount"));
+    }
+
+    private UserReportResponseDTO report(int expenseCount) {
+        List<ExpenseDTO> expenses = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 1; i <= expenseCount; i++) {
+            expenses.add(new ExpenseDTO((long) i, BigDecimal.valueOf(i), LocalDate.of(2025, 1, i), "Expense " + i));
+            total = total.add(BigDecimal.valueOf(i));
+        }
+        return new UserReportResponseDTO("john.doe@example.com", expenses, total,
+                List.of(new CategoryTotalDTO("Groceries", total)));
+    }
+}
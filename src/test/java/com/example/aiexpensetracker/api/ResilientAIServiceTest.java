@@ -0,0 +1,198 @@
+package com.example.aiexpensetracker.api;
+
+import com.example.aiexpensetracker.api.impl.openai.CircuitBreaker;
+import com.example.aiexpensetracker.api.impl.openai.ResilientAIService;
+import com.example.aiexpensetracker.core.api.aiservice.AIService;
+import com.example.aiexpensetracker.rest.dto.category.CategorySuggestionResponseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ResilientAIServiceTest {
+
+    private static final List<String> CATEGORIES = List.of("Transport");
+
+    private AIService delegate;
+    private ThreadPoolExecutor bulkhead;
+    private CircuitBreaker circuitBreaker;
+    private SimpleMeterRegistry meterRegistry;
+    private ResilientAIService service;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(AIService.class);
+        bulkhead = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1));
+        circuitBreaker = new CircuitBreaker(0.5, 4, 4, Duration.ofMillis(100), 2);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new ResilientAIService(delegate, bulkhead, circuitBreaker, Duration.ofMillis(100), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkhead.shutdownNow();
+    }
+
+    @Test
+    void testSuggestCategory_PassesAnswersThrough() {
+        when(delegate.suggestCategory("Bus ticket", CATEGORIES))
+                .thenReturn(CompletableFuture.completedFuture(new CategorySuggestionResponseDTO("Transport", false, 200)));
+
+        CategorySuggestionResponseDTO result = service.suggestCategory("Bus ticket", CATEGORIES).join();
+
+        assertEquals("Transport", result.getCategoryName());
+        assertEquals(1, calls("success"));
+    }
+
+    @Test
+    void testSuggestCategory_FallsBackOnATimeout() {
+        when(delegate.suggestCategory(any(), any())).thenReturn(new CompletableFuture<>());
+
+        CategorySuggestionResponseDTO result = service.suggestCategory("Bus ticket", CATEGORIES).join();
+
+        assertEquals(503, result.getStatus());
+        assertEquals(1, calls("timeout"));
+    }
+
+    @Test
+    void testSuggestCategory_FallsBackWhenTheBulkheadIsFull() {
+        when(delegate.suggestCategory(any(), any())).thenThrow(new RejectedExecutionException("full"));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(503, service.suggestCategory("Bus ticket", CATEGORIES).join().getStatus());
+        }
+
+        assertEquals(10, calls("rejected"));
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void testSuggestCategory_OpensTheCircuitAndProbesItAgain() throws InterruptedException {
+        when(delegate.suggestCategory(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("503 from OpenAI")));
+        for (int i = 0; i < 4; i++) {
+            service.suggestCategory("Bus ticket", CATEGORIES).join();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(1, meterRegistry.get("ai.circuit.state").tag("state", "open").gauge().value());
+
+        assertEquals(503, service.suggestCategory("Bus ticket", CATEGORIES).join().getStatus());
+        assertEquals(1, calls("short_circuited"));
+        verify(delegate, times(4)).suggestCategory(any(), any());
+
+        Thread.sleep(150);
+        when(delegate.suggestCategory(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(new CategorySuggestionResponseDTO("Transport", false, 200)));
+        assertEquals(200, service.suggestCategory("Bus ticket", CATEGORIES).join().getStatus());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertEquals(200, service.suggestCategory("Bus ticket", CATEGORIES).join().getStatus());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void testSuggestCategory_OpensAgainWhenAProbeFails() throws InterruptedException {
+        when(delegate.suggestCategory(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("503 from OpenAI")));
+        for (int i = 0; i < 4; i++) {
+            service.suggestCategory("Bus ticket", CATEGORIES).join();
+        }
+
+        Thread.sleep(150);
+        service.suggestCategory("Bus ticket", CATEGORIES).join();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(5, calls("failure"));
+    }
+
+    @Test
+    void testSuggestCategories_FallsBackForTheWholeBatch() {
+        when(delegate.suggestCategories(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("503 from OpenAI")));
+
+        List<CategorySuggestionResponseDTO> result =
+                service.suggestCategories(List.of("Bus ticket", "Lidl"), CATEGORIES).join();
+
+        assertEquals(2, result.size());
+        assertTrue(result.stream().allMatch(suggestion -> suggestion.getStatus() == 503));
+    }
+
+    @Test
+    void testSuggestCategories_FallsBackWithoutACallWhenTheBulkheadHasNoRoomForEveryPrompt() {
+        // The bulkhead has room for two prompts; one is taken by a call in progress.
+        CompletableFuture<CategorySuggestionResponseDTO> inProgress = new CompletableFuture<>();
+        when(delegate.suggestCategory(any(), any())).thenReturn(inProgress);
+        service.suggestCategory("Bus ticket", CATEGORIES);
+        // Thirty descriptions are asked for in two prompts.
+        List<String> descriptions = IntStream.range(0, 30).mapToObj(i -> "Expense " + i).toList();
+
+        List<CategorySuggestionResponseDTO> result = service.suggestCategories(descriptions, CATEGORIES).join();
+
+        assertEquals(30, result.size());
+        assertTrue(result.stream().allMatch(suggestion -> suggestion.getStatus() == 503));
+        verify(delegate, never()).suggestCategories(any(), any());
+        assertEquals(1, calls("rejected"));
+
+        inProgress.complete(new CategorySuggestionResponseDTO("Transport", false, 200));
+        when(delegate.suggestCategories(any(), any())).thenReturn(CompletableFuture.completedFuture(
+                Collections.nCopies(30, new CategorySuggestionResponseDTO("Transport", false, 200))));
+        assertEquals(200, service.suggestCategories(descriptions, CATEGORIES).join().get(0).getStatus());
+    }
+
+    @Test
+    void testCircuitBreaker_StaysClosedBelowTheFailureRate() {
+        CircuitBreaker breaker = new CircuitBreaker(0.5, 4, 4, Duration.ofSeconds(30), 1);
+        for (int i = 0; i < 10; i++) {
+            long permit = breaker.tryAcquire();
+            assertNotEquals(CircuitBreaker.REFUSED, permit);
+            if (i % 4 == 0) {
+                breaker.onFailure(permit);
+            } else {
+                breaker.onSuccess(permit);
+            }
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker(0, 4, 4, Duration.ofSeconds(1), 1));
+    }
+
+    @Test
+    void testCircuitBreaker_IgnoresOutcomesOfCallsFromAnEarlierState() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(0.5, 2, 2, Duration.ofMillis(1), 1);
+        long slow = breaker.tryAcquire();
+        long failed = breaker.tryAcquire();
+        breaker.onFailure(failed);
+        breaker.onFailure(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Thread.sleep(5);
+        long probe = breaker.tryAcquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // The slow call was let through while closed; its outcome neither closes nor reopens the breaker.
+        breaker.onSuccess(slow);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onFailure(slow);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.REFUSED, breaker.tryAcquire());
+
+        breaker.onSuccess(probe);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private double calls(String outcome) {
+        return meterRegistry.get("ai.calls").tag("outcome", outcome).counter().count();
+    }
+}
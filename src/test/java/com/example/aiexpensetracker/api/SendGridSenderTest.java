@@ -0,0 +1,173 @@
+package com.example.aiexpensetracker.api;
+
+import com.example.aiexpensetracker.api.impl.sendgridsender.ReportEmailRenderer;
+import com.example.aiexpensetracker.api.impl.sendgridsender.SendGridSender;
+import com.example.aiexpensetracker.exception.mail.MailDeliveryException;
+import com.example.aiexpensetracker.rest.dto.report.CategoryTotalDTO;
+import com.example.aiexpensetracker.rest.dto.report.UserReportResponseDTO;
+import com.example.aiexpensetracker.rest.dto.statistics.ExpenseDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SendGridSenderTest {
+
+    private SendGridStandIn standIn;
+    private SendGridSender sender;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        standIn = SendGridStandIn.start(Duration.ofMillis(5));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (sender != null) {
+            sender.close();
+        }
+        standIn.close();
+    }
+
+    @Test
+    void testSendEmails_OneHtmlEmailPerReportWithoutTemplate() {
+        sender = sender("", 0, 3);
+
+        sender.sendEmails(reports(3));
+
+        assertEquals(3, standIn.requests());
+        assertEquals(3, standIn.personalizations());
+        JsonNode body = standIn.bodies().get(0);
+        assertEquals("text/html", body.path("content").get(0).path("type").asText());
+        assertTrue(body.path("content").get(0).path("value").asText().contains("Total Expenses"));
+    }
+
+    @Test
+    void testSendEmails_BatchesPersonalizationsWithTemplate() {
+        sender = sender("d-123", 0, 3);
+
+        sender.sendEmails(reports(5));
+
+        assertEquals(5, standIn.personalizations());
+        assertEquals(2, standIn.requests());
+        JsonNode body = standIn.bodies().get(0);
+        assertEquals("d-123", body.path("template_id").asText());
+        JsonNode personalization = body.path("personalizations").get(0);
+        assertEquals(1, personalization.path("to").size());
+        JsonNode data = personalization.path("dynamic_template_data");
+        assertEquals(personalization.path("to").get(0).path("email").asText(), data.path("userEmail").asText());
+        assertEquals("Groceries", data.path("categoryTotals").get(0).path("categoryName").asText());
+        assertEquals("12.50", data.path("expenses").get(0).path("amount").asText());
+    }
+
+    @Test
+    void testSendEmail_RetriesRateLimitAndServerErrors() {
+        sender = sender("", 0, 3);
+        standIn.respondWith(429, 503);
+
+        sender.sendEmail(reports(1).get(0));
+
+        assertEquals(3, standIn.requests());
+    }
+
+    @Test
+    void testSendEmail_GivesUpAfterMaxAttempts() {
+        sender = sender("", 0, 3);
+        standIn.respondWith(500, 500, 500, 500);
+
+        MailDeliveryException ex = assertThrows(MailDeliveryException.class,
+                () -> sender.sendEmail(reports(1).get(0)));
+
+        assertEquals(3, standIn.requests());
+        assertTrue(ex.getMessage().contains("after 3 attempts"), ex.getMessage());
+    }
+
+    @Test
+    void testSendEmail_DoesNotRetryClientErrors() {
+        sender = sender("", 0, 3);
+        standIn.respondWith(400);
+
+        assertThrows(MailDeliveryException.class, () -> sender.sendEmail(reports(1).get(0)));
+
+        assertEquals(1, standIn.requests());
+    }
+
+    @Test
+    void testSendEmails_ReportsFailuresOfTheBatch() {
+        sender = sender("d-123", 0, 1);
+        standIn.respondWith(503);
+
+        MailDeliveryException ex = assertThrows(MailDeliveryException.class, () -> sender.sendEmails(reports(2)));
+
+        assertTrue(ex.getMessage().startsWith("2 of 2 emails could not be sent"), ex.getMessage());
+    }
+
+    @Test
+    void testSendEmails_SplitsARejectedBatchSoOnlyTheRejectedRecipientFails() {
+        sender = sender("d-123", 0, 3);
+        // The batch of three, then its first half of one recipient, are rejected; its second half of two is sent.
+        standIn.respondWith(400, 400);
+
+        MailDeliveryException ex = assertThrows(MailDeliveryException.class, () -> sender.sendEmails(reports(3)));
+
+        assertTrue(ex.getMessage().startsWith("1 of 3 emails could not be sent"), ex.getMessage());
+        assertEquals(List.of(3, 1, 2),
+                standIn.bodies().stream().map(body -> body.path("personalizations").size()).toList());
+    }
+
+    @Test
+    void testClose_SendsTheOpenBatchAndRefusesLaterEmails() throws Exception {
+        SendGridSender lingering = new SendGridSender(new ReportEmailRenderer(100), "test-key", standIn.baseUrl(),
+                "reports@example.com", "d-123", 3, Duration.ofMinutes(10), 0, 8, 3, Duration.ofMillis(1));
+        UserReportResponseDTO report = reports(1).get(0);
+        Thread waiting = Thread.startVirtualThread(() -> lingering.sendEmail(report));
+        while (waiting.getState() != Thread.State.WAITING) {
+            Thread.onSpinWait();
+        }
+
+        lingering.close();
+
+        waiting.join(Duration.ofSeconds(5));
+        assertFalse(waiting.isAlive());
+        assertEquals(1, standIn.requests());
+        assertThrows(MailDeliveryException.class, () -> lingering.sendEmail(report));
+    }
+
+    @Test
+    void testSendEmails_KeepsToTheRequestRate() {
+        sender = sender("", 20, 3);
+        long started = System.nanoTime();
+
+        sender.sendEmails(reports(5));
+
+        // Five requests at 20 per second start at least four intervals of 50 ms apart.
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() >= 190);
+        assertEquals(5, standIn.requests());
+    }
+
+    private SendGridSender sender(String templateId, double requestsPerSecond, int maxAttempts) {
+        return new SendGridSender(new ReportEmailRenderer(100), "test-key", standIn.baseUrl(), "reports@example.com",
+                templateId, 3, Duration.ofMillis(20), requestsPerSecond, 8, maxAttempts, Duration.ofMillis(1));
+    }
+
+    private List<UserReportResponseDTO> reports(int count) {
+        List<UserReportResponseDTO> reports = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            reports.add(new UserReportResponseDTO(
+                    "user" + i + "@example.com",
+                    List.of(new ExpenseDTO(1L, new BigDecimal("12.50"), LocalDate.of(2025, 1, 3), "Lunch")),
+                    new BigDecimal("12.50"),
+                    List.of(new CategoryTotalDTO("Groceries", new BigDecimal("12.50")))));
+        }
+        return reports;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.aiexpensetracker.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local stand-in for the SendGrid v3 mail API, for tests and offline benchmarks of the mail sender.
+ * Accepts POST /v3/mail/send after a fixed latency, answering 202 unless other statuses were queued up,
+ * and records every request body. Each request is handled on its own virtual thread, so the latency
+ * does not limit how many requests are served at once.
+ */
+public class SendGridStandIn implements AutoCloseable {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Duration latency;
+    private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private final List<JsonNode> bodies = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger personalizations = new AtomicInteger();
+
+    private SendGridStandIn(Duration latency) throws IOException {
+        this.latency = latency;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/v3/mail/send", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    /**
+     * @param latency how long every request takes.
+     * @return a running stand-in on a free port.
+     */
+    public static SendGridStandIn start(Duration latency) throws IOException {
+        return new SendGridStandIn(latency);
+    }
+
+    /**
+     * @return the base URL to configure the mail sender with.
+     */
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Queues up the statuses of the next requests, after which requests are answered with 202 again.
+     */
+    public void respondWith(int... statuses) {
+        for (int status : statuses) {
+            this.statuses.add(status);
+        }
+    }
+
+    /**
+     * @return the number of requests received.
+     */
+    public int requests() {
+        return bodies.size();
+    }
+
+    /**
+     * @return the number of personalizations, i.e. emails, over all requests received.
+     */
+    public int personalizations() {
+        return personalizations.get();
+    }
+
+    /**
+     * @return the request bodies, in the order they were received.
+     */
+    public List<JsonNode> bodies() {
+        synchronized (bodies) {
+            return new ArrayList<>(bodies);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            JsonNode mail = objectMapper.readTree(body);
+            bodies.add(mail);
+            personalizations.addAndGet(mail.path("personalizations").size());
+            Thread.sleep(latency);
+
+            Integer status = statuses.poll();
+            exchange.sendResponseHeaders(status != null ? status : 202, -1);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
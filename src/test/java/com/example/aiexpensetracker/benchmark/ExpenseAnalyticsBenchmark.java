@@ -0,0 +1,126 @@
+package com.example.aiexpensetracker.benchmark;
+
+import com.example.aiexpensetracker.core.repository.expense.ExpenseSummary;
+import com.example.aiexpensetracker.core.service.analytics.ExpenseAggregates;
+import com.example.aiexpensetracker.core.service.analytics.ExpenseColumns;
+import com.example.aiexpensetracker.core.service.analytics.ExpenseGroups;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the boxed stream aggregation the report and statistics services used before
+ * with the columnar aggregation of {@link ExpenseAggregates}, on one user's expenses.
+ * Not run by the test suite; run it after test-compile with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.aiexpensetracker.benchmark.ExpenseAnalyticsBenchmark}
+ * or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseParallelGC")
+public class ExpenseAnalyticsBenchmark {
+
+    private static final String[] CATEGORIES = {"Groceries", "Rent", "Transport", "Dining", "Utilities", null};
+
+    @Param({"100", "10000"})
+    private int expenseCount;
+
+    private List<ExpenseSummary> expenses;
+    private ExpenseColumns columns;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2023, 1, 1);
+        expenses = new ArrayList<>(expenseCount);
+        for (int i = 0; i < expenseCount; i++) {
+            expenses.add(new ExpenseSummary(
+                    (long) i,
+                    BigDecimal.valueOf(random.nextInt(100_000), 2),
+                    start.plusDays(random.nextInt(730)),
+                    "Expense " + i,
+                    CATEGORIES[random.nextInt(CATEGORIES.length)]));
+        }
+        columns = ExpenseColumns.of(expenses);
+    }
+
+    @Benchmark
+    public void streams(Blackhole blackhole) {
+        blackhole.consume(expenses.stream()
+                .map(ExpenseSummary::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+
+        Map<String, BigDecimal> byCategory = expenses.stream()
+                .collect(Collectors.groupingBy(
+                        expense -> expense.getCategoryName() != null ? expense.getCategoryName() : "Uncategorized",
+                        Collectors.mapping(
+                                ExpenseSummary::getAmount,
+                                Collectors.reducing(BigDecimal.ZERO, BigDecimal::add))));
+        blackhole.consume(byCategory);
+
+        Map<YearMonth, Long> countByMonth = expenses.stream()
+                .collect(Collectors.groupingBy(expense -> YearMonth.from(expense.getDate()), Collectors.counting()));
+        blackhole.consume(countByMonth);
+    }
+
+    /**
+     * Includes loading the columns, which the services do once per request.
+     */
+    @Benchmark
+    public void columnsIncludingLoad(Blackhole blackhole) {
+        aggregate(ExpenseColumns.of(expenses), blackhole);
+    }
+
+    @Benchmark
+    public void columnsOnly(Blackhole blackhole) {
+        aggregate(columns, blackhole);
+    }
+
+    private static void aggregate(ExpenseColumns columns, Blackhole blackhole) {
+        blackhole.consume(columns.toAmount(ExpenseAggregates.sum(columns)));
+
+        ExpenseGroups byCategory = ExpenseAggregates.groupByCategory(columns);
+        for (int group = 0; group < byCategory.groupCount(); group++) {
+            blackhole.consume(byCategory.sum(group));
+        }
+
+        ExpenseGroups byMonth = ExpenseAggregates.groupByMonth(columns);
+        for (int group = 0; group < byMonth.groupCount(); group++) {
+            blackhole.consume(byMonth.count(group));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ExpenseAnalyticsBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.aiexpensetracker.benchmark;
+
+import com.example.aiexpensetracker.api.SendGridStandIn;
+import com.example.aiexpensetracker.api.impl.sendgridsender.ReportEmailRenderer;
+import com.example.aiexpensetracker.api.impl.sendgridsender.SendGridSender;
+import com.example.aiexpensetracker.rest.dto.report.CategoryTotalDTO;
+import com.example.aiexpensetracker.rest.dto.report.UserReportResponseDTO;
+import com.example.aiexpensetracker.rest.dto.statistics.ExpenseDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long {@link SendGridSender} takes to send a run's worth of reports against
+ * {@link SendGridStandIn}, a local stand-in for the SendGrid API with a fixed latency per request:
+ * one HTML email per request, or batches of personalizations with a dynamic template.
+ * Not run by the test suite; run its {@code main} method on the test classpath after test-compile,
+ * e.g. from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MailDispatchBenchmark {
+
+    @Param({"", "d-benchmark"})
+    private String templateId;
+
+    @Param({"1000"})
+    private int reportCount;
+
+    @Param({"20"})
+    private int latencyMillis;
+
+    private SendGridStandIn standIn;
+    private SendGridSender sender;
+    private List<UserReportResponseDTO> reports;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        standIn = SendGridStandIn.start(Duration.ofMillis(latencyMillis));
+        sender = new SendGridSender(new ReportEmailRenderer(100), "benchmark-key", standIn.baseUrl(),
+                "reports@example.com", templateId, 100, Duration.ofMillis(20), 0, 16, 4, Duration.ofMillis(100));
+
+        reports = new ArrayList<>(reportCount);
+        for (int i = 0; i < reportCount; i++) {
+            List<ExpenseDTO> expenses = new ArrayList<>();
+            for (int e = 0; e < 20; e++) {
+                expenses.add(new ExpenseDTO((long) e, BigDecimal.valueOf(e + 1), LocalDate.of(2025, 1, 1).plusDays(e),
+                        "Expense " + e));
+            }
+            reports.add(new UserReportResponseDTO("user" + i + "@example.com", expenses, BigDecimal.valueOf(210),
+                    List.of(new CategoryTotalDTO("Groceries", BigDecimal.valueOf(120)),
+                            new CategoryTotalDTO("Transport", BigDecimal.valueOf(90)))));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        sender.close();
+        standIn.close();
+    }
+
+    @Benchmark
+    public void sendEmails() {
+        sender.sendEmails(reports);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MailDispatchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.aiexpensetracker.core.repository;
+
+import com.example.aiexpensetracker.core.model.Category;
+import com.example.aiexpensetracker.core.model.Expense;
+import com.example.aiexpensetracker.core.model.User;
+import com.example.aiexpensetracker.core.repository.category.CategoryRepository;
+import com.example.aiexpensetracker.core.repository.category.CategorySuggestionRepository;
+import com.example.aiexpensetracker.core.repository.expense.ExpenseRepository;
+import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.core.repository.manager.RepositoryManagerImpl;
+import com.example.aiexpensetracker.core.repository.report.ReportEmailRepository;
+import com.example.aiexpensetracker.core.repository.report.ReportJobRepository;
+import com.example.aiexpensetracker.core.repository.rollup.ExpenseRollupRepository;
+import com.example.aiexpensetracker.core.repository.scheduler.SchedulerLockRepository;
+import com.example.aiexpensetracker.core.repository.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Shared fixture of the tests that run against an in-memory H2 database.
+ * Two users with three categories and 30 expenses each, dated from January 1, 2025 with amounts 1..30,
+ * where every fourth expense is uncategorized. The rollups are built from these expenses.
+ * Tests run without a surrounding transaction, so that each repository call commits as it does in production,
+ * and Hibernate's statement inspector records the SQL issued after the fixture is in place.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.aiexpensetracker.core.repository.SqlStatementCounter",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public abstract class JpaTestFixture {
+
+    protected static final int EXPENSES_PER_USER = 30;
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected CategoryRepository categoryRepository;
+
+    @Autowired
+    protected ExpenseRepository expenseRepository;
+
+    @Autowired
+    protected ExpenseRollupRepository expenseRollupRepository;
+
+    @Autowired
+    protected ReportJobRepository reportJobRepository;
+
+    @Autowired
+    protected ReportEmailRepository reportEmailRepository;
+
+    @Autowired
+    protected SchedulerLockRepository schedulerLockRepository;
+
+    @Autowired
+    protected CategorySuggestionRepository categorySuggestionRepository;
+
+    @Autowired
+    protected PlatformTransactionManager transactionManager;
+
+    protected final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    void createFixture() {
+        for (int u = 1; u <= 2; u++) {
+            User user = new User();
+            user.setEmail("user" + u + "@example.com");
+            user.setFirstName("User");
+            user.setLastName(String.valueOf(u));
+            user = userRepository.save(user);
+            users.add(user);
+
+            List<Category> categories = new ArrayList<>();
+            for (int c = 1; c <= 3; c++) {
+                Category category = new Category();
+                category.setName("Category " + c);
+                category.setUser(user);
+                categories.add(categoryRepository.save(category));
+            }
+
+            List<Expense> expenses = new ArrayList<>();
+            for (int i = 0; i < EXPENSES_PER_USER; i++) {
+                Expense expense = new Expense();
+                expense.setUser(user);
+                // Every fourth expense is uncategorized.
+                expense.setCategory(i % 4 == 0 ? null : categories.get(i % 3));
+                expense.setAmount(BigDecimal.valueOf(i + 1));
+                expense.setDate(LocalDate.of(2025, 1, 1).plusDays(i));
+                expense.setDescription("Expense " + i);
+                expenses.add(expense);
+            }
+            expenseRepository.saveAll(expenses);
+        }
+        new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> expenseRollupRepository.insertFromExpenses());
+
+        SqlStatementCounter.reset();
+    }
+
+    @AfterEach
+    void deleteFixture() {
+        schedulerLockRepository.deleteAllInBatch();
+        reportEmailRepository.deleteAllInBatch();
+        reportJobRepository.deleteAll();
+        expenseRollupRepository.deleteAllInBatch();
+        expenseRepository.deleteAllInBatch();
+        categoryRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        users.clear();
+    }
+
+    protected RepositoryManager repositoryManager() {
+        return new RepositoryManagerImpl(
+                userRepository, expenseRepository, categoryRepository, expenseRollupRepository, reportJobRepository,
+                reportEmailRepository, schedulerLockRepository, categorySuggestionRepository);
+    }
+
+    protected void assertStatementCount(int expected) {
+        List<String> statements = SqlStatementCounter.statements();
+        assertEquals(expected, statements.size(), () -> "Unexpected SQL statements: " + statements);
+    }
+}
@@ -0,0 +1,340 @@
+package com.example.aiexpensetracker.core.repository;
+
+import com.example.aiexpensetracker.core.api.mailsender.MailSender;
+import com.example.aiexpensetracker.core.model.Expense;
+import com.example.aiexpensetracker.core.model.ReportEmailStatus;
+import com.example.aiexpensetracker.core.model.User;
+import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.core.service.cache.UserViewCache;
+import com.example.aiexpensetracker.core.service.category.CategoryClassifier;
+import com.example.aiexpensetracker.core.service.expense.ExpenseServiceImpl;
+import com.example.aiexpensetracker.core.service.report.ReportCheckpoints;
+import com.example.aiexpensetracker.core.service.report.ReportOutbox;
+import com.example.aiexpensetracker.core.service.report.ReportOutboxDispatcher;
+import com.example.aiexpensetracker.core.service.report.ReportPipeline;
+import com.example.aiexpensetracker.core.service.report.ReportRunSummary;
+import com.example.aiexpensetracker.core.service.report.ReportServiceImpl;
+import com.example.aiexpensetracker.core.service.statistics.StatisticsGranularity;
+import com.example.aiexpensetracker.core.service.statistics.StatisticsServiceImpl;
+import com.example.aiexpensetracker.rest.dto.expense.ExpensePageDTO;
+import com.example.aiexpensetracker.rest.dto.expense.ExpensesByCategoryDTO;
+import com.example.aiexpensetracker.rest.dto.report.UserReportResponseDTO;
+import com.example.aiexpensetracker.rest.dto.statistics.CategoryStatisticsDTO;
+import com.example.aiexpensetracker.rest.dto.statistics.ExpenseDTO;
+import com.example.aiexpensetracker.rest.dto.statistics.MonthlyStatisticsDTO;
+import com.example.aiexpensetracker.rest.dto.statistics.StatisticsBucketDTO;
+import com.example.aiexpensetracker.rest.dto.statistics.StatisticsResponseDTO;
+import com.example.aiexpensetracker.rest.dto.statistics.StatisticsSeriesDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NoOpCacheManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Counts the SQL statements issued by the read paths behind the expense, statistics and report endpoints.
+ * Runs against an in-memory H2 database with Hibernate's statement inspector, so that a regression back to
+ * per-row association loading (N+1 selects) fails here instead of showing up as slow requests.
+ * The fixture has enough expenses per user that any per-row query would exceed the expected counts.
+ */
+public class QueryCountTest extends JpaTestFixture {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final MailSender mailSender = mock(MailSender.class);
+
+    private ExpenseServiceImpl expenseService;
+    private StatisticsServiceImpl statisticsService;
+    private ReportServiceImpl reportService;
+    private ReportOutbox reportOutbox;
+
+    @BeforeEach
+    void setUp() {
+        RepositoryManager repositoryManager = repositoryManager();
+        UserViewCache userViewCache = new UserViewCache(new NoOpCacheManager(), new SimpleMeterRegistry());
+        expenseService = new ExpenseServiceImpl(
+                repositoryManager, Validation.buildDefaultValidatorFactory().getValidator(), userViewCache,
+                mock(CategoryClassifier.class));
+        statisticsService = new StatisticsServiceImpl(repositoryManager, userViewCache, transactionManager);
+        reportService = new ReportServiceImpl(new ReportPipeline(
+                repositoryManager, transactionManager, new SimpleMeterRegistry(), 1, 2, 2, 8));
+        reportOutbox = new ReportOutbox(repositoryManager, objectMapper, transactionManager, 10);
+    }
+
+    @Test
+    void getAllExpensesByUser_UsesOneQuery() {
+        expenseService.getAllExpensesByUser("user1@example.com", "amount", "desc", "category", null).join();
+
+        assertStatementCount(1);
+    }
+
+    @Test
+    void categoryClassifier_TrainsFromOneQueryAndAnswersWithoutAny() {
+        CategoryClassifier classifier = new CategoryClassifier(repositoryManager(),
+                new SimpleMeterRegistry(), true, 0.9, 20, 5000, 100, Duration.ofHours(1), Runnable::run);
+
+        classifier.classify("user1@example.com", "Expense", List.of("Groceries"));
+        assertStatementCount(1);
+
+        SqlStatementCounter.reset();
+        classifier.classify("user1@example.com", "Expense 7", List.of("Groceries"));
+        assertStatementCount(0);
+    }
+
+    @Test
+    void getExpensesPageByUser_UsesOneQueryPerPage() {
+        ExpensePageDTO first = expenseService
+                .getExpensesPageByUser("user1@example.com", "date", "asc", null, null, null, 10).join();
+        assertStatementCount(1);
+
+        SqlStatementCounter.reset();
+        ExpensePageDTO second = expenseService
+                .getExpensesPageByUser("user1@example.com", "date", "asc", null, null, first.getNext(), 10).join();
+        assertStatementCount(1);
+        assertEquals(10, second.getExpenses().size());
+    }
+
+    @Test
+    void getExpensesGroupedByCategory_UsesFixedNumberOfQueries() {
+        List<ExpensesByCategoryDTO> groups = expenseService.getExpensesGroupedByCategory("user1@example.com", true).join();
+
+        // User check, then the user's expenses with their category names.
+        assertStatementCount(2);
+        assertEquals(List.of("Category 1", "Category 2", "Category 3", "Uncategorized"),
+                groups.stream().map(ExpensesByCategoryDTO::getCategory).toList());
+        assertEquals(EXPENSES_PER_USER, groups.stream().mapToLong(ExpensesByCategoryDTO::getCount).sum());
+    }
+
+    @Test
+    void getExpensesGroupedByCategory_SummaryMatchesFullGrouping() {
+        List<ExpensesByCategoryDTO> groups = expenseService.getExpensesGroupedByCategory("user1@example.com", true).join();
+        SqlStatementCounter.reset();
+
+        List<ExpensesByCategoryDTO> summaries = expenseService.getExpensesGroupedByCategory("user1@example.com", false).join();
+
+        assertStatementCount(2);
+        assertEquals(groups.size(), summaries.size());
+        for (int i = 0; i < groups.size(); i++) {
+            assertEquals(groups.get(i).getCategory(), summaries.get(i).getCategory());
+            assertEquals(groups.get(i).getCount(), summaries.get(i).getCount());
+            assertEquals(0, groups.get(i).getTotalAmount().compareTo(summaries.get(i).getTotalAmount()));
+            assertNull(summaries.get(i).getExpenses());
+        }
+    }
+
+    @Test
+    void getStatisticsForUser_UsesFixedNumberOfQueries() {
+        StatisticsResponseDTO statistics = statisticsService.getStatisticsForUser("user1@example.com", true).join();
+
+        // The category totals, the monthly totals, then the expense summaries for the embedded lists.
+        assertStatementCount(3);
+        assertEquals(List.of("Category 1", "Category 2", "Category 3", "Uncategorized"),
+                statistics.getCategoryStatistics().stream().map(CategoryStatisticsDTO::getCategoryName).toList());
+        for (CategoryStatisticsDTO category : statistics.getCategoryStatistics()) {
+            BigDecimal expected = category.getExpenses().stream()
+                    .map(ExpenseDTO::getAmount)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            assertEquals(0, expected.compareTo(category.getTotalAmount()), category.getCategoryName());
+            assertEquals(category.getExpenses().size(), category.getCount());
+        }
+        for (MonthlyStatisticsDTO month : statistics.getMonthlyStatistics()) {
+            assertEquals(month.getExpenses().size(), month.getCount(), month.getMonthYear());
+        }
+    }
+
+    @Test
+    void getStatisticsForUser_WithoutExpenses_UsesOnlyAggregateQueries() {
+        StatisticsResponseDTO statistics = statisticsService.getStatisticsForUser("user1@example.com", false).join();
+
+        assertStatementCount(2);
+        assertEquals(List.of("2025-01"),
+                statistics.getMonthlyStatistics().stream().map(MonthlyStatisticsDTO::getMonthYear).toList());
+        assertEquals(EXPENSES_PER_USER, statistics.getMonthlyStatistics().get(0).getCount());
+        assertEquals(0, BigDecimal.valueOf(EXPENSES_PER_USER * (EXPENSES_PER_USER + 1) / 2)
+                .compareTo(statistics.getMonthlyStatistics().get(0).getTotalAmount()));
+        assertNull(statistics.getCategoryStatistics().get(0).getExpenses());
+    }
+
+    @Test
+    void getStatisticsSeries_BucketsInOneQuery() {
+        // Month buckets: H2 truncates weeks to Sunday, unlike PostgreSQL's ISO weeks.
+        StatisticsSeriesDTO series = statisticsService.getStatisticsSeries("user1@example.com",
+                LocalDate.of(2025, 1, 15), LocalDate.of(2025, 2, 14), StatisticsGranularity.MONTH, null).join();
+
+        assertStatementCount(1);
+        assertEquals(List.of(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1)),
+                series.getBuckets().stream().map(StatisticsBucketDTO::getStart).toList());
+        // Expenses 14..29 fall on January 15..30 with amounts 15..30.
+        assertEquals(List.of(16L, 0L), series.getBuckets().stream().map(StatisticsBucketDTO::getCount).toList());
+        assertEquals(0, BigDecimal.valueOf(360).compareTo(series.getTotalAmount()));
+    }
+
+    @Test
+    void generateReportsForAllUsers_StreamsAllUsersInOneQuery() {
+        User idle = new User();
+        idle.setEmail("idle@example.com");
+        idle.setFirstName("Idle");
+        idle.setLastName("User");
+        userRepository.save(idle);
+        SqlStatementCounter.reset();
+
+        List<UserReportResponseDTO> reports = reportService
+                .generateReportsForAllUsers(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 10))
+                .join();
+
+        // One scan for all users, regardless of how many users and expenses there are.
+        assertStatementCount(1);
+        assertEquals(List.of("idle@example.com", "user1@example.com", "user2@example.com"),
+                reports.stream().map(UserReportResponseDTO::getUserEmail).toList());
+        assertTrue(reports.get(0).getExpenses().isEmpty());
+        assertEquals(10, reports.get(1).getExpenses().size());
+        assertEquals(0, BigDecimal.valueOf(55).compareTo(reports.get(1).getTotalAmount()));
+    }
+
+    @Test
+    void generateReportsForAllUsers_ScansEachPartitionOnce() {
+        ReportServiceImpl partitionedReportService = new ReportServiceImpl(new ReportPipeline(
+                repositoryManager(), transactionManager, new SimpleMeterRegistry(), 2, 2, 2, 8));
+
+        List<UserReportResponseDTO> reports = partitionedReportService
+                .generateReportsForAllUsers(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31))
+                .join();
+
+        assertStatementCount(2);
+        assertEquals(List.of("user1@example.com", "user2@example.com"),
+                reports.stream().map(UserReportResponseDTO::getUserEmail).toList());
+        assertEquals(EXPENSES_PER_USER, reports.get(1).getExpenses().size());
+    }
+
+    @Test
+    void generateReportsForAllUsers_ReadsOnlyTheUsersOfItsShard() {
+        List<String> dispatched = Collections.synchronizedList(new ArrayList<>());
+        for (int shard = 0; shard < 2; shard++) {
+            int shardIndex = shard;
+            List<String> ofShard = Collections.synchronizedList(new ArrayList<>());
+            reportService.generateReportsForAllUsers(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31),
+                    new ReportCheckpoints() {
+                        @Override
+                        public int getShardCount() {
+                            return 2;
+                        }
+
+                        @Override
+                        public int getShard() {
+                            return shardIndex;
+                        }
+
+                        @Override
+                        public int getPartitions() {
+                            return 1;
+                        }
+
+                        @Override
+                        public String resumeAfter(int partition) {
+                            return "";
+                        }
+
+                        @Override
+                        public void advance(int partition, String lastUserEmail, long sent, long failed) {
+                        }
+                    }, report -> ofShard.add(report.getUserEmail())).join();
+
+            for (String email : ofShard) {
+                assertEquals(shardIndex, User.emailHash(email) % 2);
+            }
+            dispatched.addAll(ofShard);
+        }
+
+        assertEquals(2, SqlStatementCounter.count());
+        assertEquals(List.of("user1@example.com", "user2@example.com"), dispatched.stream().sorted().toList());
+    }
+
+    @Test
+    void generateReportsForAllUsers_ResumesAfterCheckpointInOneQuery() {
+        List<String> dispatched = Collections.synchronizedList(new ArrayList<>());
+        ReportCheckpoints afterUser1 = new ReportCheckpoints() {
+            @Override
+            public int getPartitions() {
+                return 1;
+            }
+
+            @Override
+            public String resumeAfter(int partition) {
+                return "user1@example.com";
+            }
+
+            @Override
+            public void advance(int partition, String lastUserEmail, long sent, long failed) {
+            }
+        };
+
+        ReportRunSummary summary = reportService
+                .generateReportsForAllUsers(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), afterUser1,
+                        report -> dispatched.add(report.getUserEmail()))
+                .join();
+
+        assertStatementCount(1);
+        assertEquals(List.of("user2@example.com"), dispatched);
+        assertEquals(1, summary.getReportsDispatched());
+    }
+
+    @Test
+    void dispatchBatch_ClaimsSendsAndRecordsInFixedNumberOfQueries() {
+        List<UserReportResponseDTO> reports = reportService.generateReportsForAllUsers(
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31)).join();
+        reports.forEach(report -> reportOutbox.add(7L, report));
+        SqlStatementCounter.reset();
+
+        int claimed = dispatcher(3, Duration.ZERO).dispatchBatch();
+
+        // The locking select, the batched lease update and one update marking the batch as sent.
+        assertEquals(2, claimed);
+        assertStatementCount(3);
+        assertTrue(SqlStatementCounter.statements().get(0).contains("skip locked"));
+        verify(mailSender, times(2)).sendEmail(any(UserReportResponseDTO.class));
+        verify(mailSender).sendEmail(argThat(report -> report.getUserEmail().equals("user1@example.com")
+                && report.getExpenses().size() == reports.get(0).getExpenses().size()
+                && report.getTotalAmount().compareTo(reports.get(0).getTotalAmount()) == 0));
+        assertTrue(reportEmailRepository.findAll().stream()
+                .allMatch(email -> email.getStatus() == ReportEmailStatus.SENT && email.getAttempts() == 1));
+    }
+
+    @Test
+    void findById_DoesNotLoadUserOrCategory() {
+        Expense expense = expenseRepository.findAll().get(1);
+        SqlStatementCounter.reset();
+
+        Expense found = expenseRepository.findById(expense.getId()).orElseThrow();
+
+        assertStatementCount(1);
+        assertFalse(SqlStatementCounter.statements().get(0).contains(" join "));
+        assertEquals(users.get(0).getId(), found.getUser().getId());
+    }
+
+    @Test
+    void findByUserEmail_FetchesCategoriesInTheSameQuery() {
+        List<Expense> expenses = expenseRepository.findByUserEmail("user1@example.com");
+        expenses.stream()
+                .filter(expense -> expense.getCategory() != null)
+                .forEach(expense -> assertNotNull(expense.getCategory().getName()));
+
+        assertStatementCount(1);
+    }
+
+    private ReportOutboxDispatcher dispatcher(int maxAttempts, Duration retryBackoff) {
+        return new ReportOutboxDispatcher(repositoryManager(), mailSender, objectMapper, transactionManager,
+                new SimpleMeterRegistry(), 10, 4, maxAttempts, Duration.ofMinutes(5), retryBackoff);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.aiexpensetracker.core.repository;
+
+import com.example.aiexpensetracker.core.model.ReportJob;
+import com.example.aiexpensetracker.core.model.ReportPeriod;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the report job queries against an in-memory H2 database.
+ */
+public class ReportJobRepositoryTest extends JpaTestFixture {
+
+    @Test
+    void claim_OnlySucceedsForTheVersionThatWasRead() {
+        ReportJob job = new ReportJob();
+        job.setPeriod(ReportPeriod.WEEKLY);
+        job.setStartDate(LocalDate.of(2025, 1, 1));
+        job.setEndDate(LocalDate.of(2025, 1, 7));
+        job.setPartitions(1);
+        job.getCheckpoints().put(0, "user1@example.com");
+        ReportJob saved = reportJobRepository.save(job);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        Integer first = transaction.execute(status ->
+                reportJobRepository.claim(saved.getId(), saved.getVersion(), LocalDateTime.now()));
+        Integer second = transaction.execute(status ->
+                reportJobRepository.claim(saved.getId(), saved.getVersion(), LocalDateTime.now()));
+
+        assertEquals(1, first);
+        assertEquals(0, second);
+        ReportJob claimed = reportJobRepository.findById(saved.getId()).orElseThrow();
+        assertEquals(saved.getVersion() + 1, claimed.getVersion());
+        assertEquals("user1@example.com", claimed.getCheckpoints().get(0));
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.aiexpensetracker.core.repository;
+
+import com.example.aiexpensetracker.core.api.mailsender.MailSender;
+import com.example.aiexpensetracker.core.model.ReportEmail;
+import com.example.aiexpensetracker.core.model.ReportEmailStatus;
+import com.example.aiexpensetracker.core.service.report.ReportOutbox;
+import com.example.aiexpensetracker.core.service.report.ReportOutboxDispatcher;
+import com.example.aiexpensetracker.core.service.report.ReportPipeline;
+import com.example.aiexpensetracker.core.service.report.ReportServiceImpl;
+import com.example.aiexpensetracker.rest.dto.report.UserReportResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the report email outbox and its dispatcher against an in-memory H2 database:
+ * the ledger that keeps one email per user and job, and the retries and dead-lettering of failed sends.
+ */
+public class ReportOutboxDispatcherTest extends JpaTestFixture {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final MailSender mailSender = mock(MailSender.class);
+
+    private ReportServiceImpl reportService;
+    private ReportOutbox reportOutbox;
+
+    @BeforeEach
+    void setUp() {
+        reportService = new ReportServiceImpl(new ReportPipeline(
+                repositoryManager(), transactionManager, new SimpleMeterRegistry(), 1, 2, 2, 8));
+        reportOutbox = new ReportOutbox(repositoryManager(), objectMapper, transactionManager, 10);
+    }
+
+    @Test
+    void reportOutbox_SkipsUsersThatAlreadyHaveAnEmailOfTheJob() {
+        List<UserReportResponseDTO> reports = reportService.generateReportsForAllUsers(
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31)).join();
+        assertTrue(reportOutbox.add(7L, reports.get(0)));
+        SqlStatementCounter.reset();
+
+        assertFalse(reportOutbox.add(7L, reports.get(0)));
+        assertTrue(reportOutbox.add(8L, reports.get(0)));
+
+        // Per batch, one lookup in the ledger, plus the insert when the user is new to the job.
+        assertEquals(2, statementsOnReportEmails("select"));
+        assertEquals(1, statementsOnReportEmails("insert"));
+        assertEquals(2, reportEmailRepository.count());
+    }
+
+    @Test
+    void dispatchBatch_RetriesFailedSendsThenDeadLetters() {
+        doThrow(new IllegalStateException("SendGrid is down")).when(mailSender).sendEmail(any());
+        reportEmailRepository.save(new ReportEmail(7L, "a@example.com", "{\"userEmail\":\"a@example.com\"}"));
+        reportEmailRepository.save(new ReportEmail(7L, "b@example.com", "not a report"));
+        ReportOutboxDispatcher dispatcher = dispatcher(2, Duration.ZERO);
+
+        dispatcher.dispatchBatch();
+
+        ReportEmail retried = reportEmailRepository.findAll().stream()
+                .filter(email -> email.getRecipient().equals("a@example.com")).findFirst().orElseThrow();
+        ReportEmail malformed = reportEmailRepository.findAll().stream()
+                .filter(email -> email.getRecipient().equals("b@example.com")).findFirst().orElseThrow();
+        assertEquals(ReportEmailStatus.PENDING, retried.getStatus());
+        assertEquals(1, retried.getAttempts());
+        assertEquals("SendGrid is down", retried.getLastError());
+        assertEquals(ReportEmailStatus.DEAD, malformed.getStatus());
+
+        dispatcher.dispatchBatch();
+
+        retried = reportEmailRepository.findById(retried.getId()).orElseThrow();
+        assertEquals(ReportEmailStatus.DEAD, retried.getStatus());
+        assertEquals(2, retried.getAttempts());
+        assertEquals(0, dispatcher.dispatchBatch());
+        verify(mailSender, times(2)).sendEmail(any());
+    }
+
+    private static long statementsOnReportEmails(String kind) {
+        return SqlStatementCounter.statements().stream()
+                .map(sql -> sql.toLowerCase(Locale.ROOT))
+                .filter(sql -> sql.startsWith(kind) && sql.matches("(?s).*\\breport_emails\\b.*"))
+                .count();
+    }
+
+    private ReportOutboxDispatcher dispatcher(int maxAttempts, Duration retryBackoff) {
+        return new ReportOutboxDispatcher(repositoryManager(), mailSender, objectMapper, transactionManager,
+                new SimpleMeterRegistry(), 10, 4, maxAttempts, Duration.ofMinutes(5), retryBackoff);
+    }
+}
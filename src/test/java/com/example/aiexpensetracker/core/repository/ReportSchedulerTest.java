@@ -0,0 +1,51 @@
+package com.example.aiexpensetracker.core.repository;
+
+import com.example.aiexpensetracker.core.model.ReportPeriod;
+import com.example.aiexpensetracker.core.model.SchedulerLock;
+import com.example.aiexpensetracker.core.service.report.ReportJobService;
+import com.example.aiexpensetracker.core.service.report.ReportScheduler;
+import com.example.aiexpensetracker.rest.dto.report.ReportJobDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the report scheduler of two nodes against one in-memory H2 database,
+ * to check that the scheduler lock lets only one node start each firing.
+ */
+public class ReportSchedulerTest extends JpaTestFixture {
+
+    @Test
+    void reportScheduler_StartsEachFiringOnOneNodeWhileTheLeaseIsHeld() {
+        ReportJobService reportJobService = mock(ReportJobService.class);
+        when(reportJobService.startJob(any())).thenReturn(CompletableFuture.completedFuture(mock(ReportJobDTO.class)));
+        ReportScheduler nodeA = new ReportScheduler(
+                repositoryManager(), reportJobService, transactionManager, Duration.ofMinutes(5), "node-a");
+        ReportScheduler nodeB = new ReportScheduler(
+                repositoryManager(), reportJobService, transactionManager, Duration.ofMinutes(5), "node-b");
+
+        nodeA.startWeeklyReports();
+        nodeB.startWeeklyReports();
+        nodeA.startWeeklyReports();
+        nodeB.startMonthlyReports();
+
+        verify(reportJobService, times(1)).startJob(ReportPeriod.WEEKLY);
+        verify(reportJobService, times(1)).startJob(ReportPeriod.MONTHLY);
+        assertEquals("node-a", schedulerLockRepository.findById("report-weekly").orElseThrow().getLockedBy());
+
+        // Once the lease runs out, the next firing may run on any node.
+        SchedulerLock weeklyLock = schedulerLockRepository.findById("report-weekly").orElseThrow();
+        weeklyLock.setLockedUntil(LocalDateTime.now().minusSeconds(1));
+        schedulerLockRepository.save(weeklyLock);
+        nodeB.startWeeklyReports();
+
+        verify(reportJobService, times(2)).startJob(ReportPeriod.WEEKLY);
+        assertEquals("node-b", schedulerLockRepository.findById("report-weekly").orElseThrow().getLockedBy());
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.aiexpensetracker.core.repository;
+
+import com.example.aiexpensetracker.core.service.cache.UserViewCache;
+import com.example.aiexpensetracker.core.service.statistics.StatisticsGranularity;
+import com.example.aiexpensetracker.core.service.statistics.StatisticsServiceImpl;
+import com.example.aiexpensetracker.rest.dto.statistics.StatisticsBucketDTO;
+import com.example.aiexpensetracker.rest.dto.statistics.StatisticsSeriesDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NoOpCacheManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the statistics queries against an in-memory H2 database and checks the totals they return.
+ */
+public class StatisticsRepositoryTest extends JpaTestFixture {
+
+    private StatisticsServiceImpl statisticsService;
+
+    @BeforeEach
+    void setUp() {
+        statisticsService = new StatisticsServiceImpl(repositoryManager(),
+                new UserViewCache(new NoOpCacheManager(), new SimpleMeterRegistry()), transactionManager);
+    }
+
+    @Test
+    void getStatisticsSeries_FiltersByCategory() {
+        Long categoryId = categoryRepository.findAll().stream()
+                .filter(category -> category.getUser().getId().equals(users.get(0).getId()))
+                .filter(category -> category.getName().equals("Category 2"))
+                .findFirst()
+                .orElseThrow()
+                .getId();
+        SqlStatementCounter.reset();
+
+        StatisticsSeriesDTO series = statisticsService.getStatisticsSeries("user1@example.com",
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 10), StatisticsGranularity.DAY, categoryId).join();
+
+        assertStatementCount(1);
+        assertEquals(10, series.getBuckets().size());
+        // Expenses 0..9 fall on January 1..10; category index i % 3 == 1 and i % 4 != 0 picks 1 and 7.
+        assertEquals(List.of(LocalDate.of(2025, 1, 2), LocalDate.of(2025, 1, 8)), series.getBuckets().stream()
+                .filter(bucket -> bucket.getCount() > 0)
+                .map(StatisticsBucketDTO::getStart)
+                .toList());
+        assertEquals(0, BigDecimal.valueOf(2 + 8).compareTo(series.getTotalAmount()));
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.aiexpensetracker.core.service;
+
+import com.example.aiexpensetracker.core.repository.expense.ExpenseRepository;
+import com.example.aiexpensetracker.core.repository.expense.LabeledDescription;
+import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.core.service.category.CategoryClassifier;
+import com.example.aiexpensetracker.rest.dto.category.CategorySuggestionResponseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class CategoryClassifierTest {
+
+    private static final String EMAIL = "test@example.com";
+    private static final List<String> CATEGORIES = List.of("Transport", "Coffee", "Groceries");
+
+    @Mock
+    private RepositoryManager repositoryManager;
+
+    @Mock
+    private ExpenseRepository expenseRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CategoryClassifier classifier;
+    private final List<LabeledDescription> history = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(repositoryManager.getExpenseRepository()).thenReturn(expenseRepository);
+        when(expenseRepository.findLabeledDescriptions(eq(EMAIL), any(Pageable.class))).thenReturn(history);
+        meterRegistry = new SimpleMeterRegistry();
+        classifier = new CategoryClassifier(repositoryManager, meterRegistry, true, 0.9, 20, 5000, 100,
+                Duration.ofHours(1), Runnable::run);
+
+        for (int i = 0; i < 10; i++) {
+            history.add(new LabeledDescription("Uber ride to office " + i, "Transport"));
+            history.add(new LabeledDescription("Starbucks latte", "Coffee"));
+            history.add(new LabeledDescription("Lidl weekly shop", "Groceries"));
+        }
+    }
+
+    @Test
+    void testClassify_AnswersConfidentlyFromTheUsersHistory() {
+        Optional<CategorySuggestionResponseDTO> suggestion = classifier.classify(EMAIL, "UBER ride home", CATEGORIES);
+
+        assertTrue(suggestion.isPresent());
+        assertEquals("Transport", suggestion.get().getCategoryName());
+        assertEquals(false, suggestion.get().getIsNew());
+        assertEquals(200, suggestion.get().getStatus());
+        assertEquals(1, meterRegistry.get("category.classifier.predictions").tag("outcome", "confident").counter().count());
+    }
+
+    @Test
+    void testClassify_TrainsOncePerUser() {
+        classifier.classify(EMAIL, "Uber ride", CATEGORIES);
+        classifier.classify(EMAIL, "Starbucks", CATEGORIES);
+
+        verify(expenseRepository, times(1)).findLabeledDescriptions(eq(EMAIL), any(Pageable.class));
+    }
+
+    @Test
+    void testClassify_DefersUnknownAndAmbiguousDescriptions() {
+        assertTrue(classifier.classify(EMAIL, "Netflix subscription", CATEGORIES).isEmpty());
+        assertTrue(classifier.classify(EMAIL, "Starbucks at Lidl", CATEGORIES).isEmpty());
+        assertTrue(classifier.classify(EMAIL, "12345", CATEGORIES).isEmpty());
+        assertEquals(3, meterRegistry.get("category.classifier.predictions").tag("outcome", "unsure").counter().count());
+    }
+
+    @Test
+    void testClassify_DefersWithTooLittleHistory() {
+        history.subList(6, history.size()).clear();
+
+        assertTrue(classifier.classify(EMAIL, "Uber ride", CATEGORIES).isEmpty());
+    }
+
+    @Test
+    void testClassify_DefersCategoriesTheUserNoLongerHas() {
+        assertTrue(classifier.classify(EMAIL, "Uber ride", List.of("Coffee", "Groceries")).isEmpty());
+    }
+
+    @Test
+    void testLearn_UpdatesALoadedModelIncrementally() {
+        assertTrue(classifier.classify(EMAIL, "Bolt scooter", CATEGORIES).isEmpty());
+
+        for (int i = 0; i < 10; i++) {
+            classifier.learn(EMAIL, "Bolt scooter", "Transport");
+        }
+        assertEquals("Transport", classifier.classify(EMAIL, "Bolt scooter", CATEGORIES).orElseThrow().getCategoryName());
+
+        for (int i = 0; i < 10; i++) {
+            classifier.unlearn(EMAIL, "Bolt scooter", "Transport");
+        }
+        assertTrue(classifier.classify(EMAIL, "Bolt scooter", CATEGORIES).isEmpty());
+        verify(expenseRepository, times(1)).findLabeledDescriptions(eq(EMAIL), any(Pageable.class));
+    }
+
+    @Test
+    void testClassify_DefersWhileTheModelIsTraining() {
+        List<Runnable> trainings = new ArrayList<>();
+        CategoryClassifier queued = new CategoryClassifier(repositoryManager, meterRegistry, true, 0.9, 20, 5000, 100,
+                Duration.ofHours(1), trainings::add);
+
+        assertTrue(queued.classify(EMAIL, "Uber ride", CATEGORIES).isEmpty());
+        assertTrue(queued.classify(EMAIL, "Uber ride", CATEGORIES).isEmpty());
+        verifyNoInteractions(expenseRepository);
+        assertEquals(2, meterRegistry.get("category.classifier.predictions").tag("outcome", "training").counter().count());
+
+        runAll(trainings);
+
+        assertEquals("Transport", queued.classify(EMAIL, "Uber ride", CATEGORIES).orElseThrow().getCategoryName());
+        verify(expenseRepository, times(1)).findLabeledDescriptions(eq(EMAIL), any(Pageable.class));
+    }
+
+    @Test
+    void testLearn_DuringTraining_RetrainsOnTheNextSuggestion() {
+        List<Runnable> trainings = new ArrayList<>();
+        CategoryClassifier queued = new CategoryClassifier(repositoryManager, meterRegistry, true, 0.9, 20, 5000, 100,
+                Duration.ofHours(1), trainings::add);
+        // The first training reads the expenses, then ten new ones are committed before the model is installed.
+        when(expenseRepository.findLabeledDescriptions(eq(EMAIL), any(Pageable.class))).thenAnswer(invocation -> {
+            List<LabeledDescription> read = List.copyOf(history);
+            for (int i = 0; i < 10; i++) {
+                history.add(new LabeledDescription("Bolt scooter", "Transport"));
+                queued.learn(EMAIL, "Bolt scooter", "Transport");
+            }
+            return read;
+        }).thenReturn(history);
+
+        queued.classify(EMAIL, "Bolt scooter", CATEGORIES);
+        runAll(trainings);
+        assertTrue(queued.classify(EMAIL, "Bolt scooter", CATEGORIES).isEmpty());
+        runAll(trainings);
+
+        assertEquals("Transport", queued.classify(EMAIL, "Bolt scooter", CATEGORIES).orElseThrow().getCategoryName());
+        verify(expenseRepository, times(2)).findLabeledDescriptions(eq(EMAIL), any(Pageable.class));
+    }
+
+    @Test
+    void testForget_RetrainsOnTheNextSuggestion() {
+        classifier.classify(EMAIL, "Uber ride", CATEGORIES);
+
+        classifier.forget(EMAIL);
+        classifier.classify(EMAIL, "Uber ride", CATEGORIES);
+
+        verify(expenseRepository, times(2)).findLabeledDescriptions(eq(EMAIL), any(Pageable.class));
+    }
+
+    @Test
+    void testClassify_DisabledAlwaysDefers() {
+        CategoryClassifier disabled = new CategoryClassifier(repositoryManager, new SimpleMeterRegistry(), false, 0.9,
+                20, 5000, 100, Duration.ofHours(1), Runnable::run);
+
+        assertTrue(disabled.classify(EMAIL, "Uber ride", CATEGORIES).isEmpty());
+        verifyNoInteractions(expenseRepository);
+    }
+
+    private static void runAll(List<Runnable> tasks) {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+}
@@ -5,8 +5,13 @@ import com.example.aiexpensetracker.core.model.Category;
 import com.example.aiexpensetracker.core.model.User;
 import com.example.aiexpensetracker.core.repository.category.CategoryRepository;
 import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.core.repository.rollup.ExpenseRollupRepository;
 import com.example.aiexpensetracker.core.repository.user.UserRepository;
+import com.example.aiexpensetracker.core.service.cache.UserViewCache;
+import com.example.aiexpensetracker.core.service.category.CategoryClassifier;
 import com.example.aiexpensetracker.core.service.category.CategoryServiceImpl;
+import com.example.aiexpensetracker.core.service.category.CategorySuggestionCache;
+import com.example.aiexpensetracker.core.service.category.CategorySuggestionCoalescer;
 import com.example.aiexpensetracker.exception.user.UserNotFoundException;
 import com.example.aiexpensetracker.rest.dto.category.CategoryResponseDTO;
 import com.example.aiexpensetracker.rest.dto.category.CategorySuggestionResponseDTO;
@@ -22,8 +27,13 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class CategoryServiceImplTest {
@@ -37,9 +47,24 @@ public class CategoryServiceImplTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private ExpenseRollupRepository expenseRollupRepository;
+
     @Mock
     private AIService aiService;
 
+    @Mock
+    private UserViewCache userViewCache;
+
+    @Mock
+    private CategorySuggestionCache suggestionCache;
+
+    @Mock
+    private CategoryClassifier classifier;
+
+    @Mock
+    private CategorySuggestionCoalescer suggestionCoalescer;
+
     @InjectMocks
     private CategoryServiceImpl categoryService;
 
@@ -53,6 +78,17 @@ public class CategoryServiceImplTest {
         // Mock RepositoryManager behavior
         when(repositoryManager.getUserRepository()).thenReturn(userRepository);
         when(repositoryManager.getCategoryRepository()).thenReturn(categoryRepository);
+        when(repositoryManager.getExpenseRollupRepository()).thenReturn(expenseRollupRepository);
+        when(suggestionCache.get(any(), any(), any())).thenAnswer(invocation ->
+                invocation.<Supplier<CompletableFuture<CategorySuggestionResponseDTO>>>getArgument(2).get());
+        when(suggestionCoalescer.suggest(any(), any(), anyBoolean(), any())).thenAnswer(invocation ->
+                invocation.<Supplier<CompletableFuture<CategorySuggestionResponseDTO>>>getArgument(3).get());
+        when(suggestionCoalescer.suggestAll(any(), any(), any())).thenAnswer(invocation ->
+                invocation.<Function<List<String>, CompletableFuture<List<CategorySuggestionResponseDTO>>>>getArgument(2)
+                        .apply(invocation.getArgument(1)));
+        when(suggestionCache.getAll(any(), any(), any())).thenAnswer(invocation ->
+                invocation.<Function<List<String>, CompletableFuture<List<CategorySuggestionResponseDTO>>>>getArgument(2)
+                        .apply(invocation.getArgument(0)));
 
         // Initialize test data
         testUser = new User();
@@ -119,7 +155,7 @@ public class CategoryServiceImplTest {
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
         when(categoryRepository.findByUser(testUser)).thenReturn(List.of(testCategory));
         when(aiService.suggestCategory(description, existingCategories))
-                .thenReturn(new CategorySuggestionResponseDTO("Groceries", false, 200));
+                .thenReturn(CompletableFuture.completedFuture(new CategorySuggestionResponseDTO("Groceries", false, 200)));
 
         // When
         CompletableFuture<CategorySuggestionResponseDTO> resultFuture = categoryService.suggestCategory(description, testUser.getEmail());
@@ -128,6 +164,63 @@ public class CategoryServiceImplTest {
         // Then
         assertNotNull(result, "The result should not be null");
         assertEquals("Groceries", result.getCategoryName(), "The suggested category name should be 'Groceries'");
+        verify(suggestionCoalescer).suggest(eq(testUser.getEmail()), eq(description), eq(false), any());
+    }
+
+    @Test
+    void testSuggestCategory_AnswersLocallyWhenTheClassifierIsConfident() {
+        String description = "Lidl weekly shop";
+        List<String> existingCategories = List.of("Groceries");
+
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(categoryRepository.findByUser(testUser)).thenReturn(List.of(testCategory));
+        when(classifier.classify(testUser.getEmail(), description, existingCategories))
+                .thenReturn(Optional.of(new CategorySuggestionResponseDTO("Groceries", false, 200)));
+
+        CategorySuggestionResponseDTO result = categoryService.suggestCategory(description, testUser.getEmail()).join();
+
+        assertEquals("Groceries", result.getCategoryName());
+        verifyNoInteractions(aiService, suggestionCache);
+    }
+
+    // --- Test: suggestCategories ---
+    @Test
+    void testSuggestCategories_AsksTheAIOnceForWhatTheClassifierLeaves() {
+        List<String> existingCategories = List.of("Groceries");
+
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(categoryRepository.findByUser(testUser)).thenReturn(List.of(testCategory));
+        when(classifier.classify(testUser.getEmail(), "Lidl weekly shop", existingCategories))
+                .thenReturn(Optional.of(new CategorySuggestionResponseDTO("Groceries", false, 200)));
+        when(aiService.suggestCategories(List.of("Bus ticket", "Cinema"), existingCategories))
+                .thenReturn(CompletableFuture.completedFuture(List.of(
+                        new CategorySuggestionResponseDTO("Transport", true, 200),
+                        new CategorySuggestionResponseDTO("Entertainment", true, 200))));
+
+        List<CategorySuggestionResponseDTO> result = categoryService
+                .suggestCategories(List.of("Bus ticket", "Lidl weekly shop", "Cinema"), testUser.getEmail())
+                .join();
+
+        assertEquals(List.of("Transport", "Groceries", "Entertainment"),
+                result.stream().map(CategorySuggestionResponseDTO::getCategoryName).toList());
+        verify(aiService, times(1)).suggestCategories(any(), any());
+        verify(aiService, never()).suggestCategory(any(), any());
+        verify(suggestionCoalescer).suggestAll(eq(testUser.getEmail()), eq(List.of("Bus ticket", "Cinema")), any());
+    }
+
+    @Test
+    void testSuggestCategories_AnswersLocallyWhenTheClassifierIsConfidentOfAll() {
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(categoryRepository.findByUser(testUser)).thenReturn(List.of(testCategory));
+        when(classifier.classify(eq(testUser.getEmail()), any(), eq(List.of("Groceries"))))
+                .thenReturn(Optional.of(new CategorySuggestionResponseDTO("Groceries", false, 200)));
+
+        List<CategorySuggestionResponseDTO> result = categoryService
+                .suggestCategories(List.of("Lidl weekly shop", "Aldi"), testUser.getEmail())
+                .join();
+
+        assertEquals(2, result.size());
+        verifyNoInteractions(aiService, suggestionCache);
     }
 
     // --- Test: createCategory ---
@@ -193,5 +286,7 @@ public class CategoryServiceImplTest {
 
         assertDoesNotThrow(resultFuture::join);
         verify(categoryRepository, times(1)).delete(testCategory);
+        verify(expenseRollupRepository, times(1)).deleteByCategoryId(testCategory.getId());
+        verify(userViewCache, times(1)).evictUser(testUser.getEmail());
     }
 }
@@ -0,0 +1,175 @@
+package com.example.aiexpensetracker.core.service;
+
+import com.example.aiexpensetracker.core.model.CategorySuggestion;
+import com.example.aiexpensetracker.core.repository.category.CategorySuggestionRepository;
+import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.core.service.category.CategorySuggestionCache;
+import com.example.aiexpensetracker.rest.dto.category.CategorySuggestionResponseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class CategorySuggestionCacheTest {
+
+    @Mock
+    private RepositoryManager repositoryManager;
+
+    @Mock
+    private CategorySuggestionRepository categorySuggestionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CategorySuggestionCache cache;
+    private final AtomicInteger aiCalls = new AtomicInteger();
+    private final Supplier<CompletableFuture<CategorySuggestionResponseDTO>> suggester = () -> {
+        aiCalls.incrementAndGet();
+        return CompletableFuture.completedFuture(new CategorySuggestionResponseDTO("Transport", false, 200));
+    };
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(repositoryManager.getCategorySuggestionRepository()).thenReturn(categorySuggestionRepository);
+        when(categorySuggestionRepository.findById(anyString())).thenReturn(Optional.empty());
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CategorySuggestionCache(repositoryManager, transactionManager, meterRegistry, 100, Duration.ofDays(30));
+    }
+
+    @Test
+    void testGet_ServesRepeatedDescriptionsFromMemory() {
+        List<String> categories = List.of("Transport", "Groceries");
+
+        cache.get("Uber ride", categories, suggester);
+        CategorySuggestionResponseDTO result = cache.get("  UBER-ride! ", List.of("Groceries", "Transport"), suggester).join();
+
+        assertEquals(1, aiCalls.get());
+        assertEquals("Transport", result.getCategoryName());
+        assertEquals(false, result.getIsNew());
+        assertEquals(200, result.getStatus());
+        assertEquals(1, meterRegistry.get("category.suggestion.cache.requests").tag("result", "memory").counter().count());
+        assertEquals(1, meterRegistry.get("category.suggestion.cache.requests").tag("result", "miss").counter().count());
+        assertEquals(0.5, meterRegistry.get("category.suggestion.cache.hit.ratio").gauge().value());
+        assertEquals(1, meterRegistry.get("category.suggestion.ai.duration").timer().count());
+        verify(categorySuggestionRepository).save(any(CategorySuggestion.class));
+    }
+
+    @Test
+    void testGet_ServesStoredSuggestionsFromTheDatabase() {
+        CategorySuggestion stored = new CategorySuggestion("key", "starbucks", "Coffee", true);
+        when(categorySuggestionRepository.findById(anyString())).thenReturn(Optional.of(stored));
+
+        CategorySuggestionResponseDTO result = cache.get("Starbucks", List.of("Groceries"), suggester).join();
+        cache.get("Starbucks", List.of("Groceries"), suggester);
+
+        assertEquals(0, aiCalls.get());
+        assertEquals("Coffee", result.getCategoryName());
+        assertEquals(true, result.getIsNew());
+        assertEquals(1, meterRegistry.get("category.suggestion.cache.requests").tag("result", "database").counter().count());
+        assertEquals(1, meterRegistry.get("category.suggestion.cache.requests").tag("result", "memory").counter().count());
+        verify(categorySuggestionRepository, times(1)).findById(anyString());
+    }
+
+    @Test
+    void testGet_IgnoresExpiredStoredSuggestions() {
+        CategorySuggestion stored = new CategorySuggestion("key", "starbucks", "Coffee", true);
+        stored.setCreatedAt(LocalDateTime.now().minusDays(31));
+        when(categorySuggestionRepository.findById(anyString())).thenReturn(Optional.of(stored));
+
+        CategorySuggestionResponseDTO result = cache.get("Starbucks", List.of("Groceries"), suggester).join();
+
+        assertEquals(1, aiCalls.get());
+        assertEquals("Transport", result.getCategoryName());
+    }
+
+    @Test
+    void testGet_AsksAgainOnceTheCategoriesChange() {
+        cache.get("Uber ride", List.of("Groceries"), suggester);
+        cache.get("Uber ride", List.of("Groceries", "Transport"), suggester);
+
+        assertEquals(2, aiCalls.get());
+        ArgumentCaptor<CategorySuggestion> saved = ArgumentCaptor.forClass(CategorySuggestion.class);
+        verify(categorySuggestionRepository, times(2)).save(saved.capture());
+        assertNotEquals(saved.getAllValues().get(0).getCacheKey(), saved.getAllValues().get(1).getCacheKey());
+        assertEquals("uber ride", saved.getAllValues().get(0).getDescription());
+    }
+
+    @Test
+    void testGet_DoesNotCacheFailedSuggestions() {
+        Supplier<CompletableFuture<CategorySuggestionResponseDTO>> failing = () -> {
+            aiCalls.incrementAndGet();
+            return CompletableFuture.completedFuture(new CategorySuggestionResponseDTO(null, null, 400));
+        };
+
+        cache.get("Uber ride", List.of("Groceries"), failing);
+        CategorySuggestionResponseDTO result = cache.get("Uber ride", List.of("Groceries"), failing).join();
+
+        assertEquals(2, aiCalls.get());
+        assertEquals(400, result.getStatus());
+        verify(categorySuggestionRepository, never()).save(any());
+    }
+
+    @Test
+    void testGetAll_AsksOnceForTheDistinctMissesAndKeepsTheOrder() {
+        List<String> categories = List.of("Transport", "Coffee");
+        cache.get("Uber ride", categories, suggester);
+        // Only the first miss, "Starbucks", is stored.
+        when(categorySuggestionRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            String key = invocation.<Iterable<String>>getArgument(0).iterator().next();
+            return List.of(new CategorySuggestion(key, "starbucks", "Coffee", false));
+        });
+        List<List<String>> asked = new ArrayList<>();
+
+        List<CategorySuggestionResponseDTO> result = cache.getAll(
+                List.of("Starbucks", "UBER ride", "Bolt scooter", "bolt  scooter!"),
+                categories,
+                descriptions -> {
+                    asked.add(descriptions);
+                    return CompletableFuture.completedFuture(
+                            List.of(new CategorySuggestionResponseDTO("Transport", true, 200)));
+                }).join();
+
+        assertEquals(List.of(List.of("Bolt scooter")), asked);
+        assertEquals(List.of("Coffee", "Transport", "Transport", "Transport"),
+                result.stream().map(CategorySuggestionResponseDTO::getCategoryName).toList());
+        assertEquals(true, result.get(2).getIsNew());
+        assertEquals(1, meterRegistry.get("category.suggestion.cache.requests").tag("result", "memory").counter().count());
+        assertEquals(1, meterRegistry.get("category.suggestion.cache.requests").tag("result", "database").counter().count());
+        assertEquals(3, meterRegistry.get("category.suggestion.cache.requests").tag("result", "miss").counter().count());
+        verify(categorySuggestionRepository, times(1)).findAllById(anyIterable());
+        verify(categorySuggestionRepository, times(1)).saveAll(anyIterable());
+    }
+
+    @Test
+    void testGetAll_FailsTheDescriptionsTheAIServiceLeftOut() {
+        List<CategorySuggestionResponseDTO> result = cache.getAll(
+                List.of("Uber ride", "Starbucks"),
+                List.of("Transport"),
+                descriptions -> CompletableFuture.completedFuture(
+                        List.of(new CategorySuggestionResponseDTO("Transport", false, 200)))).join();
+
+        assertEquals(200, result.get(0).getStatus());
+        assertEquals(400, result.get(1).getStatus());
+        verify(categorySuggestionRepository, never()).findById(anyString());
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.aiexpensetracker.core.service;
+
+import com.example.aiexpensetracker.core.service.category.CategorySuggestionCoalescer;
+import com.example.aiexpensetracker.rest.dto.category.CategorySuggestionResponseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CategorySuggestionCoalescerTest {
+
+    private static final String EMAIL = "test@example.com";
+
+    private SimpleMeterRegistry meterRegistry;
+    private CategorySuggestionCoalescer coalescer;
+    private final List<CompletableFuture<CategorySuggestionResponseDTO>> calls = new CopyOnWriteArrayList<>();
+    private final Supplier<CompletableFuture<CategorySuggestionResponseDTO>> suggester = () -> {
+        CompletableFuture<CategorySuggestionResponseDTO> call = new CompletableFuture<>();
+        calls.add(call);
+        return call;
+    };
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new CategorySuggestionCoalescer(meterRegistry, Duration.ofMillis(50));
+    }
+
+    @Test
+    void testSuggest_SharesOneCallBetweenConcurrentIdenticalSuggestions() {
+        CompletableFuture<CategorySuggestionResponseDTO> first = coalescer.suggest(EMAIL, "Uber ride", false, suggester);
+        CompletableFuture<CategorySuggestionResponseDTO> second = coalescer.suggest(EMAIL, " UBER ride!", false, suggester);
+        CompletableFuture<CategorySuggestionResponseDTO> otherUser =
+                coalescer.suggest("other@example.com", "Uber ride", false, suggester);
+
+        assertEquals(2, calls.size());
+        calls.get(0).complete(new CategorySuggestionResponseDTO("Transport", false, 200));
+
+        assertEquals("Transport", first.join().getCategoryName());
+        assertEquals("Transport", second.join().getCategoryName());
+        assertFalse(otherUser.isDone());
+        assertEquals(1, meterRegistry.get("category.suggestion.coalesced").counter().count());
+    }
+
+    @Test
+    void testSuggest_AsksAgainOnceTheSharedCallCompleted() {
+        coalescer.suggest(EMAIL, "Uber ride", false, suggester);
+        calls.get(0).complete(new CategorySuggestionResponseDTO("Transport", false, 200));
+
+        coalescer.suggest(EMAIL, "Uber ride", false, suggester);
+
+        assertEquals(2, calls.size());
+    }
+
+    @Test
+    void testSuggest_SharesFailuresAndThenAsksAgain() {
+        CompletableFuture<CategorySuggestionResponseDTO> first = coalescer.suggest(EMAIL, "Uber ride", false, suggester);
+        CompletableFuture<CategorySuggestionResponseDTO> second = coalescer.suggest(EMAIL, "Uber ride", false, suggester);
+        calls.get(0).completeExceptionally(new IllegalStateException("down"));
+
+        assertThrows(CompletionException.class, first::join);
+        assertThrows(CompletionException.class, second::join);
+        coalescer.suggest(EMAIL, "Uber ride", false, suggester);
+        assertEquals(2, calls.size());
+    }
+
+    @Test
+    void testSuggest_CancellingOneCallerLeavesTheOthers() {
+        CompletableFuture<CategorySuggestionResponseDTO> first = coalescer.suggest(EMAIL, "Uber ride", false, suggester);
+        CompletableFuture<CategorySuggestionResponseDTO> second = coalescer.suggest(EMAIL, "Uber ride", false, suggester);
+
+        first.cancel(true);
+        calls.get(0).complete(new CategorySuggestionResponseDTO("Transport", false, 200));
+
+        assertEquals("Transport", second.join().getCategoryName());
+    }
+
+    @Test
+    void testSuggest_DebouncedSuggestionsAreSupersededByNewerOnes() {
+        CompletableFuture<CategorySuggestionResponseDTO> typing = coalescer.suggest(EMAIL, "Ub", true, suggester);
+        CompletableFuture<CategorySuggestionResponseDTO> typed = coalescer.suggest(EMAIL, "Uber ride", true, suggester);
+
+        assertEquals(409, typing.join().getStatus());
+        assertTrue(calls.isEmpty());
+
+        // The newer one starts once the debounce window passed.
+        CompletableFuture<CategorySuggestionResponseDTO> call = awaitCall();
+        call.complete(new CategorySuggestionResponseDTO("Transport", false, 200));
+        assertEquals("Transport", typed.join().getCategoryName());
+        assertEquals(1, calls.size());
+        assertEquals(1, meterRegistry.get("category.suggestion.superseded").counter().count());
+    }
+
+    @Test
+    void testSuggest_RepeatedDebouncedSuggestionsShareTheAnswer() {
+        CompletableFuture<CategorySuggestionResponseDTO> first = coalescer.suggest(EMAIL, "Uber ride", true, suggester);
+        CompletableFuture<CategorySuggestionResponseDTO> again = coalescer.suggest(EMAIL, "Uber ride", true, suggester);
+
+        awaitCall().complete(new CategorySuggestionResponseDTO("Transport", false, 200));
+
+        assertEquals("Transport", first.join().getCategoryName());
+        assertEquals("Transport", again.join().getCategoryName());
+        assertEquals(0, meterRegistry.get("category.suggestion.superseded").counter().count());
+    }
+
+    @Test
+    void testSuggestAll_SharesSuggestionsWithSingleOnesBothWays() {
+        CompletableFuture<CategorySuggestionResponseDTO> single = coalescer.suggest(EMAIL, "Uber ride", false, suggester);
+        List<List<String>> asked = new ArrayList<>();
+        CompletableFuture<List<CategorySuggestionResponseDTO>> batchAnswer = new CompletableFuture<>();
+
+        CompletableFuture<List<CategorySuggestionResponseDTO>> batch = coalescer.suggestAll(
+                EMAIL, List.of("uber ride", "Lidl", "LIDL", "Cinema"), descriptions -> {
+                    asked.add(descriptions);
+                    return batchAnswer;
+                });
+        CompletableFuture<CategorySuggestionResponseDTO> cinema = coalescer.suggest(EMAIL, "Cinema", false, suggester);
+
+        assertEquals(List.of(List.of("Lidl", "Cinema")), asked);
+        assertEquals(1, calls.size());
+        calls.get(0).complete(new CategorySuggestionResponseDTO("Transport", false, 200));
+        batchAnswer.complete(List.of(
+                new CategorySuggestionResponseDTO("Groceries", false, 200),
+                new CategorySuggestionResponseDTO("Entertainment", true, 200)));
+
+        assertEquals(List.of("Transport", "Groceries", "Groceries", "Entertainment"),
+                batch.join().stream().map(CategorySuggestionResponseDTO::getCategoryName).toList());
+        assertEquals("Transport", single.join().getCategoryName());
+        assertEquals("Entertainment", cinema.join().getCategoryName());
+        assertEquals(2, meterRegistry.get("category.suggestion.coalesced").counter().count());
+    }
+
+    @Test
+    void testSuggestAll_FailsTheSharedSuggestionsOnAnIncompleteAnswer() {
+        CompletableFuture<List<CategorySuggestionResponseDTO>> batchAnswer = new CompletableFuture<>();
+        CompletableFuture<List<CategorySuggestionResponseDTO>> batch =
+                coalescer.suggestAll(EMAIL, List.of("Lidl", "Cinema"), descriptions -> batchAnswer);
+        CompletableFuture<CategorySuggestionResponseDTO> cinema = coalescer.suggest(EMAIL, "Cinema", false, suggester);
+
+        batchAnswer.complete(List.of(new CategorySuggestionResponseDTO("Groceries", false, 200)));
+
+        assertThrows(CompletionException.class, batch::join);
+        assertThrows(CompletionException.class, cinema::join);
+        coalescer.suggest(EMAIL, "Cinema", false, suggester);
+        assertEquals(1, calls.size());
+    }
+
+    private CompletableFuture<CategorySuggestionResponseDTO> awaitCall() {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (calls.isEmpty()) {
+            assertTrue(System.nanoTime() < deadline, "The debounced suggestion did not start");
+            Thread.onSpinWait();
+        }
+        return calls.get(0);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.aiexpensetracker.core.service;
+
+import com.example.aiexpensetracker.core.repository.expense.ExpenseSummary;
+import com.example.aiexpensetracker.core.service.analytics.ExpenseAggregates;
+import com.example.aiexpensetracker.core.service.analytics.ExpenseColumns;
+import com.example.aiexpensetracker.core.service.analytics.ExpenseGroups;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpenseAggregatesTest {
+
+    private ExpenseColumns columns;
+
+    @BeforeEach
+    void setUp() {
+        columns = ExpenseColumns.of(List.of(
+                summary(1L, "12.50", LocalDate.of(2025, 1, 5), "Groceries"),
+                summary(2L, "100", LocalDate.of(2025, 3, 1), "Rent"),
+                summary(3L, "7.25", LocalDate.of(2025, 1, 31), null),
+                summary(4L, "30.00", LocalDate.of(2025, 3, 15), "Groceries"),
+                summary(5L, "0.75", LocalDate.of(2024, 12, 31), "Groceries")
+        ));
+    }
+
+    // --- Test: ExpenseColumns.of ---
+    @Test
+    void testColumns_UseWidestScaleAndCategoryOrdinals() {
+        assertEquals(5, columns.size());
+        assertEquals(2, columns.scale());
+        assertEquals(10000, columns.amount(1));
+        assertEquals(LocalDate.of(2025, 1, 31).toEpochDay(), columns.epochDay(2));
+        assertEquals(3, columns.categoryCount());
+        assertEquals("Groceries", columns.categoryLabel(columns.category(3)));
+        assertEquals(ExpenseColumns.UNCATEGORIZED, columns.categoryLabel(columns.category(2)));
+        assertEquals(-1, columns.categoryOrdinal("Travel"));
+    }
+
+    // --- Test: sum, min, max, percentile ---
+    @Test
+    void testScalarAggregates() {
+        assertEquals(new BigDecimal("150.50"), columns.toAmount(ExpenseAggregates.sum(columns)));
+        assertEquals(75, ExpenseAggregates.min(columns));
+        assertEquals(10000, ExpenseAggregates.max(columns));
+        assertEquals(1250, ExpenseAggregates.percentile(columns, 50));
+        assertEquals(75, ExpenseAggregates.percentile(columns, 1));
+        assertEquals(10000, ExpenseAggregates.percentile(columns, 100));
+    }
+
+    @Test
+    void testScalarAggregates_Empty() {
+        ExpenseColumns empty = ExpenseColumns.of(List.of());
+
+        assertEquals(BigDecimal.ZERO, empty.toAmount(ExpenseAggregates.sum(empty)));
+        assertThrows(NoSuchElementException.class, () -> ExpenseAggregates.max(empty));
+        assertThrows(IllegalArgumentException.class, () -> ExpenseAggregates.percentile(columns, 0));
+        assertEquals(0, ExpenseAggregates.groupByMonth(empty).groupCount());
+    }
+
+    // --- Test: groupByCategory ---
+    @Test
+    void testGroupByCategory() {
+        ExpenseGroups groups = ExpenseAggregates.groupByCategory(columns);
+
+        int groceries = groups.indexOf(columns.categoryOrdinal("Groceries"));
+        assertEquals(3, groups.groupCount());
+        assertEquals(3, groups.count(groceries));
+        assertEquals(4325, groups.sum(groceries));
+        assertEquals(List.of(0, 3, 4), List.of(groups.row(groceries, 0), groups.row(groceries, 1), groups.row(groceries, 2)));
+    }
+
+    // --- Test: groupByMonth ---
+    @Test
+    void testGroupByMonth_SkipsEmptyMonths() {
+        ExpenseGroups groups = ExpenseAggregates.groupByMonth(columns);
+
+        assertEquals(3, groups.groupCount());
+        assertEquals(LocalDate.of(2024, 12, 1), ExpenseColumns.monthStart(groups.key(0)));
+        assertEquals(2, groups.count(groups.indexOf(ExpenseColumns.epochMonth(LocalDate.of(2025, 1, 1)))));
+        assertEquals(13000, groups.sum(groups.indexOf(ExpenseColumns.epochMonth(LocalDate.of(2025, 3, 1)))));
+        assertEquals(-1, groups.indexOf(ExpenseColumns.epochMonth(LocalDate.of(2025, 2, 1))));
+    }
+
+    private ExpenseSummary summary(Long id, String amount, LocalDate date, String categoryName) {
+        return new ExpenseSummary(id, new BigDecimal(amount), date, "Expense " + id, categoryName);
+    }
+}
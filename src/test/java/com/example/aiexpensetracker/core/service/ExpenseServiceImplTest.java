@@ -3,29 +3,55 @@ package com.example.aiexpensetracker.core.service;
 import com.example.aiexpensetracker.core.model.Category;
 import com.example.aiexpensetracker.core.model.Expense;
 import com.example.aiexpensetracker.core.model.User;
+import com.example.aiexpensetracker.core.repository.category.CategoryRepository;
+import com.example.aiexpensetracker.core.repository.expense.CategorizedExpense;
 import com.example.aiexpensetracker.core.repository.expense.ExpenseRepository;
 import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.core.repository.rollup.ExpenseRollupRepository;
 import com.example.aiexpensetracker.core.repository.user.UserRepository;
+import com.example.aiexpensetracker.core.service.cache.UserViewCache;
+import com.example.aiexpensetracker.core.service.category.CategoryClassifier;
+import com.example.aiexpensetracker.core.service.expense.ExpenseCursor;
+import com.example.aiexpensetracker.core.service.expense.ExpenseExportFormat;
 import com.example.aiexpensetracker.core.service.expense.ExpenseServiceImpl;
+import com.example.aiexpensetracker.exception.ErrorResponse;
+import com.example.aiexpensetracker.exception.expense.ExpenseImportException;
 import com.example.aiexpensetracker.exception.expense.ExpenseNotFoundException;
 import com.example.aiexpensetracker.exception.expense.ExpenseOwnershipException;
+import com.example.aiexpensetracker.exception.expense.InvalidExpenseCursorException;
+import com.example.aiexpensetracker.exception.expense.InvalidExpenseFilterException;
 import com.example.aiexpensetracker.exception.user.UserNotFoundException;
 import com.example.aiexpensetracker.rest.dto.expense.CreateExpenseDTO;
+import com.example.aiexpensetracker.rest.dto.expense.ExpenseImportResultDTO;
+import com.example.aiexpensetracker.rest.dto.expense.ExpensePageDTO;
 import com.example.aiexpensetracker.rest.dto.expense.ExpenseResponseDTO;
+import com.example.aiexpensetracker.rest.dto.expense.ExpensesByCategoryDTO;
 import com.example.aiexpensetracker.rest.dto.expense.UpdateExpenseDTO;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -41,6 +67,21 @@ public class ExpenseServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private ExpenseRollupRepository expenseRollupRepository;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Mock
+    private UserViewCache userViewCache;
+
+    @Mock
+    private CategoryClassifier classifier;
+
     @InjectMocks
     private ExpenseServiceImpl expenseService;
 
@@ -54,6 +95,8 @@ public class ExpenseServiceImplTest {
 
         when(repositoryManager.getExpenseRepository()).thenReturn(expenseRepository);
         when(repositoryManager.getUserRepository()).thenReturn(userRepository);
+        when(repositoryManager.getCategoryRepository()).thenReturn(categoryRepository);
+        when(repositoryManager.getExpenseRollupRepository()).thenReturn(expenseRollupRepository);
 
         // Create test user
         testUser = new User();
@@ -78,9 +121,9 @@ public class ExpenseServiceImplTest {
     // --- Test: getAllExpensesByUser ---
     @Test
     void testGetAllExpensesByUser_Success() throws Exception {
-        List<Expense> expenses = new ArrayList<>(List.of(testExpense));
+        List<ExpenseResponseDTO> expenses = new ArrayList<>(List.of(toResponse(testExpense)));
 
-        when(expenseRepository.findByUserEmail(testUser.getEmail()))
+        when(expenseRepository.findResponses(ArgumentMatchers.<Specification<Expense>>any(), any(Sort.class)))
                 .thenReturn(expenses);
 
         CompletableFuture<List<ExpenseResponseDTO>> resultFuture =
@@ -92,6 +135,292 @@ public class ExpenseServiceImplTest {
         assertEquals(testExpense.getAmount(), result.get(0).getAmount());
     }
 
+    @Test
+    void testGetAllExpensesByUser_SortsInQuery() throws Exception {
+        when(expenseRepository.findResponses(ArgumentMatchers.<Specification<Expense>>any(), any(Sort.class)))
+                .thenReturn(new ArrayList<>(List.of(toResponse(testExpense))));
+
+        expenseService.getAllExpensesByUser(testUser.getEmail(), "amount", "desc", "amount", "50..150").get();
+
+        verify(expenseRepository).findResponses(ArgumentMatchers.<Specification<Expense>>any(),
+                eq(Sort.by(Sort.Direction.DESC, "amount", "id")));
+        verify(expenseRepository, never()).findByUserEmail(anyString());
+        verify(expenseRepository, never()).findAll(ArgumentMatchers.<Specification<Expense>>any(), any(Sort.class));
+    }
+
+    @Test
+    void testGetAllExpensesByUser_InvalidFilterValue() {
+        CompletableFuture<List<ExpenseResponseDTO>> resultFuture =
+                expenseService.getAllExpensesByUser(testUser.getEmail(), null, null, "date", "not-a-date");
+
+        assertThrows(InvalidExpenseFilterException.class, () -> {
+            try {
+                resultFuture.join();
+            } catch (CompletionException ex) {
+                throw (RuntimeException) ex.getCause();
+            }
+        });
+    }
+
+    // --- Test: getExpensesPageByUser ---
+    @Test
+    void testGetExpensesPageByUser_ReturnsNextCursorWhenMoreRowsExist() throws Exception {
+        Expense secondExpense = new Expense();
+        secondExpense.setId(2L);
+        secondExpense.setUser(testUser);
+        secondExpense.setAmount(BigDecimal.valueOf(50.00));
+        secondExpense.setDate(testExpense.getDate().plusDays(1));
+
+        when(expenseRepository.findResponses(ArgumentMatchers.<Specification<Expense>>any(), any(Sort.class), eq(2)))
+                .thenReturn(new ArrayList<>(List.of(toResponse(testExpense), toResponse(secondExpense))));
+
+        ExpensePageDTO page = expenseService
+                .getExpensesPageByUser(testUser.getEmail(), "date", "asc", null, null, null, 1)
+                .get();
+
+        assertEquals(1, page.getExpenses().size());
+        assertEquals(testExpense.getId(), page.getExpenses().get(0).getId());
+        assertNotNull(page.getNext());
+        assertDoesNotThrow(() -> ExpenseCursor.decode(page.getNext(), "date", false));
+    }
+
+    @Test
+    void testGetExpensesPageByUser_LastPageHasNoCursor() throws Exception {
+        when(expenseRepository.findResponses(ArgumentMatchers.<Specification<Expense>>any(), any(Sort.class), eq(11)))
+                .thenReturn(new ArrayList<>(List.of(toResponse(testExpense))));
+
+        ExpensePageDTO page = expenseService
+                .getExpensesPageByUser(testUser.getEmail(), null, null, null, null, null, 10)
+                .get();
+
+        assertEquals(1, page.getExpenses().size());
+        assertNull(page.getNext());
+    }
+
+    @Test
+    void testGetExpensesPageByUser_CursorForDifferentSortOrder() {
+        String cursor = ExpenseCursor.after(toResponse(testExpense), "date", false).encode();
+
+        CompletableFuture<ExpensePageDTO> resultFuture = expenseService
+                .getExpensesPageByUser(testUser.getEmail(), "amount", "asc", null, null, cursor, 10);
+
+        assertThrows(InvalidExpenseCursorException.class, () -> {
+            try {
+                resultFuture.join();
+            } catch (CompletionException ex) {
+                throw (RuntimeException) ex.getCause();
+            }
+        });
+    }
+
+    // --- Test: getExpensesGroupedByCategory ---
+    @Test
+    void testGetExpensesGroupedByCategory_GroupsOrderedRows() throws Exception {
+        when(userRepository.existsByEmail(testUser.getEmail())).thenReturn(true);
+        when(expenseRepository.findCategorizedByUserEmail(testUser.getEmail())).thenReturn(List.of(
+                categorized("Groceries", 1L, 10),
+                categorized("Groceries", 2L, 5),
+                categorized(null, 3L, 7)));
+
+        List<ExpensesByCategoryDTO> groups = expenseService
+                .getExpensesGroupedByCategory(testUser.getEmail(), true).get();
+
+        assertEquals(2, groups.size());
+        assertEquals("Groceries", groups.get(0).getCategory());
+        assertEquals(2, groups.get(0).getCount());
+        assertEquals(BigDecimal.valueOf(15), groups.get(0).getTotalAmount());
+        assertEquals(List.of(1L, 2L), groups.get(0).getExpenses().stream().map(ExpenseResponseDTO::getId).toList());
+        assertEquals("Uncategorized", groups.get(1).getCategory());
+        verify(categoryRepository, never()).findAll();
+    }
+
+    @Test
+    void testGetExpensesGroupedByCategory_SummaryOnly() throws Exception {
+        when(userRepository.existsByEmail(testUser.getEmail())).thenReturn(true);
+        when(expenseRepository.summarizeByCategory(testUser.getEmail())).thenReturn(List.of(
+                new ExpensesByCategoryDTO("Groceries", 2L, BigDecimal.valueOf(15)),
+                new ExpensesByCategoryDTO(null, 1L, BigDecimal.valueOf(7))));
+
+        List<ExpensesByCategoryDTO> summaries = expenseService
+                .getExpensesGroupedByCategory(testUser.getEmail(), false).get();
+
+        assertEquals("Uncategorized", summaries.get(1).getCategory());
+        assertNull(summaries.get(0).getExpenses());
+        verify(expenseRepository, never()).findCategorizedByUserEmail(anyString());
+    }
+
+    @Test
+    void testGetExpensesGroupedByCategory_UserNotFound() {
+        when(userRepository.existsByEmail(testUser.getEmail())).thenReturn(false);
+
+        assertThrows(UserNotFoundException.class, () -> {
+            try {
+                expenseService.getExpensesGroupedByCategory(testUser.getEmail(), true).join();
+            } catch (CompletionException ex) {
+                throw (RuntimeException) ex.getCause();
+            }
+        });
+    }
+
+    // --- Test: exportExpenses ---
+    @Test
+    void testExportExpenses_Csv() throws Exception {
+        testExpense.setDescription("Coffee, \"large\"");
+        when(expenseRepository.streamByUserEmail(testUser.getEmail())).thenReturn(Stream.of(testExpense));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        expenseService.exportExpenses(testUser.getEmail(), ExpenseExportFormat.CSV, output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, lines.length);
+        assertEquals("id,date,amount,categoryId,categoryName,description,createdAt,updatedAt", lines[0]);
+        assertTrue(lines[1].startsWith("1," + testExpense.getDate() + ",100.0,1,Groceries,\"Coffee, \"\"large\"\"\","));
+        verify(expenseRepository).detach(testExpense);
+    }
+
+    @Test
+    void testExportExpenses_Ndjson() throws Exception {
+        Expense uncategorized = new Expense();
+        uncategorized.setId(2L);
+        uncategorized.setUser(testUser);
+        uncategorized.setAmount(BigDecimal.valueOf(5));
+        uncategorized.setDate(LocalDate.of(2025, 1, 2));
+
+        when(expenseRepository.streamByUserEmail(testUser.getEmail()))
+                .thenReturn(Stream.of(testExpense, uncategorized));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        expenseService.exportExpenses(testUser.getEmail(), ExpenseExportFormat.NDJSON, output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,"));
+        assertTrue(lines[0].contains("\"categoryName\":\"Groceries\""));
+        assertTrue(lines[1].contains("\"categoryId\":null"));
+    }
+
+    // --- Test: importExpenses ---
+    @Test
+    void testImportExpenses_Success() throws Exception {
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(categoryRepository.findByUser(testUser)).thenReturn(List.of(testCategory));
+
+        CreateExpenseDTO first = new CreateExpenseDTO();
+        first.setAmount(BigDecimal.valueOf(12.5));
+        first.setDate(LocalDate.of(2025, 1, 1));
+        first.setCategoryId(testCategory.getId());
+        CreateExpenseDTO second = new CreateExpenseDTO();
+        second.setAmount(BigDecimal.valueOf(3));
+        second.setDate(LocalDate.of(2025, 1, 2));
+
+        ExpenseImportResultDTO result = expenseService.importExpenses(testUser.getEmail(), List.of(first, second)).get();
+
+        assertEquals(2, result.getImportedCount());
+        ArgumentCaptor<List<Expense>> captor = ArgumentCaptor.forClass(List.class);
+        verify(expenseRepository).persistInBatches(captor.capture(), eq(500));
+        assertEquals(testCategory, captor.getValue().get(0).getCategory());
+        assertNull(captor.getValue().get(1).getCategory());
+        verify(userRepository, times(1)).findByEmail(testUser.getEmail());
+        verify(categoryRepository, never()).findById(any());
+        verify(expenseRollupRepository).addDelta(1L, LocalDate.of(2025, 1, 1), 1L, 1L, BigDecimal.valueOf(12.5));
+        verify(expenseRollupRepository).addDelta(1L, LocalDate.of(2025, 1, 1), 0L, 1L, BigDecimal.valueOf(3));
+        verify(userViewCache).evictUser(testUser.getEmail());
+    }
+
+    @Test
+    void testImportExpenses_ReportsRowErrorsAndImportsNothing() {
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(categoryRepository.findByUser(testUser)).thenReturn(List.of(testCategory));
+
+        CreateExpenseDTO valid = new CreateExpenseDTO();
+        valid.setAmount(BigDecimal.ONE);
+        valid.setDate(LocalDate.of(2025, 1, 1));
+        CreateExpenseDTO missingAmount = new CreateExpenseDTO();
+        missingAmount.setDate(LocalDate.of(2025, 1, 1));
+        CreateExpenseDTO foreignCategory = new CreateExpenseDTO();
+        foreignCategory.setAmount(BigDecimal.ONE);
+        foreignCategory.setDate(LocalDate.of(2025, 1, 1));
+        foreignCategory.setCategoryId(99L);
+
+        ExpenseImportException ex = assertThrows(ExpenseImportException.class, () -> {
+            try {
+                expenseService.importExpenses(testUser.getEmail(), List.of(valid, missingAmount, foreignCategory)).join();
+            } catch (CompletionException e) {
+                throw (RuntimeException) e.getCause();
+            }
+        });
+
+        assertEquals(List.of("rows[2].amount", "rows[3].categoryId"),
+                ex.getDetails().stream().map(ErrorResponse.ErrorDetail::getField).toList());
+        verify(expenseRepository, never()).persistInBatches(anyList(), anyInt());
+        verifyNoInteractions(expenseRollupRepository);
+    }
+
+    @Test
+    void testImportExpenses_ReportsNullRowsAndImportsNothing() {
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(categoryRepository.findByUser(testUser)).thenReturn(List.of(testCategory));
+
+        CreateExpenseDTO valid = new CreateExpenseDTO();
+        valid.setAmount(BigDecimal.ONE);
+        valid.setDate(LocalDate.of(2025, 1, 1));
+
+        ExpenseImportException ex = assertThrows(ExpenseImportException.class, () -> {
+            try {
+                expenseService.importExpenses(testUser.getEmail(), Arrays.asList(valid, null, valid)).join();
+            } catch (CompletionException e) {
+                throw (RuntimeException) e.getCause();
+            }
+        });
+
+        assertEquals(List.of("rows[2].row"),
+                ex.getDetails().stream().map(ErrorResponse.ErrorDetail::getField).toList());
+        verify(expenseRepository, never()).persistInBatches(anyList(), anyInt());
+    }
+
+    @Test
+    void testImportExpensesFromCsv_Success() throws Exception {
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(categoryRepository.findByUser(testUser)).thenReturn(List.of(testCategory));
+
+        String csv = "date,amount,description,categoryId\r\n"
+                + "2025-01-01,12.50,\"Coffee, \"\"large\"\"\",1\r\n"
+                + "2025-01-02,3,,\r\n";
+
+        ExpenseImportResultDTO result = expenseService.importExpensesFromCsv(
+                testUser.getEmail(), new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))).get();
+
+        assertEquals(2, result.getImportedCount());
+        ArgumentCaptor<List<Expense>> captor = ArgumentCaptor.forClass(List.class);
+        verify(expenseRepository).persistInBatches(captor.capture(), anyInt());
+        Expense first = captor.getValue().get(0);
+        assertEquals(new BigDecimal("12.50"), first.getAmount());
+        assertEquals("Coffee, \"large\"", first.getDescription());
+        assertEquals(testCategory, first.getCategory());
+        assertNull(captor.getValue().get(1).getDescription());
+    }
+
+    @Test
+    void testImportExpensesFromCsv_InvalidValues() {
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(categoryRepository.findByUser(testUser)).thenReturn(List.of(testCategory));
+
+        String csv = "date,amount\n2025-13-01,1\n2025-01-01,abc\n";
+
+        ExpenseImportException ex = assertThrows(ExpenseImportException.class, () -> {
+            try {
+                expenseService.importExpensesFromCsv(
+                        testUser.getEmail(), new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))).join();
+            } catch (CompletionException e) {
+                throw (RuntimeException) e.getCause();
+            }
+        });
+
+        assertEquals(List.of("rows[1].date", "rows[2].amount"),
+                ex.getDetails().stream().map(ErrorResponse.ErrorDetail::getField).toList());
+        verify(expenseRepository, never()).persistInBatches(anyList(), anyInt());
+    }
+
     // --- Test: createExpense ---
     @Test
     void testCreateExpense_Success() throws Exception {
@@ -109,6 +438,10 @@ public class ExpenseServiceImplTest {
 
         assertNotNull(result);
         assertEquals(testExpense.getAmount(), result.getAmount());
+        verify(expenseRollupRepository).addDelta(
+                1L, testExpense.getDate().withDayOfMonth(1), 1L, 1L, testExpense.getAmount());
+        verify(userViewCache).evictUser(testUser.getEmail());
+        verify(classifier).learn(testUser.getEmail(), "Test expense", "Groceries");
     }
 
     @Test
@@ -119,18 +452,17 @@ public class ExpenseServiceImplTest {
         when(repositoryManager.getUserRepository().findByEmail("nonexistent@example.com"))
                 .thenReturn(Optional.empty());
 
-        CompletableFuture<ExpenseResponseDTO> resultFuture =
-                expenseService.createExpense(dto, "nonexistent@example.com");
-
         assertThrows(UserNotFoundException.class, () -> {
             try {
-                resultFuture.join();
+                expenseService.createExpense(dto, "nonexistent@example.com").join();
             } catch (CompletionException ex) {
                 throw (RuntimeException) ex.getCause();
             }
         });
 
         verify(repositoryManager.getUserRepository(), times(1)).findByEmail("nonexistent@example.com");
+        verifyNoInteractions(expenseRollupRepository);
+        verifyNoInteractions(userViewCache);
     }
 
     // --- Test: updateExpense ---
@@ -145,12 +477,18 @@ public class ExpenseServiceImplTest {
         when(expenseRepository.findById(testExpense.getId())).thenReturn(Optional.of(testExpense));
         when(expenseRepository.save(any(Expense.class))).thenReturn(testExpense);
 
+        LocalDate month = testExpense.getDate().withDayOfMonth(1);
+
         CompletableFuture<ExpenseResponseDTO> resultFuture =
                 expenseService.updateExpense(testUser.getEmail(), testExpense.getId(), dto);
         ExpenseResponseDTO result = resultFuture.get();
 
         assertNotNull(result);
         assertEquals(testExpense.getAmount(), result.getAmount());
+        verify(expenseRollupRepository).addDelta(1L, month, 1L, -1L, BigDecimal.valueOf(100.00).negate());
+        verify(expenseRollupRepository).addDelta(1L, dto.getDate().withDayOfMonth(1), 1L, 1L, BigDecimal.valueOf(150.00));
+        verify(classifier).unlearn(testUser.getEmail(), "Test expense", "Groceries");
+        verify(classifier).learn(testUser.getEmail(), null, "Groceries");
     }
 
     @Test
@@ -162,12 +500,9 @@ public class ExpenseServiceImplTest {
                 .thenReturn(Optional.of(testUser));
         when(expenseRepository.findById(99L)).thenReturn(Optional.empty());
 
-        CompletableFuture<ExpenseResponseDTO> resultFuture =
-                expenseService.updateExpense(testUser.getEmail(), 99L, dto);
-
         assertThrows(ExpenseNotFoundException.class, () -> {
             try {
-                resultFuture.join();
+                expenseService.updateExpense(testUser.getEmail(), 99L, dto).join();
             } catch (CompletionException ex) {
                 throw (RuntimeException) ex.getCause();
             }
@@ -186,6 +521,9 @@ public class ExpenseServiceImplTest {
 
         assertDoesNotThrow(resultFuture::join);
         verify(expenseRepository, times(1)).delete(testExpense);
+        verify(expenseRollupRepository).addDelta(
+                1L, testExpense.getDate().withDayOfMonth(1), 1L, -1L, testExpense.getAmount().negate());
+        verify(userViewCache).evictUser(testUser.getEmail());
     }
 
     @Test
@@ -194,12 +532,9 @@ public class ExpenseServiceImplTest {
                 .thenReturn(Optional.of(testUser));
         when(expenseRepository.findById(99L)).thenReturn(Optional.empty());
 
-        CompletableFuture<Void> resultFuture =
-                expenseService.deleteExpense(testUser.getEmail(), 99L);
-
         assertThrows(ExpenseNotFoundException.class, () -> {
             try {
-                resultFuture.join();
+                expenseService.deleteExpense(testUser.getEmail(), 99L).join();
             } catch (CompletionException ex) {
                 throw (RuntimeException) ex.getCause();
             }
@@ -219,15 +554,30 @@ public class ExpenseServiceImplTest {
         when(expenseRepository.findById(testExpense.getId()))
                 .thenReturn(Optional.of(testExpense));
 
-        CompletableFuture<Void> resultFuture =
-                expenseService.deleteExpense(testUser.getEmail(), testExpense.getId());
-
         assertThrows(ExpenseOwnershipException.class, () -> {
             try {
-                resultFuture.join();
+                expenseService.deleteExpense(testUser.getEmail(), testExpense.getId()).join();
             } catch (CompletionException ex) {
                 throw (RuntimeException) ex.getCause();
             }
         });
     }
+
+    private CategorizedExpense categorized(String categoryName, Long id, int amount) {
+        return new CategorizedExpense(categoryName, id, BigDecimal.valueOf(amount), LocalDate.of(2025, 1, 1),
+                null, categoryName != null ? 1L : null, testUser.getId(), null, null);
+    }
+
+    private ExpenseResponseDTO toResponse(Expense expense) {
+        return new ExpenseResponseDTO(
+                expense.getId(),
+                expense.getAmount(),
+                expense.getDate(),
+                expense.getDescription(),
+                expense.getCategory() != null ? expense.getCategory().getId() : null,
+                expense.getUser().getId(),
+                expense.getCreatedAt(),
+                expense.getUpdatedAt()
+        );
+    }
 }
@@ -0,0 +1,415 @@
+package com.example.aiexpensetracker.core.service;
+
+import com.example.aiexpensetracker.core.model.ReportEmailStatus;
+import com.example.aiexpensetracker.core.model.ReportJob;
+import com.example.aiexpensetracker.core.model.ReportJobStatus;
+import com.example.aiexpensetracker.core.model.ReportPeriod;
+import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.core.repository.report.ReportEmailRepository;
+import com.example.aiexpensetracker.core.repository.report.ReportEmailStatusCount;
+import com.example.aiexpensetracker.core.repository.report.ReportJobRepository;
+import com.example.aiexpensetracker.core.repository.user.UserRepository;
+import com.example.aiexpensetracker.core.service.report.ReportCheckpoints;
+import com.example.aiexpensetracker.core.service.report.ReportJobServiceImpl;
+import com.example.aiexpensetracker.core.service.report.ReportOutbox;
+import com.example.aiexpensetracker.core.service.report.ReportPipeline;
+import com.example.aiexpensetracker.core.service.report.ReportRunSummary;
+import com.example.aiexpensetracker.core.service.report.ReportService;
+import com.example.aiexpensetracker.exception.report.ReportJobNotFoundException;
+import com.example.aiexpensetracker.rest.dto.report.ReportJobDTO;
+import com.example.aiexpensetracker.rest.dto.report.UserReportResponseDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ReportJobServiceImplTest {
+
+    @Mock
+    private RepositoryManager repositoryManager;
+
+    @Mock
+    private ReportJobRepository reportJobRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ReportService reportService;
+
+    @Mock
+    private ReportPipeline reportPipeline;
+
+    @Mock
+    private ReportEmailRepository reportEmailRepository;
+
+    @Mock
+    private ReportOutbox reportOutbox;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ReportJobServiceImpl reportJobService;
+
+    /**
+     * The job row as the database holds it; every write bumps its version like the optimistic lock does.
+     */
+    private final AtomicReference<ReportJob> storedJob = new AtomicReference<>();
+
+    private final UserReportResponseDTO report = new UserReportResponseDTO(
+            "john.doe@example.com", Collections.emptyList(), BigDecimal.TEN, Collections.emptyList());
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        when(repositoryManager.getReportJobRepository()).thenReturn(reportJobRepository);
+        when(repositoryManager.getUserRepository()).thenReturn(userRepository);
+        when(repositoryManager.getReportEmailRepository()).thenReturn(reportEmailRepository);
+        when(reportPipeline.getPartitions()).thenReturn(2);
+        when(userRepository.count()).thenReturn(3L);
+        when(reportJobRepository.saveAndFlush(any(ReportJob.class))).thenAnswer(invocation -> {
+            ReportJob job = invocation.getArgument(0);
+            if (job.getId() == null) {
+                job.setId(1L);
+            } else {
+                job.setVersion(job.getVersion() + 1);
+            }
+            storedJob.set(job);
+            return job;
+        });
+        when(reportJobRepository.findById(1L)).thenAnswer(invocation -> Optional.ofNullable(storedJob.get()).map(this::copy));
+
+        reportJobService = new ReportJobServiceImpl(repositoryManager, reportService, reportPipeline, reportOutbox,
+                transactionManager, 1, Duration.ofMinutes(2), 1, 0);
+    }
+
+    @Test
+    void testStartJob_RunsTheJobAndRecordsTheOutcome() {
+        when(reportService.generateReportsForAllUsers(any(LocalDate.class), any(LocalDate.class), any(), any()))
+                .thenAnswer(invocation -> {
+                    ReportCheckpoints checkpoints = invocation.getArgument(2);
+                    Consumer<UserReportResponseDTO> dispatcher = invocation.getArgument(3);
+                    assertEquals(2, checkpoints.getPartitions());
+                    assertEquals("", checkpoints.resumeAfter(0));
+                    dispatcher.accept(report);
+                    checkpoints.advance(0, report.getUserEmail(), 1, 0);
+                    return CompletableFuture.completedFuture(new ReportRunSummary(1, 0, 1, 0, Duration.ZERO));
+                });
+
+        ReportJobDTO started = reportJobService.startJob(ReportPeriod.MONTHLY).join();
+
+        LocalDate today = LocalDate.now();
+        assertEquals(1L, started.getId());
+        assertEquals("RUNNING", started.getStatus());
+        assertEquals(ReportPeriod.MONTHLY.startDate(today), started.getStartDate());
+        assertEquals(ReportPeriod.MONTHLY.endDate(today), started.getEndDate());
+        assertEquals(3, started.getTotalUsers());
+        assertNotNull(started.getStartedAt());
+        verify(reportOutbox).add(1L, report);
+
+        ReportJob job = storedJob.get();
+        assertEquals(ReportJobStatus.COMPLETED, job.getStatus());
+        assertEquals(1, job.getReportsSent());
+        assertEquals(Map.of(0, report.getUserEmail()), job.getCheckpoints());
+        assertNotNull(job.getFinishedAt());
+    }
+
+    @Test
+    void testStartJob_RecordsFailure() {
+        when(reportService.generateReportsForAllUsers(any(LocalDate.class), any(LocalDate.class), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(
+                        new CompletionException(new IllegalStateException("Connection lost"))));
+
+        reportJobService.startJob(ReportPeriod.WEEKLY).join();
+
+        ReportJob job = storedJob.get();
+        assertEquals(ReportJobStatus.FAILED, job.getStatus());
+        assertEquals("Connection lost", job.getErrorMessage());
+    }
+
+    @Test
+    void testStartJob_FailsTheJobWhenReportsFailed() {
+        when(reportService.generateReportsForAllUsers(any(LocalDate.class), any(LocalDate.class), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(new ReportRunSummary(3, 1, 2, 1, Duration.ZERO)));
+
+        reportJobService.startJob(ReportPeriod.WEEKLY).join();
+
+        ReportJob job = storedJob.get();
+        assertEquals(ReportJobStatus.FAILED, job.getStatus());
+        assertEquals("2 reports failed to build or dispatch.", job.getErrorMessage());
+    }
+
+    @Test
+    void testMaintainJobs_ResumesStaleJobFromItsCheckpoints() {
+        ReportJob staleJob = staleJob();
+        when(reportJobRepository.findByStatusInAndHeartbeatAtBeforeOrderByIdAsc(any(), any(LocalDateTime.class)))
+                .thenReturn(List.of(staleJob));
+        when(reportJobRepository.claim(eq(1L), eq(4L), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            storedJob.get().setVersion(5);
+            return 1;
+        });
+        when(reportService.generateReportsForAllUsers(any(LocalDate.class), any(LocalDate.class), any(), any()))
+                .thenAnswer(invocation -> {
+                    ReportCheckpoints checkpoints = invocation.getArgument(2);
+                    assertEquals("", checkpoints.resumeAfter(0));
+                    assertEquals("m@example.com", checkpoints.resumeAfter(1));
+                    checkpoints.advance(1, "z@example.com", 2, 0);
+                    return CompletableFuture.completedFuture(new ReportRunSummary(2, 0, 2, 0, Duration.ZERO));
+                });
+
+        reportJobService.maintainJobs();
+
+        ReportJob job = storedJob.get();
+        assertEquals(ReportJobStatus.COMPLETED, job.getStatus());
+        assertEquals(12, job.getReportsSent());
+        assertEquals("z@example.com", job.getCheckpoints().get(1));
+    }
+
+    @Test
+    void testMaintainJobs_SkipsJobClaimedByAnotherNode() {
+        ReportJob staleJob = staleJob();
+        when(reportJobRepository.findByStatusInAndHeartbeatAtBeforeOrderByIdAsc(any(), any(LocalDateTime.class)))
+                .thenReturn(List.of(staleJob));
+        when(reportJobRepository.claim(eq(1L), anyLong(), any(LocalDateTime.class))).thenReturn(0);
+
+        reportJobService.maintainJobs();
+
+        verifyNoInteractions(reportService);
+        verify(reportJobRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testStartJob_StopsSendingOnceTakenOver() {
+        when(reportService.generateReportsForAllUsers(any(LocalDate.class), any(LocalDate.class), any(), any()))
+                .thenAnswer(invocation -> {
+                    ReportCheckpoints checkpoints = invocation.getArgument(2);
+                    Consumer<UserReportResponseDTO> dispatcher = invocation.getArgument(3);
+                    // Another node claims the job, so the next write finds a newer version.
+                    storedJob.get().setVersion(storedJob.get().getVersion() + 1);
+                    checkpoints.advance(0, "a@example.com", 1, 0);
+                    assertThrows(CancellationException.class, () -> dispatcher.accept(report));
+                    return CompletableFuture.completedFuture(new ReportRunSummary(2, 0, 1, 1, Duration.ZERO));
+                });
+
+        reportJobService.startJob(ReportPeriod.WEEKLY).join();
+
+        verifyNoInteractions(reportOutbox);
+        ReportJob job = storedJob.get();
+        assertEquals(ReportJobStatus.RUNNING, job.getStatus());
+        assertEquals(0, job.getReportsSent());
+    }
+
+    @Test
+    void testStartJob_ReturnsTheExistingJobOfThePeriod() {
+        ReportJob completedJob = staleJob();
+        completedJob.setStatus(ReportJobStatus.COMPLETED);
+        when(reportJobRepository.findByPeriodAndStartDateAndEndDateAndShardIndex(eq(ReportPeriod.WEEKLY), any(), any(), eq(0)))
+                .thenReturn(Optional.of(completedJob));
+        when(reportEmailRepository.countByStatus(1L)).thenReturn(List.of(
+                new ReportEmailStatusCount(ReportEmailStatus.SENT, 10L)));
+
+        ReportJobDTO job = reportJobService.startJob(ReportPeriod.WEEKLY).join();
+
+        assertEquals(1L, job.getId());
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(10, job.getEmailsSent());
+        verify(reportJobRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(reportService, reportOutbox);
+    }
+
+    @Test
+    void testStartJob_ReturnsTheJobCreatedByAConcurrentCall() {
+        ReportJob runningJob = staleJob();
+        when(reportJobRepository.findByPeriodAndStartDateAndEndDateAndShardIndex(eq(ReportPeriod.WEEKLY), any(), any(), eq(0)))
+                .thenReturn(Optional.empty(), Optional.of(runningJob));
+        when(reportJobRepository.saveAndFlush(any(ReportJob.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_report_jobs_period_dates"));
+
+        ReportJobDTO job = reportJobService.startJob(ReportPeriod.WEEKLY).join();
+
+        assertEquals(1L, job.getId());
+        assertEquals("RUNNING", job.getStatus());
+        verifyNoInteractions(reportService);
+    }
+
+    @Test
+    void testStartJob_ResumesAFailedJobOfThePeriod() {
+        ReportJob failedJob = staleJob();
+        failedJob.setStatus(ReportJobStatus.FAILED);
+        when(reportJobRepository.findByPeriodAndStartDateAndEndDateAndShardIndex(eq(ReportPeriod.WEEKLY), any(), any(), eq(0)))
+                .thenReturn(Optional.of(failedJob));
+        when(reportJobRepository.claim(eq(1L), eq(4L), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            storedJob.get().setVersion(5);
+            return 1;
+        });
+        when(reportService.generateReportsForAllUsers(any(LocalDate.class), any(LocalDate.class), any(), any()))
+                .thenAnswer(invocation -> {
+                    ReportCheckpoints checkpoints = invocation.getArgument(2);
+                    assertEquals("m@example.com", checkpoints.resumeAfter(1));
+                    return CompletableFuture.completedFuture(new ReportRunSummary(0, 0, 0, 0, Duration.ZERO));
+                });
+
+        ReportJobDTO job = reportJobService.startJob(ReportPeriod.WEEKLY).join();
+
+        assertEquals("RUNNING", job.getStatus());
+        assertEquals(ReportJobStatus.COMPLETED, storedJob.get().getStatus());
+        assertNull(storedJob.get().getErrorMessage());
+    }
+
+    @Test
+    void testStartJob_CreatesTheJobOfEveryShardAndRunsItsOwn() {
+        Map<Long, ReportJob> jobs = new HashMap<>();
+        when(reportJobRepository.saveAndFlush(any(ReportJob.class))).thenAnswer(invocation -> {
+            ReportJob job = invocation.getArgument(0);
+            if (job.getId() == null) {
+                job.setId(10L + job.getShardIndex());
+            } else {
+                job.setVersion(job.getVersion() + 1);
+            }
+            jobs.put(job.getId(), job);
+            return job;
+        });
+        when(reportJobRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(jobs.get(invocation.<Long>getArgument(0))).map(this::copy));
+        when(userRepository.countByShard(eq(3), anyInt())).thenReturn(7L);
+        when(reportService.generateReportsForAllUsers(any(LocalDate.class), any(LocalDate.class), any(), any()))
+                .thenAnswer(invocation -> {
+                    ReportCheckpoints checkpoints = invocation.getArgument(2);
+                    assertEquals(3, checkpoints.getShardCount());
+                    assertEquals(1, checkpoints.getShard());
+                    return CompletableFuture.completedFuture(new ReportRunSummary(0, 0, 0, 0, Duration.ZERO));
+                });
+        ReportJobServiceImpl shardedService = new ReportJobServiceImpl(repositoryManager, reportService,
+                reportPipeline, reportOutbox, transactionManager, 1, Duration.ofMinutes(2), 3, 1);
+
+        ReportJobDTO started = shardedService.startJob(ReportPeriod.WEEKLY).join();
+
+        assertEquals(11L, started.getId());
+        assertEquals(7, started.getTotalUsers());
+        assertEquals(3, jobs.size());
+        assertEquals(ReportJobStatus.PENDING, jobs.get(10L).getStatus());
+        assertEquals(ReportJobStatus.COMPLETED, jobs.get(11L).getStatus());
+        assertEquals(ReportJobStatus.PENDING, jobs.get(12L).getStatus());
+        verify(reportService, times(1)).generateReportsForAllUsers(any(), any(), any(), any());
+        verify(userRepository, never()).count();
+    }
+
+    @Test
+    void testMaintainJobs_StartsThePendingJobOfItsShard() {
+        ReportJob pendingJob = staleJob();
+        pendingJob.setStatus(ReportJobStatus.PENDING);
+        pendingJob.setShardIndex(1);
+        pendingJob.setShardCount(3);
+        pendingJob.setHeartbeatAt(LocalDateTime.now());
+        when(reportJobRepository.findByStatusAndShardIndexAndShardCountOrderByIdAsc(ReportJobStatus.PENDING, 1, 3))
+                .thenReturn(List.of(pendingJob));
+        when(reportJobRepository.claim(eq(1L), eq(4L), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            storedJob.get().setVersion(5);
+            return 1;
+        });
+        when(reportService.generateReportsForAllUsers(any(LocalDate.class), any(LocalDate.class), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(new ReportRunSummary(0, 0, 0, 0, Duration.ZERO)));
+        ReportJobServiceImpl shardedService = new ReportJobServiceImpl(repositoryManager, reportService,
+                reportPipeline, reportOutbox, transactionManager, 1, Duration.ofMinutes(2), 3, 1);
+
+        shardedService.maintainJobs();
+
+        assertEquals(ReportJobStatus.COMPLETED, storedJob.get().getStatus());
+    }
+
+    @Test
+    void testConstructor_RejectsAShardIndexOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new ReportJobServiceImpl(repositoryManager, reportService,
+                reportPipeline, reportOutbox, transactionManager, 1, Duration.ofMinutes(2), 2, 2));
+    }
+
+    @Test
+    void testGetJob_IncludesEmailDeliveryCounts() {
+        staleJob();
+        when(reportEmailRepository.countByStatus(1L)).thenReturn(List.of(
+                new ReportEmailStatusCount(ReportEmailStatus.SENT, 8L),
+                new ReportEmailStatusCount(ReportEmailStatus.DEAD, 2L)));
+
+        ReportJobDTO job = reportJobService.getJob(1L).join();
+
+        assertEquals(10, job.getReportsSent());
+        assertEquals(0, job.getEmailsPending());
+        assertEquals(8, job.getEmailsSent());
+        assertEquals(2, job.getEmailsDead());
+    }
+
+    @Test
+    void testGetJob_NotFound() {
+        when(reportJobRepository.findById(42L)).thenReturn(Optional.empty());
+
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> reportJobService.getJob(42L).join());
+
+        assertInstanceOf(ReportJobNotFoundException.class, ex.getCause());
+        assertEquals("Report job with ID 42 not found.", ex.getCause().getMessage());
+    }
+
+    private ReportJob copy(ReportJob job) {
+        ReportJob copy = new ReportJob();
+        copy.setId(job.getId());
+        copy.setPeriod(job.getPeriod());
+        copy.setStartDate(job.getStartDate());
+        copy.setEndDate(job.getEndDate());
+        copy.setShardIndex(job.getShardIndex());
+        copy.setShardCount(job.getShardCount());
+        copy.setStatus(job.getStatus());
+        copy.setPartitions(job.getPartitions());
+        copy.setCheckpoints(new HashMap<>(job.getCheckpoints()));
+        copy.setTotalUsers(job.getTotalUsers());
+        copy.setReportsSent(job.getReportsSent());
+        copy.setFailures(job.getFailures());
+        copy.setErrorMessage(job.getErrorMessage());
+        copy.setCreatedAt(job.getCreatedAt());
+        copy.setStartedAt(job.getStartedAt());
+        copy.setFinishedAt(job.getFinishedAt());
+        copy.setHeartbeatAt(job.getHeartbeatAt());
+        copy.setVersion(job.getVersion());
+        return copy;
+    }
+
+    private ReportJob staleJob() {
+        ReportJob job = new ReportJob();
+        job.setId(1L);
+        job.setPeriod(ReportPeriod.WEEKLY);
+        job.setStartDate(LocalDate.of(2025, 1, 1));
+        job.setEndDate(LocalDate.of(2025, 1, 7));
+        job.setStatus(ReportJobStatus.RUNNING);
+        job.setPartitions(2);
+        job.getCheckpoints().put(1, "m@example.com");
+        job.setReportsSent(10);
+        job.setHeartbeatAt(LocalDateTime.now().minusMinutes(10));
+        job.setVersion(4);
+        storedJob.set(job);
+        return job;
+    }
+}
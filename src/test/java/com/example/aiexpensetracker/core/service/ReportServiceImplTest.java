@@ -4,23 +4,35 @@ import com.example.aiexpensetracker.core.model.Category;
 import com.example.aiexpensetracker.core.model.Expense;
 import com.example.aiexpensetracker.core.model.User;
 import com.example.aiexpensetracker.core.repository.expense.ExpenseRepository;
+import com.example.aiexpensetracker.core.repository.expense.ExpenseSummary;
+import com.example.aiexpensetracker.core.repository.expense.ReportExpenseRow;
 import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
-import com.example.aiexpensetracker.core.repository.user.UserRepository;
+import com.example.aiexpensetracker.core.service.analytics.ExpenseColumns;
+import com.example.aiexpensetracker.core.service.report.ReportCheckpoints;
+import com.example.aiexpensetracker.core.service.report.ReportPipeline;
+import com.example.aiexpensetracker.core.service.report.ReportRunSummary;
 import com.example.aiexpensetracker.core.service.report.ReportServiceImpl;
 import com.example.aiexpensetracker.rest.dto.report.CategoryTotalDTO;
 import com.example.aiexpensetracker.rest.dto.report.UserReportResponseDTO;
 import com.example.aiexpensetracker.rest.dto.statistics.ExpenseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -34,9 +46,9 @@ public class ReportServiceImplTest {
     private ExpenseRepository expenseRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private PlatformTransactionManager transactionManager;
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
     private ReportServiceImpl reportService;
 
     private User testUser;
@@ -48,7 +60,8 @@ public class ReportServiceImplTest {
         MockitoAnnotations.openMocks(this);
 
         when(repositoryManager.getExpenseRepository()).thenReturn(expenseRepository);
-        when(repositoryManager.getUserRepository()).thenReturn(userRepository);
+        meterRegistry = new SimpleMeterRegistry();
+        reportService = reportService(1, 2);
 
         // Create test user
         testUser = new User();
@@ -73,13 +86,8 @@ public class ReportServiceImplTest {
     // --- Test: generateReportsForAllUsers ---
     @Test
     void testGenerateReportsForAllUsers_Success() throws Exception {
-        List<User> users = List.of(testUser);
-        List<Expense> expenses = List.of(testExpense);
-
-        when(userRepository.findAll()).thenReturn(users);
-        when(expenseRepository.findByUserEmailAndDateBetween(
-                eq(testUser.getEmail()), any(LocalDate.class), any(LocalDate.class)))
-                .thenReturn(expenses);
+        when(expenseRepository.streamReportRows(any(LocalDate.class), any(LocalDate.class), eq(1), eq(0), eq(1), eq(0), eq("")))
+                .thenReturn(Stream.of(toRow(testExpense)));
 
         CompletableFuture<List<UserReportResponseDTO>> resultFuture =
                 reportService.generateReportsForAllUsers(LocalDate.now().minusDays(30), LocalDate.now());
@@ -96,35 +104,190 @@ public class ReportServiceImplTest {
     @Test
     void testGenerateReportForUser_Success() {
         // Given
-        List<Expense> expenses = List.of(testExpense);
-        List<User> users = List.of(testUser);
+        Expense otherExpense = new Expense();
+        otherExpense.setId(2L);
+        otherExpense.setUser(testUser);
+        otherExpense.setAmount(BigDecimal.valueOf(20.5));
+        otherExpense.setDate(LocalDate.now());
+        otherExpense.setDescription("Uncategorized expense");
 
-        when(userRepository.findAll()).thenReturn(users);
-        when(expenseRepository.findByUserEmailAndDateBetween(
-                eq(testUser.getEmail()), any(LocalDate.class), any(LocalDate.class)))
-                .thenReturn(expenses);
+        when(expenseRepository.streamReportRows(any(LocalDate.class), any(LocalDate.class), eq(1), eq(0), eq(1), eq(0), eq("")))
+                .thenReturn(Stream.of(toRow(testExpense), toRow(otherExpense)));
 
         // When
-        CompletableFuture<List<UserReportResponseDTO>> resultFuture = reportService
-                .generateReportsForAllUsers(LocalDate.now().minusDays(30), LocalDate.now());
-
-        List<UserReportResponseDTO> result = resultFuture.join();
+        List<UserReportResponseDTO> result = reportService
+                .generateReportsForAllUsers(LocalDate.now().minusDays(30), LocalDate.now())
+                .join();
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
         UserReportResponseDTO report = result.get(0);
         assertEquals(testUser.getEmail(), report.getUserEmail());
-        assertEquals(BigDecimal.valueOf(100.00), report.getTotalAmount());
-        assertEquals(1, report.getCategoryTotals().size());
+        assertEquals(BigDecimal.valueOf(120.5), report.getTotalAmount());
+        assertEquals(2, report.getCategoryTotals().size());
+        assertEquals(2, report.getExpenses().size());
+    }
+
+    // --- Test: generateReportsForAllUsers with a consumer ---
+    @Test
+    void testGenerateReportsForAllUsers_DispatchesEveryReport() {
+        when(expenseRepository.streamReportRows(any(LocalDate.class), any(LocalDate.class), eq(1), eq(0), eq(1), eq(0), eq("")))
+                .thenReturn(Stream.of(
+                        toRow(testExpense),
+                        new ReportExpenseRow("idle@example.com", null, null, null, null, null),
+                        new ReportExpenseRow("last@example.com", 7L, BigDecimal.TEN, LocalDate.now(), "Lunch", null)));
+        Map<String, BigDecimal> dispatched = new ConcurrentHashMap<>();
+
+        ReportRunSummary summary = reportService.generateReportsForAllUsers(LocalDate.now().minusDays(30), LocalDate.now(),
+                ReportCheckpoints.none(1),
+                report -> dispatched.put(report.getUserEmail(), report.getTotalAmount())).join();
+
+        assertEquals(Map.of(
+                "test@example.com", BigDecimal.valueOf(100.00),
+                "idle@example.com", BigDecimal.ZERO,
+                "last@example.com", BigDecimal.TEN), dispatched);
+        assertEquals(3, summary.getReportsBuilt());
+        assertEquals(3, summary.getReportsDispatched());
+        assertTrue(summary.isComplete());
+        assertEquals(3.0, meterRegistry.get("report.pipeline.items")
+                .tags("stage", "dispatch", "outcome", "success").counter().count());
+    }
+
+    @Test
+    void testGenerateReportsForAllUsers_ReadsEveryPartition() {
+        reportService = reportService(2, 2);
+        when(expenseRepository.streamReportRows(any(LocalDate.class), any(LocalDate.class), eq(1), eq(0), eq(2), eq(0), eq("")))
+                .thenReturn(Stream.of(new ReportExpenseRow("even@example.com", null, null, null, null, null)));
+        when(expenseRepository.streamReportRows(any(LocalDate.class), any(LocalDate.class), eq(1), eq(0), eq(2), eq(1), eq("")))
+                .thenReturn(Stream.of(toRow(testExpense)));
+
+        List<UserReportResponseDTO> result = reportService
+                .generateReportsForAllUsers(LocalDate.now().minusDays(30), LocalDate.now())
+                .join();
+
+        assertEquals(List.of("even@example.com", "test@example.com"),
+                result.stream().map(UserReportResponseDTO::getUserEmail).toList());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void testGenerateReportsForAllUsers_LimitsDispatchConcurrency() {
+        reportService = reportService(1, 2);
+        List<ReportExpenseRow> rows = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            rows.add(new ReportExpenseRow("user" + (100 + i) + "@example.com", null, null, null, null, null));
+        }
+        when(expenseRepository.streamReportRows(any(LocalDate.class), any(LocalDate.class), eq(1), eq(0), eq(1), eq(0), eq("")))
+                .thenReturn(rows.stream());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        ReportRunSummary summary = reportService.generateReportsForAllUsers(LocalDate.now().minusDays(30), LocalDate.now(),
+                ReportCheckpoints.none(1),
+                report -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                }).join();
+
+        assertEquals(20, summary.getReportsDispatched());
+        assertTrue(maxRunning.get() <= 2, "At most two dispatches run at once, but saw " + maxRunning.get());
+    }
+
+    @Test
+    void testGenerateReportsForAllUsers_DispatchFailureIsCounted() {
+        when(expenseRepository.streamReportRows(any(LocalDate.class), any(LocalDate.class), eq(1), eq(0), eq(1), eq(0), eq("")))
+                .thenReturn(Stream.of(
+                        toRow(testExpense),
+                        new ReportExpenseRow("idle@example.com", null, null, null, null, null)));
+
+        ReportRunSummary summary = reportService.generateReportsForAllUsers(LocalDate.now().minusDays(30), LocalDate.now(),
+                ReportCheckpoints.none(1),
+                report -> {
+                    if (report.getUserEmail().equals(testUser.getEmail())) {
+                        throw new IllegalStateException("Mail provider unavailable");
+                    }
+                }).join();
+
+        assertEquals(1, summary.getReportsDispatched());
+        assertEquals(1, summary.getDispatchFailures());
+        assertFalse(summary.isComplete());
+    }
+
+    @Test
+    void testGenerateReportsForAllUsers_ScanFailureFailsTheRun() {
+        when(expenseRepository.streamReportRows(any(LocalDate.class), any(LocalDate.class), eq(1), eq(0), eq(1), eq(0), eq("")))
+                .thenThrow(new IllegalStateException("Connection lost"));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> reportService
+                .generateReportsForAllUsers(LocalDate.now().minusDays(30), LocalDate.now(),
+                        ReportCheckpoints.none(1), report -> {}));
+
+        assertEquals("Connection lost", ex.getMessage());
+    }
+
+    @Test
+    void testGenerateReportsForAllUsers_ResumesAfterCheckpointAndStopsBeforeTheFirstFailure() {
+        reportService = reportService(1, 4);
+        List<ReportExpenseRow> rows = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            rows.add(new ReportExpenseRow("user" + (100 + i) + "@example.com", null, null, null, null, null));
+        }
+        when(expenseRepository.streamReportRows(any(LocalDate.class), any(LocalDate.class), eq(1), eq(0), eq(1), eq(0),
+                eq("user099@example.com"))).thenReturn(rows.stream());
+        List<String> advancedTo = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong sent = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        ReportCheckpoints checkpoints = new ReportCheckpoints() {
+            @Override
+            public int getPartitions() {
+                return 1;
+            }
+
+            @Override
+            public String resumeAfter(int partition) {
+                return "user099@example.com";
+            }
+
+            @Override
+            public void advance(int partition, String lastUserEmail, long sentCount, long failedCount) {
+                advancedTo.add(lastUserEmail);
+                sent.addAndGet(sentCount);
+                failed.addAndGet(failedCount);
+            }
+        };
+
+        reportService.generateReportsForAllUsers(LocalDate.now().minusDays(30), LocalDate.now(), checkpoints,
+                report -> {
+                    // Finish the reports out of order, so the checkpoint has to wait for the earlier ones.
+                    try {
+                        Thread.sleep(report.getUserEmail().hashCode() % 5 + 5);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    if (report.getUserEmail().equals("user103@example.com")) {
+                        throw new IllegalStateException("Mail provider unavailable");
+                    }
+                }).join();
+
+        // The checkpoint moves in order, and a retry starts again with the user whose report failed.
+        assertEquals("user102@example.com", advancedTo.get(advancedTo.size() - 1));
+        assertEquals(advancedTo.stream().sorted().toList(), advancedTo);
+        assertEquals(3, sent.get());
+        assertEquals(1, failed.get());
     }
 
     // --- Test: calculateTotalAmount ---
     @Test
     void testCalculateTotalAmount() {
-        List<Expense> expenses = List.of(testExpense);
+        List<ExpenseSummary> expenses = List.of(toSummary(testExpense));
 
-        BigDecimal totalAmount = reportService.calculateTotalAmount(expenses);
+        BigDecimal totalAmount = reportService.calculateTotalAmount(ExpenseColumns.of(expenses));
 
         assertEquals(BigDecimal.valueOf(100.00), totalAmount);
     }
@@ -132,9 +295,9 @@ public class ReportServiceImplTest {
     // --- Test: calculateCategoryTotals ---
     @Test
     void testCalculateCategoryTotals() {
-        List<Expense> expenses = List.of(testExpense);
+        List<ExpenseSummary> expenses = List.of(toSummary(testExpense));
 
-        List<CategoryTotalDTO> categoryTotals = reportService.calculateCategoryTotals(expenses);
+        List<CategoryTotalDTO> categoryTotals = reportService.calculateCategoryTotals(ExpenseColumns.of(expenses));
 
         assertNotNull(categoryTotals);
         assertEquals(1, categoryTotals.size());
@@ -145,7 +308,7 @@ public class ReportServiceImplTest {
     // --- Test: mapToExpenseDTOs ---
     @Test
     void testMapToExpenseDTOs() {
-        List<Expense> expenses = List.of(testExpense);
+        List<ExpenseSummary> expenses = List.of(toSummary(testExpense));
 
         List<ExpenseDTO> expenseDTOs = reportService.mapToExpenseDTOs(expenses);
 
@@ -158,9 +321,8 @@ public class ReportServiceImplTest {
     // --- Test: handleEmptyExpenses ---
     @Test
     void testGenerateReportsForAllUsers_NoExpenses() throws Exception {
-        when(userRepository.findAll()).thenReturn(List.of(testUser));
-        when(expenseRepository.findByUserEmailAndDateBetween(anyString(), any(LocalDate.class), any(LocalDate.class)))
-                .thenReturn(new ArrayList<>());
+        when(expenseRepository.streamReportRows(any(LocalDate.class), any(LocalDate.class), eq(1), eq(0), eq(1), eq(0), eq("")))
+                .thenReturn(Stream.of(new ReportExpenseRow(testUser.getEmail(), null, null, null, null, null)));
 
         CompletableFuture<List<UserReportResponseDTO>> resultFuture =
                 reportService.generateReportsForAllUsers(LocalDate.now().minusDays(30), LocalDate.now());
@@ -170,5 +332,43 @@ public class ReportServiceImplTest {
         assertEquals(1, result.size());
         assertEquals(BigDecimal.ZERO, result.get(0).getTotalAmount());
         assertTrue(result.get(0).getCategoryTotals().isEmpty());
+        assertTrue(result.get(0).getExpenses().isEmpty());
+    }
+
+    @Test
+    void testGenerateReportsForAllUsers_NoUsers() {
+        when(expenseRepository.streamReportRows(any(LocalDate.class), any(LocalDate.class), eq(1), eq(0), eq(1), eq(0), eq(""))).thenReturn(Stream.empty());
+
+        ReportRunSummary summary = reportService.generateReportsForAllUsers(LocalDate.now().minusDays(30), LocalDate.now(),
+                ReportCheckpoints.none(1),
+                report -> fail("No report expected")).join();
+
+        assertEquals(0, summary.getReportsBuilt());
+    }
+
+    private ReportServiceImpl reportService(int partitions, int dispatchConcurrency) {
+        return new ReportServiceImpl(new ReportPipeline(
+                repositoryManager, transactionManager, meterRegistry, partitions, 2, dispatchConcurrency, 4));
+    }
+
+    private ReportExpenseRow toRow(Expense expense) {
+        return new ReportExpenseRow(
+                expense.getUser().getEmail(),
+                expense.getId(),
+                expense.getAmount(),
+                expense.getDate(),
+                expense.getDescription(),
+                expense.getCategory() != null ? expense.getCategory().getName() : null
+        );
+    }
+
+    private ExpenseSummary toSummary(Expense expense) {
+        return new ExpenseSummary(
+                expense.getId(),
+                expense.getAmount(),
+                expense.getDate(),
+                expense.getDescription(),
+                expense.getCategory() != null ? expense.getCategory().getName() : null
+        );
     }
 }
@@ -2,23 +2,38 @@ package com.example.aiexpensetracker.core.service;
 
 import com.example.aiexpensetracker.core.model.Category;
 import com.example.aiexpensetracker.core.model.Expense;
+import com.example.aiexpensetracker.core.repository.expense.ExpensePeriodTotal;
 import com.example.aiexpensetracker.core.repository.expense.ExpenseRepository;
+import com.example.aiexpensetracker.core.repository.expense.ExpenseSummary;
 import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.core.repository.rollup.ExpenseRollupRepository;
+import com.example.aiexpensetracker.core.repository.rollup.ExpenseRollupTotal;
+import com.example.aiexpensetracker.core.service.cache.UserViewCache;
+import com.example.aiexpensetracker.core.service.statistics.StatisticsGranularity;
 import com.example.aiexpensetracker.core.service.statistics.StatisticsServiceImpl;
+import com.example.aiexpensetracker.exception.statistics.InvalidStatisticsQueryException;
+import com.example.aiexpensetracker.rest.dto.statistics.StatisticsBucketDTO;
 import com.example.aiexpensetracker.rest.dto.statistics.StatisticsResponseDTO;
+import com.example.aiexpensetracker.rest.dto.statistics.StatisticsSeriesDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 public class StatisticsServiceImplTest {
@@ -29,6 +44,15 @@ public class StatisticsServiceImplTest {
     @Mock
     private ExpenseRepository expenseRepository;
 
+    @Mock
+    private ExpenseRollupRepository expenseRollupRepository;
+
+    @Mock
+    private UserViewCache userViewCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private StatisticsServiceImpl statisticsService;
 
@@ -40,6 +64,7 @@ public class StatisticsServiceImplTest {
         MockitoAnnotations.openMocks(this);
 
         when(repositoryManager.getExpenseRepository()).thenReturn(expenseRepository);
+        when(repositoryManager.getExpenseRollupRepository()).thenReturn(expenseRollupRepository);
 
         // Create test category
         testCategory = new Category();
@@ -60,12 +85,13 @@ public class StatisticsServiceImplTest {
     void testGetStatisticsForUser_Success() throws Exception {
         // Given
         String email = "test@example.com";
-        List<Expense> expenses = List.of(testExpense);
+        List<ExpenseSummary> expenses = List.of(toSummary(testExpense));
 
-        when(expenseRepository.findByUserEmail(email)).thenReturn(expenses);
+        when(expenseRepository.findSummariesByUserEmail(email)).thenReturn(expenses);
+        stubTotals(email, testExpense);
 
         // When
-        CompletableFuture<StatisticsResponseDTO> resultFuture = statisticsService.getStatisticsForUser(email);
+        CompletableFuture<StatisticsResponseDTO> resultFuture = statisticsService.getStatisticsForUser(email, true);
         StatisticsResponseDTO result = resultFuture.get();
 
         // Then
@@ -82,10 +108,12 @@ public class StatisticsServiceImplTest {
         // Given
         String email = "test@example.com";
 
-        when(expenseRepository.findByUserEmail(email)).thenReturn(List.of());
+        when(expenseRepository.findSummariesByUserEmail(email)).thenReturn(List.of());
+        when(expenseRollupRepository.sumByCategory(email)).thenReturn(List.of());
+        when(expenseRollupRepository.sumByMonth(email)).thenReturn(List.of());
 
         // When
-        CompletableFuture<StatisticsResponseDTO> resultFuture = statisticsService.getStatisticsForUser(email);
+        CompletableFuture<StatisticsResponseDTO> resultFuture = statisticsService.getStatisticsForUser(email, true);
         StatisticsResponseDTO result = resultFuture.get();
 
         // Then
@@ -94,17 +122,35 @@ public class StatisticsServiceImplTest {
         assertTrue(result.getMonthlyStatistics().isEmpty());
     }
 
+    @Test
+    void testGetStatisticsForUser_UncategorizedExpense() throws Exception {
+        // Given
+        String email = "test@example.com";
+        testExpense.setCategory(null);
+
+        when(expenseRepository.findSummariesByUserEmail(email)).thenReturn(List.of(toSummary(testExpense)));
+        stubTotals(email, testExpense);
+
+        // When
+        StatisticsResponseDTO result = statisticsService.getStatisticsForUser(email, true).get();
+
+        // Then
+        assertEquals("Uncategorized", result.getCategoryStatistics().get(0).getCategoryName());
+        verify(expenseRepository, never()).findByUserEmail(anyString());
+    }
+
     // --- Test: calculateStatisticsByCategory ---
     @Test
     void testCalculateStatisticsByCategory() throws Exception {
         // Given
         String email = "test@example.com";
-        List<Expense> expenses = List.of(testExpense);
+        List<ExpenseSummary> expenses = List.of(toSummary(testExpense));
 
-        when(expenseRepository.findByUserEmail(email)).thenReturn(expenses);
+        when(expenseRepository.findSummariesByUserEmail(email)).thenReturn(expenses);
+        stubTotals(email, testExpense);
 
         // When
-        CompletableFuture<StatisticsResponseDTO> resultFuture = statisticsService.getStatisticsForUser(email);
+        CompletableFuture<StatisticsResponseDTO> resultFuture = statisticsService.getStatisticsForUser(email, true);
         StatisticsResponseDTO result = resultFuture.get();
 
         // Then
@@ -118,12 +164,13 @@ public class StatisticsServiceImplTest {
     void testCalculateStatisticsByMonth() throws Exception {
         // Given
         String email = "test@example.com";
-        List<Expense> expenses = List.of(testExpense);
+        List<ExpenseSummary> expenses = List.of(toSummary(testExpense));
 
-        when(expenseRepository.findByUserEmail(email)).thenReturn(expenses);
+        when(expenseRepository.findSummariesByUserEmail(email)).thenReturn(expenses);
+        stubTotals(email, testExpense);
 
         // When
-        CompletableFuture<StatisticsResponseDTO> resultFuture = statisticsService.getStatisticsForUser(email);
+        CompletableFuture<StatisticsResponseDTO> resultFuture = statisticsService.getStatisticsForUser(email, true);
         StatisticsResponseDTO result = resultFuture.get();
 
         // Then
@@ -132,4 +179,170 @@ public class StatisticsServiceImplTest {
         assertEquals(testExpense.getDate().format(DateTimeFormatter.ofPattern("yyyy-MM")),
                 result.getMonthlyStatistics().get(0).getMonthYear());
     }
+
+    @Test
+    void testGetStatisticsForUser_TotalsComeFromAggregateQueries() throws Exception {
+        // Given
+        String email = "test@example.com";
+        LocalDate month = testExpense.getDate().withDayOfMonth(1);
+
+        when(expenseRepository.findSummariesByUserEmail(email)).thenReturn(List.of(toSummary(testExpense)));
+        when(expenseRollupRepository.sumByCategory(email)).thenReturn(List.of(
+                new ExpenseRollupTotal("Groceries", 4L, BigDecimal.valueOf(300.00))));
+        when(expenseRollupRepository.sumByMonth(email)).thenReturn(List.of(
+                new ExpenseRollupTotal(month.minusMonths(1), 1L, BigDecimal.valueOf(50.00)),
+                new ExpenseRollupTotal(month, 3L, BigDecimal.valueOf(250.00))));
+
+        // When
+        StatisticsResponseDTO result = statisticsService.getStatisticsForUser(email, true).get();
+
+        // Then
+        assertEquals(1, result.getCategoryStatistics().size());
+        assertEquals(4, result.getCategoryStatistics().get(0).getCount());
+        assertEquals(BigDecimal.valueOf(300.00), result.getCategoryStatistics().get(0).getTotalAmount());
+        assertEquals(2, result.getMonthlyStatistics().size());
+        assertEquals(BigDecimal.valueOf(50.00), result.getMonthlyStatistics().get(0).getTotalAmount());
+        assertTrue(result.getMonthlyStatistics().get(0).getExpenses().isEmpty());
+        assertEquals(3, result.getMonthlyStatistics().get(1).getCount());
+        assertEquals(1, result.getMonthlyStatistics().get(1).getExpenses().size());
+    }
+
+    @Test
+    void testGetStatisticsForUser_ReadsFromOneReadOnlySnapshot() throws Exception {
+        String email = "test@example.com";
+        when(expenseRepository.findSummariesByUserEmail(email)).thenReturn(List.of(toSummary(testExpense)));
+
+        statisticsService.getStatisticsForUser(email, true).get();
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, times(1)).getTransaction(definition.capture());
+        assertTrue(definition.getValue().isReadOnly());
+        assertEquals(TransactionDefinition.ISOLATION_REPEATABLE_READ, definition.getValue().getIsolationLevel());
+        InOrder inOrder = inOrder(transactionManager, expenseRollupRepository, expenseRepository);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(expenseRollupRepository).sumByCategory(email);
+        inOrder.verify(expenseRollupRepository).sumByMonth(email);
+        inOrder.verify(expenseRepository).findSummariesByUserEmail(email);
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void testGetStatisticsForUser_WithoutExpenses() throws Exception {
+        // Given
+        String email = "test@example.com";
+        stubTotals(email, testExpense);
+
+        // When
+        StatisticsResponseDTO result = statisticsService.getStatisticsForUser(email, false).get();
+
+        // Then
+        assertEquals(BigDecimal.valueOf(100.00), result.getCategoryStatistics().get(0).getTotalAmount());
+        assertEquals(1, result.getCategoryStatistics().get(0).getCount());
+        assertNull(result.getCategoryStatistics().get(0).getExpenses());
+        assertNull(result.getMonthlyStatistics().get(0).getExpenses());
+        verifyNoInteractions(expenseRepository);
+    }
+
+    // --- Test: getStatisticsSeries ---
+    @Test
+    void testGetStatisticsSeries_FillsEmptyBuckets() {
+        String email = "test@example.com";
+        // Wednesday to Sunday two weeks later: three ISO weeks, the first one starting before the range.
+        LocalDate from = LocalDate.of(2025, 1, 8);
+        LocalDate to = LocalDate.of(2025, 1, 26);
+
+        when(expenseRepository.sumByPeriod(email, from, to.plusDays(1), "week", null)).thenReturn(List.of(
+                new ExpensePeriodTotal(LocalDate.of(2025, 1, 6), 2, BigDecimal.valueOf(30)),
+                new ExpensePeriodTotal(LocalDate.of(2025, 1, 20), 1, BigDecimal.valueOf(5))));
+
+        StatisticsSeriesDTO series = statisticsService
+                .getStatisticsSeries(email, from, to, StatisticsGranularity.WEEK, null).join();
+
+        assertEquals(List.of(LocalDate.of(2025, 1, 6), LocalDate.of(2025, 1, 13), LocalDate.of(2025, 1, 20)),
+                series.getBuckets().stream().map(StatisticsBucketDTO::getStart).toList());
+        assertEquals(List.of(2L, 0L, 1L), series.getBuckets().stream().map(StatisticsBucketDTO::getCount).toList());
+        assertEquals(BigDecimal.ZERO, series.getBuckets().get(1).getTotalAmount());
+        assertEquals(3, series.getCount());
+        assertEquals(BigDecimal.valueOf(35), series.getTotalAmount());
+        assertEquals("week", series.getGranularity());
+    }
+
+    @Test
+    void testGetStatisticsSeries_QuarterBuckets() {
+        String email = "test@example.com";
+        LocalDate from = LocalDate.of(2025, 2, 15);
+        LocalDate to = LocalDate.of(2025, 12, 31);
+
+        when(expenseRepository.sumByPeriod(email, from, to.plusDays(1), "quarter", 4L)).thenReturn(List.of());
+
+        StatisticsSeriesDTO series = statisticsService
+                .getStatisticsSeries(email, from, to, StatisticsGranularity.QUARTER, 4L).join();
+
+        assertEquals(List.of(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 4, 1),
+                        LocalDate.of(2025, 7, 1), LocalDate.of(2025, 10, 1)),
+                series.getBuckets().stream().map(StatisticsBucketDTO::getStart).toList());
+        assertEquals(4L, series.getCategoryId());
+    }
+
+    @Test
+    void testGetStatisticsSeries_ReversedRange() {
+        InvalidStatisticsQueryException ex = assertThrows(InvalidStatisticsQueryException.class, () -> {
+            try {
+                statisticsService.getStatisticsSeries("test@example.com", LocalDate.of(2025, 2, 1),
+                        LocalDate.of(2025, 1, 1), StatisticsGranularity.DAY, null).join();
+            } catch (CompletionException e) {
+                throw (RuntimeException) e.getCause();
+            }
+        });
+
+        assertEquals("to", ex.getField());
+        verifyNoInteractions(expenseRepository);
+    }
+
+    @Test
+    void testGetStatisticsSeries_TooManyBuckets() {
+        InvalidStatisticsQueryException ex = assertThrows(InvalidStatisticsQueryException.class, () -> {
+            try {
+                statisticsService.getStatisticsSeries("test@example.com", LocalDate.of(2000, 1, 1),
+                        LocalDate.of(2025, 1, 1), StatisticsGranularity.DAY, null).join();
+            } catch (CompletionException e) {
+                throw (RuntimeException) e.getCause();
+            }
+        });
+
+        assertEquals("granularity", ex.getField());
+        verifyNoInteractions(expenseRepository);
+    }
+
+    // --- Test: rebuildRollups ---
+    @Test
+    void testRebuildRollups() {
+        when(expenseRollupRepository.insertFromExpenses()).thenReturn(4);
+
+        assertEquals(4, statisticsService.rebuildRollups().join());
+
+        InOrder order = inOrder(expenseRollupRepository);
+        order.verify(expenseRollupRepository).lockForRebuild();
+        order.verify(expenseRollupRepository).deleteAllInBatch();
+        order.verify(expenseRollupRepository).insertFromExpenses();
+        verify(userViewCache).evictAll();
+    }
+
+    private void stubTotals(String email, Expense expense) {
+        String categoryName = expense.getCategory() != null ? expense.getCategory().getName() : null;
+        when(expenseRollupRepository.sumByCategory(email)).thenReturn(List.of(
+                new ExpenseRollupTotal(categoryName, 1L, expense.getAmount())));
+        when(expenseRollupRepository.sumByMonth(email)).thenReturn(List.of(
+                new ExpenseRollupTotal(expense.getDate().withDayOfMonth(1), 1L, expense.getAmount())));
+    }
+
+    private ExpenseSummary toSummary(Expense expense) {
+        return new ExpenseSummary(
+                expense.getId(),
+                expense.getAmount(),
+                expense.getDate(),
+                expense.getDescription(),
+                expense.getCategory() != null ? expense.getCategory().getName() : null
+        );
+    }
 }
@@ -2,7 +2,9 @@ package com.example.aiexpensetracker.core.service;
 
 import com.example.aiexpensetracker.core.model.User;
 import com.example.aiexpensetracker.core.repository.manager.RepositoryManager;
+import com.example.aiexpensetracker.core.repository.rollup.ExpenseRollupRepository;
 import com.example.aiexpensetracker.core.repository.user.UserRepository;
+import com.example.aiexpensetracker.core.service.cache.UserViewCache;
 import com.example.aiexpensetracker.core.service.user.UserServiceImpl;
 import com.example.aiexpensetracker.exception.user.EmailAlreadyInUseException;
 import com.example.aiexpensetracker.exception.user.UserNotFoundException;
@@ -31,6 +33,12 @@ class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ExpenseRollupRepository expenseRollupRepository;
+
+    @Mock
+    private UserViewCache userViewCache;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -40,6 +48,7 @@ class UserServiceImplTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
         when(repositoryManager.getUserRepository()).thenReturn(userRepository);
+        when(repositoryManager.getExpenseRollupRepository()).thenReturn(expenseRollupRepository);
 
         // Create test user
         testUser = new User();
@@ -174,17 +183,17 @@ class UserServiceImplTest {
 
         assertDoesNotThrow(resultFuture::join);
         verify(userRepository, times(1)).delete(testUser);
+        verify(expenseRollupRepository, times(1)).deleteByUserId(testUser.getId());
+        verify(userViewCache, times(1)).evictUser(testUser.getEmail());
     }
 
     @Test
     void testDeleteUser_UserNotFound() {
         when(userRepository.findById(99L)).thenReturn(Optional.empty());
 
-        CompletableFuture<Void> resultFuture = userService.deleteUser(99L);
-
         assertThrows(UserNotFoundException.class, () -> {
             try {
-                resultFuture.join();
+                userService.deleteUser(99L).join();
             } catch (CompletionException ex) {
                 throw (RuntimeException) ex.getCause();
             }
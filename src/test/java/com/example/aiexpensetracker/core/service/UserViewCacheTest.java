@@ -0,0 +1,91 @@
+package com.example.aiexpensetracker.core.service;
+
+import com.example.aiexpensetracker.core.service.cache.UserViewCache;
+import com.example.aiexpensetracker.rest.configuration.CacheConfiguration.CacheConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserViewCacheTest {
+
+    private CaffeineCacheManager cacheManager;
+    private SimpleMeterRegistry meterRegistry;
+    private UserViewCache userViewCache;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CaffeineCacheManager(UserViewCache.STATISTICS, UserViewCache.EXPENSES_BY_CATEGORY);
+        meterRegistry = new SimpleMeterRegistry();
+        userViewCache = new UserViewCache(cacheManager, meterRegistry);
+
+        for (String email : new String[]{"test@example.com", "other@example.com"}) {
+            for (boolean includeExpenses : new boolean[]{true, false}) {
+                cache(UserViewCache.STATISTICS).put(UserViewCache.key(email, includeExpenses), "statistics");
+                cache(UserViewCache.EXPENSES_BY_CATEGORY).put(UserViewCache.key(email, includeExpenses), "groups");
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // --- Test: evictUser ---
+    @Test
+    void testEvictUser_EvictsAllViewsOfThatUserOnly() {
+        userViewCache.evictUser("test@example.com");
+
+        for (String cacheName : new String[]{UserViewCache.STATISTICS, UserViewCache.EXPENSES_BY_CATEGORY}) {
+            assertNull(cache(cacheName).get(UserViewCache.key("test@example.com", true)));
+            assertNull(cache(cacheName).get(UserViewCache.key("test@example.com", false)));
+            assertNotNull(cache(cacheName).get(UserViewCache.key("other@example.com", true)));
+        }
+        assertEquals(1.0, meterRegistry.counter("cache.invalidations").count());
+    }
+
+    @Test
+    void testEvictUser_InTransaction_WaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        userViewCache.evictUser("test@example.com");
+
+        assertNotNull(cache(UserViewCache.STATISTICS).get(UserViewCache.key("test@example.com", true)));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertNull(cache(UserViewCache.STATISTICS).get(UserViewCache.key("test@example.com", true)));
+    }
+
+    // --- Test: evictAll ---
+    @Test
+    void testEvictAll() {
+        userViewCache.evictAll();
+
+        assertNull(cache(UserViewCache.STATISTICS).get(UserViewCache.key("other@example.com", false)));
+        assertNull(cache(UserViewCache.EXPENSES_BY_CATEGORY).get(UserViewCache.key("test@example.com", true)));
+    }
+
+    // --- Test: userViewKeyGenerator ---
+    @Test
+    void testUserViewKeyGenerator_BuildsTheKeysThatAreEvicted() {
+        Object key = new CacheConfiguration().userViewKeyGenerator()
+                .generate(this, null, "test@example.com", true);
+
+        assertEquals(UserViewCache.key("test@example.com", true), key);
+        assertNotNull(cache(UserViewCache.STATISTICS).get(key));
+    }
+
+    private Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+}
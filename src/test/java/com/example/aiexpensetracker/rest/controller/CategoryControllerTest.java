@@ -91,7 +91,7 @@ public class CategoryControllerTest {
         CategorySuggestionResponseDTO suggestionResponse = new CategorySuggestionResponseDTO();
         suggestionResponse.setCategoryName("Groceries");
 
-        when(categoryService.suggestCategory(description, email))
+        when(categoryService.suggestCategory(description, email, false))
                 .thenReturn(CompletableFuture.completedFuture(suggestionResponse));
 
         mockMvc.perform(post("/api/categories/user/suggest/{email}", email)
@@ -100,6 +100,53 @@ public class CategoryControllerTest {
                 .andReturn();
     }
 
+    @Test
+    void testSuggestCategory_Debounced() throws Exception {
+        String email = "john.doe@example.com";
+        String description = "Supermarket shopping";
+
+        when(categoryService.suggestCategory(description, email, true))
+                .thenReturn(CompletableFuture.completedFuture(new CategorySuggestionResponseDTO("Groceries", false, 200)));
+
+        mockMvc.perform(post("/api/categories/user/suggest/{email}", email)
+                        .param("description", description)
+                        .param("debounce", "true"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        verify(categoryService).suggestCategory(description, email, true);
+    }
+
+    @Test
+    void testSuggestCategories() throws Exception {
+        String email = "john.doe@example.com";
+        List<String> descriptions = List.of("Supermarket shopping", "Bus ticket");
+
+        BatchCategorySuggestionDTO batchCategorySuggestionDTO = new BatchCategorySuggestionDTO();
+        batchCategorySuggestionDTO.setDescriptions(descriptions);
+
+        when(categoryService.suggestCategories(descriptions, email))
+                .thenReturn(CompletableFuture.completedFuture(List.of(
+                        new CategorySuggestionResponseDTO("Groceries", false, 200),
+                        new CategorySuggestionResponseDTO("Transport", true, 200))));
+
+        mockMvc.perform(post("/api/categories/user/suggest/{email}/batch", email)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(batchCategorySuggestionDTO)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        verify(categoryService).suggestCategories(descriptions, email);
+    }
+
+    @Test
+    void testSuggestCategories_RejectsAnEmptyBatch() throws Exception {
+        mockMvc.perform(post("/api/categories/user/suggest/{email}/batch", "john.doe@example.com")
+                        .contentType("application/json")
+                        .content("{\"descriptions\": []}"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testCreateCategory() throws Exception {
         String email = "john.doe@example.com";
@@ -1,10 +1,20 @@
 package com.example.aiexpensetracker.rest.controller;
 
 import com.example.aiexpensetracker.core.service.manager.ServiceManager;
+import com.example.aiexpensetracker.core.service.expense.ExpenseExportFormat;
 import com.example.aiexpensetracker.core.service.expense.ExpenseService;
+import com.example.aiexpensetracker.core.service.user.UserService;
+import com.example.aiexpensetracker.exception.ErrorResponse;
+import com.example.aiexpensetracker.exception.GlobalExceptionHandler;
+import com.example.aiexpensetracker.exception.expense.ExpenseImportException;
+import com.example.aiexpensetracker.rest.configuration.AsyncConfiguration.StreamingTimeoutInterceptor;
 import com.example.aiexpensetracker.rest.dto.expense.CreateExpenseDTO;
+import com.example.aiexpensetracker.rest.dto.expense.ExpenseImportResultDTO;
+import com.example.aiexpensetracker.rest.dto.expense.ExpensePageDTO;
 import com.example.aiexpensetracker.rest.dto.expense.ExpenseResponseDTO;
+import com.example.aiexpensetracker.rest.dto.expense.ExpensesByCategoryDTO;
 import com.example.aiexpensetracker.rest.dto.expense.UpdateExpenseDTO;
+import com.example.aiexpensetracker.rest.dto.user.UserResponseDTO;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -13,17 +23,30 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -37,6 +60,9 @@ public class ExpenseControllerTest {
     @Mock
     private ExpenseService expenseService;
 
+    @Mock
+    private UserService userService;
+
     @InjectMocks
     private ExpenseController expenseController;
 
@@ -47,7 +73,10 @@ public class ExpenseControllerTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
         when(serviceManager.getExpenseService()).thenReturn(expenseService);
-        mockMvc = MockMvcBuilders.standaloneSetup(expenseController).build();
+        when(serviceManager.getUserService()).thenReturn(userService);
+        mockMvc = MockMvcBuilders.standaloneSetup(expenseController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
@@ -77,6 +106,113 @@ public class ExpenseControllerTest {
                 .andReturn();
     }
 
+    @Test
+    void testGetExpensesPageByUser() throws Exception {
+        String email = "john.doe@example.com";
+        ExpenseResponseDTO expense = new ExpenseResponseDTO();
+        expense.setId(1L);
+        expense.setAmount(BigDecimal.valueOf(50.0));
+        expense.setDate(LocalDate.now());
+
+        when(expenseService.getExpensesPageByUser(email, "amount", "desc", null, null, "abc", 20))
+                .thenReturn(CompletableFuture.completedFuture(new ExpensePageDTO(List.of(expense), "def")));
+
+        MvcResult result = mockMvc.perform(get("/api/expenses/user/{email}/page", email)
+                        .param("sortBy", "amount")
+                        .param("direction", "desc")
+                        .param("cursor", "abc")
+                        .param("limit", "20"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.next").value("def"))
+                .andExpect(jsonPath("$.expenses[0].id").value(1));
+    }
+
+    @Test
+    void testGetExpensesByCategory_NotModifiedWhenETagMatches() throws Exception {
+        String email = "john.doe@example.com";
+        when(expenseService.getExpensesGroupedByCategory(email, false))
+                .thenReturn(CompletableFuture.completedFuture(
+                        List.of(new ExpensesByCategoryDTO("Food", 2L, BigDecimal.valueOf(30.0)))));
+
+        MvcResult first = mockMvc.perform(get("/api/expenses/user/{email}/by-category", email)
+                        .param("includeExpenses", "false"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String eTag = mockMvc.perform(asyncDispatch(first))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].count").value(2))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+
+        MvcResult second = mockMvc.perform(get("/api/expenses/user/{email}/by-category", email)
+                        .param("includeExpenses", "false")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/" + eTag))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(second))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void testExportExpenses() throws Exception {
+        String email = "john.doe@example.com";
+        when(userService.getUserByEmail(email))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(new UserResponseDTO())));
+        doAnswer(invocation -> {
+            OutputStream outputStream = invocation.getArgument(2);
+            outputStream.write("id,date\r\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(expenseService).exportExpenses(eq(email), eq(ExpenseExportFormat.CSV), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/expenses/user/{email}/export", email).param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // The StreamingResponseBody is written by a second async task, so wait for it before reading the body.
+        MvcResult streamed = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"expenses.csv\""))
+                .andReturn();
+        streamed.getAsyncResult();
+
+        assertEquals("id,date\r\n", streamed.getResponse().getContentAsString());
+        assertEquals(true, streamed.getRequest().getAttribute(StreamingTimeoutInterceptor.LONG_RUNNING_STREAM));
+    }
+
+    @Test
+    void testStreamingTimeoutInterceptor_OnlyExtendsMarkedRequests() {
+        StreamingTimeoutInterceptor interceptor = new StreamingTimeoutInterceptor(Duration.ofMinutes(10));
+        MockHttpServletRequest marked = new MockHttpServletRequest();
+        marked.setAsyncSupported(true);
+        marked.setAttribute(StreamingTimeoutInterceptor.LONG_RUNNING_STREAM, true);
+        StandardServletAsyncWebRequest export = new StandardServletAsyncWebRequest(marked, new MockHttpServletResponse());
+        MockHttpServletRequest unmarked = new MockHttpServletRequest();
+        unmarked.setAsyncSupported(true);
+        StandardServletAsyncWebRequest other = new StandardServletAsyncWebRequest(unmarked, new MockHttpServletResponse());
+        other.setTimeout(30_000L);
+
+        interceptor.beforeConcurrentHandling(export, () -> null);
+        interceptor.beforeConcurrentHandling(other, () -> null);
+        export.startAsync();
+        other.startAsync();
+
+        assertEquals(Duration.ofMinutes(10).toMillis(), marked.getAsyncContext().getTimeout());
+        assertEquals(30_000L, unmarked.getAsyncContext().getTimeout());
+    }
+
+    @Test
+    void testExportExpenses_UnsupportedFormat() throws Exception {
+        mockMvc.perform(get("/api/expenses/user/{email}/export", "john.doe@example.com").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testCreateExpense() throws Exception {
         String email = "john.doe@example.com";
@@ -103,6 +239,47 @@ public class ExpenseControllerTest {
         verify(expenseService).createExpense(any(CreateExpenseDTO.class), eq(email));
     }
 
+    @Test
+    void testImportExpenses_Json() throws Exception {
+        String email = "john.doe@example.com";
+
+        CreateExpenseDTO row = new CreateExpenseDTO();
+        row.setAmount(BigDecimal.valueOf(12.5));
+        row.setDate(LocalDate.of(2025, 1, 1));
+
+        when(expenseService.importExpenses(eq(email), anyList()))
+                .thenReturn(CompletableFuture.completedFuture(new ExpenseImportResultDTO(1)));
+
+        MvcResult result = mockMvc.perform(post("/api/expenses/user/{email}/import", email)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(List.of(row))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.importedCount").value(1));
+    }
+
+    @Test
+    void testImportExpenses_CsvReportsRowErrors() throws Exception {
+        String email = "john.doe@example.com";
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "expenses.csv", "text/csv", "date,amount\n2025-01-01,abc\n".getBytes(StandardCharsets.UTF_8));
+
+        when(expenseService.importExpensesFromCsv(eq(email), any())).thenReturn(CompletableFuture.failedFuture(
+                new ExpenseImportException("Import contains invalid rows.", List.of(
+                        new ErrorResponse.ErrorDetail("rows[1].amount", "Invalid amount 'abc'.")))));
+
+        MvcResult result = mockMvc.perform(multipart("/api/expenses/user/{email}/import", email).file(file))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.details[0].field").value("rows[1].amount"));
+    }
+
     @Test
     void testUpdateExpense() throws Exception {
         String email = "john.doe@example.com";
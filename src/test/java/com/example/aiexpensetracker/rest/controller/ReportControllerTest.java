@@ -1,28 +1,29 @@
 package com.example.aiexpensetracker.rest.controller;
 
-import com.example.aiexpensetracker.core.api.mailsender.MailSender;
+import com.example.aiexpensetracker.core.model.ReportPeriod;
 import com.example.aiexpensetracker.core.service.manager.ServiceManager;
-import com.example.aiexpensetracker.core.service.report.ReportService;
-import com.example.aiexpensetracker.rest.dto.report.UserReportResponseDTO;
+import com.example.aiexpensetracker.core.service.report.ReportJobService;
+import com.example.aiexpensetracker.exception.GlobalExceptionHandler;
+import com.example.aiexpensetracker.exception.report.ReportJobNotFoundException;
+import com.example.aiexpensetracker.rest.dto.report.ReportJobDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.Collections;
-import java.util.List;
+import java.time.LocalDateTime;
 import java.util.concurrent.CompletableFuture;
 
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 public class ReportControllerTest {
 
@@ -30,12 +31,8 @@ public class ReportControllerTest {
     private ServiceManager serviceManager;
 
     @Mock
-    private MailSender mailSender;
+    private ReportJobService reportJobService;
 
-    @Mock
-    private ReportService reportService;
-
-    @InjectMocks
     private ReportController reportController;
 
     private MockMvc mockMvc;
@@ -43,49 +40,136 @@ public class ReportControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        when(serviceManager.getReportService()).thenReturn(reportService);
-        reportController = new ReportController(serviceManager, mailSender);
-        mockMvc = MockMvcBuilders.standaloneSetup(reportController).build();
+        when(serviceManager.getReportJobService()).thenReturn(reportJobService);
+        reportController = new ReportController(serviceManager);
+        mockMvc = MockMvcBuilders.standaloneSetup(reportController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
 
         // Set the apiKey using reflection
         ReflectionTestUtils.setField(reportController, "apiKey", "TEST_API_KEY");
     }
 
     @Test
-    void testGenerateAndSendMonthlyReports_withValidApiKey() throws Exception {
-        // Arrange: Mock the ReportService to return a completed CompletableFuture with a list of UserReportResponseDTO
-        UserReportResponseDTO mockReport = new UserReportResponseDTO(
-                "john.doe@example.com",
-                Collections.emptyList(),
-                BigDecimal.valueOf(100),
-                Collections.emptyList()
-        );
-
-        when(reportService.generateReportsForAllUsers(any(LocalDate.class), any(LocalDate.class)))
-                .thenReturn(CompletableFuture.completedFuture(List.of(mockReport)));
-
-        // Act & Assert
-        mockMvc.perform(get("/api/reports/monthly")
+    void testStartReportJob_returnsAcceptedWithLocation() throws Exception {
+        when(reportJobService.startJob(ReportPeriod.WEEKLY))
+                .thenReturn(CompletableFuture.completedFuture(job(7L, ReportPeriod.WEEKLY, "RUNNING")));
+
+        MvcResult result = mockMvc.perform(post("/api/reports/jobs")
+                        .param("period", "weekly")
+                        .header("X-API-KEY", "TEST_API_KEY"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/reports/jobs/7"))
+                .andExpect(jsonPath("$.id").value(7))
+                .andExpect(jsonPath("$.period").value("WEEKLY"))
+                .andExpect(jsonPath("$.status").value("RUNNING"));
+    }
+
+    @Test
+    void testStartReportJob_invalidPeriod() throws Exception {
+        mockMvc.perform(post("/api/reports/jobs")
+                        .param("period", "daily")
+                        .header("X-API-KEY", "TEST_API_KEY"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid Period"))
+                .andExpect(jsonPath("$.details[0].field").value("period"));
+        verifyNoInteractions(reportJobService);
+    }
+
+    @Test
+    void testGenerateAndSendMonthlyReports_startsMonthlyJob() throws Exception {
+        when(reportJobService.startJob(ReportPeriod.MONTHLY))
+                .thenReturn(CompletableFuture.completedFuture(job(1L, ReportPeriod.MONTHLY, "RUNNING")));
+
+        MvcResult result = mockMvc.perform(get("/api/reports/monthly")
+                        .header("X-API-KEY", "TEST_API_KEY"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/reports/jobs/1"))
+                .andExpect(jsonPath("$.period").value("MONTHLY"));
+    }
+
+    @Test
+    void testGenerateAndSendWeeklyReports_startsWeeklyJob() throws Exception {
+        when(reportJobService.startJob(ReportPeriod.WEEKLY))
+                .thenReturn(CompletableFuture.completedFuture(job(2L, ReportPeriod.WEEKLY, "RUNNING")));
+
+        MvcResult result = mockMvc.perform(get("/api/reports/weekly")
                         .header("X-API-KEY", "TEST_API_KEY"))
-                .andExpect(status().isOk());
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isAccepted());
+        verify(reportJobService).startJob(ReportPeriod.WEEKLY);
     }
 
     @Test
-    void testGenerateAndSendWeeklyReports_withValidApiKey() throws Exception {
-        // Arrange: Mock the ReportService to return a completed CompletableFuture with a list of UserReportResponseDTO
-        UserReportResponseDTO mockReport = new UserReportResponseDTO(
-                "jane.doe@example.com",
-                Collections.emptyList(),
-                BigDecimal.valueOf(200),
-                Collections.emptyList()
-        );
-
-        when(reportService.generateReportsForAllUsers(any(LocalDate.class), any(LocalDate.class)))
-                .thenReturn(CompletableFuture.completedFuture(List.of(mockReport)));
-
-        // Act & Assert
-        mockMvc.perform(get("/api/reports/weekly")
+    void testGetReportJob() throws Exception {
+        ReportJobDTO job = job(3L, ReportPeriod.MONTHLY, "COMPLETED");
+        job.setReportsSent(40);
+        job.setFailures(2);
+        when(reportJobService.getJob(3L)).thenReturn(CompletableFuture.completedFuture(job));
+
+        MvcResult result = mockMvc.perform(get("/api/reports/jobs/3")
                         .header("X-API-KEY", "TEST_API_KEY"))
-                .andExpect(status().isOk());
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.reportsSent").value(40))
+                .andExpect(jsonPath("$.failures").value(2));
+    }
+
+    @Test
+    void testGetReportJob_notFound() throws Exception {
+        when(reportJobService.getJob(99L)).thenReturn(CompletableFuture.failedFuture(
+                new ReportJobNotFoundException("Report job with ID 99 not found.")));
+
+        MvcResult result = mockMvc.perform(get("/api/reports/jobs/99")
+                        .header("X-API-KEY", "TEST_API_KEY"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Report Job Not Found"));
+    }
+
+    @Test
+    void testGenerateAndSendMonthlyReports_withInvalidApiKey() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/reports/monthly")
+                        .header("X-API-KEY", "WRONG"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(reportJobService);
+    }
+
+    @Test
+    void testGetReportJob_withInvalidApiKey() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/reports/jobs/3")
+                        .header("X-API-KEY", "WRONG"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(reportJobService);
+    }
+
+    private ReportJobDTO job(Long id, ReportPeriod period, String status) {
+        LocalDate today = LocalDate.now();
+        return new ReportJobDTO(id, period.name(), period.startDate(today), period.endDate(today), status,
+                42, 0, 0, 0, 0, 0, LocalDateTime.now(), LocalDateTime.now(), null, null);
     }
 }
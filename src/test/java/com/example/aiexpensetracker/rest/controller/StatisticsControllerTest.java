@@ -1,7 +1,9 @@
 package com.example.aiexpensetracker.rest.controller;
 
 import com.example.aiexpensetracker.core.service.manager.ServiceManager;
+import com.example.aiexpensetracker.core.service.statistics.StatisticsGranularity;
 import com.example.aiexpensetracker.core.service.statistics.StatisticsService;
+import com.example.aiexpensetracker.exception.GlobalExceptionHandler;
 import com.example.aiexpensetracker.rest.dto.statistics.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -11,18 +13,30 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 public class StatisticsControllerTest {
@@ -48,9 +62,12 @@ public class StatisticsControllerTest {
 
         // Initialize the controller with the mocked ServiceManager
         statisticsController = new StatisticsController(serviceManager);
+        ReflectionTestUtils.setField(statisticsController, "apiKey", "TEST_API_KEY");
 
         // Build a standalone MockMvc instance for testing
-        mockMvc = MockMvcBuilders.standaloneSetup(statisticsController).build();
+        mockMvc = MockMvcBuilders.standaloneSetup(statisticsController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
 
         // Configure the ObjectMapper for handling date/time serialization properly
         objectMapper = new ObjectMapper();
@@ -75,7 +92,7 @@ public class StatisticsControllerTest {
         );
 
         // Mock the service call
-        when(statisticsService.getStatisticsForUser(userEmail))
+        when(statisticsService.getStatisticsForUser(userEmail, true))
                 .thenReturn(CompletableFuture.completedFuture(mockStatistics));
 
         // Act
@@ -83,6 +100,136 @@ public class StatisticsControllerTest {
                 .andExpect(status().isOk())
                 .andReturn();
 
-        verify(statisticsService).getStatisticsForUser(eq(userEmail));
+        verify(statisticsService).getStatisticsForUser(eq(userEmail), eq(true));
+    }
+
+    @Test
+    void testGetStatistics_WithoutExpenses() throws Exception {
+        String userEmail = "john.doe@example.com";
+        CategoryStatisticsDTO categoryStat = new CategoryStatisticsDTO("Groceries", 2, BigDecimal.valueOf(20.00), null);
+        MonthlyStatisticsDTO monthlyStat = new MonthlyStatisticsDTO("2025-01", 2, BigDecimal.valueOf(20.00), null);
+
+        when(statisticsService.getStatisticsForUser(userEmail, false))
+                .thenReturn(CompletableFuture.completedFuture(new StatisticsResponseDTO(
+                        Collections.singletonList(categoryStat), Collections.singletonList(monthlyStat))));
+
+        MvcResult result = mockMvc.perform(get("/api/statistics/user/{email}", userEmail)
+                        .param("includeExpenses", "false"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categoryStatistics[0].count").value(2))
+                .andExpect(jsonPath("$.categoryStatistics[0].expenses").doesNotExist())
+                .andExpect(jsonPath("$.monthlyStatistics[0].totalAmount").value(20.0));
+
+        verify(statisticsService).getStatisticsForUser(eq(userEmail), eq(false));
+    }
+
+    @Test
+    void testGetStatistics_NotModifiedWhenETagMatches() throws Exception {
+        String userEmail = "john.doe@example.com";
+        CategoryStatisticsDTO categoryStat = new CategoryStatisticsDTO("Groceries", 1, BigDecimal.valueOf(20.00), null);
+        when(statisticsService.getStatisticsForUser(userEmail, false))
+                .thenReturn(CompletableFuture.completedFuture(new StatisticsResponseDTO(
+                        Collections.singletonList(categoryStat), Collections.emptyList())));
+
+        MvcResult first = mockMvc.perform(get("/api/statistics/user/{email}", userEmail)
+                        .param("includeExpenses", "false"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String eTag = mockMvc.perform(asyncDispatch(first))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        MvcResult second = mockMvc.perform(get("/api/statistics/user/{email}", userEmail)
+                        .param("includeExpenses", "false")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(second))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+
+        // A different body gets a different ETag, so the stale one no longer matches.
+        categoryStat.setTotalAmount(BigDecimal.valueOf(25.00));
+        MvcResult third = mockMvc.perform(get("/api/statistics/user/{email}", userEmail)
+                        .param("includeExpenses", "false")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(third))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categoryStatistics[0].totalAmount").value(25.0));
+    }
+
+    @Test
+    void testGetStatisticsSeries() throws Exception {
+        String userEmail = "john.doe@example.com";
+        LocalDate from = LocalDate.of(2025, 1, 6);
+        LocalDate to = LocalDate.of(2025, 1, 19);
+        StatisticsSeriesDTO series = new StatisticsSeriesDTO(from, to, "week", 3L, 1, BigDecimal.TEN, List.of(
+                new StatisticsBucketDTO(from, 1, BigDecimal.TEN),
+                new StatisticsBucketDTO(from.plusWeeks(1), 0, BigDecimal.ZERO)));
+
+        when(statisticsService.getStatisticsSeries(userEmail, from, to, StatisticsGranularity.WEEK, 3L))
+                .thenReturn(CompletableFuture.completedFuture(series));
+
+        MvcResult result = mockMvc.perform(get("/api/statistics/user/{email}/series", userEmail)
+                        .param("from", "2025-01-06")
+                        .param("to", "2025-01-19")
+                        .param("granularity", "WEEK")
+                        .param("category", "3"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.buckets.length()").value(2))
+                .andExpect(jsonPath("$.buckets[1].count").value(0));
+    }
+
+    @Test
+    void testGetStatisticsSeries_UnsupportedGranularity() throws Exception {
+        mockMvc.perform(get("/api/statistics/user/{email}/series", "john.doe@example.com")
+                        .param("from", "2025-01-01")
+                        .param("to", "2025-01-31")
+                        .param("granularity", "hour"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.details[0].field").value("granularity"));
+
+        verify(statisticsService, never()).getStatisticsSeries(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testRebuildRollups_withValidApiKey() throws Exception {
+        when(statisticsService.rebuildRollups()).thenReturn(CompletableFuture.completedFuture(12));
+
+        MvcResult result = mockMvc.perform(post("/api/statistics/rollups/rebuild")
+                        .header("X-API-KEY", "TEST_API_KEY"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Rebuilt 12 expense rollups."));
+    }
+
+    @Test
+    void testRebuildRollups_withInvalidApiKey() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/statistics/rollups/rebuild")
+                        .header("X-API-KEY", "WRONG_KEY"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isForbidden());
+        verify(statisticsService, never()).rebuildRollups();
     }
 }